@@ -0,0 +1,217 @@
+package com.pocketfolio.backend.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pocketfolio.backend.dto.websocket.PriceUpdateMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 價格推送的精簡編碼（客戶端 CONNECT 時帶 x-price-encoding: compact 才啟用，預設仍為 JSON）
+ *
+ * 送到 /topic/prices/** 的 PriceUpdateMessage 改寫成 JSON 陣列，每個 session 各自維護代號字典：
+ * - 一般 frame：[id, newPrice, oldPrice, dt]
+ * - 字典 frame（該代號第一次送出，或價格需要更多小數位時）：
+ *   [id, newPrice, oldPrice, dt, symbol, assetName, scale, baseMillis]，並帶 x-price-dict header
+ *
+ * 價格為 price × 10^scale 的整數（scale 依代號記在字典，最多 8 位），
+ * dt 為 updateTime 相對 baseMillis（連線時間，epoch 毫秒）的毫秒數；變動金額 / 百分比由客戶端計算。
+ *
+ * 同時註冊在 inbound（記錄協商結果）與 outbound（改寫 frame）channel；
+ * outbound 需維持每個 session 的送出順序（WebSocketConfig 的 preservePublishOrder），字典 frame 才會先於引用它的 frame。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CompactPriceFrameInterceptor implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "x-price-encoding";
+    public static final String COMPACT_ENCODING = "compact";
+    public static final String DICTIONARY_HEADER = "x-price-dict";
+    public static final MimeType COMPACT_CONTENT_TYPE = new MimeType("application", "vnd.pocketfolio.price+json");
+
+    static final int MAX_SCALE = 8;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, SessionDictionary> sessions = new ConcurrentHashMap<>();
+
+    // simple broker 送給每個訂閱者的是同一個 payload，只解析一次
+    private final AtomicReference<Decoded> lastDecoded = new AtomicReference<>();
+
+    private record Decoded(byte[] payload, PriceUpdateMessage update) {
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (type == null || sessionId == null) return message;
+
+        if (type == SimpMessageType.CONNECT) {
+            negotiate(message, sessionId);
+            return message;
+        }
+        if (type == SimpMessageType.MESSAGE) {
+            SessionDictionary dictionary = sessions.get(sessionId);
+            String destination = SimpMessageHeaderAccessor.getDestination(headers);
+            if (dictionary != null && destination != null
+                    && destination.startsWith(OutboundQueueSessionDecorator.PRICE_DESTINATION_PREFIX)
+                    && message.getPayload() instanceof byte[] payload) {
+                return encode(message, payload, dictionary);
+            }
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    boolean isCompact(String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    // ── Helper: 協商 ──
+
+    private void negotiate(Message<?> message, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (COMPACT_ENCODING.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+            sessions.put(sessionId, new SessionDictionary(System.currentTimeMillis()));
+            log.debug("WebSocket session {} 使用精簡價格編碼", sessionId);
+        }
+    }
+
+    // ── Helper: 編碼 ──
+
+    private Message<?> encode(Message<?> message, byte[] payload, SessionDictionary dictionary) {
+        PriceUpdateMessage update = decode(payload);
+        if (update == null || update.getSymbol() == null || update.getNewPrice() == null) return message;
+
+        CompactFrame frame = dictionary.encode(update);
+        if (frame == null) return message;  // 價格超出 long 範圍：維持 JSON
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(frame.fields());
+        } catch (JsonProcessingException e) {
+            log.error("精簡價格編碼失敗: {} {}", update.getSymbol(), e.getMessage());
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(COMPACT_CONTENT_TYPE);
+        if (frame.dictionary()) {
+            accessor.setNativeHeader(DICTIONARY_HEADER, "1");
+        }
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+
+    private PriceUpdateMessage decode(byte[] payload) {
+        Decoded cached = lastDecoded.get();
+        if (cached != null && cached.payload() == payload) return cached.update();
+
+        try {
+            PriceUpdateMessage update = objectMapper.readValue(payload, PriceUpdateMessage.class);
+            lastDecoded.set(new Decoded(payload, update));
+            return update;
+        } catch (IOException e) {
+            log.debug("價格 frame 無法解析，維持 JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 編碼結果：陣列欄位與是否為字典 frame
+     */
+    record CompactFrame(List<Object> fields, boolean dictionary) {
+    }
+
+    /**
+     * 單一 session 的代號字典
+     */
+    static final class SessionDictionary {
+
+        private final long baseMillis;
+        private final Map<String, Entry> entries = new HashMap<>();
+        private int nextId;
+
+        private record Entry(int id, int scale) {
+        }
+
+        SessionDictionary(long baseMillis) {
+            this.baseMillis = baseMillis;
+        }
+
+        synchronized CompactFrame encode(PriceUpdateMessage update) {
+            String symbol = update.getSymbol().toUpperCase();
+            BigDecimal newPrice = update.getNewPrice();
+            BigDecimal oldPrice = update.getOldPrice() != null ? update.getOldPrice() : newPrice;
+            int scale = Math.max(requiredScale(newPrice), requiredScale(oldPrice));
+
+            Entry entry = entries.get(symbol);
+            boolean define = entry == null || entry.scale() < scale;
+            if (define) {
+                entry = new Entry(entry != null ? entry.id() : nextId++, scale);
+            }
+
+            List<Object> fields = new ArrayList<>(8);
+            try {
+                fields.add(entry.id());
+                fields.add(scaled(newPrice, entry.scale()));
+                fields.add(scaled(oldPrice, entry.scale()));
+            } catch (ArithmeticException e) {
+                return null;
+            }
+            fields.add(relativeMillis(update));
+
+            if (define) {
+                entries.put(symbol, entry);
+                fields.add(symbol);
+                fields.add(update.getAssetName());
+                fields.add(entry.scale());
+                fields.add(baseMillis);
+            }
+            return new CompactFrame(fields, define);
+        }
+
+        private long relativeMillis(PriceUpdateMessage update) {
+            long epochMillis = update.getUpdateTime() != null
+                    ? update.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : System.currentTimeMillis();
+            return epochMillis - baseMillis;
+        }
+
+        private static int requiredScale(BigDecimal price) {
+            return Math.max(0, Math.min(price.stripTrailingZeros().scale(), MAX_SCALE));
+        }
+
+        private static long scaled(BigDecimal price, int scale) {
+            return price.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.pocketfolio.backend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * 直接交給本機 broker（simple broker 或 STOMP broker relay）
+ */
+@RequiredArgsConstructor
+public class LocalWebSocketMessageRelay implements WebSocketMessageRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+    }
+
+    @Override
+    public void sendToUser(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload);
+    }
+
+    @Override
+    public void sendToUserLocally(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload);
+    }
+}
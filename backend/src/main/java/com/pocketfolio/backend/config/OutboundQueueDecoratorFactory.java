@@ -0,0 +1,131 @@
+package com.pocketfolio.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 為每個 WebSocket session 套上 OutboundQueueSessionDecorator
+ *
+ * 由 WebSocketConfig 註冊到 transport；同時提供送出佇列的計量：
+ * 合併 / 丟棄的價格 frame 數、被斷線的慢速消費者數、目前所有 session 佇列中的 frame 總數。
+ */
+@Component
+public class OutboundQueueDecoratorFactory
+        implements WebSocketHandlerDecoratorFactory, OutboundQueueSessionDecorator.OutboundQueueListener {
+
+    // 每個 session 最多暫存的 frame 數（價格 frame 依代號合併，所以通常遠低於此值）
+    @Value("${websocket.session.max-queued-messages:100}")
+    private int maxQueuedMessages = 100;
+
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private long sendTimeLimitMillis = 10000;
+
+    // 寫入 socket 的執行緒數；每個 session 同時最多佔用一條
+    @Value("${websocket.session.send-threads:4}")
+    private int sendThreads = 4;
+
+    private final Counter conflatedCounter;
+    private final Counter droppedCounter;
+    private final Counter evictedCounter;
+
+    private final Map<String, OutboundQueueSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private volatile ExecutorService sendExecutor;
+
+    public OutboundQueueDecoratorFactory(MeterRegistry meterRegistry) {
+        this.conflatedCounter = Counter.builder("pocketfolio.websocket.outbound.dropped")
+                .tag("reason", "conflated")
+                .description("送出前被同代號新報價取代的價格 frame")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("pocketfolio.websocket.outbound.dropped")
+                .tag("reason", "overflow")
+                .description("送出佇列已滿而丟棄的最舊價格 frame")
+                .register(meterRegistry);
+        this.evictedCounter = Counter.builder("pocketfolio.websocket.slow-consumers.evicted")
+                .description("因送出佇列滿或寫入逾時而被斷線的 session")
+                .register(meterRegistry);
+        Gauge.builder("pocketfolio.websocket.outbound.queued", sessions,
+                        s -> s.values().stream().mapToInt(OutboundQueueSessionDecorator::queuedCount).sum())
+                .description("所有 session 送出佇列中的 frame 總數")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                OutboundQueueSessionDecorator decorated = new OutboundQueueSessionDecorator(
+                        session, maxQueuedMessages, sendTimeLimitMillis, executor(), OutboundQueueDecoratorFactory.this);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public void onConflated(String sessionId) {
+        conflatedCounter.increment();
+    }
+
+    @Override
+    public void onDropped(String sessionId) {
+        droppedCounter.increment();
+    }
+
+    @Override
+    public void onEvicted(String sessionId, String reason) {
+        evictedCounter.increment();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sendExecutor != null) {
+            sendExecutor.shutdownNow();
+        }
+    }
+
+    // ── Helper: 送出執行緒（第一個連線建立時才啟動）──
+
+    private ExecutorService executor() {
+        ExecutorService executor = sendExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                if (sendExecutor == null) {
+                    AtomicInteger seq = new AtomicInteger();
+                    // 每個 session 同時最多一個排隊中的工作，佇列長度受 session 數限制
+                    sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0, TimeUnit.MILLISECONDS,
+                            new LinkedBlockingQueue<>(), runnable -> {
+                                Thread thread = new Thread(runnable, "ws-send-" + seq.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                }
+                executor = sendExecutor;
+            }
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,285 @@
+package com.pocketfolio.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 每個 WebSocket session 的有上限送出佇列
+ *
+ * sendMessage 只把 frame 放進佇列就返回，實際寫入由共用的 executor 依序送出，
+ * 送出慢的 session 不會卡住 broker 的 outbound 執行緒，也不會在 Spring 的 session buffer 累積。
+ *
+ * 價格 frame（/topic/prices/**）依目的地合併：佇列中已有同一代號的 frame 時直接以新的取代；
+ * 同一代號的字典 frame 排入後，之後的 frame 改排在字典 frame 之後，不再取代它之前的 frame。
+ * 佇列超過上限時丟棄最舊的價格 frame；沒有價格 frame 可丟，或單次寫入超過 send-time-limit，
+ * 視為慢速消費者，關閉連線（客戶端重連後重新訂閱即可取得最新狀態）。
+ */
+@Slf4j
+public class OutboundQueueSessionDecorator extends WebSocketSessionDecorator {
+
+    static final String PRICE_DESTINATION_PREFIX = "/topic/prices/";
+
+    private static final String DESTINATION_HEADER = "\ndestination:";
+
+    // 精簡價格編碼的字典 frame 不可合併或丟棄，否則之後引用該代號的 frame 無法解碼
+    private static final String DICTIONARY_HEADER = "\n" + CompactPriceFrameInterceptor.DICTIONARY_HEADER + ":";
+
+    private final int maxQueuedMessages;
+    private final long sendTimeLimitMillis;
+    private final Executor sendExecutor;
+    private final OutboundQueueListener listener;
+
+    // 以下兩者由 queue 本身鎖定
+    private final Deque<Outbound> queue = new ArrayDeque<>();
+    private final Map<String, Outbound> queuedPrices = new HashMap<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile long sendStartedAt;
+    private volatile boolean evicted;
+
+    /**
+     * 丟棄與驅逐的通知（計量用）
+     */
+    public interface OutboundQueueListener {
+
+        void onConflated(String sessionId);
+
+        void onDropped(String sessionId);
+
+        void onEvicted(String sessionId, String reason);
+    }
+
+    private static final class Outbound {
+        private WebSocketMessage<?> message;
+        private final String priceDestination;
+
+        private Outbound(WebSocketMessage<?> message, String priceDestination) {
+            this.message = message;
+            this.priceDestination = priceDestination;
+        }
+    }
+
+    public OutboundQueueSessionDecorator(WebSocketSession delegate,
+                                         int maxQueuedMessages,
+                                         long sendTimeLimitMillis,
+                                         Executor sendExecutor,
+                                         OutboundQueueListener listener) {
+        super(delegate);
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendExecutor = sendExecutor;
+        this.listener = listener;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (evicted) return;
+
+        PriceFrame frame = priceFrame(message);
+        String priceDestination = conflatable(frame);
+        boolean overflow = false;
+        synchronized (queue) {
+            if (frame != null && frame.dictionary()) {
+                // 字典 frame 之前的同代號 frame 不可再被取代：之後的 frame 引用新字典，必須排在字典 frame 之後
+                queuedPrices.remove(frame.destination());
+            }
+            Outbound queued = priceDestination != null ? queuedPrices.get(priceDestination) : null;
+            if (queued != null) {
+                // 同一代號尚未送出：保留佇列位置，只換成最新的 frame
+                queued.message = message;
+                listener.onConflated(getId());
+            } else {
+                Outbound outbound = new Outbound(message, priceDestination);
+                queue.addLast(outbound);
+                if (priceDestination != null) {
+                    queuedPrices.put(priceDestination, outbound);
+                }
+                if (queue.size() > maxQueuedMessages) {
+                    overflow = !dropOldestPrice();
+                }
+            }
+        }
+
+        if (overflow) {
+            evict("送出佇列已滿（" + maxQueuedMessages + "）");
+            return;
+        }
+        if (isSendTimeLimitExceeded()) {
+            evict("單次送出超過 " + sendTimeLimitMillis + " ms");
+            return;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * 目前佇列中的 frame 數
+     */
+    public int queuedCount() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public boolean isEvicted() {
+        return evicted;
+    }
+
+    // ── Helper: 送出 ──
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                sendExecutor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                evict("送出執行緒無法排程: " + e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Outbound next;
+            while (!evicted && (next = poll()) != null) {
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(next.message);
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("WebSocket 送出失敗，關閉 session {}: {}", getId(), e.getMessage());
+            evict("送出失敗: " + e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+
+        // 釋放旗標後才放進佇列的 frame 由這裡補送
+        if (!evicted && queuedCount() > 0) {
+            scheduleDrain();
+        }
+    }
+
+    private Outbound poll() {
+        synchronized (queue) {
+            Outbound outbound = queue.pollFirst();
+            if (outbound != null && outbound.priceDestination != null) {
+                queuedPrices.remove(outbound.priceDestination, outbound);
+            }
+            return outbound;
+        }
+    }
+
+    /**
+     * 丟棄佇列中最舊的價格 frame；沒有可丟的時回傳 false
+     */
+    private boolean dropOldestPrice() {
+        Iterator<Outbound> it = queue.iterator();
+        while (it.hasNext()) {
+            Outbound outbound = it.next();
+            if (outbound.priceDestination != null) {
+                it.remove();
+                queuedPrices.remove(outbound.priceDestination, outbound);
+                listener.onDropped(getId());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSendTimeLimitExceeded() {
+        long startedAt = sendStartedAt;
+        return startedAt > 0 && System.currentTimeMillis() - startedAt > sendTimeLimitMillis;
+    }
+
+    private void evict(String reason) {
+        synchronized (queue) {
+            if (evicted) return;
+            evicted = true;
+            queue.clear();
+            queuedPrices.clear();
+        }
+
+        log.warn("WebSocket 慢速消費者已斷線: session={} ({})", getId(), reason);
+        listener.onEvicted(getId(), reason);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.debug("關閉 session {} 失敗: {}", getId(), e.getMessage());
+        }
+    }
+
+    // ── Helper: STOMP frame 解析 ──
+
+    /**
+     * 可合併的價格 MESSAGE frame 的目的地；其他 frame（含精簡編碼的字典 frame）回傳 null
+     */
+    static String priceDestination(WebSocketMessage<?> message) {
+        return conflatable(priceFrame(message));
+    }
+
+    private static String conflatable(PriceFrame frame) {
+        return frame != null && !frame.dictionary() ? frame.destination() : null;
+    }
+
+    /**
+     * 價格 MESSAGE frame（/topic/prices/**）的目的地與是否為字典 frame；其他 frame 回傳 null
+     *
+     * 只讀 header 區（第一個空行之前），不解析 body。
+     */
+    static PriceFrame priceFrame(WebSocketMessage<?> message) {
+        String header;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            int end = payload.indexOf("\n\n");
+            header = end >= 0 ? payload.substring(0, end) : payload;
+        } else if (message instanceof BinaryMessage binary) {
+            header = binaryHeader(binary.getPayload());
+        } else {
+            return null;
+        }
+
+        if (!header.startsWith("MESSAGE\n")) return null;
+        int start = header.indexOf(DESTINATION_HEADER);
+        if (start < 0) return null;
+        start += DESTINATION_HEADER.length();
+        int end = header.indexOf('\n', start);
+        String destination = end >= 0 ? header.substring(start, end) : header.substring(start);
+        if (!destination.startsWith(PRICE_DESTINATION_PREFIX)) return null;
+        return new PriceFrame(destination, header.contains(DICTIONARY_HEADER));
+    }
+
+    record PriceFrame(String destination, boolean dictionary) {
+    }
+
+    private static String binaryHeader(ByteBuffer payload) {
+        ByteBuffer buffer = payload.duplicate();
+        int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit - 1; i++) {
+            if (buffer.get(i) == '\n' && buffer.get(i + 1) == '\n') {
+                limit = i;
+                break;
+            }
+        }
+        byte[] bytes = new byte[limit - buffer.position()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,165 @@
+package com.pocketfolio.backend.config;
+
+import com.pocketfolio.backend.dto.PriceData;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * prices 快取專用的二進位序列化
+ *
+ * 固定欄位順序，不寫入類別名稱與型別包裝，一筆台股報價約 55 bytes（JSON 約 190 bytes）：
+ * <pre>
+ * magic(1) version(1) flags(1)
+ * symbol(str) price: scale(2) + unscaled(8 或 len(2)+bytes) currency(str)
+ * updateTime: epochSecond(8) + nano(4) source(str)
+ * str = len(2) + UTF-8 bytes
+ * </pre>
+ * 讀取時會自動辨識舊的 JSON 內容，切換格式不需要先清空 Redis；
+ * 設定 cache.prices.serializer=json 則寫入也改回 JSON。
+ */
+public class PriceDataRedisSerializer implements RedisSerializer<PriceData> {
+
+    // JSON 一定以可見 ASCII 字元開頭，用 0xFE 區分兩種格式
+    static final byte MAGIC = (byte) 0xFE;
+    static final byte VERSION = 1;
+
+    // flags：null 欄位與大數價格標記
+    private static final int HAS_SYMBOL = 1;
+    private static final int HAS_PRICE = 1 << 1;
+    private static final int HAS_CURRENCY = 1 << 2;
+    private static final int HAS_UPDATE_TIME = 1 << 3;
+    private static final int HAS_SOURCE = 1 << 4;
+    private static final int BIG_UNSCALED = 1 << 5;
+
+    private final boolean writeJson;
+    private final RedisSerializer<Object> jsonSerializer;
+
+    public PriceDataRedisSerializer(boolean writeJson, RedisSerializer<Object> jsonSerializer) {
+        this.writeJson = writeJson;
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    @Override
+    public byte[] serialize(PriceData data) throws SerializationException {
+        if (data == null) return null;
+        if (writeJson) return jsonSerializer.serialize(data);
+
+        byte[] symbol = utf8(data.getSymbol());
+        byte[] currency = utf8(data.getCurrency());
+        byte[] source = utf8(data.getSource());
+        BigDecimal price = data.getPrice();
+        LocalDateTime updateTime = data.getUpdateTime();
+
+        int flags = 0;
+        int size = 3;
+        if (symbol != null) { flags |= HAS_SYMBOL; size += 2 + symbol.length; }
+        if (currency != null) { flags |= HAS_CURRENCY; size += 2 + currency.length; }
+        if (source != null) { flags |= HAS_SOURCE; size += 2 + source.length; }
+        if (updateTime != null) { flags |= HAS_UPDATE_TIME; size += 12; }
+
+        byte[] bigUnscaled = null;
+        if (price != null) {
+            flags |= HAS_PRICE;
+            size += 2;
+            BigInteger unscaled = price.unscaledValue();
+            if (unscaled.bitLength() < 64) {
+                size += 8;
+            } else {
+                flags |= BIG_UNSCALED;
+                bigUnscaled = unscaled.toByteArray();
+                size += 2 + bigUnscaled.length;
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(MAGIC).put(VERSION).put((byte) flags);
+        if (symbol != null) putBytes(buf, symbol);
+        if (price != null) {
+            buf.putShort((short) price.scale());
+            if (bigUnscaled == null) {
+                buf.putLong(price.unscaledValue().longValue());
+            } else {
+                putBytes(buf, bigUnscaled);
+            }
+        }
+        if (currency != null) putBytes(buf, currency);
+        if (updateTime != null) {
+            buf.putLong(updateTime.toEpochSecond(ZoneOffset.UTC));
+            buf.putInt(updateTime.getNano());
+        }
+        if (source != null) putBytes(buf, source);
+        return buf.array();
+    }
+
+    @Override
+    public PriceData deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) return null;
+
+        // 非二進位格式（舊的 JSON 快取）交給 JSON 序列化器
+        if (bytes[0] != MAGIC) {
+            Object value = jsonSerializer.deserialize(bytes);
+            if (value instanceof PriceData priceData) return priceData;
+            throw new SerializationException("prices 快取內容不是 PriceData: "
+                    + (value != null ? value.getClass().getName() : "null"));
+        }
+
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            buf.get();
+            byte version = buf.get();
+            if (version != VERSION) {
+                throw new SerializationException("不支援的 PriceData 版本: " + version);
+            }
+            int flags = buf.get();
+
+            PriceData data = new PriceData();
+            if ((flags & HAS_SYMBOL) != 0) data.setSymbol(getString(buf));
+            if ((flags & HAS_PRICE) != 0) {
+                int scale = buf.getShort();
+                BigInteger unscaled = (flags & BIG_UNSCALED) != 0
+                        ? new BigInteger(getBytes(buf))
+                        : BigInteger.valueOf(buf.getLong());
+                data.setPrice(new BigDecimal(unscaled, scale));
+            }
+            if ((flags & HAS_CURRENCY) != 0) data.setCurrency(getString(buf));
+            if ((flags & HAS_UPDATE_TIME) != 0) {
+                long epochSecond = buf.getLong();
+                int nano = buf.getInt();
+                data.setUpdateTime(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+            }
+            if ((flags & HAS_SOURCE) != 0) data.setSource(getString(buf));
+            return data;
+        } catch (BufferUnderflowException e) {
+            throw new SerializationException("PriceData 二進位內容不完整", e);
+        }
+    }
+
+    // ────────────── Helper ──────────────
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putBytes(ByteBuffer buf, byte[] bytes) {
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buf) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    private static String getString(ByteBuffer buf) {
+        return new String(getBytes(buf), StandardCharsets.UTF_8);
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,16 +12,23 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    // 價格快取存活時間（@Cacheable 與批次 pipeline 寫入共用）
+    public static final Duration PRICE_CACHE_TTL = Duration.ofMinutes(5);
+
     /**
      * RedisTemplate 配置
      * 用於手動操作 Redis（get/set/delete）
@@ -47,9 +55,9 @@ public class RedisConfig {
     /**
      * ObjectMapper 配置
      * 支援 Java 8 時間類型（LocalDateTime）
-     * 測試時發現，使用@Bean會污染所有 Spring Web API 解析器，改為private
+     * 測試時發現，使用@Bean會污染所有 Spring Web API 解析器，改為非 Bean 的 static 方法
      */
-    private ObjectMapper redisObjectMapper() {
+    static ObjectMapper redisObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
 
         // 支援 Java 8 時間 API
@@ -65,12 +73,28 @@ public class RedisConfig {
         return mapper;
     }
 
+    /**
+     * prices 快取的序列化方式
+     * 預設為二進位格式；cache.prices.serializer=json 時寫入改回 JSON（讀取兩種格式都支援）
+     */
+    @Bean
+    public PriceDataRedisSerializer priceDataRedisSerializer(
+            @Value("${cache.prices.serializer:binary}") String format) {
+        return new PriceDataRedisSerializer("json".equalsIgnoreCase(format),
+                new GenericJackson2JsonRedisSerializer(redisObjectMapper()));
+    }
+
     /**
      * CacheManager 配置
      * 用於 @Cacheable 等快取註解
+     * prices、assets 在 Redis 前面多一層本機 Caffeine L1，熱門代號不需每次往返 Redis
      */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             PriceDataRedisSerializer priceDataRedisSerializer,
+                                             @Value("${cache.local.max-size:10000}") long localMaxSize,
+                                             @Value("${cache.local.ttl:30s}") Duration localTtl) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 // 設定預設過期時間（5 分鐘）
                 .entryTtl(Duration.ofMinutes(5))
@@ -87,13 +111,31 @@ public class RedisConfig {
                 // 不快取 null 值
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 // 自定義不同快取的過期時間
                 .withCacheConfiguration("prices",
-                        config.entryTtl(Duration.ofMinutes(5)))  // 價格快取 5 分鐘
+                        config.entryTtl(PRICE_CACHE_TTL)  // 價格快取 5 分鐘
+                                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                                        .fromSerializer(priceDataRedisSerializer)))
                 .withCacheConfiguration("assets",
                         config.entryTtl(Duration.ofMinutes(10))) // 資產快取 10 分鐘
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate,
+                Set.of("prices", "assets"), localMaxSize, localTtl);
+    }
+
+    /**
+     * 訂閱快取失效通知，清除其他 instance 寫入後本機過時的 L1
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory, TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
     }
 }
\ No newline at end of file
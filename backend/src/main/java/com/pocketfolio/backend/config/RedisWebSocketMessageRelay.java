@@ -0,0 +1,109 @@
+package com.pocketfolio.backend.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 經 Redis pub/sub 把 WebSocket 訊息送到所有節點
+ *
+ * 每個節點仍使用各自的 simple broker；送出時 payload 只序列化一次，
+ * 先送給本機的 session，再發布到 Redis，其他節點收到後送給自己的 session。
+ * 用戶目的地（/user/{user}/...）由收到的節點依本機的 session 解析，用戶不在該節點時不會送出。
+ * 每個節點各自計算內容的用戶訊息（投資組合市值）以 sendToUserLocally 只送給本機的 session。
+ *
+ * 訊息格式：{instanceId}|{user}|{destination}|{json}（廣播時 user 為空字串），
+ * 自己發出的訊息會被忽略（已在送出時交給本機 broker）。
+ */
+@Slf4j
+public class RedisWebSocketMessageRelay implements WebSocketMessageRelay, MessageListener {
+
+    public static final String RELAY_CHANNEL = "websocket:relay";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public RedisWebSocketMessageRelay(SimpMessagingTemplate messagingTemplate,
+                                      StringRedisTemplate redisTemplate,
+                                      ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void send(String destination, Object payload) {
+        relay("", destination, payload);
+    }
+
+    @Override
+    public void sendToUser(String user, String destination, Object payload) {
+        relay(user, destination, payload);
+    }
+
+    @Override
+    public void sendToUserLocally(String user, String destination, Object payload) {
+        String json = serialize(destination, payload);
+        if (json != null) {
+            deliverLocally(user, destination, json);
+        }
+    }
+
+    private void relay(String user, String destination, Object payload) {
+        String json = serialize(destination, payload);
+        if (json == null) return;
+
+        deliverLocally(user, destination, json);
+        try {
+            redisTemplate.convertAndSend(RELAY_CHANNEL, String.join("|", instanceId, user, destination, json));
+        } catch (Exception e) {
+            // Redis 失敗時只有本機的 session 收得到
+            log.error("WebSocket 訊息轉送失敗: {} {}", destination, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || instanceId.equals(parts[0])) return;
+
+        deliverLocally(parts[1], parts[2], parts[3]);
+    }
+
+    // ── Helper: 序列化失敗時回傳 null ──
+    private String serialize(String destination, Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.error("WebSocket 訊息序列化失敗: {} {}", destination, e.getMessage());
+            return null;
+        }
+    }
+
+    // ── Helper: 已序列化的 JSON 直接交給本機 broker，不再經過 message converter ──
+    private void deliverLocally(String user, String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+
+        String target = user.isEmpty()
+                ? destination
+                : messagingTemplate.getUserDestinationPrefix() + user + destination;
+        messagingTemplate.send(target, MessageBuilder.createMessage(
+                json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+    }
+}
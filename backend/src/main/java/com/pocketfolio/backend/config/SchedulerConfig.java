@@ -1,9 +1,40 @@
 package com.pocketfolio.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
+/**
+ * 定時任務的執行緒池
+ *
+ * 價格刷新最久會阻塞數分鐘，每秒的價格推送、警報重新啟用寫回、快照分區維護
+ * 不能排在它後面等同一條執行緒，所以所有 @Scheduled 共用一個多執行緒的 scheduler。
+ */
 @Configuration
 @EnableScheduling
-public class SchedulerConfig {
+public class SchedulerConfig implements SchedulingConfigurer {
+
+    @Value("${scheduler.pool-size:4}")
+    private int poolSize = 4;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        return createTaskScheduler(poolSize);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(taskScheduler());
+    }
+
+    static ThreadPoolTaskScheduler createTaskScheduler(int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
 }
@@ -0,0 +1,118 @@
+package com.pocketfolio.backend.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 兩層快取：L1 為本機 Caffeine（小容量、短 TTL），L2 為 Redis
+ *
+ * 讀取先查 L1，未命中才到 Redis，並把結果回填 L1；
+ * 寫入同時寫兩層；清除時除了兩層之外，也透過 Redis pub/sub 通知其他 instance 清掉各自的 L1。
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final TwoLevelCacheManager manager;
+
+    TwoLevelCache(String name,
+                  com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                  Cache remote,
+                  TwoLevelCacheManager manager) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(key, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("快取值型別不符: " + type.getName() + " / " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return (T) value;
+        }
+
+        T loaded = remote.get(key, valueLoader);
+        if (loaded != null) {
+            local.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(key, value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        manager.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        manager.publishClear(name);
+    }
+
+    // ── 只操作本機 L1（批次寫入與其他 instance 的失效通知使用）──────────
+
+    public void putLocal(Object key, Object value) {
+        if (value != null) {
+            local.put(key, value);
+        }
+    }
+
+    void evictLocal(Object key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+}
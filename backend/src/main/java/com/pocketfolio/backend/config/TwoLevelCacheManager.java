@@ -0,0 +1,115 @@
+package com.pocketfolio.backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 指定的快取（prices、assets）包成 L1 + L2 兩層，其餘直接使用 Redis
+ *
+ * 失效通知格式：{instanceId}|{EVICT|CLEAR}|{cacheName}|{key}，
+ * 自己發出的訊息會被忽略（本機 L1 已在 evict/clear 時同步清除）。
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    private static final String OP_EVICT = "EVICT";
+    private static final String OP_CLEAR = "CLEAR";
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final Set<String> localCacheNames;
+    private final long localMaxSize;
+    private final Duration localTtl;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                Set<String> localCacheNames,
+                                long localMaxSize,
+                                Duration localTtl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localCacheNames = localCacheNames;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!localCacheNames.contains(name)) {
+            return remoteCacheManager.getCache(name);
+        }
+        return caches.computeIfAbsent(name, this::createTwoLevelCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    private TwoLevelCache createTwoLevelCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) return null;
+
+        return new TwoLevelCache(name,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaxSize)
+                        .expireAfterWrite(localTtl)
+                        .build(),
+                remote,
+                this);
+    }
+
+    // ────────────── 失效通知 ──────────────
+
+    void publishEvict(String cacheName, Object key) {
+        publish(String.join("|", instanceId, OP_EVICT, cacheName, String.valueOf(key)));
+    }
+
+    void publishClear(String cacheName) {
+        publish(String.join("|", instanceId, OP_CLEAR, cacheName, ""));
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            // 通知失敗時其他 instance 的 L1 最多舊一個 L1 TTL
+            log.error("快取失效通知發送失敗: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || instanceId.equals(parts[0])) return;
+
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) return;
+
+        if (OP_CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+            log.info("收到快取失效通知，清除本機 L1: {}", parts[2]);
+        } else if (OP_EVICT.equals(parts[1])) {
+            cache.evictLocal(parts[3]);
+            log.debug("收到快取失效通知，移除本機 L1: {}::{}", parts[2], parts[3]);
+        }
+    }
+}
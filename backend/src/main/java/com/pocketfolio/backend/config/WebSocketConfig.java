@@ -1,15 +1,75 @@
 package com.pocketfolio.backend.config;
 
+import com.pocketfolio.backend.security.StompAuthChannelInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final OutboundQueueDecoratorFactory outboundQueueDecoratorFactory;
+    private final CompactPriceFrameInterceptor compactPriceFrameInterceptor;
+
+    // simple broker 的心跳排程（Spring 內建的 messageBrokerTaskScheduler，需延遲注入避免循環依賴）
+    private TaskScheduler heartbeatScheduler;
+
+    // simple（預設，單一節點）/ redis（經 Redis pub/sub 轉送）/ relay（外部 STOMP broker）
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    // STOMP 心跳（毫秒）：server 送出間隔 / 期望收到 client 心跳的間隔，0 表示停用
+    @Value("${websocket.heartbeat.server-ms:10000}")
+    private long heartbeatServerMillis = 10000;
+
+    @Value("${websocket.heartbeat.client-ms:10000}")
+    private long heartbeatClientMillis = 10000;
+
+    // SockJS 降級連線（xhr-streaming 等）的心跳
+    @Value("${websocket.heartbeat.sockjs-ms:25000}")
+    private long sockJsHeartbeatMillis = 25000;
+
+    // 單一 session 寫入 socket 的時間上限與 Spring session buffer 上限（超過即斷線）
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis = 10000;
+
+    @Value("${websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit = 512 * 1024;
+
+    // 客戶端送入的單一 STOMP frame 上限
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit = 64 * 1024;
+
+    @Autowired
+    public void setHeartbeatScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler messageBrokerTaskScheduler) {
+        this.heartbeatScheduler = messageBrokerTaskScheduler;
+    }
+
     /**
      * 配置消息代理
      *
@@ -19,11 +79,63 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // 啟用簡單的消息代理，處理 /topic 和 /queue 開頭的消息
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // 轉送到外部 STOMP broker：所有節點共用，/user 目的地透過 broker 廣播到 session 所在的節點
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/user-registry")
+                    .setSystemHeartbeatSendInterval(heartbeatServerMillis)
+                    .setSystemHeartbeatReceiveInterval(heartbeatClientMillis);
+        } else {
+            // 啟用簡單的消息代理，處理 /topic 和 /queue 開頭的消息（redis 模式由 RedisWebSocketMessageRelay 跨節點轉送）
+            // 心跳讓停住的客戶端（行動網路切換、背景分頁）能被偵測並關閉
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatServerMillis, heartbeatClientMillis})
+                    .setTaskScheduler(heartbeatScheduler);
+        }
 
         // 客戶端發送消息時的目的地前綴
         config.setApplicationDestinationPrefixes("/app");
+
+        // 每個 session 的 frame 依發布順序送出（精簡價格編碼的字典 frame 必須先於引用它的 frame）
+        config.setPreservePublishOrder(true);
+    }
+
+    /**
+     * CONNECT 時以 JWT 設定 session 的用戶身分（/user/queue/** 與持倉索引都依賴它），
+     * 並記錄客戶端是否要求精簡價格編碼
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor, compactPriceFrameInterceptor);
+    }
+
+    /**
+     * 要求精簡編碼的 session，價格 frame 在送出前改寫
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(compactPriceFrameInterceptor);
+    }
+
+    /**
+     * 傳輸層上限與每個 session 的送出佇列
+     *
+     * OutboundQueueDecoratorFactory 讓 broker 送出時不阻塞，價格 frame 依代號合併，
+     * 慢速消費者超過上限即斷線；send-time-limit / send-buffer-size-limit 是 Spring 本身的保底限制。
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(outboundQueueDecoratorFactory);
     }
 
     /**
@@ -40,6 +152,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         "https://pocketfolio-prod.web.app",        // Firebase Hosting
                         "https://pocketfolio-prod.firebaseapp.com" // Firebase Hosting (備用網域)
                 )
-                .withSockJS();  // 支援 SockJS（瀏覽器不支援 WebSocket 時的降級方案）
+                .withSockJS()  // 支援 SockJS（瀏覽器不支援 WebSocket 時的降級方案）
+                .setHeartbeatTime(sockJsHeartbeatMillis);
     }
 }
\ No newline at end of file
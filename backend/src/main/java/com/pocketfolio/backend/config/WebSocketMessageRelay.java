@@ -0,0 +1,26 @@
+package com.pocketfolio.backend.config;
+
+/**
+ * 送出 WebSocket 訊息的出口
+ *
+ * 依 websocket.broker.mode 決定實作：
+ * - simple / relay：直接交給本機的 broker（relay 模式由外部 STOMP broker 負責跨節點）
+ * - redis：經 Redis pub/sub 轉送，每個節點再送給自己的 session
+ */
+public interface WebSocketMessageRelay {
+
+    /**
+     * 送到廣播目的地（/topic/...）
+     */
+    void send(String destination, Object payload);
+
+    /**
+     * 送到特定用戶（/user/{user}/queue/...）
+     */
+    void sendToUser(String user, String destination, Object payload);
+
+    /**
+     * 只送給本機 session 上的特定用戶（內容由每個節點各自計算時使用，避免重複送達）
+     */
+    void sendToUserLocally(String user, String destination, Object payload);
+}
@@ -0,0 +1,46 @@
+package com.pocketfolio.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * 依 websocket.broker.mode 選擇 WebSocket 訊息的出口
+ *
+ * - simple（預設）：單一節點，in-memory simple broker
+ * - redis：每個節點仍用 simple broker，訊息經 Redis pub/sub 轉送到所有節點
+ * - relay：由外部 STOMP broker（RabbitMQ、ActiveMQ 等）負責，見 {@link WebSocketConfig}
+ */
+@Configuration
+public class WebSocketRelayConfig {
+
+    @Bean
+    @ConditionalOnProperty(value = "websocket.broker.mode", havingValue = "redis")
+    public WebSocketMessageRelay redisWebSocketMessageRelay(SimpMessagingTemplate messagingTemplate,
+                                                            StringRedisTemplate stringRedisTemplate,
+                                                            ObjectMapper objectMapper,
+                                                            RedisMessageListenerContainer listenerContainer) {
+        RedisWebSocketMessageRelay relay =
+                new RedisWebSocketMessageRelay(messagingTemplate, stringRedisTemplate, objectMapper);
+        // 與快取失效通知共用同一個訂閱連線
+        listenerContainer.addMessageListener(relay, new ChannelTopic(RedisWebSocketMessageRelay.RELAY_CHANNEL));
+        return relay;
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "websocket.broker.mode", havingValue = "simple", matchIfMissing = true)
+    public WebSocketMessageRelay simpleWebSocketMessageRelay(SimpMessagingTemplate messagingTemplate) {
+        return new LocalWebSocketMessageRelay(messagingTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "websocket.broker.mode", havingValue = "relay")
+    public WebSocketMessageRelay stompRelayWebSocketMessageRelay(SimpMessagingTemplate messagingTemplate) {
+        return new LocalWebSocketMessageRelay(messagingTemplate);
+    }
+}
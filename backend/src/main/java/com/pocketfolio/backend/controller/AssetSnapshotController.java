@@ -45,15 +45,19 @@ public class AssetSnapshotController {
     @GetMapping("/asset/{assetId}/history")
     @Operation(
             summary = "查詢資產歷史走勢",
-            description = "取得指定資產在一段時間內的價格與損益變化（用於繪製圖表）"
+            description = "取得指定資產在一段時間內的價格與損益變化（用於繪製圖表）；" +
+                    "天數超過資料點上限時改回傳週或月彙總（開高低收 + 區間最後一天的市值）"
     )
     public ResponseEntity<AssetHistoryResponse> getAssetHistory(
             @PathVariable UUID assetId,
 
             @Parameter(description = "查詢天數（預設 30 天）")
-            @RequestParam(required = false, defaultValue = "30") Integer days) {
+            @RequestParam(required = false, defaultValue = "30") Integer days,
 
-        return ResponseEntity.ok(service.getAssetHistory(assetId, days));
+            @Parameter(description = "資料點上限（未指定時使用伺服器預設值）")
+            @RequestParam(required = false) Integer maxPoints) {
+
+        return ResponseEntity.ok(service.getAssetHistory(assetId, days, maxPoints));
     }
 
     @GetMapping("/portfolio/{date}")
@@ -77,12 +81,16 @@ public class AssetSnapshotController {
     @GetMapping("/portfolio/history")
     @Operation(
             summary = "查詢投資組合歷史趨勢",
-            description = "取得一段時間內的總資產變化（用於繪製資產走勢圖）"
+            description = "取得一段時間內的總資產變化（用於繪製資產走勢圖）；" +
+                    "天數超過資料點上限時改回傳週或月彙總（區間最後一天的總計 + 區間最高 / 最低總市值）"
     )
     public ResponseEntity<List<PortfolioSnapshotResponse>> getPortfolioHistory(
             @Parameter(description = "查詢天數（預設 30 天）")
-            @RequestParam(required = false, defaultValue = "30") Integer days) {
+            @RequestParam(required = false, defaultValue = "30") Integer days,
+
+            @Parameter(description = "資料點上限（未指定時使用伺服器預設值）")
+            @RequestParam(required = false) Integer maxPoints) {
 
-        return ResponseEntity.ok(service.getPortfolioHistory(days));
+        return ResponseEntity.ok(service.getPortfolioHistory(days, maxPoints));
     }
 }
\ No newline at end of file
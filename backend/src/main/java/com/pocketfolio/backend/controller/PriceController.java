@@ -30,7 +30,7 @@ public class PriceController {
     @GetMapping("/{symbol}")
     @Operation(
             summary = "查詢即時價格",
-            description = "取得指定資產的即時價格，優先從 Redis 快取讀取（5 分鐘 TTL）"
+            description = "取得指定資產的即時價格，優先從快取讀取；快取到期時先回傳最後已知價格（stale = true）並於背景刷新"
     )
     public ResponseEntity<PriceData> getPrice(
             @PathVariable String symbol,
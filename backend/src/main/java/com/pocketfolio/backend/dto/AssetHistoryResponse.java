@@ -11,13 +11,17 @@ public class AssetHistoryResponse {
 
     private String symbol;
     private String assetName;
+    private HistoryResolution resolution;  // 資料點粒度（日 / 週 / 月）
     private List<DataPoint> history;  // 歷史資料點
 
     @Data
     @Builder
     public static class DataPoint {
-        private String date;  // YYYY-MM-DD
-        private Double price;
+        private String date;  // YYYY-MM-DD（週 / 月粒度為區間內最後一筆快照的日期）
+        private Double price;  // 收盤價（區間最後一天）
+        private Double open;
+        private Double high;
+        private Double low;
         private Double marketValue;
         private Double profitLoss;
         private Double profitLossPercent;
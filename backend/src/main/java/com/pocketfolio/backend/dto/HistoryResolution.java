@@ -0,0 +1,37 @@
+package com.pocketfolio.backend.dto;
+
+/**
+ * 歷史走勢的資料點粒度
+ *
+ * 依查詢天數與資料點上限自動選擇：天數在上限內用日，否則週，再不行用月。
+ */
+public enum HistoryResolution {
+
+    DAILY("day", 1),
+    WEEKLY("week", 7),
+    MONTHLY("month", 30);
+
+    private final String truncUnit;  // PostgreSQL date_trunc 的單位
+    private final int approxDays;
+
+    HistoryResolution(String truncUnit, int approxDays) {
+        this.truncUnit = truncUnit;
+        this.approxDays = approxDays;
+    }
+
+    public String getTruncUnit() {
+        return truncUnit;
+    }
+
+    /**
+     * 資料點數不超過 maxPoints 的最細粒度（月粒度為最粗，不再往上）
+     */
+    public static HistoryResolution forRange(int days, int maxPoints) {
+        for (HistoryResolution resolution : values()) {
+            if (days / resolution.approxDays + 1 <= maxPoints) {
+                return resolution;
+            }
+        }
+        return MONTHLY;
+    }
+}
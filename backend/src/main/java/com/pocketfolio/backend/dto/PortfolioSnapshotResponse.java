@@ -18,4 +18,9 @@ public class PortfolioSnapshotResponse {
     private BigDecimal totalProfitLossPercent;  // 總損益百分比
     private int assetCount;               // 資產數量
     private List<AssetSnapshotResponse> assets;  // 詳細資產列表
+
+    // 歷史走勢用：資料點粒度與區間內的最高 / 最低總市值（單日查詢時為 null）
+    private HistoryResolution resolution;
+    private BigDecimal highMarketValue;
+    private BigDecimal lowMarketValue;
 }
\ No newline at end of file
@@ -24,9 +24,14 @@ public class PriceAlertRequest {
     @NotNull(message = "警報條件不能為空")
     private PriceAlert.AlertCondition condition;
 
-    @NotNull(message = "目標價格不能為空")
     @Positive(message = "目標價格必須大於 0")
-    private BigDecimal targetPrice;
+    private BigDecimal targetPrice;        // ABOVE / BELOW / CROSS 必填
+
+    private BigDecimal changePercent;      // PERCENT_CHANGE 必填：正數為漲幅、負數為跌幅（%）
+
+    private PriceAlert.AlertWindow changeWindow;  // PERCENT_CHANGE 必填
+
+    private boolean autoRearm;  // 觸發後自動重新啟用（預設 false）
 
     private String note;
 }
\ No newline at end of file
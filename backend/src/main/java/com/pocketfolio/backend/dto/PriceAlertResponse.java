@@ -19,9 +19,12 @@ public class PriceAlertResponse {
     private AssetType assetType;
     private PriceAlert.AlertCondition condition;
     private BigDecimal targetPrice;
+    private BigDecimal changePercent;
+    private PriceAlert.AlertWindow changeWindow;
     private boolean active;
     private boolean triggered;
     private LocalDateTime triggeredAt;
+    private boolean autoRearm;
     private LocalDateTime createdAt;
     private String note;
 
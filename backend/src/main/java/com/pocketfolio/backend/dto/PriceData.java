@@ -27,6 +27,7 @@ public class PriceData implements Serializable {
     private String currency;         // 幣別：USD（加密貨幣）/ TWD（台股）
     private LocalDateTime updateTime; // 更新時間
     private String source;           // 資料來源（COINGECKO / YAHOO）
+    private boolean stale;           // 是否為過期的最後已知價格（背景刷新中）
 
     /**
      * 檢查資料是否過期（超過 5 分鐘）
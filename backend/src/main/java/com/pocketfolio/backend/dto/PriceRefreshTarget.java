@@ -0,0 +1,23 @@
+package com.pocketfolio.backend.dto;
+
+import com.pocketfolio.backend.entity.AssetType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 價格排程的刷新目標：全站不重複的 (代號, 類型)
+ * 由 AssetRepository 以 JPQL constructor expression 直接查出
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRefreshTarget {
+
+    private String symbol;        // 資產代號
+    private AssetType assetType;  // 資產類型（決定價格來源）
+    private String assetName;     // 代表名稱（推播用）
+    private BigDecimal lastPrice; // 持有者目前的市價（計算漲跌用）
+}
@@ -0,0 +1,24 @@
+package com.pocketfolio.backend.dto;
+
+import com.pocketfolio.backend.entity.AssetType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 批次寫入最新報價的一筆資料（依 (symbol, assetType) upsert）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteUpdate {
+
+    private String symbol;
+    private AssetType assetType;
+    private BigDecimal price;     // 新市價
+    private String currency;      // 市價幣別（null 時保留原值）
+}
@@ -0,0 +1,35 @@
+package com.pocketfolio.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pocketfolio.backend.entity.PriceAlert;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 單次價格更新中被觸發的一筆警報（不需載入 PriceAlert entity）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TriggeredAlert {
+
+    private UUID alertId;
+    @JsonIgnore
+    private UUID userId;                         // 分組推播用，不送到前端
+    private String symbol;
+    private PriceAlert.AlertCondition condition;
+    private BigDecimal targetPrice;
+    private BigDecimal changePercent;            // PERCENT_CHANGE 設定的漲跌幅
+    private PriceAlert.AlertWindow changeWindow;
+    private BigDecimal observedPercent;          // PERCENT_CHANGE 觸發時區間內的實際漲跌幅
+    private BigDecimal currentPrice;
+    private String note;
+    private LocalDateTime triggeredAt;
+}
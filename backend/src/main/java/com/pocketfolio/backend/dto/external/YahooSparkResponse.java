@@ -0,0 +1,64 @@
+package com.pocketfolio.backend.dto.external;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Yahoo Finance /v8/finance/spark 多代號查詢回應
+ *
+ * 回應本身就是「代號 → 走勢」的 map（沒有 spark.result 外層），例如：
+ * {"AAPL":{"symbol":"AAPL","timestamp":[...],"close":[252.29],"chartPreviousClose":247.45,...}}
+ * 查不到的代號不會出現在回應中。
+ */
+@Data
+public class YahooSparkResponse {
+
+    private final Map<String, Spark> symbols = new LinkedHashMap<>();
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Spark {
+        private String symbol;
+        private List<Long> timestamp;
+        private List<BigDecimal> close;
+        private BigDecimal chartPreviousClose;
+        private BigDecimal previousClose;
+    }
+
+    @JsonAnySetter
+    public void putSymbol(String key, Spark spark) {
+        if (spark != null) {
+            symbols.put(key, spark);
+        }
+    }
+
+    /**
+     * 取出每個代號的最新價格（close 最後一個非 null 值；代號轉大寫；沒有價格的代號略過）
+     */
+    public Map<String, BigDecimal> getPrices() {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        symbols.forEach((key, spark) -> {
+            BigDecimal price = lastClose(spark.close);
+            if (price != null) {
+                String symbol = spark.symbol != null ? spark.symbol : key;
+                prices.put(symbol.toUpperCase(), price);
+            }
+        });
+        return prices;
+    }
+
+    private static BigDecimal lastClose(List<BigDecimal> close) {
+        if (close == null) return null;
+        for (int i = close.size() - 1; i >= 0; i--) {
+            if (close.get(i) != null) return close.get(i);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pocketfolio.backend.dto.websocket;
+
+import com.pocketfolio.backend.service.PortfolioValueTracker.PortfolioValue;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * 推送到 /user/queue/portfolio 的投資組合市值
+ */
+@Data
+@Builder
+public class PortfolioValueMessage {
+
+    private BigDecimal totalMarketValue;   // 總市值
+    private BigDecimal totalCost;          // 總成本
+    private BigDecimal profitLoss;         // 損益
+    private BigDecimal profitLossPercent;  // 損益百分比
+    private LocalDateTime updateTime;
+    private String messageType;            // PORTFOLIO_VALUE
+
+    public static PortfolioValueMessage of(PortfolioValue value) {
+        BigDecimal profitLoss = value.profitLoss();
+        BigDecimal profitLossPercent = value.totalCost().signum() == 0
+                ? BigDecimal.ZERO
+                : profitLoss.divide(value.totalCost(), 4, RoundingMode.HALF_UP)
+                        .multiply(new BigDecimal("100"))
+                        .setScale(2, RoundingMode.HALF_UP);
+
+        return PortfolioValueMessage.builder()
+                .totalMarketValue(value.marketValue().setScale(2, RoundingMode.HALF_UP))
+                .totalCost(value.totalCost().setScale(2, RoundingMode.HALF_UP))
+                .profitLoss(profitLoss.setScale(2, RoundingMode.HALF_UP))
+                .profitLossPercent(profitLossPercent)
+                .updateTime(LocalDateTime.now())
+                .messageType("PORTFOLIO_VALUE")
+                .build();
+    }
+}
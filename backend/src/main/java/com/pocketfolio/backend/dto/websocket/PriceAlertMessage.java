@@ -0,0 +1,62 @@
+package com.pocketfolio.backend.dto.websocket;
+
+import com.pocketfolio.backend.dto.TriggeredAlert;
+import com.pocketfolio.backend.entity.PriceAlert;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 推送到 /user/queue/alerts 的警報通知：同一次價格更新中該用戶觸發的所有警報合併為一則
+ */
+@Data
+@Builder
+public class PriceAlertMessage {
+
+    private String message;
+    private String level;  // WARNING
+    private LocalDateTime timestamp;
+    private String messageType;  // PRICE_ALERT
+    private List<TriggeredAlert> alerts;
+
+    public static PriceAlertMessage of(List<TriggeredAlert> alerts) {
+        String message = alerts.stream()
+                .map(PriceAlertMessage::describe)
+                .collect(Collectors.joining("；", "價格警報：", ""));
+
+        return PriceAlertMessage.builder()
+                .message(message)
+                .level("WARNING")
+                .timestamp(LocalDateTime.now())
+                .messageType("PRICE_ALERT")
+                .alerts(alerts)
+                .build();
+    }
+
+    private static String describe(TriggeredAlert alert) {
+        if (alert.getCondition() == PriceAlert.AlertCondition.PERCENT_CHANGE) {
+            BigDecimal percent = alert.getObservedPercent() != null ? alert.getObservedPercent() : alert.getChangePercent();
+            return String.format("%s %s 內%s %s%%（當前價格：$%s）",
+                    alert.getSymbol(),
+                    alert.getChangeWindow().getLabel(),
+                    alert.getChangePercent().signum() > 0 ? "上漲" : "下跌",
+                    percent.abs().toPlainString(),
+                    alert.getCurrentPrice());
+        }
+
+        String conditionText = switch (alert.getCondition()) {
+            case ABOVE -> "高於";
+            case BELOW -> "低於";
+            default -> "穿越";
+        };
+        return String.format("%s 已%s目標價格 $%s（當前價格：$%s）",
+                alert.getSymbol(),
+                conditionText,
+                alert.getTargetPrice(),
+                alert.getCurrentPrice());
+    }
+}
@@ -0,0 +1,27 @@
+package com.pocketfolio.backend.dto.websocket;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 一次推送多個代號的價格更新（同一個推送週期內變動的代號打包成一個 frame）
+ */
+@Data
+@Builder
+public class PriceBatchMessage {
+
+    private List<PriceUpdateMessage> updates;
+    private LocalDateTime updateTime;
+    private String messageType;  // PRICE_BATCH
+
+    public static PriceBatchMessage of(List<PriceUpdateMessage> updates) {
+        return PriceBatchMessage.builder()
+                .updates(updates)
+                .updateTime(LocalDateTime.now())
+                .messageType("PRICE_BATCH")
+                .build();
+    }
+}
@@ -1,13 +1,19 @@
 package com.pocketfolio.backend.dto.websocket;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)  // 精簡價格編碼送出前會讀回 broker 上的 JSON
 public class PriceUpdateMessage {
 
     private String symbol;              // 資產代號
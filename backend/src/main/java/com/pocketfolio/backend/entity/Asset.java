@@ -53,22 +53,44 @@ public class Asset {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // 最新報價（由 QuoteService 附加，不存資料庫）
+    @Transient
+    private Quote quote;
+
     // ────────────── 計算屬性（不存資料庫）──────────────
 
+    @Transient
+    public BigDecimal getLatestPrice() {
+        // 有報價時以報價為準，否則沿用資產上的價格（建立時為成本價）
+        return (quote != null && quote.getPrice() != null) ? quote.getPrice() : currentPrice;
+    }
+
+    @Transient
+    public LocalDateTime getLatestPriceUpdate() {
+        return quote != null ? quote.getUpdatedAt() : lastPriceUpdate;
+    }
+
+    @Transient
+    public String getLatestPriceCurrency() {
+        return (quote != null && quote.getCurrency() != null) ? quote.getCurrency() : priceCurrency;
+    }
+
     @Transient
     public BigDecimal getMarketValue() {
         // 市值 = 數量 × 當前價格
-        BigDecimal price = (currentPrice != null) ? currentPrice : costPrice;
+        BigDecimal latestPrice = getLatestPrice();
+        BigDecimal price = (latestPrice != null) ? latestPrice : costPrice;
         return quantity.multiply(price).setScale(2, RoundingMode.HALF_UP);
     }
 
     @Transient
     public BigDecimal getProfitLoss() {
         // 損益 = (當前價格 - 成本價) × 數量
-        if (currentPrice == null) {
+        BigDecimal latestPrice = getLatestPrice();
+        if (latestPrice == null) {
             return BigDecimal.ZERO;
         }
-        return currentPrice.subtract(costPrice)
+        return latestPrice.subtract(costPrice)
                 .multiply(quantity)
                 .setScale(2, RoundingMode.HALF_UP);
     }
@@ -76,10 +98,11 @@ public class Asset {
     @Transient
     public BigDecimal getProfitLossPercent() {
         // 損益百分比 = (當前價格 - 成本價) / 成本價 × 100
-        if (currentPrice == null || costPrice.compareTo(BigDecimal.ZERO) == 0) {
+        BigDecimal latestPrice = getLatestPrice();
+        if (latestPrice == null || costPrice.compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.ZERO;
         }
-        return currentPrice.subtract(costPrice)
+        return latestPrice.subtract(costPrice)
                 .divide(costPrice, 4, RoundingMode.HALF_UP)
                 .multiply(new BigDecimal("100"))
                 .setScale(2, RoundingMode.HALF_UP);
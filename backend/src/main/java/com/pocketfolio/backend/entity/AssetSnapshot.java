@@ -10,10 +10,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "asset_snapshots", indexes = {
-        @Index(name = "idx_asset_date", columnList = "asset_id, snapshot_date"),
-        @Index(name = "idx_user_date", columnList = "user_id, snapshot_date")
-})
+@Table(name = "asset_snapshots",
+        // 每個資產每天一筆：快照排程以 ON CONFLICT DO NOTHING 去重（唯一鍵也取代原本的 (asset_id, snapshot_date) 索引）
+        uniqueConstraints = @UniqueConstraint(name = "uk_asset_snapshot_date", columnNames = {"asset_id", "snapshot_date"}),
+        indexes = @Index(name = "idx_user_date", columnList = "user_id, snapshot_date"))
 @Getter
 @Setter
 public class AssetSnapshot {
@@ -49,6 +49,16 @@ public class AssetSnapshot {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal currentPrice;  // 快照時的市價
 
+    // 當日盤中開 / 高 / 低價（由價格事件統計；當日沒有價格變動時為 null，視同只有收盤價）
+    @Column(precision = 19, scale = 2)
+    private BigDecimal dayOpen;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal dayHigh;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal dayLow;
+
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal marketValue;  // 市值（數量 × 市價）
 
@@ -76,11 +86,21 @@ public class AssetSnapshot {
         snapshot.setAssetType(asset.getType());
         snapshot.setQuantity(asset.getQuantity());
         snapshot.setCostPrice(asset.getCostPrice());
-        snapshot.setCurrentPrice(asset.getCurrentPrice());
+        snapshot.setCurrentPrice(asset.getLatestPrice());
         snapshot.setMarketValue(asset.getMarketValue());
         snapshot.setProfitLoss(asset.getProfitLoss());
         snapshot.setProfitLossPercent(asset.getProfitLossPercent());
         snapshot.setSnapshotDate(LocalDate.now());
         return snapshot;
     }
+
+    /**
+     * 寫入當日盤中區間；區間一併納入快照時的市價
+     */
+    public void applyDayRange(BigDecimal open, BigDecimal high, BigDecimal low) {
+        BigDecimal close = currentPrice;
+        this.dayOpen = open;
+        this.dayHigh = close != null ? high.max(close) : high;
+        this.dayLow = close != null ? low.min(close) : low;
+    }
 }
\ No newline at end of file
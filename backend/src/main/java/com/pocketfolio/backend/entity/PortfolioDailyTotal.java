@@ -0,0 +1,39 @@
+package com.pocketfolio.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 每位用戶每日的投資組合總計（由 asset_snapshots 彙總）
+ *
+ * 快照排程寫入當日快照後重算；歷史走勢與投資組合總計只需讀每天一列。
+ */
+@Entity
+@Table(name = "portfolio_daily_totals")
+@IdClass(PortfolioDailyTotalId.class)
+@Getter
+@Setter
+public class PortfolioDailyTotal {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Id
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalMarketValue;  // 當日快照市值加總
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalCost;  // 成本價 × 數量的加總
+
+    @Column(nullable = false)
+    private int assetCount;
+}
@@ -0,0 +1,21 @@
+package com.pocketfolio.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * PortfolioDailyTotal 的複合主鍵 (userId, snapshotDate)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioDailyTotalId implements Serializable {
+
+    private UUID userId;
+    private LocalDate snapshotDate;
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -35,10 +36,17 @@ public class PriceAlert {
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    private AlertCondition condition;  // ABOVE（高於）, BELOW（低於）
+    private AlertCondition condition;  // ABOVE（高於）, BELOW（低於）, CROSS（穿越）, PERCENT_CHANGE（區間漲跌幅）
 
-    @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal targetPrice;  // 目標價格
+    @Column(precision = 19, scale = 2)
+    private BigDecimal targetPrice;  // 目標價格（PERCENT_CHANGE 不使用）
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal changePercent;  // PERCENT_CHANGE：正數為漲幅、負數為跌幅（%）
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_window")
+    private AlertWindow changeWindow;  // PERCENT_CHANGE 的觀察區間
 
     @Column(nullable = false)
     private boolean active = true;  // 是否啟用
@@ -46,7 +54,11 @@ public class PriceAlert {
     @Column(nullable = false)
     private boolean triggered = false;  // 是否已觸發
 
-    private LocalDateTime triggeredAt;  // 觸發時間
+    private LocalDateTime triggeredAt;  // 最近一次觸發時間
+
+    // 觸發後價格離開遲滯區間且冷卻結束即自動重新啟用（預設 false：觸發一次後停用）
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean autoRearm = false;
 
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -54,7 +66,30 @@ public class PriceAlert {
     private String note;  // 備註
 
     public enum AlertCondition {
-        ABOVE,  // 價格高於目標價
-        BELOW   // 價格低於目標價
+        ABOVE,          // 價格高於目標價
+        BELOW,          // 價格低於目標價
+        CROSS,          // 價格由任一方向穿越目標價
+        PERCENT_CHANGE  // 觀察區間內漲 / 跌超過指定百分比
+    }
+
+    public enum AlertWindow {
+        ONE_HOUR(Duration.ofHours(1), "1 小時"),
+        TWENTY_FOUR_HOURS(Duration.ofHours(24), "24 小時");
+
+        private final Duration duration;
+        private final String label;
+
+        AlertWindow(Duration duration, String label) {
+            this.duration = duration;
+            this.label = label;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public String getLabel() {
+            return label;
+        }
     }
 }
\ No newline at end of file
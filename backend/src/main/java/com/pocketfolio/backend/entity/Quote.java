@@ -0,0 +1,40 @@
+package com.pocketfolio.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 最新報價（每個 (代號, 類型) 一筆）
+ *
+ * 價格排程只更新這張表，不再改寫每位持有者的 assets 資料列；
+ * 讀取市值時由 QuoteService 附加到 Asset 上。
+ */
+@Entity
+@Table(name = "quotes")
+@IdClass(QuoteId.class)
+@Getter
+@Setter
+public class Quote {
+
+    @Id
+    @Column(nullable = false)
+    private String symbol;  // 與 assets.symbol 相同的寫法
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "asset_type", nullable = false)
+    private AssetType assetType;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal price;
+
+    @Column(length = 3)
+    private String currency;  // TWD / USD
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
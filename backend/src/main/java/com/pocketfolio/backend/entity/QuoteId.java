@@ -0,0 +1,19 @@
+package com.pocketfolio.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Quote 的複合主鍵 (symbol, assetType)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteId implements Serializable {
+
+    private String symbol;
+    private AssetType assetType;
+}
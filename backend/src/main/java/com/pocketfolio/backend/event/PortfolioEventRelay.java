@@ -0,0 +1,171 @@
+package com.pocketfolio.backend.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pocketfolio.backend.service.ConnectedHolderIndex;
+import com.pocketfolio.backend.service.PortfolioValueTracker;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 經 Redis pub/sub 把投資組合市值需要的事件送到所有節點
+ *
+ * 已連線用戶的持倉索引與市值只在該用戶 session 所在的節點：
+ * - 價格變動：報價寫入的節點只有一個，這裡把本機的價格事件轉送出去，
+ *   其他節點交給自己的 {@link PortfolioValueListener}，各自推送給本機連線的用戶
+ * - 持倉變動：資產在任一節點新增 / 修改 / 刪除（交易提交後）先套用到本機，再轉送給其他節點
+ * 警報、廣播、快照統計仍只在報價寫入的節點處理一次。
+ *
+ * 訊息格式：{instanceId}|{PRICES|HOLDINGS}|{json}，自己發出的訊息會被忽略（已在本機處理）。
+ */
+@Component
+@Slf4j
+public class PortfolioEventRelay implements PriceEventListener, MessageListener {
+
+    public static final String RELAY_CHANNEL = "portfolio:events";
+
+    private static final String TYPE_PRICES = "PRICES";
+    private static final String TYPE_HOLDINGS = "HOLDINGS";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final PortfolioValueListener portfolioValueListener;
+    private final ConnectedHolderIndex holderIndex;
+    private final PortfolioValueTracker portfolioTracker;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public PortfolioEventRelay(StringRedisTemplate redisTemplate,
+                               RedisMessageListenerContainer listenerContainer,
+                               ObjectMapper objectMapper,
+                               PortfolioValueListener portfolioValueListener,
+                               ConnectedHolderIndex holderIndex,
+                               PortfolioValueTracker portfolioTracker) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.portfolioValueListener = portfolioValueListener;
+        this.holderIndex = holderIndex;
+        this.portfolioTracker = portfolioTracker;
+    }
+
+    /**
+     * 轉送的價格變動（與 {@link PriceChangedEvent} 相同欄位）
+     */
+    record PriceTick(String symbol, String assetName, BigDecimal oldPrice, BigDecimal newPrice,
+                     LocalDateTime occurredAt) {
+
+        static PriceTick from(PriceChangedEvent event) {
+            return new PriceTick(event.getSymbol(), event.getAssetName(),
+                    event.getOldPrice(), event.getNewPrice(), event.getOccurredAt());
+        }
+
+        PriceChangedEvent toEvent() {
+            return new PriceChangedEvent(symbol, assetName, oldPrice, newPrice, occurredAt);
+        }
+    }
+
+    /**
+     * 一筆資產的持倉變動：新增時帶目前價格，移除時以原本的數量與成本扣除
+     */
+    public record HoldingChange(UUID userId, boolean added, String symbol,
+                                BigDecimal quantity, BigDecimal costPrice, BigDecimal price) {
+
+        public static HoldingChange added(UUID userId, String symbol,
+                                          BigDecimal quantity, BigDecimal costPrice, BigDecimal price) {
+            return new HoldingChange(userId, true, symbol, quantity, costPrice, price);
+        }
+
+        public static HoldingChange removed(UUID userId, String symbol, BigDecimal quantity, BigDecimal costPrice) {
+            return new HoldingChange(userId, false, symbol, quantity, costPrice, null);
+        }
+    }
+
+    // 與快取失效通知共用同一個訂閱連線
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(RELAY_CHANNEL));
+    }
+
+    @Override
+    public String name() {
+        return "portfolio-relay";
+    }
+
+    @Override
+    public OverflowPolicy overflowPolicy() {
+        return OverflowPolicy.MERGE;
+    }
+
+    /**
+     * 本機的價格事件轉送給其他節點
+     */
+    @Override
+    public void onPriceChanged(List<PriceChangedEvent> events) {
+        publish(TYPE_PRICES, events.stream().map(PriceTick::from).toList());
+    }
+
+    /**
+     * 套用持倉變動到本機的索引與市值，再轉送給其他節點（依序套用）
+     */
+    public void applyHoldingChanges(List<HoldingChange> changes) {
+        applyLocally(changes);
+        publish(TYPE_HOLDINGS, changes);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || instanceId.equals(parts[0])) return;
+
+        try {
+            if (TYPE_PRICES.equals(parts[1])) {
+                List<PriceTick> ticks = objectMapper.readValue(parts[2], new TypeReference<List<PriceTick>>() {});
+                portfolioValueListener.onPriceChanged(ticks.stream().map(PriceTick::toEvent).toList());
+            } else if (TYPE_HOLDINGS.equals(parts[1])) {
+                applyLocally(objectMapper.readValue(parts[2], new TypeReference<List<HoldingChange>>() {}));
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("投資組合事件格式錯誤: {} {}", parts[1], e.getMessage());
+        }
+    }
+
+    // ── Helper: 只更新已連線用戶（未連線的用戶兩者都會忽略）──
+    private void applyLocally(List<HoldingChange> changes) {
+        for (HoldingChange change : changes) {
+            if (change.added()) {
+                holderIndex.addHolding(change.userId(), change.symbol());
+                portfolioTracker.addPosition(change.userId(), change.symbol(),
+                        change.quantity(), change.costPrice(), change.price());
+            } else {
+                holderIndex.removeHolding(change.userId(), change.symbol());
+                portfolioTracker.removePosition(change.userId(), change.symbol(),
+                        change.quantity(), change.costPrice());
+            }
+        }
+    }
+
+    private void publish(String type, Object payload) {
+        try {
+            String json = objectMapper.writeValueAsString(payload);
+            redisTemplate.convertAndSend(RELAY_CHANNEL, String.join("|", instanceId, type, json));
+        } catch (Exception e) {
+            // 轉送失敗時其他節點的用戶要等下一次價格變動或重新連線才會更新
+            log.error("投資組合事件轉送失敗: {} {}", type, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pocketfolio.backend.event;
+
+import com.pocketfolio.backend.dto.websocket.PortfolioValueMessage;
+import com.pocketfolio.backend.service.ConnectedHolderIndex;
+import com.pocketfolio.backend.service.PortfolioValueTracker;
+import com.pocketfolio.backend.service.PortfolioValueTracker.PortfolioValue;
+import com.pocketfolio.backend.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 價格變動 → 已連線持有人的投資組合市值推送
+ *
+ * 每筆事件只碰持有該代號的已連線用戶（O(持有人數)），每個持倉 O(1) 套用價差；
+ * 同一批事件中同一用戶只推送一次最後的市值。
+ * 其他節點寫入的報價由 {@link PortfolioEventRelay} 轉送過來，每個節點只推送給本機連線的用戶。
+ */
+@Component
+@RequiredArgsConstructor
+public class PortfolioValueListener implements PriceEventListener {
+
+    private final ConnectedHolderIndex holderIndex;
+    private final PortfolioValueTracker portfolioTracker;
+    private final WebSocketService webSocketService;
+
+    @Override
+    public String name() {
+        return "portfolio";
+    }
+
+    @Override
+    public OverflowPolicy overflowPolicy() {
+        return OverflowPolicy.MERGE;
+    }
+
+    @Override
+    public void onPriceChanged(List<PriceChangedEvent> events) {
+        Map<UUID, PortfolioValue> changed = new LinkedHashMap<>();
+        for (PriceChangedEvent event : events) {
+            for (UUID userId : holderIndex.holdersOf(event.getSymbol())) {
+                PortfolioValue value = portfolioTracker.applyPrice(userId, event.getSymbol(), event.getNewPrice());
+                if (value != null) {
+                    changed.put(userId, value);
+                }
+            }
+        }
+
+        changed.forEach((userId, value) ->
+                webSocketService.sendPortfolioValueToUser(userId, PortfolioValueMessage.of(value)));
+    }
+}
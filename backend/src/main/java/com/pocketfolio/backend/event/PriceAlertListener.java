@@ -0,0 +1,39 @@
+package com.pocketfolio.backend.event;
+
+import com.pocketfolio.backend.service.PriceAlertService;
+import com.pocketfolio.backend.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 價格變動 → 警報檢查與通知
+ *
+ * 一批事件一次檢查：觸發的警報以單一 UPDATE 標記，每位用戶一則通知。
+ * 積壓時同代號合併為一筆（舊價取最早、新價取最新），CROSS 以合併後的區間判斷，
+ * PERCENT_CHANGE 的滑動視窗也只會看到合併後的價格。
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceAlertListener implements PriceEventListener {
+
+    private final PriceAlertService priceAlertService;
+    private final WebSocketService webSocketService;
+
+    @Override
+    public String name() {
+        return "alerts";
+    }
+
+    @Override
+    public OverflowPolicy overflowPolicy() {
+        return OverflowPolicy.MERGE;
+    }
+
+    @Override
+    public void onPriceChanged(List<PriceChangedEvent> events) {
+        priceAlertService.checkPriceAlerts(events)
+                .forEach(webSocketService::sendPriceAlertsToUser);
+    }
+}
@@ -0,0 +1,77 @@
+package com.pocketfolio.backend.event;
+
+import com.pocketfolio.backend.dto.websocket.PriceUpdateMessage;
+import com.pocketfolio.backend.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 價格變動 → WebSocket 推送
+ *
+ * 收到的事件先依代號合併（conflation），每個推送週期只送出各代號的最新價格：
+ * 漲跌以上次送出後的第一筆舊價計算，週期內漲回原價的代號不送。
+ * 同一週期的所有代號由 {@link WebSocketService#publishPriceUpdates} 一次送出。
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceBroadcastListener implements PriceEventListener {
+
+    private final WebSocketService webSocketService;
+
+    // 是否同時把整批更新送到 /topic/price-updates
+    // 預設關閉：整批 frame 會送給每個訂閱者，不論是否持有這些代號，只給需要全部代號的用戶端開啟
+    @Value("${price-stream.batch-topic-enabled:false}")
+    private boolean batchTopicEnabled = false;
+
+    private final Map<String, PriceChangedEvent> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "broadcast";
+    }
+
+    @Override
+    public OverflowPolicy overflowPolicy() {
+        return OverflowPolicy.MERGE;
+    }
+
+    @Override
+    public void onPriceChanged(List<PriceChangedEvent> events) {
+        for (PriceChangedEvent event : events) {
+            pending.merge(event.getSymbol().toUpperCase(), event, PriceChangedEvent::mergeWith);
+        }
+    }
+
+    /**
+     * 送出這個週期累積的價格更新
+     *
+     * @return 送出的代號數
+     */
+    @Scheduled(fixedDelayString = "${price-stream.flush-interval-ms:1000}")
+    public int flush() {
+        if (pending.isEmpty()) return 0;
+
+        List<PriceUpdateMessage> messages = new ArrayList<>(pending.size());
+        for (String symbol : List.copyOf(pending.keySet())) {
+            PriceChangedEvent event = pending.remove(symbol);
+            if (event == null) continue;
+
+            // 第一次取得價格時沒有舊價，以新價代替避免計算漲跌時 NPE
+            BigDecimal basePrice = event.getOldPrice() != null ? event.getOldPrice() : event.getNewPrice();
+            if (event.getOldPrice() != null && basePrice.compareTo(event.getNewPrice()) == 0) continue;
+
+            messages.add(PriceUpdateMessage.fromUpdate(event.getSymbol(), event.getAssetName(), basePrice, event.getNewPrice()));
+        }
+
+        webSocketService.publishPriceUpdates(messages, batchTopicEnabled);
+        return messages.size();
+    }
+}
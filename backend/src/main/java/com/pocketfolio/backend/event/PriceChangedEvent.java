@@ -0,0 +1,30 @@
+package com.pocketfolio.backend.event;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 代號價格變動事件（報價寫入 DB 後發布）
+ */
+@Value
+public class PriceChangedEvent {
+
+    String symbol;
+    String assetName;
+    BigDecimal oldPrice;     // 第一次取得價格時可能為 null
+    BigDecimal newPrice;
+    LocalDateTime occurredAt;
+
+    public static PriceChangedEvent of(String symbol, String assetName, BigDecimal oldPrice, BigDecimal newPrice) {
+        return new PriceChangedEvent(symbol, assetName, oldPrice, newPrice, LocalDateTime.now());
+    }
+
+    /**
+     * 合併同代號的兩個事件：保留較早的舊價與較新的新價，漲跌幅仍以合併區間計算
+     */
+    public PriceChangedEvent mergeWith(PriceChangedEvent newer) {
+        return new PriceChangedEvent(symbol, newer.assetName, oldPrice, newer.newPrice, newer.occurredAt);
+    }
+}
@@ -0,0 +1,183 @@
+package com.pocketfolio.backend.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 程序內的價格事件佇列
+ *
+ * 報價寫入後只需 publish（O(消費者數)、不阻塞），警報檢查、WebSocket 廣播、快照統計
+ * 由各自的執行緒批次取出處理。每個消費者的佇列都有上限，依 OverflowPolicy 合併或丟棄，
+ * 慢的消費者不會拖慢報價寫入。
+ */
+@Component
+@Slf4j
+public class PriceEventBus {
+
+    private final List<PriceEventListener> listeners;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${price-events.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${price-events.max-batch:200}")
+    private int maxBatch;
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    public PriceEventBus(List<PriceEventListener> listeners, MeterRegistry meterRegistry) {
+        this.listeners = listeners;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        for (PriceEventListener listener : listeners) {
+            Subscription subscription = new Subscription(listener, queueCapacity, meterRegistry);
+            subscriptions.add(subscription);
+
+            Thread worker = new Thread(() -> drainLoop(subscription), "price-events-" + listener.name());
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+
+            log.info("價格事件消費者已啟動: {} ({}, 佇列上限 {})",
+                    listener.name(), listener.overflowPolicy(), queueCapacity);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * 發布價格變動事件（不阻塞）
+     */
+    public void publish(PriceChangedEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    private void drainLoop(Subscription subscription) {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<PriceChangedEvent> batch;
+            try {
+                batch = subscription.take(maxBatch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                subscription.listener.onPriceChanged(batch);
+            } catch (Exception e) {
+                // 單批失敗不影響後續事件
+                log.error("價格事件處理失敗: {} ({} 筆) - {}",
+                        subscription.listener.name(), batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 單一消費者的有界佇列
+     */
+    static class Subscription {
+
+        final PriceEventListener listener;
+        private final int capacity;
+        private final boolean merge;
+
+        // MERGE：以代號為 key，保留插入順序（最舊的在前）
+        private final LinkedHashMap<String, PriceChangedEvent> pendingBySymbol = new LinkedHashMap<>();
+        // DROP_OLDEST：依序保留
+        private final ArrayDeque<PriceChangedEvent> pending = new ArrayDeque<>();
+
+        private final Counter dropped;
+        private final Counter merged;
+
+        Subscription(PriceEventListener listener, int capacity, MeterRegistry meterRegistry) {
+            this.listener = listener;
+            this.capacity = capacity;
+            this.merge = listener.overflowPolicy() == PriceEventListener.OverflowPolicy.MERGE;
+            this.dropped = Counter.builder("pocketfolio.price-events.dropped")
+                    .description("佇列已滿而丟棄的價格事件數")
+                    .tag("consumer", listener.name())
+                    .register(meterRegistry);
+            this.merged = Counter.builder("pocketfolio.price-events.merged")
+                    .description("與同代號待處理事件合併的價格事件數")
+                    .tag("consumer", listener.name())
+                    .register(meterRegistry);
+            Gauge.builder("pocketfolio.price-events.pending", this, Subscription::size)
+                    .description("待處理的價格事件數")
+                    .tag("consumer", listener.name())
+                    .register(meterRegistry);
+        }
+
+        synchronized void offer(PriceChangedEvent event) {
+            if (merge) {
+                PriceChangedEvent previous = pendingBySymbol.get(event.getSymbol());
+                if (previous != null) {
+                    // 原位置合併，不改變該代號的排隊順序
+                    pendingBySymbol.put(event.getSymbol(), previous.mergeWith(event));
+                    merged.increment();
+                    return;
+                }
+                if (pendingBySymbol.size() >= capacity) {
+                    Iterator<String> oldest = pendingBySymbol.keySet().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped.increment();
+                }
+                pendingBySymbol.put(event.getSymbol(), event);
+            } else {
+                if (pending.size() >= capacity) {
+                    pending.pollFirst();
+                    dropped.increment();
+                }
+                pending.addLast(event);
+            }
+            notifyAll();
+        }
+
+        /**
+         * 等到有事件後取出最多 max 筆
+         */
+        synchronized List<PriceChangedEvent> take(int max) throws InterruptedException {
+            while (size() == 0) {
+                wait();
+            }
+            return poll(max);
+        }
+
+        synchronized List<PriceChangedEvent> poll(int max) {
+            List<PriceChangedEvent> batch = new ArrayList<>(Math.min(max, size()));
+            if (merge) {
+                Iterator<PriceChangedEvent> it = pendingBySymbol.values().iterator();
+                while (it.hasNext() && batch.size() < max) {
+                    batch.add(it.next());
+                    it.remove();
+                }
+            } else {
+                while (!pending.isEmpty() && batch.size() < max) {
+                    batch.add(pending.pollFirst());
+                }
+            }
+            return batch;
+        }
+
+        synchronized int size() {
+            return merge ? pendingBySymbol.size() : pending.size();
+        }
+    }
+}
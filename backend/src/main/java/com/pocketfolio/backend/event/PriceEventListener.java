@@ -0,0 +1,28 @@
+package com.pocketfolio.backend.event;
+
+import java.util.List;
+
+/**
+ * 價格事件的消費者
+ *
+ * 每個消費者有自己的有界佇列與執行緒，處理慢不會拖住報價寫入或其他消費者。
+ */
+public interface PriceEventListener {
+
+    enum OverflowPolicy {
+        MERGE,        // 同代號只保留一筆（舊價取最早、新價取最新）；佇列滿時丟棄最舊的代號
+        DROP_OLDEST   // 依序保留每一筆；佇列滿時丟棄最舊的事件
+    }
+
+    /**
+     * 消費者名稱（執行緒名稱與 metrics tag）
+     */
+    String name();
+
+    OverflowPolicy overflowPolicy();
+
+    /**
+     * 一次處理佇列中累積的事件（最多 max-batch 筆）
+     */
+    void onPriceChanged(List<PriceChangedEvent> events);
+}
@@ -0,0 +1,95 @@
+package com.pocketfolio.backend.event;
+
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 價格變動 → 每日快照的盤中統計
+ *
+ * 記錄每個代號每日的開高低收與更新次數，每日快照寫入該日的開 / 高 / 低價，
+ * 歷史走勢的日 K 與週 / 月彙總才有真正的盤中區間（而不是只有收盤價）。
+ * 每一筆都需要計入最高 / 最低價，因此採 DROP_OLDEST 而非合併。
+ *
+ * 統計依（日期, 代號）分開保存：跨過午夜後前一天的區間仍完整保留，
+ * 直到凌晨的快照任務寫入後以 {@link #pruneThrough(LocalDate)} 清除；
+ * 任務沒有執行時，進入新的一天也只保留前一天與當天。
+ */
+@Component
+public class SnapshotBookkeepingListener implements PriceEventListener {
+
+    private final Map<LocalDate, Map<String, DayRange>> rangesByDate = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "snapshot-bookkeeping";
+    }
+
+    @Override
+    public OverflowPolicy overflowPolicy() {
+        return OverflowPolicy.DROP_OLDEST;
+    }
+
+    @Override
+    public void onPriceChanged(List<PriceChangedEvent> events) {
+        for (PriceChangedEvent event : events) {
+            LocalDate date = event.getOccurredAt().toLocalDate();
+            dayOf(date).merge(event.getSymbol(), DayRange.of(date, event.getNewPrice()),
+                    (current, tick) -> current.with(event.getNewPrice()));
+        }
+    }
+
+    /**
+     * 代號指定日期的盤中統計（該日沒有變動時為 empty）
+     */
+    public Optional<DayRange> rangeOf(String symbol, LocalDate date) {
+        return Optional.ofNullable(rangesByDate.getOrDefault(date, Map.of()).get(symbol));
+    }
+
+    /**
+     * 指定日期有價格變動的所有代號的盤中統計（代號 → 統計）
+     */
+    public Map<String, DayRange> rangesOn(LocalDate date) {
+        return Map.copyOf(rangesByDate.getOrDefault(date, Map.of()));
+    }
+
+    /**
+     * 清除此日期（含）之前的統計（該日快照已寫入）
+     */
+    public void pruneThrough(LocalDate date) {
+        rangesByDate.keySet().removeIf(day -> !day.isAfter(date));
+    }
+
+    // ── Helper: 第一次進入新的一天時，清掉前一天之前的統計 ──────────
+    private Map<String, DayRange> dayOf(LocalDate date) {
+        Map<String, DayRange> day = rangesByDate.get(date);
+        if (day != null) return day;
+
+        pruneThrough(date.minusDays(2));
+        return rangesByDate.computeIfAbsent(date, d -> new ConcurrentHashMap<>());
+    }
+
+    @Value
+    public static class DayRange {
+        LocalDate date;
+        BigDecimal open;
+        BigDecimal high;
+        BigDecimal low;
+        BigDecimal last;
+        int ticks;
+
+        static DayRange of(LocalDate date, BigDecimal price) {
+            return new DayRange(date, price, price, price, price, 1);
+        }
+
+        DayRange with(BigDecimal price) {
+            return new DayRange(date, open, high.max(price), low.min(price), price, ticks + 1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.pocketfolio.backend.event;
+
+import com.pocketfolio.backend.dto.websocket.PortfolioValueMessage;
+import com.pocketfolio.backend.entity.Asset;
+import com.pocketfolio.backend.repository.AssetRepository;
+import com.pocketfolio.backend.security.StompAuthChannelInterceptor.StompPrincipal;
+import com.pocketfolio.backend.service.ConnectedHolderIndex;
+import com.pocketfolio.backend.service.PortfolioValueTracker;
+import com.pocketfolio.backend.service.PortfolioValueTracker.PortfolioValue;
+import com.pocketfolio.backend.service.QuoteService;
+import com.pocketfolio.backend.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.List;
+
+/**
+ * STOMP 連線 / 斷線 → 維護已連線用戶的持倉索引與投資組合市值
+ *
+ * 用戶的第一個 session 連線時查一次持倉與報價，之後的價格推送都只查記憶體。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WebSocketSessionListener {
+
+    static final String PORTFOLIO_DESTINATION = "/user/queue/portfolio";
+
+    private final ConnectedHolderIndex holderIndex;
+    private final PortfolioValueTracker portfolioTracker;
+    private final AssetRepository assetRepository;
+    private final QuoteService quoteService;
+    private final WebSocketService webSocketService;
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        if (!(event.getUser() instanceof StompPrincipal principal)) return;
+
+        if (holderIndex.connect(principal.userId(), sessionId(event))) {
+            List<Asset> assets = assetRepository.findByUserId(principal.userId());
+            quoteService.attachQuotes(assets);
+
+            holderIndex.replaceHoldings(principal.userId(), assets.stream().map(Asset::getSymbol).toList());
+            portfolioTracker.load(principal.userId(), assets);
+            log.info("WebSocket 用戶已連線: {}（持有 {} 筆資產，連線用戶 {} 人）",
+                    principal.userId(), assets.size(), holderIndex.connectedUsers());
+        }
+    }
+
+    /**
+     * 訂閱投資組合市值時先送一次目前的市值，之後隨報價推送
+     */
+    @EventListener
+    public void onSubscribed(SessionSubscribeEvent event) {
+        if (!(event.getUser() instanceof StompPrincipal principal)) return;
+        if (!PORTFOLIO_DESTINATION.equals(StompHeaderAccessor.wrap(event.getMessage()).getDestination())) return;
+
+        PortfolioValue value = portfolioTracker.valueOf(principal.userId());
+        if (value != null) {
+            webSocketService.sendPortfolioValueToUser(principal.userId(), PortfolioValueMessage.of(value));
+        }
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        if (!(event.getUser() instanceof StompPrincipal principal)) return;
+
+        if (holderIndex.disconnect(principal.userId(), event.getSessionId())) {
+            portfolioTracker.remove(principal.userId());
+        }
+    }
+
+    private String sessionId(AbstractSubProtocolEvent event) {
+        return StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+    }
+}
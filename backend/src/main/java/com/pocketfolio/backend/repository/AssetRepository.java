@@ -1,8 +1,10 @@
 package com.pocketfolio.backend.repository;
 
+import com.pocketfolio.backend.dto.PriceRefreshTarget;
 import com.pocketfolio.backend.entity.Asset;
 import com.pocketfolio.backend.entity.AssetType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,4 +22,12 @@ public interface AssetRepository extends JpaRepository<Asset, UUID> {
 
     // 查詢某代號的資產（用於檢查重複）
     boolean existsByUserIdAndAccountIdAndSymbol(UUID userId, UUID accountId, String symbol);
-}
\ No newline at end of file
+
+    // 價格排程：全站不重複的 (代號, 類型)，每個代號只需抓一次報價
+    // 舊價格優先取 quotes 表，尚無報價時取持有者資產上的價格（名稱與價格取 MAX 作為代表值）
+    @Query("SELECT new com.pocketfolio.backend.dto.PriceRefreshTarget(" +
+            "a.symbol, a.type, MAX(a.name), COALESCE(MAX(q.price), MAX(a.currentPrice))) " +
+            "FROM Asset a LEFT JOIN Quote q ON q.symbol = a.symbol AND q.assetType = a.type " +
+            "GROUP BY a.symbol, a.type")
+    List<PriceRefreshTarget> findDistinctPriceTargets();
+}
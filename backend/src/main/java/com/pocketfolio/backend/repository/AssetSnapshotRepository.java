@@ -11,7 +11,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface AssetSnapshotRepository extends JpaRepository<AssetSnapshot, UUID> {
+public interface AssetSnapshotRepository extends JpaRepository<AssetSnapshot, UUID>,
+        SnapshotBatchRepository, SnapshotHistoryRepository {
 
     // 查詢某資產的所有快照（依日期排序）
     List<AssetSnapshot> findByAssetIdOrderBySnapshotDateDesc(UUID assetId);
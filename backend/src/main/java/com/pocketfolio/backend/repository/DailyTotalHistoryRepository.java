@@ -0,0 +1,30 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.dto.HistoryResolution;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 投資組合歷史的週 / 月彙總（PortfolioDailyTotalRepository 的自訂 fragment）
+ */
+public interface DailyTotalHistoryRepository {
+
+    /**
+     * 一個區間的彙總：總計取區間最後一天，另附區間內的最高 / 最低總市值
+     *
+     * @param date 區間內最後一筆總計的日期
+     */
+    record TotalBucket(LocalDate date,
+                       BigDecimal totalMarketValue,
+                       BigDecimal totalCost,
+                       int assetCount,
+                       BigDecimal highMarketValue,
+                       BigDecimal lowMarketValue) {
+    }
+
+    List<TotalBucket> findTotalBuckets(UUID userId, LocalDate startDate, LocalDate endDate,
+                                       HistoryResolution resolution);
+}
@@ -0,0 +1,46 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.dto.HistoryResolution;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 在資料庫端以 date_trunc 分組，每個區間只回傳一列
+ */
+public class DailyTotalHistoryRepositoryImpl implements DailyTotalHistoryRepository {
+
+    private static final String TOTAL_BUCKETS =
+            "SELECT MAX(t.snapshot_date) AS last_date, " +
+            "       (ARRAY_AGG(t.total_market_value ORDER BY t.snapshot_date DESC))[1] AS total_market_value, " +
+            "       (ARRAY_AGG(t.total_cost ORDER BY t.snapshot_date DESC))[1] AS total_cost, " +
+            "       (ARRAY_AGG(t.asset_count ORDER BY t.snapshot_date DESC))[1] AS asset_count, " +
+            "       MAX(t.total_market_value) AS high_market_value, " +
+            "       MIN(t.total_market_value) AS low_market_value " +
+            "FROM portfolio_daily_totals t " +
+            "WHERE t.user_id = ? AND t.snapshot_date BETWEEN ? AND ? " +
+            "GROUP BY date_trunc(?, CAST(t.snapshot_date AS timestamp)) " +
+            "ORDER BY last_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DailyTotalHistoryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<TotalBucket> findTotalBuckets(UUID userId, LocalDate startDate, LocalDate endDate,
+                                              HistoryResolution resolution) {
+        return jdbcTemplate.query(TOTAL_BUCKETS,
+                (rs, rowNum) -> new TotalBucket(
+                        rs.getObject("last_date", LocalDate.class),
+                        rs.getBigDecimal("total_market_value"),
+                        rs.getBigDecimal("total_cost"),
+                        rs.getInt("asset_count"),
+                        rs.getBigDecimal("high_market_value"),
+                        rs.getBigDecimal("low_market_value")),
+                userId, startDate, endDate, resolution.getTruncUnit());
+    }
+}
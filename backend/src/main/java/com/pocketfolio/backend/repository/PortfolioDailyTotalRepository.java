@@ -0,0 +1,50 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.entity.PortfolioDailyTotal;
+import com.pocketfolio.backend.entity.PortfolioDailyTotalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PortfolioDailyTotalRepository extends JpaRepository<PortfolioDailyTotal, PortfolioDailyTotalId>,
+        DailyTotalHistoryRepository {
+
+    // 查詢某用戶在日期範圍內的每日總計（依日期排序）
+    List<PortfolioDailyTotal> findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(
+            UUID userId, LocalDate startDate, LocalDate endDate);
+
+    Optional<PortfolioDailyTotal> findByUserIdAndSnapshotDate(UUID userId, LocalDate date);
+
+    // 由日期範圍內的 asset_snapshots 重算所有用戶的每日總計（已存在則覆寫）
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO portfolio_daily_totals (user_id, snapshot_date, total_market_value, total_cost, asset_count) " +
+            "SELECT s.user_id, s.snapshot_date, SUM(s.market_value), SUM(s.cost_price * s.quantity), COUNT(*) " +
+            "FROM asset_snapshots s WHERE s.snapshot_date BETWEEN :startDate AND :endDate " +
+            "GROUP BY s.user_id, s.snapshot_date " +
+            "ON CONFLICT (user_id, snapshot_date) DO UPDATE SET " +
+            "total_market_value = EXCLUDED.total_market_value, total_cost = EXCLUDED.total_cost, " +
+            "asset_count = EXCLUDED.asset_count",
+            nativeQuery = true)
+    int rollup(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // 同上，只重算單一用戶（手動建立快照時）
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO portfolio_daily_totals (user_id, snapshot_date, total_market_value, total_cost, asset_count) " +
+            "SELECT s.user_id, s.snapshot_date, SUM(s.market_value), SUM(s.cost_price * s.quantity), COUNT(*) " +
+            "FROM asset_snapshots s WHERE s.user_id = :userId AND s.snapshot_date = :date " +
+            "GROUP BY s.user_id, s.snapshot_date " +
+            "ON CONFLICT (user_id, snapshot_date) DO UPDATE SET " +
+            "total_market_value = EXCLUDED.total_market_value, total_cost = EXCLUDED.total_cost, " +
+            "asset_count = EXCLUDED.asset_count",
+            nativeQuery = true)
+    int rollupUser(@Param("userId") UUID userId, @Param("date") LocalDate date);
+}
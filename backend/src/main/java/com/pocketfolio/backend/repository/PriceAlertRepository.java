@@ -2,9 +2,13 @@ package com.pocketfolio.backend.repository;
 
 import com.pocketfolio.backend.entity.PriceAlert;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,8 +20,26 @@ public interface PriceAlertRepository extends JpaRepository<PriceAlert, UUID> {
     // 查詢用戶的啟用警報
     List<PriceAlert> findByUserIdAndActiveTrue(UUID userId);
 
-    // 查詢特定資產的所有啟用警報
-    @Query("SELECT a FROM PriceAlert a WHERE a.symbol = :symbol " +
-            "AND a.active = true AND a.triggered = false")
-    List<PriceAlert> findActiveAlertsBySymbol(@Param("symbol") String symbol);
+    // 查詢需要放進記憶體索引的警報：尚未觸發的，以及已觸發但會自動重新啟用的（啟動時用）
+    @Query("SELECT a FROM PriceAlert a WHERE a.active = true AND (a.triggered = false OR a.autoRearm = true)")
+    List<PriceAlert> findIndexable();
+
+    // 一次標記多筆警報為已觸發（同一輪價格更新只需一個 UPDATE），回傳實際更新的 id
+    // 只更新尚未觸發、或自動重新啟用且冷卻已結束（重新啟用尚未寫回 DB）的警報：
+    // 多個節點的記憶體索引同時觸發同一警報時，只有搶到更新的節點會通知
+    @Transactional
+    @Query(value = "UPDATE price_alerts SET triggered = true, triggered_at = :triggeredAt " +
+            "WHERE id IN (:ids) AND active = true " +
+            "AND (triggered = false OR (auto_rearm = true AND (triggered_at IS NULL OR triggered_at < :cooldownCutoff))) " +
+            "RETURNING id", nativeQuery = true)
+    List<UUID> markTriggered(@Param("ids") Collection<UUID> ids,
+                             @Param("triggeredAt") LocalDateTime triggeredAt,
+                             @Param("cooldownCutoff") LocalDateTime cooldownCutoff);
+
+    // 一次寫回多筆在記憶體中已自動重新啟用的警報
+    @Modifying
+    @Transactional
+    @Query("UPDATE PriceAlert a SET a.triggered = false " +
+            "WHERE a.id IN :ids AND a.active = true AND a.autoRearm = true AND a.triggered = true")
+    int markRearmed(@Param("ids") Collection<UUID> ids);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.dto.QuoteUpdate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 最新報價批次寫入（QuoteRepository 的自訂 fragment）
+ */
+public interface QuoteBatchRepository {
+
+    /**
+     * 依 (symbol, assetType) 批次 upsert 最新報價
+     *
+     * @return 與 updates 順序對應的寫入筆數
+     */
+    int[] upsertQuotes(List<QuoteUpdate> updates, LocalDateTime updateTime);
+}
@@ -0,0 +1,65 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.dto.QuoteUpdate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 以 JDBC batch 執行報價 upsert
+ *
+ * 每個 chunk（大小同 hibernate.jdbc.batch_size）一個交易、一次 round trip；
+ * 每個代號只寫一列，不論有多少持有者。
+ */
+public class QuoteBatchRepositoryImpl implements QuoteBatchRepository {
+
+    private static final String UPSERT =
+            "INSERT INTO quotes (symbol, asset_type, price, currency, updated_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (symbol, asset_type) DO UPDATE SET price = EXCLUDED.price, " +
+            "currency = COALESCE(EXCLUDED.currency, quotes.currency), updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public QuoteBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int[] upsertQuotes(List<QuoteUpdate> updates, LocalDateTime updateTime) {
+        int[] rows = new int[updates.size()];
+        Timestamp timestamp = Timestamp.valueOf(updateTime);
+
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            List<QuoteUpdate> chunk = updates.subList(from, Math.min(from + batchSize, updates.size()));
+
+            int[] chunkRows = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPSERT, chunk, chunk.size(),
+                    (ps, update) -> {
+                        ps.setString(1, update.getSymbol());
+                        ps.setString(2, update.getAssetType().name());
+                        ps.setBigDecimal(3, update.getPrice());
+                        ps.setString(4, update.getCurrency());
+                        ps.setTimestamp(5, timestamp);
+                    })[0]);
+
+            if (chunkRows != null) {
+                for (int i = 0; i < chunkRows.length; i++) {
+                    // 部分 driver 只回報成功、不回報筆數
+                    rows[from + i] = chunkRows[i] == Statement.SUCCESS_NO_INFO ? 1 : chunkRows[i];
+                }
+            }
+        }
+        return rows;
+    }
+}
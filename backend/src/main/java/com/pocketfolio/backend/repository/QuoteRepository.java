@@ -0,0 +1,14 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.entity.Quote;
+import com.pocketfolio.backend.entity.QuoteId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface QuoteRepository extends JpaRepository<Quote, QuoteId>, QuoteBatchRepository {
+
+    // 一次查出多個代號的報價（類型在呼叫端比對）
+    List<Quote> findBySymbolIn(Collection<String> symbols);
+}
@@ -0,0 +1,37 @@
+package com.pocketfolio.backend.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 每日快照批次寫入（AssetSnapshotRepository 的自訂 fragment）
+ */
+public interface SnapshotBatchRepository {
+
+    /**
+     * 一個 chunk 的結果
+     *
+     * @param scanned     這次掃過的資產數（少於 limit 表示已到最後）
+     * @param inserted    實際新增的快照數（當日已有快照的資產不計）
+     * @param lastAssetId 這個 chunk 最後一筆資產的 id，作為下一個 chunk 的起點
+     */
+    record SnapshotChunk(int scanned, int inserted, UUID lastAssetId) {
+    }
+
+    /**
+     * 代號當日的盤中開 / 高 / 低價（寫入快照的 day_open / day_high / day_low）
+     */
+    record IntradayRange(String symbol, BigDecimal open, BigDecimal high, BigDecimal low) {
+    }
+
+    /**
+     * 依資產 id 順序，為 afterAssetId 之後的 limit 筆資產建立 snapshotDate 的快照
+     *
+     * 已有 (asset_id, snapshot_date) 的資產略過；ranges 中沒有的代號，盤中欄位留空
+     */
+    SnapshotChunk insertSnapshotChunk(UUID afterAssetId, int limit, LocalDate snapshotDate, LocalDateTime createdAt,
+                                      List<IntradayRange> ranges);
+}
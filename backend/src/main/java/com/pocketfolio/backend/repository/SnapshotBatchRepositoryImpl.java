@@ -0,0 +1,89 @@
+package com.pocketfolio.backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 以單一 INSERT ... SELECT 建立一個 chunk 的快照
+ *
+ * 資產以 id 做 keyset 分頁，報價在資料庫端 join，資料列不經過應用程式；
+ * 重複的 (asset_id, snapshot_date) 由唯一鍵 ON CONFLICT DO NOTHING 略過。
+ * 市值 / 損益的算法與 Asset 的計算屬性一致（沒有報價時沿用資產上的價格，再沒有則以成本價計市值）。
+ * 當日盤中區間以陣列參數傳入、unnest 後依代號 join，高 / 低價再納入快照時的市價。
+ */
+public class SnapshotBatchRepositoryImpl implements SnapshotBatchRepository {
+
+    private static final String INSERT_CHUNK =
+            "WITH ranges AS (" +
+            "  SELECT * FROM unnest(CAST(? AS text[]), CAST(? AS numeric[]), CAST(? AS numeric[]), CAST(? AS numeric[])) " +
+            "      AS r(symbol, day_open, day_high, day_low)" +
+            "), chunk AS (" +
+            "  SELECT a.id, a.user_id, a.symbol, a.name, a.type, a.quantity, a.cost_price, " +
+            "         COALESCE(q.price, a.current_price) AS latest_price, " +
+            "         r.day_open, r.day_high, r.day_low " +
+            "  FROM assets a " +
+            "  LEFT JOIN quotes q ON q.symbol = a.symbol AND q.asset_type = a.type " +
+            "  LEFT JOIN ranges r ON r.symbol = a.symbol " +
+            "  WHERE a.id > ? " +
+            "  ORDER BY a.id " +
+            "  LIMIT ?" +
+            "), inserted AS (" +
+            "  INSERT INTO asset_snapshots (id, user_id, asset_id, symbol, asset_name, asset_type, quantity, " +
+            "      cost_price, current_price, day_open, day_high, day_low, market_value, profit_loss, " +
+            "      profit_loss_percent, snapshot_date, created_at) " +
+            "  SELECT gen_random_uuid(), c.user_id, c.id, c.symbol, c.name, c.type, c.quantity, c.cost_price, " +
+            "         COALESCE(c.latest_price, c.cost_price), " +
+            "         ROUND(c.day_open, 2), " +
+            // GREATEST / LEAST 會忽略 NULL：當日沒有區間時高 / 低價維持 NULL
+            "         CASE WHEN c.day_open IS NOT NULL " +
+            "              THEN ROUND(GREATEST(c.day_high, COALESCE(c.latest_price, c.cost_price)), 2) END, " +
+            "         CASE WHEN c.day_open IS NOT NULL " +
+            "              THEN ROUND(LEAST(c.day_low, COALESCE(c.latest_price, c.cost_price)), 2) END, " +
+            "         ROUND(c.quantity * COALESCE(c.latest_price, c.cost_price), 2), " +
+            "         COALESCE(ROUND((c.latest_price - c.cost_price) * c.quantity, 2), 0), " +
+            "         CASE WHEN c.latest_price IS NULL OR c.cost_price = 0 THEN 0 " +
+            "              ELSE ROUND(ROUND((c.latest_price - c.cost_price) / c.cost_price, 4) * 100, 2) END, " +
+            "         ?, ? " +
+            "  FROM chunk c " +
+            "  ON CONFLICT (asset_id, snapshot_date) DO NOTHING " +
+            "  RETURNING 1" +
+            ") " +
+            "SELECT (SELECT COUNT(*) FROM chunk) AS scanned, " +
+            "       (SELECT COUNT(*) FROM inserted) AS inserted, " +
+            "       (SELECT id FROM chunk ORDER BY id DESC LIMIT 1) AS last_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SnapshotBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public SnapshotChunk insertSnapshotChunk(UUID afterAssetId, int limit, LocalDate snapshotDate, LocalDateTime createdAt,
+                                             List<IntradayRange> ranges) {
+        // PostgreSQL JDBC 直接支援 String[]；數值以字串傳入再 CAST 成 numeric[]
+        String[] symbols = new String[ranges.size()];
+        String[] opens = new String[ranges.size()];
+        String[] highs = new String[ranges.size()];
+        String[] lows = new String[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            IntradayRange range = ranges.get(i);
+            symbols[i] = range.symbol();
+            opens[i] = range.open().toPlainString();
+            highs[i] = range.high().toPlainString();
+            lows[i] = range.low().toPlainString();
+        }
+
+        return jdbcTemplate.queryForObject(INSERT_CHUNK,
+                (rs, rowNum) -> new SnapshotChunk(
+                        rs.getInt("scanned"),
+                        rs.getInt("inserted"),
+                        rs.getObject("last_id", UUID.class)),
+                symbols, opens, highs, lows, afterAssetId, limit, snapshotDate, Timestamp.valueOf(createdAt));
+    }
+}
@@ -0,0 +1,32 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.dto.HistoryResolution;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 資產歷史的週 / 月彙總（AssetSnapshotRepository 的自訂 fragment）
+ */
+public interface SnapshotHistoryRepository {
+
+    /**
+     * 一個區間的彙總：價格開高低收，市值與損益取區間最後一天
+     *
+     * @param date 區間內最後一筆快照的日期
+     */
+    record PriceBucket(LocalDate date,
+                       BigDecimal open,
+                       BigDecimal high,
+                       BigDecimal low,
+                       BigDecimal close,
+                       BigDecimal marketValue,
+                       BigDecimal profitLoss,
+                       BigDecimal profitLossPercent) {
+    }
+
+    List<PriceBucket> findPriceBuckets(UUID assetId, LocalDate startDate, LocalDate endDate,
+                                       HistoryResolution resolution);
+}
@@ -0,0 +1,52 @@
+package com.pocketfolio.backend.repository;
+
+import com.pocketfolio.backend.dto.HistoryResolution;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 在資料庫端以 date_trunc 分組，每個區間只回傳一列
+ *
+ * 開 / 高 / 低取每日快照的盤中區間；沒有盤中區間的日子以當日收盤價代替。
+ */
+public class SnapshotHistoryRepositoryImpl implements SnapshotHistoryRepository {
+
+    private static final String PRICE_BUCKETS =
+            "SELECT MAX(s.snapshot_date) AS last_date, " +
+            "       (ARRAY_AGG(COALESCE(s.day_open, s.current_price) ORDER BY s.snapshot_date))[1] AS open_price, " +
+            "       MAX(COALESCE(s.day_high, s.current_price)) AS high_price, " +
+            "       MIN(COALESCE(s.day_low, s.current_price)) AS low_price, " +
+            "       (ARRAY_AGG(s.current_price ORDER BY s.snapshot_date DESC))[1] AS close_price, " +
+            "       (ARRAY_AGG(s.market_value ORDER BY s.snapshot_date DESC))[1] AS market_value, " +
+            "       (ARRAY_AGG(s.profit_loss ORDER BY s.snapshot_date DESC))[1] AS profit_loss, " +
+            "       (ARRAY_AGG(s.profit_loss_percent ORDER BY s.snapshot_date DESC))[1] AS profit_loss_percent " +
+            "FROM asset_snapshots s " +
+            "WHERE s.asset_id = ? AND s.snapshot_date BETWEEN ? AND ? " +
+            "GROUP BY date_trunc(?, CAST(s.snapshot_date AS timestamp)) " +
+            "ORDER BY last_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SnapshotHistoryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<PriceBucket> findPriceBuckets(UUID assetId, LocalDate startDate, LocalDate endDate,
+                                              HistoryResolution resolution) {
+        return jdbcTemplate.query(PRICE_BUCKETS,
+                (rs, rowNum) -> new PriceBucket(
+                        rs.getObject("last_date", LocalDate.class),
+                        rs.getBigDecimal("open_price"),
+                        rs.getBigDecimal("high_price"),
+                        rs.getBigDecimal("low_price"),
+                        rs.getBigDecimal("close_price"),
+                        rs.getBigDecimal("market_value"),
+                        rs.getBigDecimal("profit_loss"),
+                        rs.getBigDecimal("profit_loss_percent")),
+                assetId, startDate, endDate, resolution.getTruncUnit());
+    }
+}
@@ -2,12 +2,14 @@ package com.pocketfolio.backend.scheduler;
 
 import com.pocketfolio.backend.service.AssetSnapshotService;
 import com.pocketfolio.backend.service.PriceService;
+import com.pocketfolio.backend.service.SnapshotPartitionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Component
@@ -22,6 +24,7 @@ public class PriceUpdateScheduler {
 
     private final PriceService priceService;
     private final AssetSnapshotService snapshotService;
+    private final SnapshotPartitionService snapshotPartitionService;
 
     /**
      * 定時更新所有資產價格
@@ -36,7 +39,7 @@ public class PriceUpdateScheduler {
 
         try {
             int successCount = priceService.updateAllAssetPrices();
-            log.info("=== 定時任務完成：成功更新 {} 筆資產 ===", successCount);
+            log.info("=== 定時任務完成：成功更新 {} 個代號 ===", successCount);
 
         } catch (Exception e) {
             log.error("=== 定時任務失敗：{} ===", e.getMessage(), e);
@@ -64,7 +67,7 @@ public class PriceUpdateScheduler {
     /**
      * 定時建立資產快照
      *
-     * 執行時機：每天凌晨 1 點
+     * 執行時機：每天凌晨 1 點，快照前一天（已收盤的完整一天）
      */
     @Scheduled(cron = "0 0 1 * * *")
     public void createDailySnapshots() {
@@ -72,11 +75,29 @@ public class PriceUpdateScheduler {
         log.info("執行時間: {}", LocalDateTime.now());
 
         try {
-            int count = snapshotService.createAllSnapshots();
+            int count = snapshotService.createAllSnapshots(LocalDate.now().minusDays(1));
             log.info("=== 定時任務完成：成功建立 {} 筆快照 ===", count);
 
         } catch (Exception e) {
             log.error("=== 定時任務失敗：{} ===", e.getMessage(), e);
         }
     }
+
+    /**
+     * 快照分區維護：預先建立未來月份的分區，壓縮超過保留期限的每日快照
+     *
+     * 執行時機：每天凌晨 0 點 30 分（在建立每日快照之前）
+     */
+    @Scheduled(cron = "${scheduler.snapshot-maintenance.cron:0 30 0 * * *}")
+    public void maintainSnapshotPartitions() {
+        log.info("=== 定時任務開始：快照分區維護 ===");
+
+        try {
+            snapshotPartitionService.maintain(LocalDate.now());
+            log.info("=== 定時任務完成：快照分區維護 ===");
+
+        } catch (Exception e) {
+            log.error("=== 定時任務失敗：{} ===", e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.pocketfolio.backend.security;
+
+import com.pocketfolio.backend.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * STOMP CONNECT 時以 Authorization header 的 JWT 辨識用戶
+ *
+ * session 的 Principal 名稱為 userId，convertAndSendToUser(userId.toString(), ...) 才能送到該用戶。
+ * 沒帶或帶了無效 token 的連線仍可訂閱公開的 /topic，只是沒有用戶身分。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtUtil jwtUtil;
+    private final CustomUserDetailsService userDetailsService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return message;
+        }
+
+        String token = authHeader.substring(7);
+        try {
+            String email = jwtUtil.extractUsername(token);
+            User user = (User) userDetailsService.loadUserByUsername(email);
+            if (jwtUtil.validateToken(token, user)) {
+                accessor.setUser(new StompPrincipal(user.getId()));
+            }
+        } catch (Exception e) {
+            // Token 無效或過期：以匿名連線處理
+            log.debug("WebSocket 連線的 Token 無效: {}", e.getMessage());
+        }
+        return message;
+    }
+
+    /**
+     * WebSocket session 的用戶身分：名稱為 userId
+     */
+    public record StompPrincipal(UUID userId) implements Principal {
+
+        @Override
+        public String getName() {
+            return userId.toString();
+        }
+    }
+}
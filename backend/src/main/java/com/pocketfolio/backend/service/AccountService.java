@@ -24,6 +24,7 @@ public class AccountService {
 
     private final AccountRepository repository;
     private final TransactionRepository transactionRepository;
+    private final QuoteService quoteService;
 
     // ── Create ──────────────────────────────────────────
     public AccountResponse createAccount(AccountRequest request) {
@@ -159,8 +160,12 @@ public class AccountService {
 
         // 投資帳戶：餘額 = 所有資產的市值加總
         if (account.getType() == AccountType.INVESTMENT) {
-            return account.getAssets().stream()
+            List<Asset> assets = account.getAssets().stream()
                     .filter(asset -> asset.getUser().getId().equals(currentUserId))
+                    .toList();
+            // 市值以 quotes 表的最新報價計算（一次查詢）
+            quoteService.attachQuotes(assets);
+            return assets.stream()
                     .map(Asset::getMarketValue)
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
         }
@@ -0,0 +1,149 @@
+package com.pocketfolio.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 外部 API 限流（每個 provider 一個 token bucket）
+ *
+ * 只包住真正送出的 HTTP 請求：@Cacheable 命中時不會走到這裡，不消耗 permit。
+ * 超出 burst 的請求依 permits-per-second 排隊，等待時間精準計算而非固定 sleep。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ApiRateLimiter {
+
+    public enum Provider {
+        COINGECKO("coingecko"),
+        YAHOO_FINANCE("yahoo-finance"),
+        TWSE_TPEX("twse-tpex");
+
+        private final String tag;
+
+        Provider(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    // CoinGecko 免費方案約每分鐘 30 次
+    @Value("${api.rate-limit.coingecko.permits-per-second:0.5}")
+    private double coinGeckoPermitsPerSecond;
+
+    @Value("${api.rate-limit.coingecko.burst:5}")
+    private int coinGeckoBurst;
+
+    @Value("${api.rate-limit.yahoo-finance.permits-per-second:2}")
+    private double yahooPermitsPerSecond;
+
+    @Value("${api.rate-limit.yahoo-finance.burst:5}")
+    private int yahooBurst;
+
+    @Value("${api.rate-limit.twse-tpex.permits-per-second:1}")
+    private double twseTpexPermitsPerSecond;
+
+    @Value("${api.rate-limit.twse-tpex.burst:2}")
+    private int twseTpexBurst;
+
+    private final Map<Provider, TokenBucket> buckets = new EnumMap<>(Provider.class);
+    private final Map<Provider, Counter> permitCounters = new EnumMap<>(Provider.class);
+    private final Map<Provider, Timer> waitTimers = new EnumMap<>(Provider.class);
+
+    @PostConstruct
+    void initBuckets() {
+        register(Provider.COINGECKO, coinGeckoPermitsPerSecond, coinGeckoBurst);
+        register(Provider.YAHOO_FINANCE, yahooPermitsPerSecond, yahooBurst);
+        register(Provider.TWSE_TPEX, twseTpexPermitsPerSecond, twseTpexBurst);
+    }
+
+    /**
+     * 訂閱時先取得 permit，必要時延遲後才送出請求
+     *
+     * @param provider 外部 API 來源
+     * @param call     尚未訂閱的請求（WebClient 回傳的 Mono 本身是 lazy 的）
+     */
+    public <T> Mono<T> throttle(Provider provider, Mono<T> call) {
+        return Mono.defer(() -> {
+            long waitNanos = acquire(provider);
+            return waitNanos == 0
+                    ? call
+                    : Mono.delay(Duration.ofNanos(waitNanos)).then(call);
+        });
+    }
+
+    // ── Helper: 預約一個 permit 並記錄 metrics，回傳需等待的奈秒數 ──
+    long acquire(Provider provider) {
+        long waitNanos = buckets.get(provider).reserve();
+        permitCounters.get(provider).increment();
+        waitTimers.get(provider).record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos > 0) {
+            log.debug("{} 限流等待 {} ms", provider.tag, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+        return waitNanos;
+    }
+
+    private void register(Provider provider, double permitsPerSecond, int burst) {
+        buckets.put(provider, new TokenBucket(permitsPerSecond, burst, System::nanoTime));
+        permitCounters.put(provider, Counter.builder("pocketfolio.api.rate-limit.permits")
+                .description("外部 API 已核發的 permit 數")
+                .tag("provider", provider.tag)
+                .register(meterRegistry));
+        waitTimers.put(provider, Timer.builder("pocketfolio.api.rate-limit.wait")
+                .description("取得 permit 前的等待時間")
+                .tag("provider", provider.tag)
+                .register(meterRegistry));
+        log.info("API 限流設定 {}: {} permits/s, burst {}", provider.tag, permitsPerSecond, burst);
+    }
+
+    /**
+     * Token bucket（預約制）
+     *
+     * tokens 可以變成負數，代表已被預約的未來 permit；
+     * 等待時間 = 欠額 / 補充速率，呼叫端不需要輪詢。
+     */
+    static class TokenBucket {
+
+        private final double nanosPerPermit;
+        private final int burst;
+        private final LongSupplier clock;
+
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+            if (permitsPerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("permits-per-second 必須大於 0，burst 至少為 1");
+            }
+            this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+            this.burst = burst;
+            this.clock = clock;
+            this.tokens = burst;
+            this.lastRefill = clock.getAsLong();
+        }
+
+        synchronized long reserve() {
+            long now = clock.getAsLong();
+            tokens = Math.min(burst, tokens + (now - lastRefill) / nanosPerPermit);
+            lastRefill = now;
+
+            tokens -= 1;
+            if (tokens >= 0) return 0;
+            return (long) Math.ceil(-tokens * nanosPerPermit);
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.pocketfolio.backend.entity.AssetType;
 import com.pocketfolio.backend.entity.Transaction;
 import com.pocketfolio.backend.entity.TransactionType;
 import com.pocketfolio.backend.entity.User;
+import com.pocketfolio.backend.event.PortfolioEventRelay;
+import com.pocketfolio.backend.event.PortfolioEventRelay.HoldingChange;
 import com.pocketfolio.backend.exception.ResourceNotFoundException;
 import com.pocketfolio.backend.repository.AccountRepository;
 import com.pocketfolio.backend.repository.AssetRepository;
@@ -16,6 +18,8 @@ import com.pocketfolio.backend.security.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -30,6 +34,8 @@ public class AssetService {
     private final AssetRepository assetRepository;
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final QuoteService quoteService;
+    private final PortfolioEventRelay portfolioEventRelay;
 
     // ── Create ──────────────────────────────────────────
     @Transactional
@@ -69,6 +75,7 @@ public class AssetService {
         asset.setUser(user);
 
         Asset saved = assetRepository.save(asset);
+        quoteService.attachQuote(saved);
 
         // 若有填寫來源帳戶，自動建立轉帳記錄（TRANSFER_OUT → TRANSFER_IN）
         if (request.getFromAccountId() != null) {
@@ -109,6 +116,8 @@ public class AssetService {
             transactionRepository.save(in);
         }
 
+        afterCommit(List.of(HoldingChange.added(currentUserId, saved.getSymbol(),
+                saved.getQuantity(), saved.getCostPrice(), saved.getLatestPrice())));
         return toResponse(saved);
     }
 
@@ -125,6 +134,7 @@ public class AssetService {
             throw new ResourceNotFoundException("找不到 ID 為 " + id + " 的資產");
         }
 
+        quoteService.attachQuote(asset);
         return toResponse(asset);
     }
 
@@ -140,7 +150,10 @@ public class AssetService {
             throw new ResourceNotFoundException("找不到帳戶");
         }
 
-        return assetRepository.findByUserIdAndAccountId(currentUserId, accountId).stream()
+        List<Asset> assets = assetRepository.findByUserIdAndAccountId(currentUserId, accountId);
+        quoteService.attachQuotes(assets);
+
+        return assets.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -157,7 +170,10 @@ public class AssetService {
             throw new ResourceNotFoundException("找不到帳戶");
         }
 
-        return assetRepository.findByUserIdAndAccountIdAndType(currentUserId, accountId, type).stream()
+        List<Asset> assets = assetRepository.findByUserIdAndAccountIdAndType(currentUserId, accountId, type);
+        quoteService.attachQuotes(assets);
+
+        return assets.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
@@ -182,6 +198,9 @@ public class AssetService {
             throw new IllegalArgumentException("此帳戶已有代號為「" + request.getSymbol() + "」的資產");
         }
 
+        String oldSymbol = asset.getSymbol();
+        BigDecimal oldQuantity = asset.getQuantity();
+        BigDecimal oldCostPrice = asset.getCostPrice();
         asset.setType(request.getType());
         asset.setSymbol(request.getSymbol().toUpperCase());
         asset.setName(request.getName());
@@ -189,7 +208,14 @@ public class AssetService {
         asset.setCostPrice(request.getCostPrice());
         asset.setNote(request.getNote());
 
-        return toResponse(assetRepository.save(asset));
+        Asset saved = assetRepository.save(asset);
+        quoteService.attachQuote(saved);
+
+        afterCommit(List.of(
+                HoldingChange.removed(currentUserId, oldSymbol, oldQuantity, oldCostPrice),
+                HoldingChange.added(currentUserId, saved.getSymbol(),
+                        saved.getQuantity(), saved.getCostPrice(), saved.getLatestPrice())));
+        return toResponse(saved);
     }
 
     // ── Delete ───────────────────────────────────────────
@@ -206,6 +232,22 @@ public class AssetService {
         }
 
         assetRepository.deleteById(id);
+        afterCommit(List.of(
+                HoldingChange.removed(currentUserId, asset.getSymbol(), asset.getQuantity(), asset.getCostPrice())));
+    }
+
+    // ── Helper: 交易提交後才更新各節點記憶體中的持倉（rollback 時不動；不在交易中時立即執行）──
+    private void afterCommit(List<HoldingChange> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            portfolioEventRelay.applyHoldingChanges(changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                portfolioEventRelay.applyHoldingChanges(changes);
+            }
+        });
     }
 
     // ── Helper ───────────────────────────────────────────
@@ -219,12 +261,12 @@ public class AssetService {
                 .name(asset.getName())
                 .quantity(asset.getQuantity())
                 .costPrice(asset.getCostPrice())
-                .currentPrice(asset.getCurrentPrice())
-                .lastPriceUpdate(asset.getLastPriceUpdate())
+                .currentPrice(asset.getLatestPrice())
+                .lastPriceUpdate(asset.getLatestPriceUpdate())
                 .marketValue(asset.getMarketValue())
                 .profitLoss(asset.getProfitLoss())
                 .profitLossPercent(asset.getProfitLossPercent())
-                .priceCurrency(asset.getPriceCurrency())
+                .priceCurrency(asset.getLatestPriceCurrency())
                 .note(asset.getNote())
                 .build();
     }
@@ -0,0 +1,86 @@
+package com.pocketfolio.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * asset_snapshots 唯一鍵 (asset_id, snapshot_date) 的補建（僅 PostgreSQL）
+ *
+ * 快照排程的 INSERT ... ON CONFLICT (asset_id, snapshot_date) 需要這個唯一鍵，
+ * 但 ddl-auto: update 在既有資料表已有重複快照時加不上約束（只記錄 warning 就繼續啟動）。
+ * 啟動時檢查，缺少時先刪除重複的快照（每組保留 created_at 最新的一筆），再加上約束。
+ * 需在 {@link SnapshotPartitionService} 轉為分區表之前執行：搬移資料時新表已有唯一鍵。
+ */
+@Service
+@Slf4j
+public class AssetSnapshotSchemaMigration {
+
+    static final String TABLE = "asset_snapshots";
+    static final String UNIQUE_KEY = "uk_asset_snapshot_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AssetSnapshotSchemaMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrate() {
+        try {
+            if (!isPostgreSql() || !tableExists() || hasUniqueKey()) return;
+            transactionTemplate.executeWithoutResult(status -> addUniqueKey());
+        } catch (Exception e) {
+            log.error("asset_snapshots 唯一鍵補建失敗，快照排程無法去重: {}", e.getMessage(), e);
+        }
+    }
+
+    // ── 刪除重複快照後加上唯一鍵（同一交易，期間擋住快照寫入）──
+    void addUniqueKey() {
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN SHARE ROW EXCLUSIVE MODE");
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM " + TABLE + " a USING " + TABLE + " b " +
+                "WHERE a.asset_id = b.asset_id AND a.snapshot_date = b.snapshot_date " +
+                "AND (a.created_at, CAST(a.id AS text)) < (b.created_at, CAST(b.id AS text))");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE +
+                " ADD CONSTRAINT " + UNIQUE_KEY + " UNIQUE (asset_id, snapshot_date)");
+        log.info("asset_snapshots 已加上唯一鍵 {}（刪除重複快照 {} 筆）", UNIQUE_KEY, deleted);
+    }
+
+    boolean hasUniqueKey() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.conname FROM pg_constraint c " +
+                "JOIN pg_class t ON t.oid = c.conrelid " +
+                "WHERE t.relname = ? AND c.conname = ? " +
+                "AND t.relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())",
+                String.class, TABLE, UNIQUE_KEY);
+        return !names.isEmpty();
+    }
+
+    // ── Helper: catalog 查詢 ──
+
+    private boolean isPostgreSql() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    private boolean tableExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_class WHERE relname = ? AND relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())",
+                Integer.class, TABLE);
+        return count != null && count > 0;
+    }
+}
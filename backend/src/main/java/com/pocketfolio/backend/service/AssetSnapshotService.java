@@ -2,19 +2,28 @@ package com.pocketfolio.backend.service;
 
 import com.pocketfolio.backend.dto.AssetHistoryResponse;
 import com.pocketfolio.backend.dto.AssetSnapshotResponse;
+import com.pocketfolio.backend.dto.HistoryResolution;
 import com.pocketfolio.backend.dto.PortfolioSnapshotResponse;
 import com.pocketfolio.backend.entity.Asset;
 import com.pocketfolio.backend.entity.AssetSnapshot;
+import com.pocketfolio.backend.entity.PortfolioDailyTotal;
+import com.pocketfolio.backend.event.SnapshotBookkeepingListener;
 import com.pocketfolio.backend.repository.AssetRepository;
 import com.pocketfolio.backend.repository.AssetSnapshotRepository;
+import com.pocketfolio.backend.repository.PortfolioDailyTotalRepository;
+import com.pocketfolio.backend.repository.SnapshotBatchRepository;
 import com.pocketfolio.backend.security.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -26,6 +35,24 @@ public class AssetSnapshotService {
 
     private final AssetSnapshotRepository snapshotRepository;
     private final AssetRepository assetRepository;
+    private final QuoteService quoteService;
+    private final SnapshotBookkeepingListener snapshotBookkeeping;
+    private final PortfolioDailyTotalRepository totalRepository;
+
+    // UUID 在 PostgreSQL 依位元組排序，全 0 是最小值
+    static final UUID FIRST_ASSET_ID = new UUID(0L, 0L);
+
+    // 每個 INSERT ... SELECT 處理的資產數
+    @Value("${snapshot.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    // 歷史走勢未指定 maxPoints 時的資料點上限（超過即改用週 / 月粒度）
+    @Value("${snapshot.history.max-points:400}")
+    private int defaultMaxPoints = 400;
+
+    // 歷史走勢可查詢的最長天數
+    @Value("${snapshot.history.max-days:3650}")
+    private int maxHistoryDays = 3650;
 
     // ── 建立單一資產的快照 ──────────────────────────────────
     public AssetSnapshotResponse createSnapshot(UUID assetId) {
@@ -39,44 +66,64 @@ public class AssetSnapshotService {
             return null;
         }
 
+        quoteService.attachQuote(asset);
         AssetSnapshot snapshot = AssetSnapshot.fromAsset(asset);
+        snapshotBookkeeping.rangeOf(asset.getSymbol(), today)
+                .ifPresent(range -> snapshot.applyDayRange(range.getOpen(), range.getHigh(), range.getLow()));
         AssetSnapshot saved = snapshotRepository.save(snapshot);
+        totalRepository.rollupUser(asset.getUser().getId(), today);
 
         log.info("資產快照已建立: {} (${}) - {}",
                 asset.getSymbol(),
-                asset.getCurrentPrice(),
+                asset.getLatestPrice(),
                 today);
 
         return toResponse(saved);
     }
 
     // ── 建立所有資產的快照（定時任務用）────────────────────────
-    public int createAllSnapshots() {
-        List<Asset> allAssets = assetRepository.findAll();
-        int count = 0;
-        LocalDate today = LocalDate.now();
-
-        log.info("開始建立資產快照，共 {} 筆資產", allAssets.size());
-
-        for (Asset asset : allAssets) {
-            try {
-                // 檢查是否已有快照
-                if (!snapshotRepository.existsByAssetIdAndSnapshotDate(asset.getId(), today)) {
-                    AssetSnapshot snapshot = AssetSnapshot.fromAsset(asset);
-                    snapshotRepository.save(snapshot);
-                    count++;
-                }
-            } catch (Exception e) {
-                log.error("建立快照失敗: {} - {}", asset.getSymbol(), e.getMessage());
-            }
+    // 以資產 id keyset 分頁，每個 chunk 一個 INSERT ... SELECT，資產不載入記憶體。
+    // 凌晨的定時任務傳入前一天：快照日期與盤中區間都是已收盤的那一天（價格為執行當下的最新價），
+    // 寫入後清除該日（含）之前的盤中統計。
+    public int createAllSnapshots(LocalDate snapshotDate) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        long startedAt = System.currentTimeMillis();
+
+        // 該日盤中區間只取一次，所有 chunk 共用
+        List<SnapshotBatchRepository.IntradayRange> ranges = snapshotBookkeeping.rangesOn(snapshotDate)
+                .entrySet().stream()
+                .map(entry -> new SnapshotBatchRepository.IntradayRange(entry.getKey(),
+                        entry.getValue().getOpen(), entry.getValue().getHigh(), entry.getValue().getLow()))
+                .toList();
+
+        UUID after = FIRST_ASSET_ID;
+        int scanned = 0;
+        int inserted = 0;
+        while (true) {
+            SnapshotBatchRepository.SnapshotChunk chunk =
+                    snapshotRepository.insertSnapshotChunk(after, chunkSize, snapshotDate, createdAt, ranges);
+            scanned += chunk.scanned();
+            inserted += chunk.inserted();
+            if (chunk.scanned() < chunkSize || chunk.lastAssetId() == null) break;
+            after = chunk.lastAssetId();
         }
 
-        log.info("快照建立完成：{}/{} 成功", count, allAssets.size());
-        return count;
+        // 該日快照寫完後一次彙總每位用戶的總計
+        int users = totalRepository.rollup(snapshotDate, snapshotDate);
+        snapshotBookkeeping.pruneThrough(snapshotDate);
+
+        log.info("快照建立完成（{}）：{}/{} 新增、{} 位用戶總計，耗時 {} ms（含盤中區間的代號 {} 個）",
+                snapshotDate, inserted, scanned, users, System.currentTimeMillis() - startedAt, ranges.size());
+        return inserted;
     }
 
     // ── 查詢資產的歷史快照 ──────────────────────────────────
     public AssetHistoryResponse getAssetHistory(UUID assetId, Integer days) {
+        return getAssetHistory(assetId, days, null);
+    }
+
+    // 依天數與資料點上限自動選擇日 / 週 / 月粒度，週 / 月在資料庫端彙總
+    public AssetHistoryResponse getAssetHistory(UUID assetId, Integer days, Integer maxPoints) {
         Asset asset = assetRepository.findById(assetId)
                 .orElseThrow(() -> new IllegalArgumentException("找不到資產"));
 
@@ -87,27 +134,50 @@ public class AssetSnapshotService {
         }
 
         // 計算日期範圍
+        int range = rangeDays(days);
         LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(days != null ? days : 30);
-
-        List<AssetSnapshot> snapshots = snapshotRepository
-                .findByAssetIdAndSnapshotDateBetweenOrderBySnapshotDate(
-                        assetId, startDate, endDate);
+        LocalDate startDate = endDate.minusDays(range);
+        HistoryResolution resolution = HistoryResolution.forRange(range, maxPoints(maxPoints));
 
         // 轉換為圖表資料點
-        List<AssetHistoryResponse.DataPoint> dataPoints = snapshots.stream()
-                .map(snapshot -> AssetHistoryResponse.DataPoint.builder()
-                        .date(snapshot.getSnapshotDate().toString())
-                        .price(snapshot.getCurrentPrice().doubleValue())
-                        .marketValue(snapshot.getMarketValue().doubleValue())
-                        .profitLoss(snapshot.getProfitLoss().doubleValue())
-                        .profitLossPercent(snapshot.getProfitLossPercent().doubleValue())
-                        .build())
-                .collect(Collectors.toList());
+        List<AssetHistoryResponse.DataPoint> dataPoints;
+        if (resolution == HistoryResolution.DAILY) {
+            dataPoints = snapshotRepository
+                    .findByAssetIdAndSnapshotDateBetweenOrderBySnapshotDate(assetId, startDate, endDate)
+                    .stream()
+                    .map(snapshot -> AssetHistoryResponse.DataPoint.builder()
+                            .date(snapshot.getSnapshotDate().toString())
+                            .price(snapshot.getCurrentPrice().doubleValue())
+                            // 當日沒有盤中區間時開 / 高 / 低都以收盤價代替
+                            .open(orClose(snapshot.getDayOpen(), snapshot))
+                            .high(orClose(snapshot.getDayHigh(), snapshot))
+                            .low(orClose(snapshot.getDayLow(), snapshot))
+                            .marketValue(snapshot.getMarketValue().doubleValue())
+                            .profitLoss(snapshot.getProfitLoss().doubleValue())
+                            .profitLossPercent(snapshot.getProfitLossPercent().doubleValue())
+                            .build())
+                    .collect(Collectors.toList());
+        } else {
+            dataPoints = snapshotRepository
+                    .findPriceBuckets(assetId, startDate, endDate, resolution)
+                    .stream()
+                    .map(bucket -> AssetHistoryResponse.DataPoint.builder()
+                            .date(bucket.date().toString())
+                            .price(bucket.close().doubleValue())
+                            .open(bucket.open().doubleValue())
+                            .high(bucket.high().doubleValue())
+                            .low(bucket.low().doubleValue())
+                            .marketValue(bucket.marketValue().doubleValue())
+                            .profitLoss(bucket.profitLoss().doubleValue())
+                            .profitLossPercent(bucket.profitLossPercent().doubleValue())
+                            .build())
+                    .collect(Collectors.toList());
+        }
 
         return AssetHistoryResponse.builder()
                 .symbol(asset.getSymbol())
                 .assetName(asset.getName())
+                .resolution(resolution)
                 .history(dataPoints)
                 .build();
     }
@@ -123,15 +193,107 @@ public class AssetSnapshotService {
             return null;
         }
 
-        // 計算總計
-        BigDecimal totalMarketValue = snapshots.stream()
-                .map(AssetSnapshot::getMarketValue)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<AssetSnapshotResponse> assetList = snapshots.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+
+        // 總計優先讀每日總計表；尚未彙總的日期（例如剛手動建立的快照）才由明細加總
+        return totalRepository.findByUserIdAndSnapshotDate(currentUserId, date)
+                .map(total -> toPortfolioResponse(total, assetList))
+                .orElseGet(() -> toPortfolioResponse(date,
+                        snapshots.stream()
+                                .map(AssetSnapshot::getMarketValue)
+                                .reduce(BigDecimal.ZERO, BigDecimal::add),
+                        snapshots.stream()
+                                .map(s -> s.getCostPrice().multiply(s.getQuantity()))
+                                .reduce(BigDecimal.ZERO, BigDecimal::add),
+                        snapshots.size(),
+                        assetList));
+    }
 
-        BigDecimal totalCost = snapshots.stream()
-                .map(s -> s.getCostPrice().multiply(s.getQuantity()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // ── 查詢用戶的投資組合歷史趨勢 ──────────────────────────
+    public List<PortfolioSnapshotResponse> getPortfolioHistory(Integer days) {
+        return getPortfolioHistory(days, null);
+    }
 
+    // 讀 portfolio_daily_totals：每天一列，不載入各資產的快照；範圍長時改為週 / 月彙總
+    public List<PortfolioSnapshotResponse> getPortfolioHistory(Integer days, Integer maxPoints) {
+        UUID currentUserId = SecurityUtil.getCurrentUserId();
+
+        int range = rangeDays(days);
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(range);
+        HistoryResolution resolution = HistoryResolution.forRange(range, maxPoints(maxPoints));
+
+        if (resolution == HistoryResolution.DAILY) {
+            return totalRepository
+                    .findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(currentUserId, startDate, endDate)
+                    .stream()
+                    .map(total -> {
+                        PortfolioSnapshotResponse response = toPortfolioResponse(total, null);
+                        response.setResolution(resolution);
+                        response.setHighMarketValue(total.getTotalMarketValue());
+                        response.setLowMarketValue(total.getTotalMarketValue());
+                        return response;
+                    })
+                    .collect(Collectors.toList());
+        }
+
+        return totalRepository
+                .findTotalBuckets(currentUserId, startDate, endDate, resolution)
+                .stream()
+                .map(bucket -> {
+                    PortfolioSnapshotResponse response = toPortfolioResponse(bucket.date(),
+                            bucket.totalMarketValue(), bucket.totalCost(), bucket.assetCount(), null);
+                    response.setResolution(resolution);
+                    response.setHighMarketValue(bucket.highMarketValue());
+                    response.setLowMarketValue(bucket.lowMarketValue());
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // ── 每日總計回補 ─────────────────────────────────────
+    // 總計表是後來加入的：啟動時若為空，由既有的 asset_snapshots 一次彙總
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillDailyTotals() {
+        try {
+            if (totalRepository.count() > 0) return;
+
+            int rows = totalRepository.rollup(LocalDate.EPOCH, LocalDate.now());
+            if (rows > 0) {
+                log.info("每日投資組合總計回補完成：{} 筆", rows);
+            }
+        } catch (Exception e) {
+            log.error("每日投資組合總計回補失敗: {}", e.getMessage());
+        }
+    }
+
+    // ── Helper: 查詢範圍與資料點上限 ─────────────────────────
+    private int rangeDays(Integer days) {
+        return Math.max(0, Math.min(days != null ? days : 30, maxHistoryDays));
+    }
+
+    private int maxPoints(Integer maxPoints) {
+        return maxPoints != null ? Math.max(2, maxPoints) : defaultMaxPoints;
+    }
+
+    private double orClose(BigDecimal value, AssetSnapshot snapshot) {
+        return (value != null ? value : snapshot.getCurrentPrice()).doubleValue();
+    }
+
+    // ── Helper: 每日總計 → DTO ─────────────────────────────
+    private PortfolioSnapshotResponse toPortfolioResponse(PortfolioDailyTotal total,
+                                                          List<AssetSnapshotResponse> assets) {
+        return toPortfolioResponse(total.getSnapshotDate(), total.getTotalMarketValue(),
+                total.getTotalCost(), total.getAssetCount(), assets);
+    }
+
+    private PortfolioSnapshotResponse toPortfolioResponse(LocalDate date,
+                                                          BigDecimal totalMarketValue,
+                                                          BigDecimal totalCost,
+                                                          int assetCount,
+                                                          List<AssetSnapshotResponse> assets) {
         BigDecimal totalProfitLoss = totalMarketValue.subtract(totalCost);
 
         BigDecimal totalProfitLossPercent = totalCost.compareTo(BigDecimal.ZERO) == 0
@@ -140,69 +302,17 @@ public class AssetSnapshotService {
                 .multiply(new BigDecimal("100"))
                 .setScale(2, RoundingMode.HALF_UP);
 
-        List<AssetSnapshotResponse> assetList = snapshots.stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-
         return PortfolioSnapshotResponse.builder()
                 .date(date)
                 .totalMarketValue(totalMarketValue)
                 .totalCost(totalCost)
                 .totalProfitLoss(totalProfitLoss)
                 .totalProfitLossPercent(totalProfitLossPercent)
-                .assetCount(snapshots.size())
-                .assets(assetList)
+                .assetCount(assetCount)
+                .assets(assets)
                 .build();
     }
 
-    // ── 查詢用戶的投資組合歷史趨勢 ──────────────────────────
-    public List<PortfolioSnapshotResponse> getPortfolioHistory(Integer days) {
-        UUID currentUserId = SecurityUtil.getCurrentUserId();
-
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(days != null ? days : 30);
-
-        List<AssetSnapshot> allSnapshots = snapshotRepository
-                .findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(
-                        currentUserId, startDate, endDate);
-
-        // 按日期分組
-        return allSnapshots.stream()
-                .collect(Collectors.groupingBy(AssetSnapshot::getSnapshotDate))
-                .entrySet().stream()
-                .map(entry -> {
-                    LocalDate date = entry.getKey();
-                    List<AssetSnapshot> dailySnapshots = entry.getValue();
-
-                    BigDecimal totalMarketValue = dailySnapshots.stream()
-                            .map(AssetSnapshot::getMarketValue)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal totalCost = dailySnapshots.stream()
-                            .map(s -> s.getCostPrice().multiply(s.getQuantity()))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    BigDecimal totalProfitLoss = totalMarketValue.subtract(totalCost);
-
-                    BigDecimal totalProfitLossPercent = totalCost.compareTo(BigDecimal.ZERO) == 0
-                            ? BigDecimal.ZERO
-                            : totalProfitLoss.divide(totalCost, 4, RoundingMode.HALF_UP)
-                            .multiply(new BigDecimal("100"))
-                            .setScale(2, RoundingMode.HALF_UP);
-
-                    return PortfolioSnapshotResponse.builder()
-                            .date(date)
-                            .totalMarketValue(totalMarketValue)
-                            .totalCost(totalCost)
-                            .totalProfitLoss(totalProfitLoss)
-                            .totalProfitLossPercent(totalProfitLossPercent)
-                            .assetCount(dailySnapshots.size())
-                            .build();
-                })
-                .sorted((a, b) -> a.getDate().compareTo(b.getDate()))
-                .collect(Collectors.toList());
-    }
-
     // ── Helper: Entity → DTO ─────────────────────────────
     private AssetSnapshotResponse toResponse(AssetSnapshot snapshot) {
         return AssetSnapshotResponse.builder()
@@ -0,0 +1,129 @@
+package com.pocketfolio.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 已連線用戶的持倉索引：代號 → 持有該代號且目前有 WebSocket 連線的用戶
+ *
+ * 只記錄已連線的用戶：第一個 session 連線時載入該用戶的持倉，最後一個 session 斷線時移除。
+ * 資產新增 / 修改 / 刪除時經 PortfolioEventRelay 同步更新（每個節點各自一份），價格變動時不需查 DB，
+ * 查詢成本為 O(持有人數)。
+ *
+ * 同一用戶可能在多個帳戶持有同一代號，以資產筆數計數，全部刪除後才自代號移除。
+ */
+@Component
+public class ConnectedHolderIndex {
+
+    private final Map<UUID, Set<String>> sessionsByUser = new HashMap<>();
+    private final Map<UUID, Map<String, Integer>> holdingsByUser = new HashMap<>();
+    private final Map<String, Set<UUID>> holdersBySymbol = new HashMap<>();
+
+    /**
+     * 登記一個 session
+     *
+     * @return 是否為該用戶的第一個 session（呼叫端需接著以 {@link #replaceHoldings} 載入持倉）
+     */
+    public synchronized boolean connect(UUID userId, String sessionId) {
+        Set<String> sessions = sessionsByUser.computeIfAbsent(userId, id -> new HashSet<>());
+        boolean first = sessions.isEmpty();
+        sessions.add(sessionId);
+        if (first) {
+            holdingsByUser.put(userId, new HashMap<>());
+        }
+        return first;
+    }
+
+    /**
+     * 移除一個 session；該用戶沒有其他 session 時一併移除持倉
+     *
+     * @return 是否為該用戶的最後一個 session
+     */
+    public synchronized boolean disconnect(UUID userId, String sessionId) {
+        Set<String> sessions = sessionsByUser.get(userId);
+        if (sessions == null || !sessions.remove(sessionId) || !sessions.isEmpty()) return false;
+
+        sessionsByUser.remove(userId);
+        Map<String, Integer> holdings = holdingsByUser.remove(userId);
+        if (holdings != null) {
+            holdings.keySet().forEach(symbol -> removeHolder(symbol, userId));
+        }
+        return true;
+    }
+
+    /**
+     * 以 DB 載入的持倉（每筆資產一個代號）取代已連線用戶的持倉；用戶未連線時忽略
+     */
+    public synchronized void replaceHoldings(UUID userId, Collection<String> symbols) {
+        Map<String, Integer> holdings = holdingsByUser.get(userId);
+        if (holdings == null) return;
+
+        holdings.keySet().forEach(symbol -> removeHolder(symbol, userId));
+        holdings.clear();
+        symbols.forEach(symbol -> addHolding(userId, symbol));
+    }
+
+    /**
+     * 用戶新增一筆持有該代號的資產；用戶未連線時忽略
+     */
+    public synchronized void addHolding(UUID userId, String symbol) {
+        Map<String, Integer> holdings = holdingsByUser.get(userId);
+        if (holdings == null) return;
+
+        String key = key(symbol);
+        if (holdings.merge(key, 1, Integer::sum) == 1) {
+            holdersBySymbol.computeIfAbsent(key, s -> new HashSet<>()).add(userId);
+        }
+    }
+
+    /**
+     * 用戶刪除一筆持有該代號的資產；用戶未連線時忽略
+     */
+    public synchronized void removeHolding(UUID userId, String symbol) {
+        Map<String, Integer> holdings = holdingsByUser.get(userId);
+        if (holdings == null) return;
+
+        String key = key(symbol);
+        Integer remaining = holdings.computeIfPresent(key, (s, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            removeHolder(key, userId);
+        }
+    }
+
+    /**
+     * 持有該代號且已連線的用戶（快照，呼叫端可自由迭代）
+     */
+    public synchronized Set<UUID> holdersOf(String symbol) {
+        Set<UUID> holders = holdersBySymbol.get(key(symbol));
+        return holders != null ? Set.copyOf(holders) : Set.of();
+    }
+
+    /**
+     * 已連線用戶持有的代號
+     */
+    public synchronized Set<String> symbolsOf(UUID userId) {
+        Map<String, Integer> holdings = holdingsByUser.get(userId);
+        return holdings != null ? Set.copyOf(holdings.keySet()) : Set.of();
+    }
+
+    public synchronized boolean isConnected(UUID userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public synchronized int connectedUsers() {
+        return sessionsByUser.size();
+    }
+
+    // ── Helper ───────────────────────────────────────────
+    private void removeHolder(String symbol, UUID userId) {
+        Set<UUID> holders = holdersBySymbol.get(symbol);
+        if (holders != null && holders.remove(userId) && holders.isEmpty()) {
+            holdersBySymbol.remove(symbol);
+        }
+    }
+
+    private String key(String symbol) {
+        return symbol.toUpperCase();
+    }
+}
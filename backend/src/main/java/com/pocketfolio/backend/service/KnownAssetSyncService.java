@@ -13,6 +13,7 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,6 +25,7 @@ public class KnownAssetSyncService {
 
     private final KnownAssetRepository knownAssetRepository;
     private final WebClient.Builder webClientBuilder;
+    private final ApiRateLimiter rateLimiter;
 
     @Value("${api.coingecko.base-url}")
     private String coinGeckoBaseUrl;
@@ -45,12 +47,12 @@ public class KnownAssetSyncService {
     @Transactional
     public int syncTwse() {
         log.info("開始同步 TWSE 上市股票與 ETF...");
-        List<TwseItem> items = webClientBuilder.build()
+        Mono<List<TwseItem>> request = webClientBuilder.build()
                 .get().uri(TWSE_URL)
                 .retrieve()
                 .bodyToFlux(TwseItem.class)
-                .collectList()
-                .block();
+                .collectList();
+        List<TwseItem> items = rateLimiter.throttle(ApiRateLimiter.Provider.TWSE_TPEX, request).block();
 
         if (items == null || items.size() < TWSE_MIN_COUNT) {
             log.warn("TWSE 回傳資料量異常（{}筆），跳過本次同步", items == null ? 0 : items.size());
@@ -82,12 +84,12 @@ public class KnownAssetSyncService {
     @Transactional
     public int syncTpex() {
         log.info("開始同步 TPEX 上櫃股票與 ETF...");
-        List<TpexItem> items = webClientBuilder.build()
+        Mono<List<TpexItem>> request = webClientBuilder.build()
                 .get().uri(TPEX_URL)
                 .retrieve()
                 .bodyToFlux(TpexItem.class)
-                .collectList()
-                .block();
+                .collectList();
+        List<TpexItem> items = rateLimiter.throttle(ApiRateLimiter.Provider.TWSE_TPEX, request).block();
 
         if (items == null || items.size() < TPEX_MIN_COUNT) {
             log.warn("TPEX 回傳資料量異常（{}筆），跳過本次同步", items == null ? 0 : items.size());
@@ -123,7 +125,7 @@ public class KnownAssetSyncService {
     public int syncCrypto() {
         log.info("開始同步 CoinGecko 市值前 200 加密貨幣...");
 
-        List<CoinGeckoMarketItem> items = webClientBuilder.baseUrl(coinGeckoBaseUrl).build()
+        Mono<List<CoinGeckoMarketItem>> request = webClientBuilder.baseUrl(coinGeckoBaseUrl).build()
                 .get()
                 .uri(u -> u.path("/coins/markets")
                         .queryParam("vs_currency", "usd")
@@ -133,8 +135,8 @@ public class KnownAssetSyncService {
                         .build())
                 .retrieve()
                 .bodyToFlux(CoinGeckoMarketItem.class)
-                .collectList()
-                .block();
+                .collectList();
+        List<CoinGeckoMarketItem> items = rateLimiter.throttle(ApiRateLimiter.Provider.COINGECKO, request).block();
 
         if (items == null || items.size() < CRYPTO_MIN_COUNT) {
             log.warn("CoinGecko 回傳資料量異常（{}筆），跳過本次同步", items == null ? 0 : items.size());
@@ -0,0 +1,164 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.Asset;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已連線用戶的投資組合市值（隨報價增量更新）
+ *
+ * 每位用戶依代號彙總持倉（數量、成本、最後價格），並維護市值與成本的累計值：
+ * 報價變動時只套用 (新價 − 舊價) × 數量，不重算全部持倉、不查 DB。
+ * 用戶的第一個 WebSocket session 連線時載入，最後一個 session 斷線時移除；
+ * 資產新增 / 修改 / 刪除由 AssetService 在交易提交後經 PortfolioEventRelay 同步到每個節點。
+ *
+ * 與 AccountService 的投資帳戶餘額相同，市值直接加總、不做幣別換算。
+ */
+@Component
+public class PortfolioValueTracker {
+
+    private final Map<UUID, Portfolio> byUser = new ConcurrentHashMap<>();
+
+    /**
+     * 投資組合的市值快照
+     */
+    public record PortfolioValue(BigDecimal marketValue, BigDecimal totalCost, int positions) {
+
+        public BigDecimal profitLoss() {
+            return marketValue.subtract(totalCost);
+        }
+    }
+
+    /**
+     * 以 DB 的資產（已附加最新報價）建立用戶的投資組合，取代原有的
+     */
+    public PortfolioValue load(UUID userId, Collection<Asset> assets) {
+        Portfolio portfolio = new Portfolio();
+        for (Asset asset : assets) {
+            BigDecimal price = asset.getLatestPrice() != null ? asset.getLatestPrice() : asset.getCostPrice();
+            portfolio.add(asset.getSymbol(), asset.getQuantity(), asset.getCostPrice(), price);
+        }
+        byUser.put(userId, portfolio);
+        return portfolio.value();
+    }
+
+    public void remove(UUID userId) {
+        byUser.remove(userId);
+    }
+
+    /**
+     * 已載入的用戶新增一筆持倉；未載入（未連線）時忽略
+     */
+    public void addPosition(UUID userId, String symbol, BigDecimal quantity, BigDecimal costPrice, BigDecimal price) {
+        Portfolio portfolio = byUser.get(userId);
+        if (portfolio != null) {
+            portfolio.add(symbol, quantity, costPrice, price != null ? price : costPrice);
+        }
+    }
+
+    /**
+     * 已載入的用戶移除一筆持倉；未載入（未連線）時忽略
+     */
+    public void removePosition(UUID userId, String symbol, BigDecimal quantity, BigDecimal costPrice) {
+        Portfolio portfolio = byUser.get(userId);
+        if (portfolio != null) {
+            portfolio.remove(symbol, quantity, costPrice);
+        }
+    }
+
+    /**
+     * 套用一筆報價
+     *
+     * @return 更新後的市值；用戶未載入、未持有該代號或價格未變時回傳 null
+     */
+    public PortfolioValue applyPrice(UUID userId, String symbol, BigDecimal newPrice) {
+        Portfolio portfolio = byUser.get(userId);
+        return portfolio != null ? portfolio.applyPrice(symbol, newPrice) : null;
+    }
+
+    /**
+     * @return 目前的市值；用戶未載入時回傳 null
+     */
+    public PortfolioValue valueOf(UUID userId) {
+        Portfolio portfolio = byUser.get(userId);
+        return portfolio != null ? portfolio.value() : null;
+    }
+
+    // ── 單一用戶的持倉與累計值 ─────────────────────────────
+    private static class Portfolio {
+
+        private final Map<String, Position> positions = new HashMap<>();
+        private BigDecimal marketValue = BigDecimal.ZERO;
+        private BigDecimal totalCost = BigDecimal.ZERO;
+
+        synchronized void add(String symbol, BigDecimal quantity, BigDecimal costPrice, BigDecimal price) {
+            Position position = positions.get(key(symbol));
+            if (position == null) {
+                position = new Position(price);
+                positions.put(key(symbol), position);
+            } else {
+                reprice(position, price);
+            }
+
+            BigDecimal cost = quantity.multiply(costPrice);
+            position.quantity = position.quantity.add(quantity);
+            marketValue = marketValue.add(quantity.multiply(position.price));
+            totalCost = totalCost.add(cost);
+        }
+
+        synchronized void remove(String symbol, BigDecimal quantity, BigDecimal costPrice) {
+            Position position = positions.get(key(symbol));
+            if (position == null) return;
+
+            position.quantity = position.quantity.subtract(quantity);
+            marketValue = marketValue.subtract(quantity.multiply(position.price));
+            totalCost = totalCost.subtract(quantity.multiply(costPrice));
+
+            if (position.quantity.signum() <= 0) {
+                positions.remove(key(symbol));
+            }
+            if (positions.isEmpty()) {
+                // 全部移除後歸零，避免累計誤差殘留
+                marketValue = BigDecimal.ZERO;
+                totalCost = BigDecimal.ZERO;
+            }
+        }
+
+        synchronized PortfolioValue applyPrice(String symbol, BigDecimal newPrice) {
+            Position position = positions.get(key(symbol));
+            if (position == null || position.price.compareTo(newPrice) == 0) return null;
+
+            reprice(position, newPrice);
+            return value();
+        }
+
+        synchronized PortfolioValue value() {
+            return new PortfolioValue(marketValue, totalCost, positions.size());
+        }
+
+        private void reprice(Position position, BigDecimal newPrice) {
+            marketValue = marketValue.add(newPrice.subtract(position.price).multiply(position.quantity));
+            position.price = newPrice;
+        }
+
+        private static String key(String symbol) {
+            return symbol.toUpperCase();
+        }
+    }
+
+    private static class Position {
+
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private BigDecimal price;
+
+        Position(BigDecimal price) {
+            this.price = price;
+        }
+    }
+}
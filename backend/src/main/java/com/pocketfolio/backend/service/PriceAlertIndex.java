@@ -0,0 +1,391 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.PriceAlert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 啟用中價格警報的記憶體索引
+ *
+ * 每個代號依條件各有一棵排序樹：
+ * - ABOVE / BELOW：以目標價排序，價格更新時只取出被穿越的區段（ABOVE：目標價 <= 現價；BELOW：目標價 >= 現價）
+ * - CROSS：以目標價排序，取出落在（舊價, 新價］之間的區段
+ * - PERCENT_CHANGE：每個觀察區間各一棵漲幅樹與跌幅樹，以門檻百分比排序，取出門檻 <= 實際漲跌幅的區段
+ * 成本 O(log n + k)，沒有警報觸發的更新不需要查 DB。
+ *
+ * 只索引 active = true 的警報；觸發後即自排序樹取出，同一警報不會在並行的價格更新中被重複觸發。
+ * 設定自動重新啟用（autoRearm）的警報觸發後改放在該代號的「待重新啟用」清單，
+ * 價格離開目標價的遲滯區間且冷卻時間結束後，在記憶體中放回排序樹；
+ * 重新啟用的警報 id 累積在 pendingRearm，由 {@link #drainRearmed()} 定期批次寫回 DB。
+ * 寫入與取出都在同一把鎖內，每次操作只碰單一代號的樹，持鎖時間很短。
+ *
+ * 滑動視窗（{@link PriceWindowTracker}）只記錄有 PERCENT_CHANGE 警報（含待重新啟用）的代號，
+ * 該代號最後一筆 PERCENT_CHANGE 警報移出索引時一併釋放；判斷與記錄在同一把鎖內，
+ * 不會在警報剛移除後又替該代號建立新的視窗。
+ */
+@Component
+public class PriceAlertIndex {
+
+    // 遲滯區間：ABOVE / BELOW / CROSS 為目標價的百分比，PERCENT_CHANGE 為門檻的百分點
+    @Value("${price-alerts.rearm.hysteresis-percent:1.0}")
+    private double hysteresisPercent = 1.0;
+
+    // 觸發後至少經過此時間才會重新啟用（同一警報的通知頻率上限）
+    @Value("${price-alerts.rearm.cooldown:15m}")
+    private Duration cooldown = Duration.ofMinutes(15);
+
+    private final Map<String, SymbolAlerts> bySymbol = new HashMap<>();
+    private final Map<UUID, IndexedAlert> byId = new ConcurrentHashMap<>();
+    private final Set<UUID> pendingRearm = new LinkedHashSet<>();  // 已在記憶體重新啟用、尚未寫回 DB
+
+    private final PriceWindowTracker windowTracker;
+
+    public PriceAlertIndex(PriceWindowTracker windowTracker) {
+        this.windowTracker = windowTracker;
+    }
+
+    /**
+     * 以 DB 中的啟用警報重建整個索引（啟動時呼叫）
+     */
+    public synchronized void replaceAll(Collection<PriceAlert> alerts) {
+        Set<String> previous = new HashSet<>(bySymbol.keySet());
+        bySymbol.clear();
+        byId.clear();
+        pendingRearm.clear();
+        alerts.forEach(this::upsert);
+        previous.forEach(this::releaseWindowsIfUnused);
+    }
+
+    /**
+     * 新增或更新一筆警報；未啟用、或已觸發且不會自動重新啟用的警報會自索引移除
+     */
+    public synchronized void upsert(PriceAlert alert) {
+        // 先加入新版本再釋放舊代號的視窗：只修改備註等欄位時不會清掉累積中的視窗
+        String previousSymbol = unindex(alert.getId());
+        if (!alert.isActive() || (alert.isTriggered() && !alert.isAutoRearm())) {
+            releaseWindowsIfUnused(previousSymbol);
+            return;
+        }
+
+        IndexedAlert indexed = new IndexedAlert(
+                alert.getId(),
+                alert.getUser().getId(),
+                key(alert.getSymbol()),
+                alert.getCondition(),
+                alert.getTargetPrice(),
+                alert.getChangePercent(),
+                alert.getChangeWindow(),
+                alert.isAutoRearm(),
+                alert.getNote());
+        SymbolAlerts alerts = bySymbol.computeIfAbsent(indexed.symbol(), s -> new SymbolAlerts());
+        if (alert.isTriggered()) {
+            // 已觸發的自動重新啟用警報（例如重啟前觸發）：冷卻時間由上次觸發時間起算
+            long triggeredAt = alert.getTriggeredAt() != null
+                    ? alert.getTriggeredAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : 0L;
+            alerts.disarm(indexed, triggeredAt + cooldown.toMillis());
+        } else {
+            alerts.add(indexed);
+        }
+        byId.put(alert.getId(), indexed);
+        releaseWindowsIfUnused(previousSymbol);
+    }
+
+    public synchronized void remove(UUID alertId) {
+        releaseWindowsIfUnused(unindex(alertId));
+    }
+
+    /**
+     * 記錄一筆報價到該代號的滑動視窗，回傳各觀察區間的漲跌幅
+     *
+     * @return 該代號沒有 PERCENT_CHANGE 警報時不記錄，回傳空 Map
+     */
+    public synchronized Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> recordWindows(String symbol,
+                                                                                                long epochMillis,
+                                                                                                double price) {
+        SymbolAlerts alerts = bySymbol.get(key(symbol));
+        if (alerts == null || !alerts.hasPercentAlerts()) return Map.of();
+
+        return windowTracker.record(symbol, epochMillis, price);
+    }
+
+    /**
+     * 只以目前價格判斷（ABOVE / BELOW）
+     */
+    public List<IndexedAlert> pollTriggered(String symbol, BigDecimal currentPrice) {
+        return pollTriggered(symbol, null, currentPrice, Map.of(), System.currentTimeMillis());
+    }
+
+    /**
+     * 取出被這次價格變動觸發的警報
+     *
+     * 觸發的警報離開排序樹；autoRearm 的警報改放入待重新啟用清單，其餘自索引移除。
+     * 同一次呼叫中會先重新啟用已離開遲滯區間且冷卻結束的警報。
+     *
+     * @param oldPrice  上一筆價格（CROSS 用，可為 null）
+     * @param moves     各觀察區間的漲跌幅（PERCENT_CHANGE 用）
+     * @param nowMillis 這筆價格的時間（冷卻計算用）
+     * @return 觸發的警報；沒有觸發時回傳空 List
+     */
+    public synchronized List<IndexedAlert> pollTriggered(String symbol,
+                                                         BigDecimal oldPrice,
+                                                         BigDecimal currentPrice,
+                                                         Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> moves,
+                                                         long nowMillis) {
+        SymbolAlerts alerts = bySymbol.get(key(symbol));
+        if (alerts == null) return List.of();
+
+        alerts.rearm(currentPrice, moves, nowMillis, hysteresisPercent)
+                .forEach(alert -> pendingRearm.add(alert.id()));
+
+        List<IndexedAlert> triggered = alerts.pollTriggered(oldPrice, currentPrice, moves);
+        for (IndexedAlert alert : triggered) {
+            if (alert.autoRearm()) {
+                alerts.disarm(alert, nowMillis + cooldown.toMillis());
+                // 尚未寫回的重新啟用直接作廢：DB 仍是已觸發，只需更新觸發時間
+                pendingRearm.remove(alert.id());
+            } else {
+                byId.remove(alert.id());
+            }
+        }
+        if (alerts.isEmpty()) {
+            bySymbol.remove(key(symbol));
+        }
+        if (!triggered.isEmpty()) {
+            releaseWindowsIfUnused(key(symbol));
+        }
+        return triggered;
+    }
+
+    /**
+     * 取出並清空已在記憶體重新啟用、尚未寫回 DB 的警報 id
+     */
+    public synchronized List<UUID> drainRearmed() {
+        if (pendingRearm.isEmpty()) return List.of();
+
+        List<UUID> ids = new ArrayList<>(pendingRearm);
+        pendingRearm.clear();
+        return ids;
+    }
+
+    /**
+     * 在此時間之前觸發的 autoRearm 警報已過冷卻時間（DB 標記觸發時的判斷）
+     */
+    public LocalDateTime cooldownCutoff(LocalDateTime now) {
+        return now.minus(cooldown);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    // ── Helper: 與建立警報時一致，代號以大寫為 key ──────────────────
+    private String key(String symbol) {
+        return symbol.toUpperCase();
+    }
+
+    // ── Helper: 自索引移除，回傳原本的代號（不在索引中時為 null）──────────
+    private String unindex(UUID alertId) {
+        pendingRearm.remove(alertId);
+        IndexedAlert indexed = byId.remove(alertId);
+        if (indexed == null) return null;
+
+        SymbolAlerts alerts = bySymbol.get(indexed.symbol());
+        if (alerts != null && alerts.remove(indexed)) {
+            bySymbol.remove(indexed.symbol());
+        }
+        return indexed.symbol();
+    }
+
+    // ── Helper: 代號已沒有 PERCENT_CHANGE 警報時釋放其滑動視窗 ──────────
+    private void releaseWindowsIfUnused(String symbol) {
+        if (symbol == null) return;
+
+        SymbolAlerts alerts = bySymbol.get(symbol);
+        if (alerts == null || !alerts.hasPercentAlerts()) {
+            windowTracker.release(symbol);
+        }
+    }
+
+    /**
+     * 索引中保存的警報欄位：觸發時不需再載入 entity（含 LAZY 的 user）
+     */
+    public record IndexedAlert(UUID id,
+                               UUID userId,
+                               String symbol,
+                               PriceAlert.AlertCondition condition,
+                               BigDecimal targetPrice,
+                               BigDecimal changePercent,
+                               PriceAlert.AlertWindow changeWindow,
+                               boolean autoRearm,
+                               String note) {
+
+        // 排序樹的 key：價格條件用目標價，PERCENT_CHANGE 用門檻百分比的絕對值
+        BigDecimal sortKey() {
+            return condition == PriceAlert.AlertCondition.PERCENT_CHANGE ? changePercent.abs() : targetPrice;
+        }
+
+        boolean isRise() {
+            return changePercent != null && changePercent.signum() > 0;
+        }
+
+        // 價格是否已離開觸發條件的遲滯區間（才可重新啟用）
+        boolean outsideBand(BigDecimal price,
+                            Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> moves,
+                            double hysteresisPercent) {
+            double band = hysteresisPercent / 100;
+            return switch (condition) {
+                case ABOVE -> price.doubleValue() <= targetPrice.doubleValue() * (1 - band);
+                case BELOW -> price.doubleValue() >= targetPrice.doubleValue() * (1 + band);
+                case CROSS -> Math.abs(price.doubleValue() - targetPrice.doubleValue())
+                        >= targetPrice.doubleValue() * band;
+                case PERCENT_CHANGE -> {
+                    PriceWindowTracker.WindowMove move = moves.get(changeWindow);
+                    if (move == null) yield false;
+                    double observed = isRise() ? move.risePercent() : move.dropPercent();
+                    yield observed <= Math.max(0, changePercent.abs().doubleValue() - hysteresisPercent);
+                }
+            };
+        }
+    }
+
+    /**
+     * 已觸發、等待重新啟用的警報
+     */
+    private record Disarmed(IndexedAlert alert, long rearmAfterMillis) {
+    }
+
+    /**
+     * 單一代號的警報：排序 key → 警報，以及等待重新啟用的警報
+     */
+    private static class SymbolAlerts {
+
+        private final NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> above = new TreeMap<>();
+        private final NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> below = new TreeMap<>();
+        private final NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> cross = new TreeMap<>();
+        private final Map<PriceAlert.AlertWindow, NavigableMap<BigDecimal, Map<UUID, IndexedAlert>>> rises =
+                new EnumMap<>(PriceAlert.AlertWindow.class);
+        private final Map<PriceAlert.AlertWindow, NavigableMap<BigDecimal, Map<UUID, IndexedAlert>>> drops =
+                new EnumMap<>(PriceAlert.AlertWindow.class);
+        private final Map<UUID, Disarmed> disarmed = new LinkedHashMap<>();
+        private int size;
+        private int percentSize;  // 其中 PERCENT_CHANGE 的筆數（含待重新啟用）
+
+        void add(IndexedAlert alert) {
+            Map<UUID, IndexedAlert> alerts = tree(alert).computeIfAbsent(alert.sortKey(), k -> new LinkedHashMap<>());
+            if (alerts.put(alert.id(), alert) == null) count(alert, 1);
+        }
+
+        /**
+         * @return 移除後此代號是否已沒有任何警報
+         */
+        boolean remove(IndexedAlert alert) {
+            NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> tree = tree(alert);
+            Map<UUID, IndexedAlert> alerts = tree.get(alert.sortKey());
+            if (alerts != null && alerts.remove(alert.id()) != null) {
+                count(alert, -1);
+                if (alerts.isEmpty()) tree.remove(alert.sortKey());
+            } else if (disarmed.remove(alert.id()) != null) {
+                count(alert, -1);
+            }
+            return isEmpty();
+        }
+
+        void disarm(IndexedAlert alert, long rearmAfterMillis) {
+            if (disarmed.put(alert.id(), new Disarmed(alert, rearmAfterMillis)) == null) count(alert, 1);
+        }
+
+        /**
+         * 冷卻結束且價格已離開遲滯區間的警報放回排序樹
+         *
+         * 待重新啟用的只有近期觸發過的 autoRearm 警報，數量少，逐筆檢查即可。
+         */
+        List<IndexedAlert> rearm(BigDecimal price,
+                                 Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> moves,
+                                 long nowMillis,
+                                 double hysteresisPercent) {
+            if (disarmed.isEmpty()) return List.of();
+
+            List<IndexedAlert> rearmed = new ArrayList<>();
+            Iterator<Disarmed> it = disarmed.values().iterator();
+            while (it.hasNext()) {
+                Disarmed entry = it.next();
+                if (nowMillis < entry.rearmAfterMillis()
+                        || !entry.alert().outsideBand(price, moves, hysteresisPercent)) {
+                    continue;
+                }
+                it.remove();
+                count(entry.alert(), -1);
+                add(entry.alert());
+                rearmed.add(entry.alert());
+            }
+            return rearmed;
+        }
+
+        List<IndexedAlert> pollTriggered(BigDecimal oldPrice, BigDecimal price,
+                                         Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> moves) {
+            List<IndexedAlert> triggered = new ArrayList<>();
+            // ABOVE：當前價格 >= 目標價格
+            drain(above.headMap(price, true), triggered);
+            // BELOW：當前價格 <= 目標價格
+            drain(below.tailMap(price, true), triggered);
+
+            // CROSS：目標價落在這次變動的區間內（上漲：舊價 < 目標 <= 新價；下跌：新價 <= 目標 < 舊價）
+            if (oldPrice != null) {
+                int direction = price.compareTo(oldPrice);
+                if (direction > 0) {
+                    drain(cross.subMap(oldPrice, false, price, true), triggered);
+                } else if (direction < 0) {
+                    drain(cross.subMap(price, true, oldPrice, false), triggered);
+                }
+            }
+
+            // PERCENT_CHANGE：門檻 <= 區間內實際漲 / 跌幅
+            moves.forEach((window, move) -> {
+                NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> rise = rises.get(window);
+                if (rise != null) drain(rise.headMap(BigDecimal.valueOf(move.risePercent()), true), triggered);
+                NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> drop = drops.get(window);
+                if (drop != null) drain(drop.headMap(BigDecimal.valueOf(move.dropPercent()), true), triggered);
+            });
+            return triggered;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean hasPercentAlerts() {
+            return percentSize > 0;
+        }
+
+        private void count(IndexedAlert alert, int delta) {
+            size += delta;
+            if (alert.condition() == PriceAlert.AlertCondition.PERCENT_CHANGE) percentSize += delta;
+        }
+
+        private void drain(NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> range, List<IndexedAlert> triggered) {
+            range.values().forEach(alerts -> alerts.values().forEach(alert -> {
+                triggered.add(alert);
+                count(alert, -1);
+            }));
+            range.clear();
+        }
+
+        private NavigableMap<BigDecimal, Map<UUID, IndexedAlert>> tree(IndexedAlert alert) {
+            return switch (alert.condition()) {
+                case ABOVE -> above;
+                case BELOW -> below;
+                case CROSS -> cross;
+                case PERCENT_CHANGE -> (alert.isRise() ? rises : drops)
+                        .computeIfAbsent(alert.changeWindow(), w -> new TreeMap<>());
+            };
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.repository.PriceAlertRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 經 Redis pub/sub 同步各節點的價格警報索引
+ *
+ * 警報建立、修改、啟用 / 停用、刪除後發布警報 id，其他節點收到後自 DB 重新載入：
+ * 仍存在則 upsert（是否放進索引由 {@link PriceAlertIndex#upsert} 判斷），已刪除則 remove。
+ *
+ * 訊息格式：{instanceId}|{alertId}，自己發出的訊息會被忽略（本機索引已在寫入時更新）。
+ */
+@Component
+@Slf4j
+public class PriceAlertIndexSync implements MessageListener {
+
+    public static final String SYNC_CHANNEL = "price-alerts:index";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final PriceAlertRepository alertRepository;
+    private final PriceAlertIndex alertIndex;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public PriceAlertIndexSync(StringRedisTemplate redisTemplate,
+                               RedisMessageListenerContainer listenerContainer,
+                               PriceAlertRepository alertRepository,
+                               PriceAlertIndex alertIndex) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.alertRepository = alertRepository;
+        this.alertIndex = alertIndex;
+    }
+
+    // 與快取失效通知共用同一個訂閱連線
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SYNC_CHANNEL));
+    }
+
+    /**
+     * 通知其他節點這筆警報已變更（DB 寫入完成後呼叫）
+     */
+    public void publishChanged(UUID alertId) {
+        try {
+            redisTemplate.convertAndSend(SYNC_CHANNEL, String.join("|", instanceId, alertId.toString()));
+        } catch (Exception e) {
+            // 通知失敗時其他節點的索引要到重啟才會更新；DB 標記觸發時的條件仍可避免重複通知
+            log.error("價格警報索引同步通知發送失敗: {} {}", alertId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+        if (parts.length < 2 || instanceId.equals(parts[0])) return;
+
+        UUID alertId;
+        try {
+            alertId = UUID.fromString(parts[1]);
+        } catch (IllegalArgumentException e) {
+            log.warn("價格警報索引同步通知格式錯誤: {}", parts[1]);
+            return;
+        }
+
+        alertRepository.findById(alertId).ifPresentOrElse(
+                alertIndex::upsert,
+                () -> alertIndex.remove(alertId));
+        log.debug("收到價格警報索引同步通知: {}", alertId);
+    }
+}
@@ -0,0 +1,38 @@
+package com.pocketfolio.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定時寫回自動重新啟用的警報
+ *
+ * 重新啟用發生在處理價格事件的節點；手動刷新價格（PriceController）在關閉排程的節點也會觸發，
+ * 因此不受 scheduler.price-update.enabled 影響，只由 price-alerts.rearm.flush-enabled 控制。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(
+        value = "price-alerts.rearm.flush-enabled",
+        havingValue = "true",
+        matchIfMissing = true
+)
+public class PriceAlertRearmFlusher {
+
+    private final PriceAlertService priceAlertService;
+
+    /**
+     * 執行時機：每次執行結束後 30 秒（price-alerts.rearm.flush-interval-ms）
+     */
+    @Scheduled(fixedDelayString = "${price-alerts.rearm.flush-interval-ms:30000}")
+    public void flushRearmedAlerts() {
+        try {
+            priceAlertService.flushRearmed();
+        } catch (Exception e) {
+            log.error("寫回自動重新啟用警報失敗：{}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.PriceAlert;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * price_alerts 既有資料表的 schema 調整（僅 PostgreSQL）
+ *
+ * ddl-auto: update 只會新增欄位，不會放寬既有約束：
+ * - target_price 原本是 NOT NULL，PERCENT_CHANGE 警報不使用目標價
+ * - Hibernate 6 依 enum 建立的 condition check constraint 不含之後新增的 CROSS / PERCENT_CHANGE
+ * 啟動時檢查並調整，之後 enum 再新增值時同樣會重建 check constraint。
+ */
+@Service
+@Slf4j
+public class PriceAlertSchemaMigration {
+
+    static final String TABLE = "price_alerts";
+    static final String CONDITION_CHECK = "price_alerts_condition_check";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PriceAlertSchemaMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        try {
+            if (!isPostgreSql()) return;
+            transactionTemplate.executeWithoutResult(status -> {
+                relaxTargetPrice();
+                widenConditionCheck();
+            });
+        } catch (Exception e) {
+            log.error("price_alerts schema 調整失敗: {}", e.getMessage(), e);
+        }
+    }
+
+    // ── target_price 改為可為 null ──
+    void relaxTargetPrice() {
+        List<String> nullable = jdbcTemplate.queryForList(
+                "SELECT is_nullable FROM information_schema.columns " +
+                "WHERE table_schema = current_schema() AND table_name = ? AND column_name = 'target_price'",
+                String.class, TABLE);
+        if (!nullable.contains("NO")) return;
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN target_price DROP NOT NULL");
+        log.info("price_alerts.target_price 已改為可為 null");
+    }
+
+    // ── condition check constraint 依目前的 enum 重建 ──
+    void widenConditionCheck() {
+        List<String> definitions = jdbcTemplate.queryForList(
+                "SELECT pg_get_constraintdef(c.oid) FROM pg_constraint c " +
+                "JOIN pg_class t ON t.oid = c.conrelid " +
+                "WHERE t.relname = ? AND c.conname = ? " +
+                "AND t.relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())",
+                String.class, TABLE, CONDITION_CHECK);
+        if (definitions.isEmpty()) return;
+
+        String definition = definitions.get(0);
+        boolean complete = Arrays.stream(PriceAlert.AlertCondition.values())
+                .allMatch(condition -> definition.contains("'" + condition.name() + "'"));
+        if (complete) return;
+
+        String values = Arrays.stream(PriceAlert.AlertCondition.values())
+                .map(condition -> "'" + condition.name() + "'")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP CONSTRAINT " + CONDITION_CHECK);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + CONDITION_CHECK +
+                " CHECK (condition IN (" + values + "))");
+        log.info("price_alerts.condition check constraint 已更新: {}", values);
+    }
+
+    // ── Helper: 資料庫種類 ──
+    private boolean isPostgreSql() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -3,20 +3,30 @@ package com.pocketfolio.backend.service;
 import com.pocketfolio.backend.dto.PriceAlertRequest;
 import com.pocketfolio.backend.dto.PriceAlertResponse;
 import com.pocketfolio.backend.dto.PriceData;
+import com.pocketfolio.backend.dto.TriggeredAlert;
 import com.pocketfolio.backend.entity.Asset;
 import com.pocketfolio.backend.entity.PriceAlert;
 import com.pocketfolio.backend.entity.User;
+import com.pocketfolio.backend.event.PriceChangedEvent;
 import com.pocketfolio.backend.exception.ResourceNotFoundException;
 import com.pocketfolio.backend.repository.AssetRepository;
 import com.pocketfolio.backend.repository.PriceAlertRepository;
 import com.pocketfolio.backend.security.SecurityUtil;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,6 +37,15 @@ public class PriceAlertService {
 
     private final PriceAlertRepository alertRepository;
     private final AssetRepository assetRepository;
+    private final PriceAlertIndex alertIndex;
+    private final PriceAlertIndexSync indexSync;
+
+    // ── 啟動時載入警報索引 ─────────────────────────────────
+    @PostConstruct
+    void loadAlertIndex() {
+        alertIndex.replaceAll(alertRepository.findIndexable());
+        log.info("價格警報索引已載入: {} 筆", alertIndex.size());
+    }
 
     // ── Create ──────────────────────────────────────────
     public PriceAlertResponse createAlert(PriceAlertRequest request) {
@@ -35,8 +54,8 @@ public class PriceAlertService {
         PriceAlert alert = new PriceAlert();
         alert.setSymbol(request.getSymbol().toUpperCase());
         alert.setAssetType(request.getAssetType());
-        alert.setCondition(request.getCondition());
-        alert.setTargetPrice(request.getTargetPrice());
+        applyCondition(alert, request);
+        alert.setAutoRearm(request.isAutoRearm());
         alert.setNote(request.getNote());
         alert.setActive(true);
         alert.setTriggered(false);
@@ -60,6 +79,8 @@ public class PriceAlertService {
         }
 
         PriceAlert saved = alertRepository.save(alert);
+        alertIndex.upsert(saved);
+        indexSync.publishChanged(saved.getId());
 
         log.info("價格警報已建立: {} {} ${}",
                 saved.getSymbol(),
@@ -116,15 +137,18 @@ public class PriceAlertService {
 
         alert.setSymbol(request.getSymbol().toUpperCase());
         alert.setAssetType(request.getAssetType());
-        alert.setCondition(request.getCondition());
-        alert.setTargetPrice(request.getTargetPrice());
+        applyCondition(alert, request);
+        alert.setAutoRearm(request.isAutoRearm());
         alert.setNote(request.getNote());
 
         // 更新時重置觸發狀態
         alert.setTriggered(false);
         alert.setTriggeredAt(null);
 
-        return toResponse(alertRepository.save(alert), null);
+        PriceAlert saved = alertRepository.save(alert);
+        alertIndex.upsert(saved);
+        indexSync.publishChanged(saved.getId());
+        return toResponse(saved, null);
     }
 
     // ── Delete ───────────────────────────────────────────
@@ -140,6 +164,8 @@ public class PriceAlertService {
         }
 
         alertRepository.deleteById(id);
+        alertIndex.remove(id);
+        indexSync.publishChanged(id);
         log.info("價格警報已刪除: {}", alert.getSymbol());
     }
 
@@ -163,50 +189,139 @@ public class PriceAlertService {
             alert.setTriggeredAt(null);
         }
 
-        return toResponse(alertRepository.save(alert), null);
+        PriceAlert saved = alertRepository.save(alert);
+        alertIndex.upsert(saved);
+        indexSync.publishChanged(saved.getId());
+        return toResponse(saved, null);
     }
 
     // ── 檢查價格警報（核心邏輯）───────────────────────────
-    public List<PriceAlert> checkPriceAlerts(String symbol, BigDecimal currentPrice) {
-        List<PriceAlert> alerts = alertRepository.findActiveAlertsBySymbol(symbol);
-        List<PriceAlert> triggeredAlerts = alerts.stream()
-                .filter(alert -> shouldTrigger(alert, currentPrice))
-                .collect(Collectors.toList());
+    // 由記憶體索引找出被穿越的警報，同一輪價格更新中觸發的警報以單一 UPDATE 標記，
+    // 並依用戶分組，讓每位用戶只收到一則通知。
+    // 有 PERCENT_CHANGE 警報的代號，價格也會寫入該代號的滑動視窗，以視窗內的最高 / 最低價計算漲跌幅。
+    // 與 flushRearmed 互斥，避免重新啟用的寫回蓋掉同一警報剛寫入的觸發狀態。
+    public synchronized Map<UUID, List<TriggeredAlert>> checkPriceAlerts(List<PriceChangedEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<TriggeredAlert> triggeredAlerts = new ArrayList<>();
+        for (PriceChangedEvent event : events) {
+            BigDecimal currentPrice = event.getNewPrice();
+            long occurredAt = event.getOccurredAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> moves =
+                    alertIndex.recordWindows(event.getSymbol(), occurredAt, currentPrice.doubleValue());
+
+            alertIndex.pollTriggered(event.getSymbol(), event.getOldPrice(), currentPrice, moves, occurredAt).forEach(alert ->
+                    triggeredAlerts.add(TriggeredAlert.builder()
+                            .alertId(alert.id())
+                            .userId(alert.userId())
+                            .symbol(alert.symbol())
+                            .condition(alert.condition())
+                            .targetPrice(alert.targetPrice())
+                            .changePercent(alert.changePercent())
+                            .changeWindow(alert.changeWindow())
+                            .observedPercent(observedPercent(alert, moves))
+                            .currentPrice(currentPrice)
+                            .note(alert.note())
+                            .triggeredAt(now)
+                            .build()));
+        }
+
+        if (triggeredAlerts.isEmpty()) {
+            return Map.of();
+        }
+
+        // 標記為已觸發；只通知 DB 實際更新的警報（其他節點已搶先觸發、或剛被刪除 / 停用的略過）
+        List<UUID> ids = triggeredAlerts.stream().map(TriggeredAlert::getAlertId).toList();
+        Set<UUID> marked = new HashSet<>(alertRepository.markTriggered(ids, now, alertIndex.cooldownCutoff(now)));
+        if (marked.size() != ids.size()) {
+            log.info("警報觸發標記略過 {} 筆（已由其他節點觸發或已不存在）", ids.size() - marked.size());
+            triggeredAlerts.removeIf(alert -> !marked.contains(alert.getAlertId()));
+            if (triggeredAlerts.isEmpty()) {
+                return Map.of();
+            }
+        }
 
-        // 標記為已觸發
-        triggeredAlerts.forEach(alert -> {
-            alert.setTriggered(true);
-            alert.setTriggeredAt(LocalDateTime.now());
-            alertRepository.save(alert);
+        triggeredAlerts.forEach(alert -> log.info("警報已觸發: {} {} {} (當前價格: ${})",
+                alert.getSymbol(),
+                alert.getCondition(),
+                alert.getCondition() == PriceAlert.AlertCondition.PERCENT_CHANGE
+                        ? alert.getChangePercent() + "% / " + alert.getChangeWindow().getLabel()
+                        : "$" + alert.getTargetPrice(),
+                alert.getCurrentPrice()));
 
-            log.info("警報已觸發: {} {} ${} (當前價格: ${})",
-                    alert.getSymbol(),
-                    alert.getCondition(),
-                    alert.getTargetPrice(),
-                    currentPrice);
-        });
+        return triggeredAlerts.stream()
+                .collect(Collectors.groupingBy(TriggeredAlert::getUserId, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    // ── 寫回自動重新啟用的警報 ─────────────────────────────
+    // 重新啟用只在記憶體中發生，這裡定期把累積的 id 以單一 UPDATE 寫回；
+    // 在寫回前程序中止也無妨：啟動時已觸發的 autoRearm 警報會再次進入待重新啟用狀態。
+    public synchronized int flushRearmed() {
+        List<UUID> ids = alertIndex.drainRearmed();
+        if (ids.isEmpty()) {
+            return 0;
+        }
 
-        return triggeredAlerts;
+        int updated = alertRepository.markRearmed(ids);
+        log.info("自動重新啟用警報已寫回: {} 筆", updated);
+        return updated;
     }
 
-    // ── Helper: 判斷是否應該觸發 ────────────────────────────
-    private boolean shouldTrigger(PriceAlert alert, BigDecimal currentPrice) {
-        if (alert.getCondition() == PriceAlert.AlertCondition.ABOVE) {
-            // 當前價格 >= 目標價格
-            return currentPrice.compareTo(alert.getTargetPrice()) >= 0;
+    // ── Helper: 依條件類型驗證並設定欄位 ─────────────────────
+    private void applyCondition(PriceAlert alert, PriceAlertRequest request) {
+        PriceAlert.AlertCondition condition = request.getCondition();
+
+        if (condition == PriceAlert.AlertCondition.PERCENT_CHANGE) {
+            if (request.getChangePercent() == null || request.getChangePercent().signum() == 0) {
+                throw new IllegalArgumentException("漲跌幅警報必須指定非 0 的漲跌幅");
+            }
+            if (request.getChangeWindow() == null) {
+                throw new IllegalArgumentException("漲跌幅警報必須指定觀察區間");
+            }
+            alert.setTargetPrice(null);
+            alert.setChangePercent(request.getChangePercent());
+            alert.setChangeWindow(request.getChangeWindow());
         } else {
-            // 當前價格 <= 目標價格
-            return currentPrice.compareTo(alert.getTargetPrice()) <= 0;
+            if (request.getTargetPrice() == null) {
+                throw new IllegalArgumentException("目標價格不能為空");
+            }
+            alert.setTargetPrice(request.getTargetPrice());
+            alert.setChangePercent(null);
+            alert.setChangeWindow(null);
         }
+        alert.setCondition(condition);
+    }
+
+    // ── Helper: PERCENT_CHANGE 觸發時的實際漲跌幅 ──────────────
+    private BigDecimal observedPercent(PriceAlertIndex.IndexedAlert alert,
+                                       Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> moves) {
+        if (alert.condition() != PriceAlert.AlertCondition.PERCENT_CHANGE) return null;
+
+        PriceWindowTracker.WindowMove move = moves.get(alert.changeWindow());
+        double percent = alert.changePercent().signum() > 0 ? move.risePercent() : -move.dropPercent();
+        return BigDecimal.valueOf(percent).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // ── Helper: 條件描述（例如：「當價格低於 $60000」）────────────
+    static String conditionText(PriceAlert.AlertCondition condition, BigDecimal targetPrice,
+                                BigDecimal changePercent, PriceAlert.AlertWindow changeWindow) {
+        return switch (condition) {
+            case ABOVE -> String.format("當價格高於 $%s", targetPrice);
+            case BELOW -> String.format("當價格低於 $%s", targetPrice);
+            case CROSS -> String.format("當價格穿越 $%s", targetPrice);
+            case PERCENT_CHANGE -> String.format("當價格 %s 內%s %s%%",
+                    changeWindow.getLabel(),
+                    changePercent.signum() > 0 ? "上漲" : "下跌",
+                    changePercent.abs().stripTrailingZeros().toPlainString());
+        };
     }
 
     // ── Helper: Entity → DTO ─────────────────────────────
     private PriceAlertResponse toResponse(PriceAlert alert, BigDecimal currentPrice) {
 
         // 生成條件描述
-        String conditionText = String.format("當價格%s $%s",
-                alert.getCondition() == PriceAlert.AlertCondition.ABOVE ? "高於" : "低於",
-                alert.getTargetPrice());
+        String conditionText = conditionText(alert.getCondition(), alert.getTargetPrice(),
+                alert.getChangePercent(), alert.getChangeWindow());
 
         return PriceAlertResponse.builder()
                 .id(alert.getId())
@@ -215,9 +330,12 @@ public class PriceAlertService {
                 .assetType(alert.getAssetType())
                 .condition(alert.getCondition())
                 .targetPrice(alert.getTargetPrice())
+                .changePercent(alert.getChangePercent())
+                .changeWindow(alert.getChangeWindow())
                 .active(alert.isActive())
                 .triggered(alert.isTriggered())
                 .triggeredAt(alert.getTriggeredAt())
+                .autoRearm(alert.isAutoRearm())
                 .createdAt(alert.getCreatedAt())
                 .note(alert.getNote())
                 .currentPrice(currentPrice)
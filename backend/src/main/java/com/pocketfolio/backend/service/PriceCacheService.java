@@ -0,0 +1,78 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.config.PriceDataRedisSerializer;
+import com.pocketfolio.backend.config.RedisConfig;
+import com.pocketfolio.backend.config.TwoLevelCache;
+import com.pocketfolio.backend.dto.PriceData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceCacheService {
+
+    public static final String CACHE_NAME = "prices";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheManager cacheManager;
+    // 與 RedisCacheManager 的 prices 設定使用同一個序列化器，@Cacheable 才讀得回來
+    private final PriceDataRedisSerializer priceDataRedisSerializer;
+
+    // ── 快取 Key（需與 @Cacheable 的 SpEL key 保持一致）──────────
+    public static String cryptoKey(String coinGeckoId) {
+        return "crypto:" + coinGeckoId.toLowerCase();
+    }
+
+    public static String stockKey(String symbol) {
+        return "stock:" + symbol.toUpperCase();
+    }
+
+    /**
+     * 批次寫入價格快取（單次 pipeline，一個 round trip）
+     *
+     * 寫入的 Redis key 與 RedisCacheManager 相同（prices::crypto:bitcoin），
+     * 之後的 @Cacheable 查詢可直接命中；同時更新本機 L1，避免讀到上一輪的舊價格。
+     *
+     * @param entries 快取 key（不含 cache 名稱前綴）→ 價格
+     */
+    public void putAll(Map<String, PriceData> entries) {
+        if (entries.isEmpty()) return;
+
+        String prefix = CacheKeyPrefix.simple().compute(CACHE_NAME);
+        RedisSerializer<String> keySerializer = RedisSerializer.string();
+        Expiration ttl = Expiration.from(RedisConfig.PRICE_CACHE_TTL);
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, value) -> connection.stringCommands().set(
+                        keySerializer.serialize(prefix + key),
+                        priceDataRedisSerializer.serialize(value),
+                        ttl,
+                        RedisStringCommands.SetOption.upsert()
+                ));
+                return null;
+            });
+            log.info("價格快取批次寫入: {} 筆", entries.size());
+
+            Cache cache = cacheManager.getCache(CACHE_NAME);
+            if (cache instanceof TwoLevelCache twoLevelCache) {
+                entries.forEach(twoLevelCache::putLocal);
+            }
+        } catch (Exception e) {
+            // 快取寫入失敗不影響報價結果，下次查詢會走 API 重新快取
+            log.error("價格快取批次寫入失敗: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.pocketfolio.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pocketfolio.backend.dto.PriceData;
+import com.pocketfolio.backend.entity.AssetType;
+import com.pocketfolio.backend.service.external.CoinGeckoService;
+import com.pocketfolio.backend.service.external.YahooFinanceService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 價格查詢層：stale-while-revalidate + 合併同 key 的並行查詢
+ *
+ * - 新鮮（soft-ttl 內）：直接回傳本機最後已知價格
+ * - 過期但未超過 max-stale：立即回傳舊值（stale = true），背景刷新
+ * - 完全沒有資料：等待查詢結果
+ * 同一個 key 同時只會有一個查詢在進行，其餘請求共用結果，
+ * 避免 prices 快取到期瞬間大量請求同時打到外部 API。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceLookupService {
+
+    private final CoinGeckoService coinGeckoService;
+    private final YahooFinanceService yahooFinanceService;
+
+    @Value("${price-lookup.soft-ttl:30s}")
+    private Duration softTtl;
+
+    @Value("${price-lookup.max-stale:30m}")
+    private Duration maxStale;
+
+    @Value("${price-lookup.max-size:10000}")
+    private long maxSize;
+
+    @Value("${price-lookup.timeout:10s}")
+    private Duration timeout;
+
+    // 最後已知價格（超過 max-stale 自動移除，之後的查詢會同步等待）
+    private Cache<String, Entry> lastKnown;
+
+    // 進行中的查詢（key → 共用的 Mono）
+    private final ConcurrentMap<String, Mono<PriceData>> inFlight = new ConcurrentHashMap<>();
+
+    private record Entry(PriceData data, long fetchedAt) {}
+
+    @PostConstruct
+    void initCache() {
+        lastKnown = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxStale)
+                .build();
+    }
+
+    /**
+     * 查詢價格
+     *
+     * @return 價格；過期資料會標記 stale = true；完全查不到時回傳 null
+     */
+    public PriceData getPrice(String symbol, AssetType assetType) {
+        String key = cacheKey(symbol, assetType);
+        if (key == null) return null;
+
+        Entry entry = lastKnown.getIfPresent(key);
+        if (entry != null) {
+            if (System.nanoTime() - entry.fetchedAt() < softTtl.toNanos()) {
+                return entry.data();
+            }
+            // 先回傳舊值，背景刷新（同 key 只會有一個刷新在進行）
+            load(key, symbol, assetType).subscribe();
+            return markStale(entry.data());
+        }
+
+        try {
+            return load(key, symbol, assetType).block(timeout);
+        } catch (Exception e) {
+            log.error("價格查詢逾時或失敗: {} - {}", symbol, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 移除本機最後已知價格（配合 clearPriceCache）
+     */
+    public void evict(String symbol, AssetType assetType) {
+        String key = cacheKey(symbol, assetType);
+        if (key != null) {
+            lastKnown.invalidate(key);
+        }
+    }
+
+    public void evictAll() {
+        lastKnown.invalidateAll();
+    }
+
+    // ── Helper: 取得（或加入）同 key 的進行中查詢 ──
+    private Mono<PriceData> load(String key, String symbol, AssetType assetType) {
+        return inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<PriceData>> self = new AtomicReference<>();
+            Mono<PriceData> mono = Mono
+                    .fromCallable(() -> fetch(symbol, assetType))
+                    // provider 的 getPrice 會阻塞（Redis / HTTP），不能佔用呼叫端執行緒
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doOnNext(data -> lastKnown.put(k, new Entry(data, System.nanoTime())))
+                    .doOnError(e -> log.error("價格刷新失敗: {} - {}", symbol, e.getMessage()))
+                    .onErrorResume(e -> Mono.empty())
+                    // 結果送出前就移除（block() 在 onNext 即返回），之後的查詢才會發起新的刷新；
+                    // 只移除自己，不誤刪之後建立的查詢
+                    .doOnEach(signal -> inFlight.remove(k, self.get()))
+                    .cache();
+            self.set(mono);
+            return mono;
+        });
+    }
+
+    private PriceData fetch(String symbol, AssetType assetType) {
+        // 經過 provider 的 @Cacheable，多數情況由 L1 / Redis 回應
+        return assetType == AssetType.CRYPTO
+                ? coinGeckoService.getPrice(symbol)
+                : yahooFinanceService.getPrice(symbol);
+    }
+
+    private PriceData markStale(PriceData data) {
+        return PriceData.builder()
+                .symbol(data.getSymbol())
+                .price(data.getPrice())
+                .currency(data.getCurrency())
+                .updateTime(data.getUpdateTime())
+                .source(data.getSource())
+                .stale(true)
+                .build();
+    }
+
+    private String cacheKey(String symbol, AssetType assetType) {
+        if (assetType == AssetType.CRYPTO) return PriceCacheService.cryptoKey(symbol);
+        if (assetType == AssetType.STOCK || assetType == AssetType.FUND) return PriceCacheService.stockKey(symbol);
+        return null;
+    }
+}
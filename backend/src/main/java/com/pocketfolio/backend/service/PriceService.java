@@ -1,27 +1,41 @@
 package com.pocketfolio.backend.service;
 
 import com.pocketfolio.backend.dto.PriceData;
+import com.pocketfolio.backend.dto.PriceRefreshTarget;
 import com.pocketfolio.backend.dto.PriceUpdateResponse;
-import com.pocketfolio.backend.dto.websocket.PriceUpdateMessage;
+import com.pocketfolio.backend.dto.QuoteUpdate;
 import com.pocketfolio.backend.entity.Asset;
 import com.pocketfolio.backend.entity.AssetType;
-import com.pocketfolio.backend.entity.PriceAlert;
+import com.pocketfolio.backend.entity.QuoteId;
+import com.pocketfolio.backend.event.PriceChangedEvent;
+import com.pocketfolio.backend.event.PriceEventBus;
 import com.pocketfolio.backend.repository.AssetRepository;
 import com.pocketfolio.backend.service.external.CoinGeckoService;
 import com.pocketfolio.backend.service.external.YahooFinanceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -31,15 +45,24 @@ public class PriceService {
     private final CoinGeckoService coinGeckoService;
     private final YahooFinanceService yahooFinanceService;
     private final AssetRepository assetRepository;
-    private final WebSocketService webSocketService;
-    private final PriceAlertService priceAlertService;
+    private final PriceEventBus priceEventBus;
+    private final PriceLookupService priceLookupService;
+    private final QuoteService quoteService;
+
+    // 整輪刷新的時間上限（需小於 5 分鐘排程間隔，避免兩輪重疊）
+    private static final Duration REFRESH_TIMEOUT = Duration.ofMinutes(4);
+    // 每次批次寫入的代號數，以及湊不滿一批時最多等待的時間
+    private static final int WRITE_BATCH_SIZE = 50;
+    private static final Duration WRITE_BATCH_MAX_WAIT = Duration.ofSeconds(1);
+    // 寫入端一次最多預取的 chunk 數，上游依此背壓
+    private static final int WRITE_PREFETCH = 2;
 
     /**
-     * 取得即時價格（外部 Service 已自動快取）
+     * 取得即時價格（經過 PriceLookupService：快取到期時先回傳舊值並背景刷新）
      */
     public PriceData getPrice(String symbol, AssetType assetType) {
         log.info("準備查詢資產價格: {}", symbol);
-        return fetchPriceFromApi(symbol, assetType);
+        return priceLookupService.getPrice(symbol, assetType);
     }
 
     /**
@@ -49,7 +72,7 @@ public class PriceService {
         try {
             if (assetType == AssetType.CRYPTO) {
                 return coinGeckoService.getPrice(symbol);
-            } else if (assetType == AssetType.STOCK || assetType == AssetType.FUND) {
+            } else if (isStockLike(assetType)) {
                 return yahooFinanceService.getPrice(symbol);
             }
             return null;
@@ -60,107 +83,114 @@ public class PriceService {
     }
 
     /**
-     * 更新單一資產的價格
+     * 更新單一資產的價格（寫入該代號的最新報價）
      */
     public PriceUpdateResponse updateAssetPrice(UUID assetId) {
         Asset asset = assetRepository.findById(assetId)
                 .orElseThrow(() -> new IllegalArgumentException("找不到資產"));
+        quoteService.attachQuote(asset);
 
-        BigDecimal oldPrice = asset.getCurrentPrice();
+        BigDecimal oldPrice = asset.getLatestPrice();
 
-        // 取得新價格
-        PriceData priceData = getPrice(asset.getSymbol(), asset.getType());
+        // 取得新價格（手動更新不接受過期值，直接查 provider）
+        PriceData priceData = fetchPriceFromApi(asset.getSymbol(), asset.getType());
 
         if (priceData == null || priceData.getPrice() == null) {
-            return PriceUpdateResponse.builder()
-                    .symbol(asset.getSymbol())
-                    .success(false)
-                    .errorMessage("無法取得價格")
-                    .build();
+            return failedUpdate(asset.getSymbol(), "無法取得價格");
         }
 
         BigDecimal newPrice = priceData.getPrice();
 
         // 計算變動百分比
-        BigDecimal changePercent = BigDecimal.ZERO;
-        if (oldPrice != null && oldPrice.compareTo(BigDecimal.ZERO) > 0) {
-            changePercent = newPrice.subtract(oldPrice)
-                    .divide(oldPrice, 4, RoundingMode.HALF_UP)
-                    .multiply(new BigDecimal("100"))
-                    .setScale(2, RoundingMode.HALF_UP);
-        }
+        BigDecimal changePercent = changePercent(oldPrice, newPrice);
 
-        // 更新資產價格
-        asset.setCurrentPrice(newPrice);
-        asset.setLastPriceUpdate(LocalDateTime.now());
-        if (priceData.getCurrency() != null) {
-            asset.setPriceCurrency(priceData.getCurrency());
-        }
-        assetRepository.save(asset);
+        // 更新報價（同代號的所有持有者共用，不改寫 assets 資料列）
+        LocalDateTime now = LocalDateTime.now();
+        quoteService.upsertAll(List.of(toQuoteUpdate(asset, priceData)), now);
 
         log.info("資產價格已更新: {} ${} -> ${} ({}{}) ",
                 asset.getName(), oldPrice, newPrice,
                 changePercent.compareTo(BigDecimal.ZERO) >= 0 ? "+" : "",
                 changePercent);
 
-        // WebSocket 推播
-        PriceUpdateMessage wsMessage = PriceUpdateMessage.fromUpdate(
-                asset.getSymbol(),
-                asset.getName(),
-                oldPrice,
-                newPrice
-        );
-
-        // 廣播給所有用戶
-        webSocketService.broadcastPriceUpdate(wsMessage);
-
-        // 檢查價格警報
-        List<PriceAlert> triggeredAlerts = priceAlertService.checkPriceAlerts(
-                asset.getSymbol(),
-                newPrice
-        );
-
-        // 如果有警報被觸發，推送通知
-        triggeredAlerts.forEach(alert -> {
-            webSocketService.sendPriceAlertToUser(
-                    alert.getUser().getId(),
-                    alert,
-                    newPrice
-            );
-        });
+        // 發布價格事件（推播與警報檢查由事件消費者非同步處理）
+        publishPriceChange(asset.getSymbol(), asset.getName(), oldPrice, newPrice);
 
         return PriceUpdateResponse.builder()
                 .symbol(asset.getSymbol())
                 .oldPrice(oldPrice)
                 .newPrice(newPrice)
                 .changePercent(changePercent)
-                .updateTime(LocalDateTime.now())
+                .updateTime(now)
                 .success(true)
                 .build();
     }
 
     /**
      * 更新某用戶的所有資產價格
+     *
+     * 每個不重複代號只查一次價格、寫一列報價，以一次 batch upsert 寫回（不逐筆 SELECT + save）。
      */
     public List<PriceUpdateResponse> updateUserAssetPrices(UUID userId) {
         List<Asset> assets = assetRepository.findByUserId(userId);
+        quoteService.attachQuotes(assets);
 
-        List<PriceUpdateResponse> results = new ArrayList<>();
+        // 同一用戶可能在多個帳戶持有同代號，價格只查一次
+        Map<String, PriceData> pricesByKey = new HashMap<>();
+        for (Asset asset : assets) {
+            pricesByKey.computeIfAbsent(priceKey(asset),
+                    key -> fetchPriceFromApi(asset.getSymbol(), asset.getType()));
+        }
+
+        Map<QuoteId, QuoteUpdate> updatesById = new LinkedHashMap<>();
+        for (Asset asset : assets) {
+            PriceData data = pricesByKey.get(priceKey(asset));
+            if (data != null && data.getPrice() != null) {
+                updatesById.putIfAbsent(quoteId(asset), toQuoteUpdate(asset, data));
+            }
+        }
 
+        LocalDateTime now = LocalDateTime.now();
+        List<QuoteId> ids = new ArrayList<>(updatesById.keySet());
+        Set<QuoteId> written = new HashSet<>();
+        String writeError = null;
+        try {
+            int[] rows = quoteService.upsertAll(new ArrayList<>(updatesById.values()), now);
+            for (int i = 0; i < ids.size(); i++) {
+                if (rows[i] > 0) written.add(ids.get(i));
+            }
+        } catch (Exception e) {
+            log.error("批次寫入用戶資產報價失敗: {} - {}", userId, e.getMessage());
+            writeError = e.getMessage();
+        }
+
+        List<PriceUpdateResponse> results = new ArrayList<>();
+        Set<QuoteId> published = new HashSet<>();
         for (Asset asset : assets) {
-            try {
-                PriceUpdateResponse result = updateAssetPrice(asset.getId());
-                results.add(result);
-
-
-            } catch (Exception e) {
-                log.error("更新資產價格失敗: {} - {}", asset.getSymbol(), e.getMessage());
-                results.add(PriceUpdateResponse.builder()
-                        .symbol(asset.getSymbol())
-                        .success(false)
-                        .errorMessage(e.getMessage())
-                        .build());
+            PriceData data = pricesByKey.get(priceKey(asset));
+            if (data == null || data.getPrice() == null) {
+                results.add(failedUpdate(asset.getSymbol(), "無法取得價格"));
+                continue;
             }
+            if (!written.contains(quoteId(asset))) {
+                results.add(failedUpdate(asset.getSymbol(), writeError != null ? writeError : "寫入報價失敗"));
+                continue;
+            }
+
+            BigDecimal oldPrice = asset.getLatestPrice();
+            BigDecimal newPrice = data.getPrice();
+            if (published.add(quoteId(asset))) {
+                publishPriceChange(asset.getSymbol(), asset.getName(), oldPrice, newPrice);
+            }
+
+            results.add(PriceUpdateResponse.builder()
+                    .symbol(asset.getSymbol())
+                    .oldPrice(oldPrice)
+                    .newPrice(newPrice)
+                    .changePercent(changePercent(oldPrice, newPrice))
+                    .updateTime(now)
+                    .success(true)
+                    .build());
         }
 
         return results;
@@ -168,44 +198,169 @@ public class PriceService {
 
     /**
      * 更新所有用戶的所有資產價格（定時任務用）
+     *
+     * 排程執行緒只在這裡等待整條 pipeline 完成，外部請求本身不佔用執行緒。
+     *
+     * @return 成功更新的代號（報價）數
      */
     public int updateAllAssetPrices() {
-        int pageSize = 100; // 每次只從資料庫取100筆
-        int pageNumber = 0;
-        int successCount = 0;
+        Integer updated = refreshAllPrices().block(REFRESH_TIMEOUT);
+        return updated != null ? updated : 0;
+    }
+
+    /**
+     * 全站價格刷新（非阻塞 pipeline）
+     *
+     * 先取出全站不重複的 (代號, 類型)，依報價來源分流批次取價（各 provider 自行限制並行數），
+     * 報價累積成 chunk 後以 JDBC batch upsert 寫入 quotes 表（每個代號一列，不改寫持有者的資產列），
+     * DB round trip 約為 代號數 / batch。
+     *
+     * @return 成功更新的代號（報價）數
+     */
+    public Mono<Integer> refreshAllPrices() {
+        return Mono.fromCallable(assetRepository::findDistinctPriceTargets)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(this::refreshTargets);
+    }
 
-        long totalAssets = assetRepository.count();
-        log.info("開始執行全站價格更新排程，預計處理總數：{} 筆", totalAssets);
+    private Mono<Integer> refreshTargets(List<PriceRefreshTarget> targets) {
+        log.info("開始執行全站價格更新排程，共 {} 個不重複代號", targets.size());
 
-        if (totalAssets == 0) return 0;
+        if (targets.isEmpty()) return Mono.just(0);
 
-        Page<Asset> assetPage;
-        do {
-            // 每次只撈取第 pageNumber 頁的 100 筆資料
-            assetPage = assetRepository.findAll(PageRequest.of(pageNumber, pageSize));
+        // 依報價來源分組：加密貨幣以小寫 id、股票 / 基金以大寫代號對應回刷新目標
+        Map<String, List<PriceRefreshTarget>> cryptoTargets = targets.stream()
+                .filter(t -> t.getAssetType() == AssetType.CRYPTO)
+                .collect(Collectors.groupingBy(t -> t.getSymbol().toLowerCase()));
+        Map<String, List<PriceRefreshTarget>> stockTargets = targets.stream()
+                .filter(t -> isStockLike(t.getAssetType()))
+                .collect(Collectors.groupingBy(t -> t.getSymbol().toUpperCase()));
 
-            log.info("正在處理 {}/{} 批次...", pageNumber + 1, assetPage.getTotalPages());
+        Flux<Tuple2<PriceRefreshTarget, PriceData>> quotes = Flux.merge(
+                coinGeckoService.fetchPrices(cryptoTargets.keySet())
+                        .flatMapIterable(data -> pairWithTargets(cryptoTargets, data)),
+                yahooFinanceService.fetchPrices(stockTargets.keySet())
+                        .flatMapIterable(data -> pairWithTargets(stockTargets, data))
+        );
 
-            for (Asset asset : assetPage.getContent()) {
-                try {
-                    PriceUpdateResponse result = updateAssetPrice(asset.getId());
-                    if (result.isSuccess()) {
-                        successCount++;
-                        Thread.sleep(200); // 限速：避免連續 cache miss 時觸發外部 API rate limit
+        AtomicInteger successSymbols = new AtomicInteger();
+
+        return quotes
+                // 累積成 chunk 再寫入：每個 chunk 一個交易、一次 JDBC batch round trip
+                .bufferTimeout(WRITE_BATCH_SIZE, WRITE_BATCH_MAX_WAIT)
+                // JPA 寫入與推播是阻塞操作，集中在 boundedElastic 依序處理；
+                // prefetch 限制待寫入的 chunk 數量，寫入變慢時自動向上游背壓
+                .publishOn(Schedulers.boundedElastic(), WRITE_PREFETCH)
+                .map(chunk -> {
+                    try {
+                        return writeQuoteChunk(chunk, successSymbols);
+                    } catch (Exception e) {
+                        // 整個 chunk 的交易已 rollback，下一輪排程會重試
+                        log.error("批次寫入價格失敗（{} 個代號）: {}", chunk.size(), e.getMessage());
+                        return 0;
                     }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.warn("價格更新排程被中斷，已更新 {}/{} 筆", successCount, totalAssets);
-                    return successCount;
-                } catch (Exception e) {
-                    log.error("更新資產價格失敗: {} - {}", asset.getSymbol(), e.getMessage());
-                }
-            }
-            pageNumber++;
-        }while (assetPage.hasNext());
+                })
+                .reduce(0, Integer::sum)
+                .doOnNext(updated -> log.info("全站價格更新排程結束: {}/{} 個代號成功",
+                        successSymbols.get(), targets.size()));
+    }
+
+    // ── Helper: 報價對應回所有同代號的刷新目標 ─────────────────
+    private List<Tuple2<PriceRefreshTarget, PriceData>> pairWithTargets(
+            Map<String, List<PriceRefreshTarget>> targetsByKey, PriceData data) {
+        return targetsByKey.getOrDefault(data.getSymbol(), List.of()).stream()
+                .map(target -> Tuples.of(target, data))
+                .toList();
+    }
+
+    /**
+     * 寫入一個 chunk 的報價：一次 batch upsert，每個代號一列；每個代號發布一個價格事件
+     *
+     * @return 寫入的報價筆數
+     */
+    private int writeQuoteChunk(List<Tuple2<PriceRefreshTarget, PriceData>> chunk, AtomicInteger successSymbols) {
+        List<Tuple2<PriceRefreshTarget, PriceData>> priced = chunk.stream()
+                .filter(quote -> quote.getT2() != null && quote.getT2().getPrice() != null)
+                .toList();
+        if (priced.isEmpty()) return 0;
+
+        List<QuoteUpdate> updates = priced.stream()
+                .map(quote -> QuoteUpdate.builder()
+                        .symbol(quote.getT1().getSymbol())
+                        .assetType(quote.getT1().getAssetType())
+                        .price(quote.getT2().getPrice())
+                        .currency(quote.getT2().getCurrency())
+                        .build())
+                .toList();
+
+        int[] rows = quoteService.upsertAll(updates, LocalDateTime.now());
+
+        int updated = 0;
+        for (int i = 0; i < priced.size(); i++) {
+            if (rows[i] <= 0) continue;
+
+            PriceRefreshTarget target = priced.get(i).getT1();
+            BigDecimal newPrice = priced.get(i).getT2().getPrice();
+            log.info("代號價格已更新: {} ${} -> ${}", target.getSymbol(), target.getLastPrice(), newPrice);
+
+            publishPriceChange(target.getSymbol(), target.getAssetName(), target.getLastPrice(), newPrice);
+            successSymbols.incrementAndGet();
+            updated += rows[i];
+        }
+        return updated;
+    }
+
+    private QuoteUpdate toQuoteUpdate(Asset asset, PriceData priceData) {
+        return QuoteUpdate.builder()
+                .symbol(asset.getSymbol())
+                .assetType(asset.getType())
+                .price(priceData.getPrice())
+                .currency(priceData.getCurrency())
+                .build();
+    }
 
-        log.info("全站價格更新排程結束: {}/{} 成功", successCount, totalAssets);
-        return successCount;
+    private QuoteId quoteId(Asset asset) {
+        return new QuoteId(asset.getSymbol(), asset.getType());
+    }
+
+    // ── Helper: 同一報價來源的代號視為同一個 key ─────────────
+    private String priceKey(Asset asset) {
+        return asset.getType() == AssetType.CRYPTO
+                ? PriceCacheService.cryptoKey(asset.getSymbol())
+                : PriceCacheService.stockKey(asset.getSymbol());
+    }
+
+    private BigDecimal changePercent(BigDecimal oldPrice, BigDecimal newPrice) {
+        if (oldPrice == null || oldPrice.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return newPrice.subtract(oldPrice)
+                .divide(oldPrice, 4, RoundingMode.HALF_UP)
+                .multiply(new BigDecimal("100"))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private PriceUpdateResponse failedUpdate(String symbol, String errorMessage) {
+        return PriceUpdateResponse.builder()
+                .symbol(symbol)
+                .success(false)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    // ── Helper: 股票與基金都由 Yahoo Finance 報價 ─────────────
+    private boolean isStockLike(AssetType assetType) {
+        return assetType == AssetType.STOCK || assetType == AssetType.FUND;
+    }
+
+    /**
+     * 發布價格變動事件（同一代號只需做一次）
+     *
+     * 只放進有界佇列，不等待推播或警報檢查，報價寫入的延遲不受消費者影響。
+     */
+    private void publishPriceChange(String symbol, String assetName,
+                                    BigDecimal oldPrice, BigDecimal newPrice) {
+        priceEventBus.publish(PriceChangedEvent.of(symbol, assetName, oldPrice, newPrice));
     }
 
     /**
@@ -213,6 +368,7 @@ public class PriceService {
      */
     @CacheEvict(value = "prices", allEntries = true)
     public void clearAllPriceCache() {
+        priceLookupService.evictAll();
         log.info("所有價格快取已清除");
     }
 
@@ -221,9 +377,11 @@ public class PriceService {
      */
     @CacheEvict(
             value = "prices",
-            key = "(#assetType.name() == 'CRYPTO' ? 'crypto:' : 'stock:') + #symbol.toUpperCase()"
+            // 與 provider 的 @Cacheable key 一致：crypto id 小寫、股票代號大寫
+            key = "#assetType.name() == 'CRYPTO' ? 'crypto:' + #symbol.toLowerCase() : 'stock:' + #symbol.toUpperCase()"
     )
     public void clearPriceCache(String symbol, AssetType assetType) {
+        priceLookupService.evict(symbol, assetType);
         log.info("特定資產快取已清除: {} ({})", symbol, assetType);
     }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.PriceAlert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每個代號近期報價的滑動視窗（PERCENT_CHANGE 警報用）
+ *
+ * 每個觀察區間一個 primitive ring buffer，搭配單調佇列維護區間最高 / 最低價：
+ * 每筆報價 O(1) 攤銷，不需查 asset_snapshots 歷史。
+ * 只記錄有 PERCENT_CHANGE 警報的代號（由 {@link PriceAlertIndex} 決定記錄與釋放），
+ * 視窗只包含該代號有警報之後、本程序收到的報價。
+ * buffer 從小容量開始，放滿時加倍，直到 window-capacity 上限：
+ * 每 5 分鐘刷新一次時 24 小時的視窗約 300 筆，不必預先配置上限的容量。
+ */
+@Component
+public class PriceWindowTracker {
+
+    // 每個視窗最多保留的報價筆數；超過時捨棄最舊的（視窗實際長度變短）
+    // buffer 依實際報價筆數成長，這裡只是上限
+    @Value("${price-alerts.window-capacity:2048}")
+    private int capacity = 2048;
+
+    private final Map<String, Map<PriceAlert.AlertWindow, RollingWindow>> bySymbol = new ConcurrentHashMap<>();
+
+    /**
+     * 區間內相對最低價的漲幅與相對最高價的跌幅（%，皆 >= 0）
+     */
+    public record WindowMove(double risePercent, double dropPercent) {
+    }
+
+    /**
+     * 記錄一筆報價，回傳各觀察區間（含本筆）的漲跌幅
+     */
+    public Map<PriceAlert.AlertWindow, WindowMove> record(String symbol, long epochMillis, double price) {
+        Map<PriceAlert.AlertWindow, RollingWindow> windows =
+                bySymbol.computeIfAbsent(symbol.toUpperCase(), s -> newWindows());
+
+        Map<PriceAlert.AlertWindow, WindowMove> moves = new EnumMap<>(PriceAlert.AlertWindow.class);
+        windows.forEach((window, rolling) -> {
+            synchronized (rolling) {
+                rolling.add(epochMillis, price);
+                moves.put(window, new WindowMove(
+                        percent(price - rolling.min(), rolling.min()),
+                        percent(rolling.max() - price, rolling.max())));
+            }
+        });
+        return moves;
+    }
+
+    /**
+     * 釋放代號的視窗（該代號已沒有 PERCENT_CHANGE 警報）
+     */
+    public void release(String symbol) {
+        bySymbol.remove(symbol.toUpperCase());
+    }
+
+    boolean isTracking(String symbol) {
+        return bySymbol.containsKey(symbol.toUpperCase());
+    }
+
+    private Map<PriceAlert.AlertWindow, RollingWindow> newWindows() {
+        Map<PriceAlert.AlertWindow, RollingWindow> windows = new EnumMap<>(PriceAlert.AlertWindow.class);
+        for (PriceAlert.AlertWindow window : PriceAlert.AlertWindow.values()) {
+            windows.put(window, new RollingWindow(window.getDuration().toMillis(), capacity));
+        }
+        return windows;
+    }
+
+    private static double percent(double delta, double base) {
+        return base > 0 ? delta / base * 100 : 0;
+    }
+
+    /**
+     * 有容量上限的時間視窗，min / max 以單調佇列維護
+     *
+     * 樣本以遞增序號定位：序號 s 存在 s % capacity；兩個單調佇列存的是樣本序號，
+     * 本身也是容量相同的環狀陣列。放滿時容量加倍（不超過 maxCapacity），
+     * 依新容量重新排列所有陣列。
+     */
+    static final class RollingWindow {
+
+        static final int INITIAL_CAPACITY = 16;
+
+        private final long spanMillis;
+        private final int maxCapacity;
+        private int capacity;
+
+        private long[] times;
+        private double[] prices;
+        private long first;  // 視窗內最舊樣本的序號
+        private long next;   // 下一個樣本的序號
+
+        private long[] maxQueue;  // 價格遞減
+        private long maxHead;
+        private long maxTail;
+
+        private long[] minQueue;  // 價格遞增
+        private long minHead;
+        private long minTail;
+
+        RollingWindow(long spanMillis, int maxCapacity) {
+            if (maxCapacity < 1) {
+                throw new IllegalArgumentException("window-capacity 至少為 1");
+            }
+            this.spanMillis = spanMillis;
+            this.maxCapacity = maxCapacity;
+            this.capacity = Math.min(INITIAL_CAPACITY, maxCapacity);
+            this.times = new long[capacity];
+            this.prices = new double[capacity];
+            this.maxQueue = new long[capacity];
+            this.minQueue = new long[capacity];
+        }
+
+        void add(long epochMillis, double price) {
+            // 先移出超過時間範圍的舊樣本；仍放滿時加倍容量，已達上限才捨棄最舊的
+            while (first < next && times[slot(first)] < epochMillis - spanMillis) {
+                first++;
+            }
+            if (next - first == capacity) {
+                if (capacity < maxCapacity) {
+                    grow();
+                } else {
+                    first++;
+                }
+            }
+            while (maxTail > maxHead && maxQueue[slot(maxHead)] < first) maxHead++;
+            while (minTail > minHead && minQueue[slot(minHead)] < first) minHead++;
+
+            long seq = next++;
+            times[slot(seq)] = epochMillis;
+            prices[slot(seq)] = price;
+
+            while (maxTail > maxHead && priceAt(maxQueue[slot(maxTail - 1)]) <= price) maxTail--;
+            maxQueue[slot(maxTail++)] = seq;
+
+            while (minTail > minHead && priceAt(minQueue[slot(minTail - 1)]) >= price) minTail--;
+            minQueue[slot(minTail++)] = seq;
+        }
+
+        double max() {
+            return priceAt(maxQueue[slot(maxHead)]);
+        }
+
+        double min() {
+            return priceAt(minQueue[slot(minHead)]);
+        }
+
+        int size() {
+            return (int) (next - first);
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        private void grow() {
+            int grown = (int) Math.min((long) capacity * 2, maxCapacity);
+            times = relocate(times, first, next, grown);
+            prices = relocate(prices, first, next, grown);
+            maxQueue = relocate(maxQueue, maxHead, maxTail, grown);
+            minQueue = relocate(minQueue, minHead, minTail, grown);
+            capacity = grown;
+        }
+
+        private long[] relocate(long[] values, long from, long to, int grown) {
+            long[] relocated = new long[grown];
+            for (long seq = from; seq < to; seq++) {
+                relocated[(int) (seq % grown)] = values[slot(seq)];
+            }
+            return relocated;
+        }
+
+        private double[] relocate(double[] values, long from, long to, int grown) {
+            double[] relocated = new double[grown];
+            for (long seq = from; seq < to; seq++) {
+                relocated[(int) (seq % grown)] = values[slot(seq)];
+            }
+            return relocated;
+        }
+
+        private double priceAt(long seq) {
+            return prices[slot(seq)];
+        }
+
+        private int slot(long seq) {
+            return (int) (seq % capacity);
+        }
+    }
+}
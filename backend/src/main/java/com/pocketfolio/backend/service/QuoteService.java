@@ -0,0 +1,62 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.dto.QuoteUpdate;
+import com.pocketfolio.backend.entity.Asset;
+import com.pocketfolio.backend.entity.Quote;
+import com.pocketfolio.backend.entity.QuoteId;
+import com.pocketfolio.backend.repository.QuoteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 最新報價的讀寫
+ *
+ * 寫入：每個 (代號, 類型) 一列，批次 upsert。
+ * 讀取：一次查詢附加到一批 Asset 上，Asset 的市值 / 損益計算會優先使用報價。
+ */
+@Service
+@RequiredArgsConstructor
+public class QuoteService {
+
+    private final QuoteRepository quoteRepository;
+
+    /**
+     * 批次寫入最新報價
+     *
+     * @return 與 updates 順序對應的寫入筆數
+     */
+    public int[] upsertAll(List<QuoteUpdate> updates, LocalDateTime updateTime) {
+        if (updates.isEmpty()) return new int[0];
+        return quoteRepository.upsertQuotes(updates, updateTime);
+    }
+
+    /**
+     * 為一批資產附加最新報價（單次查詢）
+     */
+    public void attachQuotes(Collection<Asset> assets) {
+        if (assets.isEmpty()) return;
+
+        Set<String> symbols = assets.stream()
+                .map(Asset::getSymbol)
+                .collect(Collectors.toSet());
+
+        Map<QuoteId, Quote> quotes = quoteRepository.findBySymbolIn(symbols).stream()
+                .collect(Collectors.toMap(
+                        quote -> new QuoteId(quote.getSymbol(), quote.getAssetType()),
+                        Function.identity()));
+
+        assets.forEach(asset -> asset.setQuote(quotes.get(new QuoteId(asset.getSymbol(), asset.getType()))));
+    }
+
+    public void attachQuote(Asset asset) {
+        attachQuotes(List.of(asset));
+    }
+}
@@ -0,0 +1,249 @@
+package com.pocketfolio.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * asset_snapshots 的月分區維護與舊資料壓縮（僅 PostgreSQL）
+ *
+ * - 啟動時若 asset_snapshots 仍是一般資料表，轉為依 snapshot_date 的月 range 分區表
+ * - 每天預先建立之後幾個月的分區（快照寫入沒有對應分區時會失敗）
+ * - 早於保留期限的月份，每個資產每週只留最後一天的快照，開高低價改為整週的區間（每日總計表不受影響）
+ *
+ * 歷史查詢都帶 snapshot_date 範圍，PostgreSQL 只會掃描相關月份的分區與索引。
+ */
+@Service
+@Slf4j
+public class SnapshotPartitionService {
+
+    static final String TABLE = "asset_snapshots";
+    static final String COMPACTED_COMMENT = "compacted:weekly";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // 是否啟用分區（關閉時維持一般資料表，維護與壓縮都不執行）
+    @Value("${snapshot.partitioning.enabled:true}")
+    private boolean enabled = true;
+
+    // 預先建立的月份數（含當月之後）
+    @Value("${snapshot.partitioning.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    // 早於 N 個月的每日快照壓縮為每週一筆；0 表示不壓縮
+    @Value("${snapshot.retention.compact-after-months:12}")
+    private int compactAfterMonths = 12;
+
+    public SnapshotPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) return;
+        try {
+            if (!isPostgreSql()) {
+                log.info("資料庫不是 PostgreSQL，asset_snapshots 不分區");
+                enabled = false;
+                return;
+            }
+            if (!isPartitioned()) {
+                convertToPartitioned(LocalDate.now());
+            }
+            ensurePartitions(LocalDate.now());
+        } catch (Exception e) {
+            log.error("asset_snapshots 分區初始化失敗: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 排程：建立未來月份的分區，並壓縮超過保留期限的月份
+     */
+    public void maintain(LocalDate today) {
+        if (!enabled || !isPartitioned()) return;
+
+        int created = ensurePartitions(today);
+        int compacted = compactBefore(today);
+        log.info("快照分區維護完成：新建 {} 個分區，壓縮 {} 筆每日快照", created, compacted);
+    }
+
+    // ── 分區建立 ──────────────────────────────────────────
+
+    /**
+     * 建立當月到 monthsAhead 個月後的分區（已存在則略過）
+     *
+     * @return 新建的分區數
+     */
+    int ensurePartitions(LocalDate today) {
+        YearMonth current = YearMonth.from(today);
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            if (createPartition(current.plusMonths(i))) created++;
+        }
+        return created;
+    }
+
+    private boolean createPartition(YearMonth month) {
+        String name = partitionName(month);
+        if (tableExists(name)) return false;
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        log.info("已建立快照分區 {}", name);
+        return true;
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(PARTITION_SUFFIX);
+    }
+
+    // ── 轉為分區表 ────────────────────────────────────────
+
+    /**
+     * 一般資料表 → 月分區表（同一交易內搬移資料，期間鎖住 asset_snapshots）
+     *
+     * 分區表的主鍵與唯一鍵必須包含分區欄位：主鍵改為 (id, snapshot_date)，
+     * 唯一鍵 (asset_id, snapshot_date) 本來就包含。
+     */
+    void convertToPartitioned(LocalDate today) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+            LocalDate oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(snapshot_date) FROM " + TABLE, LocalDate.class);
+
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_legacy");
+
+            // 索引 / 約束名稱在 schema 內不可重複，先從舊表移除
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + "_legacy DROP CONSTRAINT IF EXISTS uk_asset_snapshot_date");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + "_legacy DROP CONSTRAINT IF EXISTS " + TABLE + "_pkey");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_asset_date");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_user_date");
+
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + TABLE + "_legacy INCLUDING DEFAULTS) " +
+                    "PARTITION BY RANGE (snapshot_date)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, snapshot_date)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE +
+                    " ADD CONSTRAINT uk_asset_snapshot_date UNIQUE (asset_id, snapshot_date)");
+            jdbcTemplate.execute("CREATE INDEX idx_user_date ON " + TABLE + " (user_id, snapshot_date)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE +
+                    " ADD CONSTRAINT fk_asset_snapshots_user FOREIGN KEY (user_id) REFERENCES users (id)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE +
+                    " ADD CONSTRAINT fk_asset_snapshots_asset FOREIGN KEY (asset_id) REFERENCES assets (id)");
+
+            YearMonth from = YearMonth.from(oldest != null ? oldest : today);
+            for (YearMonth month = from; !month.isAfter(YearMonth.from(today)); month = month.plusMonths(1)) {
+                createPartition(month);
+            }
+
+            int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + TABLE + "_legacy");
+            jdbcTemplate.execute("DROP TABLE " + TABLE + "_legacy");
+            log.info("asset_snapshots 已轉為月分區表，搬移 {} 筆快照", moved);
+        });
+    }
+
+    // ── 保留期限：每日 → 每週 ─────────────────────────────
+
+    /**
+     * 壓縮早於 compactAfterMonths 個月、尚未壓縮的分區
+     *
+     * @return 刪除的每日快照數
+     */
+    int compactBefore(LocalDate today) {
+        if (compactAfterMonths <= 0) return 0;
+
+        YearMonth cutoff = YearMonth.from(today).minusMonths(compactAfterMonths);
+        int deleted = 0;
+        for (String partition : uncompactedPartitionsBefore(cutoff)) {
+            deleted += compactPartition(partition);
+        }
+        return deleted;
+    }
+
+    private List<String> uncompactedPartitionsBefore(YearMonth cutoff) {
+        String cutoffName = partitionName(cutoff);
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ? AND c.relname < ? " +
+                "AND COALESCE(obj_description(c.oid, 'pg_class'), '') <> ? " +
+                "ORDER BY c.relname",
+                String.class, TABLE, cutoffName, COMPACTED_COMMENT);
+    }
+
+    /**
+     * 每個資產每週（週一起算，不跨分區）只留最後一天的快照，完成後在分區上標記
+     *
+     * 刪除前先把整週的區間寫到留下的那筆：開盤取該週第一天（沒有盤中統計時用當日價格），
+     * 最高 / 最低取整週的極值，週 K 不會只剩最後一天的區間。
+     */
+    int compactPartition(String partition) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(
+                    "UPDATE " + partition + " s SET " +
+                    "  day_open = (SELECT COALESCE(w.day_open, w.current_price) FROM " + partition + " w " +
+                    "    WHERE w.asset_id = s.asset_id AND " + sameWeek("w", "s") +
+                    "    ORDER BY w.snapshot_date LIMIT 1), " +
+                    "  day_high = (SELECT MAX(COALESCE(w.day_high, w.current_price)) FROM " + partition + " w " +
+                    "    WHERE w.asset_id = s.asset_id AND " + sameWeek("w", "s") + "), " +
+                    "  day_low = (SELECT MIN(COALESCE(w.day_low, w.current_price)) FROM " + partition + " w " +
+                    "    WHERE w.asset_id = s.asset_id AND " + sameWeek("w", "s") + ") " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM " + partition + " n " +
+                    "    WHERE n.asset_id = s.asset_id AND n.snapshot_date > s.snapshot_date AND " + sameWeek("n", "s") + ") " +
+                    "AND EXISTS (SELECT 1 FROM " + partition + " p " +
+                    "    WHERE p.asset_id = s.asset_id AND p.snapshot_date < s.snapshot_date AND " + sameWeek("p", "s") + ")");
+            int rows = jdbcTemplate.update(
+                    "DELETE FROM " + partition + " s WHERE EXISTS (" +
+                    "  SELECT 1 FROM " + partition + " n " +
+                    "  WHERE n.asset_id = s.asset_id AND n.snapshot_date > s.snapshot_date " +
+                    "  AND " + sameWeek("n", "s") + ")");
+            jdbcTemplate.execute("COMMENT ON TABLE " + partition + " IS '" + COMPACTED_COMMENT + "'");
+            return rows;
+        });
+        log.info("快照分區 {} 已壓縮為每週一筆（刪除 {} 筆）", partition, deleted);
+        return deleted != null ? deleted : 0;
+    }
+
+    // ── Helper: 兩筆快照在同一週（週一起算）──
+    private static String sameWeek(String a, String b) {
+        return "date_trunc('week', CAST(" + a + ".snapshot_date AS timestamp)) = " +
+                "date_trunc('week', CAST(" + b + ".snapshot_date AS timestamp))";
+    }
+
+    // ── Helper: catalog 查詢 ──
+
+    private boolean isPostgreSql() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    private boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT CAST(relkind AS text) FROM pg_class WHERE relname = ? AND relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())",
+                String.class, TABLE);
+        return kinds.contains("p");
+    }
+
+    private boolean tableExists(String name) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_class WHERE relname = ? AND relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())",
+                Integer.class, name);
+        return count != null && count > 0;
+    }
+}
@@ -1,15 +1,17 @@
 package com.pocketfolio.backend.service;
 
+import com.pocketfolio.backend.config.WebSocketMessageRelay;
+import com.pocketfolio.backend.dto.TriggeredAlert;
+import com.pocketfolio.backend.dto.websocket.PriceAlertMessage;
+import com.pocketfolio.backend.dto.websocket.PortfolioValueMessage;
+import com.pocketfolio.backend.dto.websocket.PriceBatchMessage;
 import com.pocketfolio.backend.dto.websocket.PriceUpdateMessage;
 import com.pocketfolio.backend.dto.websocket.SystemMessage;
-import com.pocketfolio.backend.entity.PriceAlert;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -17,20 +19,30 @@ import java.util.UUID;
 @Slf4j
 public class WebSocketService {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketMessageRelay messageRelay;
 
     /**
-     * 廣播價格更新給所有連線的用戶
+     * 推送一個週期內的價格更新
      *
-     * 目的地：/topic/price-updates
+     * 每個代號送到 /topic/prices/{symbol}：simple broker 對每則訊息只序列化一次，
+     * 只轉送給訂閱該代號的 session，流量隨用戶持有的代號數成長而不是全部代號。
+     * batchTopic 為 true 時另把整批打包成一個 frame 送到 /topic/price-updates（需要全部代號的用戶端）。
      */
-    public void broadcastPriceUpdate(PriceUpdateMessage message) {
-        log.info("廣播價格更新: {} ${} → ${}",
-                message.getSymbol(),
-                message.getOldPrice(),
-                message.getNewPrice());
+    public void publishPriceUpdates(List<PriceUpdateMessage> messages, boolean batchTopic) {
+        if (messages.isEmpty()) return;
 
-        messagingTemplate.convertAndSend("/topic/price-updates", message);
+        log.info("推送價格更新: {} 個代號", messages.size());
+
+        for (PriceUpdateMessage message : messages) {
+            messageRelay.send(priceTopic(message.getSymbol()), message);
+        }
+        if (batchTopic) {
+            messageRelay.send("/topic/price-updates", PriceBatchMessage.of(messages));
+        }
+    }
+
+    public static String priceTopic(String symbol) {
+        return "/topic/prices/" + symbol.toUpperCase();
     }
 
     /**
@@ -41,7 +53,7 @@ public class WebSocketService {
     public void sendPriceUpdateToUser(UUID userId, PriceUpdateMessage message) {
         log.info("發送價格更新給用戶 {}: {}", userId, message.getSymbol());
 
-        messagingTemplate.convertAndSendToUser(
+        messageRelay.sendToUser(
                 userId.toString(),
                 "/queue/price-updates",
                 message
@@ -56,7 +68,7 @@ public class WebSocketService {
     public void broadcastSystemMessage(SystemMessage message) {
         log.info("廣播系統消息: {}", message.getMessage());
 
-        messagingTemplate.convertAndSend("/topic/system", message);
+        messageRelay.send("/topic/system", message);
     }
 
     /**
@@ -65,7 +77,7 @@ public class WebSocketService {
     public void sendSystemMessageToUser(UUID userId, SystemMessage message) {
         log.info("發送系統消息給用戶 {}: {}", userId, message.getMessage());
 
-        messagingTemplate.convertAndSendToUser(
+        messageRelay.sendToUser(
                 userId.toString(),
                 "/queue/system",
                 message
@@ -73,34 +85,35 @@ public class WebSocketService {
     }
 
     /**
-     * 發送價格警報給特定用戶
+     * 發送價格警報給特定用戶：同一次價格更新中觸發的所有警報合併為一則
+     *
+     * 目的地：/user/queue/alerts
      */
-    public void sendPriceAlertToUser(UUID userId, PriceAlert alert, BigDecimal currentPrice) {
-        String conditionText = alert.getCondition() == PriceAlert.AlertCondition.ABOVE
-                ? "高於" : "低於";
-
-        String message = String.format(
-                "價格警報：%s 已%s目標價格 $%s（當前價格：$%s）",
-                alert.getSymbol(),
-                conditionText,
-                alert.getTargetPrice(),
-                currentPrice
-        );
-
-        SystemMessage alertMessage = SystemMessage.builder()
-                .message(message)
-                .level("WARNING")
-                .timestamp(LocalDateTime.now())
-                .messageType("PRICE_ALERT")
-                .build();
+    public void sendPriceAlertsToUser(UUID userId, List<TriggeredAlert> alerts) {
+        PriceAlertMessage alertMessage = PriceAlertMessage.of(alerts);
 
-        log.info("發送價格警報給用戶 {}: {}", userId, message);
+        log.info("發送價格警報給用戶 {}: {}", userId, alertMessage.getMessage());
 
-        messagingTemplate.convertAndSendToUser(
+        messageRelay.sendToUser(
                 userId.toString(),
                 "/queue/alerts",
                 alertMessage
         );
     }
 
-}
\ No newline at end of file
+    /**
+     * 發送投資組合市值給特定用戶在本機的 session
+     *
+     * 每個節點依自己的持倉索引計算已連線用戶的市值，不再轉送到其他節點。
+     * 目的地：/user/queue/portfolio
+     */
+    public void sendPortfolioValueToUser(UUID userId, PortfolioValueMessage message) {
+        log.debug("發送投資組合市值給用戶 {}: {}", userId, message.getTotalMarketValue());
+
+        messageRelay.sendToUserLocally(
+                userId.toString(),
+                "/queue/portfolio",
+                message
+        );
+    }
+}
@@ -2,26 +2,54 @@ package com.pocketfolio.backend.service.external;
 
 import com.pocketfolio.backend.dto.PriceData;
 import com.pocketfolio.backend.dto.external.CoinGeckoResponse;
+import com.pocketfolio.backend.service.ApiRateLimiter;
+import com.pocketfolio.backend.service.PriceCacheService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CoinGeckoService {
 
+    // /simple/price 單次查詢的 id 上限（URL 長度與官方建議的折衷）
+    private static final int SIMPLE_PRICE_BATCH_SIZE = 250;
+    // 同時進行的批次請求數上限（免費方案 rate limit 很低）
+    private static final int MAX_CONCURRENCY = 2;
+
     private final WebClient.Builder webClientBuilder;
+    private final PriceCacheService priceCacheService;
+    private final ApiRateLimiter rateLimiter;
 
     @Value("${api.coingecko.base-url}")
     private String baseUrl;
 
+    // 啟動時建立一次，所有請求共用同一個 client（共用連線池）
+    private WebClient webClient;
+
+    @PostConstruct
+    void initWebClient() {
+        webClient = webClientBuilder.clone().baseUrl(baseUrl).build();
+    }
+
     /**
      * 取得加密貨幣即時價格（USD）
      *
@@ -34,36 +62,121 @@ public class CoinGeckoService {
             unless = "#result == null"
     )
     public PriceData getPrice(String coinGeckoId) {
-        try {
-            String id = coinGeckoId.toLowerCase();
-            log.info("呼叫 CoinGecko API: {}", id);
-
-            WebClient webClient = webClientBuilder.baseUrl(baseUrl).build();
-
-            CoinGeckoResponse response = webClient.get()
-                    .uri("/coins/{id}", id)
-                    .retrieve()
-                    .bodyToMono(CoinGeckoResponse.class)
-                    .block();
-
-            if (response != null && response.getMarketData() != null) {
-                BigDecimal price = response.getMarketData().getUsdPrice();
-                log.info("CoinGecko - {} 價格: ${}", coinGeckoId, price);
-                return PriceData.builder()
-                        .symbol(id)
-                        .price(price)
-                        .currency("USD")
-                        .updateTime(LocalDateTime.now())
-                        .source("CoinGecko")
-                        .build();
-            }
-
-            log.warn("CoinGecko - 無法取得 {} 的價格", id);
-            return null;
-
-        } catch (Exception e) {
-            log.error("CoinGecko API 呼叫失敗: {}", e.getMessage());
-            return null;
+        // 單筆查詢由 servlet 執行緒呼叫，在這裡等待結果
+        return fetchPrice(coinGeckoId).block();
+    }
+
+    /**
+     * 非阻塞取得單一加密貨幣價格（不經過快取）
+     */
+    public Mono<PriceData> fetchPrice(String coinGeckoId) {
+        String id = coinGeckoId.toLowerCase();
+        log.info("呼叫 CoinGecko API: {}", id);
+
+        Mono<CoinGeckoResponse> call = webClient.get()
+                .uri("/coins/{id}", id)
+                .retrieve()
+                .bodyToMono(CoinGeckoResponse.class);
+
+        return rateLimiter.throttle(ApiRateLimiter.Provider.COINGECKO, call)
+                .mapNotNull(response -> {
+                    if (response.getMarketData() == null || response.getMarketData().getUsdPrice() == null) {
+                        log.warn("CoinGecko - 無法取得 {} 的價格", id);
+                        return null;
+                    }
+                    BigDecimal price = response.getMarketData().getUsdPrice();
+                    log.info("CoinGecko - {} 價格: ${}", id, price);
+                    return toPriceData(id, price, LocalDateTime.now());
+                })
+                .onErrorResume(e -> {
+                    log.error("CoinGecko API 呼叫失敗: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 批次取得多個加密貨幣價格（USD）
+     *
+     * @param coinGeckoIds CoinGecko coin id 集合
+     * @return 小寫 id → 價格（查不到的 id 不會出現在結果中）
+     */
+    public Map<String, PriceData> getPrices(Collection<String> coinGeckoIds) {
+        Map<String, PriceData> prices = fetchPrices(coinGeckoIds)
+                .collectMap(PriceData::getSymbol)
+                .block();
+        return prices != null ? prices : new HashMap<>();
+    }
+
+    /**
+     * 非阻塞批次取價
+     *
+     * 使用 /simple/price 一次查詢多個 id，回應只含價格，不需下載整份 coin 文件；
+     * 每批最多 250 個 id，同時最多 2 批；每批結果以單次 pipeline 寫入 prices 快取，
+     * 之後的 getPrice 可直接命中。
+     */
+    public Flux<PriceData> fetchPrices(Collection<String> coinGeckoIds) {
+        List<String> ids = coinGeckoIds.stream()
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .distinct()
+                .toList();
+
+        if (ids.isEmpty()) return Flux.empty();
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += SIMPLE_PRICE_BATCH_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + SIMPLE_PRICE_BATCH_SIZE, ids.size())));
         }
+
+        return Flux.fromIterable(chunks)
+                .flatMap(this::fetchSimplePriceChunk, MAX_CONCURRENCY);
+    }
+
+    // ── Helper: 查詢單一批次並寫入快取，失敗時回傳空結果不影響其他批次 ──
+    private Flux<PriceData> fetchSimplePriceChunk(List<String> chunk) {
+        log.info("呼叫 CoinGecko /simple/price: {} 個 id", chunk.size());
+
+        Mono<Map<String, Map<String, BigDecimal>>> call = webClient.get()
+                .uri(u -> u.path("/simple/price")
+                        .queryParam("ids", String.join(",", chunk))
+                        .queryParam("vs_currencies", "usd")
+                        .build())
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Map<String, BigDecimal>>>() {});
+
+        return rateLimiter.throttle(ApiRateLimiter.Provider.COINGECKO, call)
+                .map(response -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    List<PriceData> prices = new ArrayList<>();
+                    response.forEach((id, quote) -> {
+                        BigDecimal price = quote != null ? quote.get("usd") : null;
+                        if (price != null) {
+                            prices.add(toPriceData(id, price, now));
+                        }
+                    });
+                    return prices;
+                })
+                // Redis 寫入是阻塞呼叫，移出 Netty event loop
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(prices -> {
+                    Map<String, PriceData> cacheEntries = new HashMap<>();
+                    prices.forEach(data -> cacheEntries.put(PriceCacheService.cryptoKey(data.getSymbol()), data));
+                    priceCacheService.putAll(cacheEntries);
+                })
+                .flatMapIterable(prices -> prices)
+                .onErrorResume(e -> {
+                    log.error("CoinGecko 批次查詢失敗（{} 個 id）: {}", chunk.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private PriceData toPriceData(String id, BigDecimal price, LocalDateTime updateTime) {
+        return PriceData.builder()
+                .symbol(id)
+                .price(price)
+                .currency("USD")
+                .updateTime(updateTime)
+                .source("CoinGecko")
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -2,26 +2,63 @@ package com.pocketfolio.backend.service.external;
 
 import com.pocketfolio.backend.dto.PriceData;
 import com.pocketfolio.backend.dto.external.YahooFinanceResponse;
+import com.pocketfolio.backend.dto.external.YahooSparkResponse;
+import com.pocketfolio.backend.service.ApiRateLimiter;
+import com.pocketfolio.backend.service.PriceCacheService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class YahooFinanceService {
 
+    // spark API 單次最多 20 個代號
+    private static final int SPARK_BATCH_SIZE = 20;
+    // 同時進行的批次請求數上限
+    private static final int SPARK_MAX_CONCURRENCY = 4;
+    // 批次查不到、改用 chart API 補查時的同時請求數上限
+    private static final int CHART_MAX_CONCURRENCY = 2;
+
     private final WebClient.Builder webClientBuilder;
+    private final PriceCacheService priceCacheService;
+    private final ApiRateLimiter rateLimiter;
 
     @Value("${api.yahoo-finance.base-url}")
     private String baseUrl;
 
+    @Value("${api.yahoo-finance.spark-url}")
+    private String sparkUrl;
+
+    // 啟動時建立一次，所有請求共用同一個 client（共用連線池）
+    private WebClient chartClient;
+    private WebClient sparkClient;
+
+    @PostConstruct
+    void initWebClients() {
+        chartClient = webClientBuilder.clone().baseUrl(baseUrl).build();
+        sparkClient = webClientBuilder.clone().baseUrl(sparkUrl).build();
+    }
+
     /**
      * 取得股票即時價格
      *
@@ -34,36 +71,127 @@ public class YahooFinanceService {
             unless = "#result == null"
     )
     public PriceData getPrice(String symbol) {
-        try {
-            log.info("呼叫 Yahoo Finance API: {}", symbol);
-
-            WebClient webClient = webClientBuilder.baseUrl(baseUrl).build();
-
-            YahooFinanceResponse response = webClient.get()
-                    .uri("/{symbol}?interval=1d&range=1d", symbol)
-                    .retrieve()
-                    .bodyToMono(YahooFinanceResponse.class)
-                    .block();
-
-            if (response != null && response.getPrice() != null) {
-                BigDecimal price = response.getPrice();
-                log.info("Yahoo Finance - {} 價格: {}", symbol, price);
-
-                return PriceData.builder()
-                        .symbol(symbol)
-                        .price(price)
-                        .currency("TWD")
-                        .updateTime(LocalDateTime.now())
-                        .source("YAHOO_FINANCE")
-                        .build();
-            }
-
-            log.warn("Yahoo Finance - 無法取得 {} 的價格", symbol);
-            return null;
-
-        } catch (Exception e) {
-            log.error("Yahoo Finance API 呼叫失敗: {} - {}", symbol, e.getMessage());
-            return null;
+        // 單筆查詢由 servlet 執行緒呼叫，在這裡等待結果
+        return fetchPrice(symbol).block();
+    }
+
+    /**
+     * 非阻塞取得單一股票價格（不經過快取）
+     */
+    public Mono<PriceData> fetchPrice(String symbol) {
+        log.info("呼叫 Yahoo Finance API: {}", symbol);
+
+        Mono<YahooFinanceResponse> call = chartClient.get()
+                .uri("/{symbol}?interval=1d&range=1d", symbol)
+                .retrieve()
+                .bodyToMono(YahooFinanceResponse.class);
+
+        return rateLimiter.throttle(ApiRateLimiter.Provider.YAHOO_FINANCE, call)
+                .mapNotNull(response -> {
+                    if (response.getPrice() == null) {
+                        log.warn("Yahoo Finance - 無法取得 {} 的價格", symbol);
+                        return null;
+                    }
+                    BigDecimal price = response.getPrice();
+                    log.info("Yahoo Finance - {} 價格: {}", symbol, price);
+                    return toPriceData(symbol, price, LocalDateTime.now());
+                })
+                .onErrorResume(e -> {
+                    log.error("Yahoo Finance API 呼叫失敗: {} - {}", symbol, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 批次取得多個股票價格
+     *
+     * @param symbols 股票代號集合，例如：2330.TW, 6547.TWO, AAPL
+     * @return 大寫代號 → 價格（查不到的代號不會出現在結果中）
+     */
+    public Map<String, PriceData> getPrices(Collection<String> symbols) {
+        Map<String, PriceData> prices = fetchPrices(symbols)
+                .collectMap(PriceData::getSymbol)
+                .block();
+        return prices != null ? prices : new HashMap<>();
+    }
+
+    /**
+     * 非阻塞批次取價
+     *
+     * 使用 /v8/finance/spark 一次查詢多個代號：代號切成每批 20 個，最多 4 批同時進行；
+     * spark 沒有回傳的代號（例如部分基金）再以 chart API 逐筆補查。
+     * 取得的報價寫回 prices 快取的 stock: key。
+     */
+    public Flux<PriceData> fetchPrices(Collection<String> symbols) {
+        List<String> distinct = symbols.stream()
+                .filter(Objects::nonNull)
+                .map(String::toUpperCase)
+                .distinct()
+                .toList();
+
+        if (distinct.isEmpty()) return Flux.empty();
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += SPARK_BATCH_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + SPARK_BATCH_SIZE, distinct.size())));
         }
+
+        Set<String> resolved = ConcurrentHashMap.newKeySet();
+
+        Flux<PriceData> batched = Flux.fromIterable(chunks)
+                .flatMap(this::fetchSparkChunk, SPARK_MAX_CONCURRENCY)
+                .doOnNext(data -> resolved.add(data.getSymbol()));
+
+        // 批次全部完成後才知道哪些代號缺漏
+        Flux<PriceData> fallback = Flux.defer(() -> Flux.fromIterable(distinct)
+                .filter(symbol -> !resolved.contains(symbol))
+                .flatMap(symbol -> fetchPrice(symbol)
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(data -> priceCacheService.putAll(
+                                Map.of(PriceCacheService.stockKey(symbol), data))),
+                        CHART_MAX_CONCURRENCY));
+
+        return batched.concatWith(fallback);
+    }
+
+    // ── Helper: 查詢單一批次並寫入快取，失敗時回傳空結果不影響其他批次 ──
+    private Flux<PriceData> fetchSparkChunk(List<String> chunk) {
+        Mono<YahooSparkResponse> call = sparkClient.get()
+                .uri(u -> u.queryParam("symbols", String.join(",", chunk))
+                        .queryParam("range", "1d")
+                        .queryParam("interval", "1d")
+                        .build())
+                .retrieve()
+                .bodyToMono(YahooSparkResponse.class);
+
+        return rateLimiter.throttle(ApiRateLimiter.Provider.YAHOO_FINANCE, call)
+                .map(response -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    List<PriceData> prices = new ArrayList<>();
+                    response.getPrices().forEach((symbol, price) -> prices.add(toPriceData(symbol, price, now)));
+                    return prices;
+                })
+                // Redis 寫入是阻塞呼叫，移出 Netty event loop
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(prices -> {
+                    Map<String, PriceData> cacheEntries = new HashMap<>();
+                    prices.forEach(data -> cacheEntries.put(PriceCacheService.stockKey(data.getSymbol()), data));
+                    priceCacheService.putAll(cacheEntries);
+                })
+                .flatMapIterable(prices -> prices)
+                .onErrorResume(e -> {
+                    log.error("Yahoo Finance 批次查詢失敗（{} 個代號）: {}", chunk.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private PriceData toPriceData(String symbol, BigDecimal price, LocalDateTime updateTime) {
+        return PriceData.builder()
+                .symbol(symbol)
+                .price(price)
+                .currency("TWD")
+                .updateTime(updateTime)
+                .source("YAHOO_FINANCE")
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.pocketfolio.backend.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pocketfolio.backend.dto.websocket.PriceUpdateMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("CompactPriceFrameInterceptor 單元測試")
+class CompactPriceFrameInterceptorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private CompactPriceFrameInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new CompactPriceFrameInterceptor(objectMapper);
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private void connect(String sessionId, String encoding) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (encoding != null) {
+            accessor.setNativeHeader(CompactPriceFrameInterceptor.ENCODING_HEADER, encoding);
+        }
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private Message<?> priceFrame(String sessionId, String symbol, String oldPrice, String newPrice) throws Exception {
+        PriceUpdateMessage update = PriceUpdateMessage.fromUpdate(
+                symbol, symbol + " name", new BigDecimal(oldPrice), new BigDecimal(newPrice));
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/prices/" + symbol);
+        return MessageBuilder.createMessage(objectMapper.writeValueAsBytes(update), accessor.getMessageHeaders());
+    }
+
+    private List<Object> body(Message<?> message) throws Exception {
+        return objectMapper.readValue((byte[]) message.getPayload(), new TypeReference<List<Object>>() {});
+    }
+
+    private boolean isDictionaryFrame(Message<?> message) {
+        return SimpMessageHeaderAccessor.wrap(message)
+                .getFirstNativeHeader(CompactPriceFrameInterceptor.DICTIONARY_HEADER) != null;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("未協商的 session 維持原本的 JSON frame")
+    void notNegotiated_keepsJson() throws Exception {
+        connect("s1", null);
+        Message<?> frame = priceFrame("s1", "BTC", "100", "101");
+
+        assertThat(interceptor.preSend(frame, null)).isSameAs(frame);
+    }
+
+    @Test
+    @DisplayName("第一次送出代號時帶字典，之後只送 id、整數價格與相對時間")
+    void compact_dictionaryThenShortFrames() throws Exception {
+        connect("s1", "compact");
+
+        Message<?> first = interceptor.preSend(priceFrame("s1", "btc", "64000.5", "64010.25"), null);
+        List<Object> dictionary = body(first);
+        assertThat(isDictionaryFrame(first)).isTrue();
+        assertThat(SimpMessageHeaderAccessor.wrap(first).getContentType())
+                .isEqualTo(CompactPriceFrameInterceptor.COMPACT_CONTENT_TYPE);
+        assertThat(dictionary).hasSize(8);
+        assertThat(dictionary.subList(0, 3)).containsExactly(0, 6401025, 6400050);
+        assertThat(dictionary.subList(4, 7)).containsExactly("BTC", "btc name", 2);
+
+        Message<?> second = interceptor.preSend(priceFrame("s1", "BTC", "64010.25", "64020"), null);
+        List<Object> compact = body(second);
+        assertThat(isDictionaryFrame(second)).isFalse();
+        assertThat(compact).hasSize(4);
+        assertThat(compact.subList(0, 3)).containsExactly(0, 6402000, 6401025);
+        assertThat(((Number) compact.get(3)).longValue()).isGreaterThanOrEqualTo(0);
+
+        assertThat(((byte[]) second.getPayload()).length)
+                .isLessThan(((byte[]) priceFrame("s1", "BTC", "64010.25", "64020").getPayload()).length / 4);
+    }
+
+    @Test
+    @DisplayName("價格需要更多小數位時以同一個 id 重送字典")
+    void morePrecision_redefinesWithSameId() throws Exception {
+        connect("s1", "compact");
+        interceptor.preSend(priceFrame("s1", "ETH", "3000", "3001"), null);
+        interceptor.preSend(priceFrame("s1", "SOL", "150", "151"), null);
+
+        Message<?> frame = interceptor.preSend(priceFrame("s1", "ETH", "3001", "3001.125"), null);
+
+        List<Object> fields = body(frame);
+        assertThat(isDictionaryFrame(frame)).isTrue();
+        assertThat(fields.get(0)).isEqualTo(0);
+        assertThat(fields.subList(1, 3)).containsExactly(3001125, 3001000);
+        assertThat(fields.get(6)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("字典以 session 區分，斷線後移除")
+    void dictionaryPerSession_clearedOnDisconnect() throws Exception {
+        connect("s1", "compact");
+        connect("s2", "COMPACT");
+        interceptor.preSend(priceFrame("s1", "BTC", "1", "2"), null);
+
+        assertThat(isDictionaryFrame(interceptor.preSend(priceFrame("s2", "BTC", "1", "2"), null))).isTrue();
+
+        Message<byte[]> closeMessage = MessageBuilder.createMessage(new byte[0],
+                SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT).getMessageHeaders());
+        interceptor.onDisconnect(new SessionDisconnectEvent(this, closeMessage, "s1", CloseStatus.NORMAL));
+
+        assertThat(interceptor.isCompact("s1")).isFalse();
+        assertThat(interceptor.isCompact("s2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("非價格目的地不改寫")
+    void otherDestinations_untouched() {
+        connect("s1", "compact");
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("s1");
+        accessor.setDestination("/topic/price-updates");
+        Message<?> batch = MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+
+        assertThat(interceptor.preSend(batch, null)).isSameAs(batch);
+    }
+}
@@ -0,0 +1,196 @@
+package com.pocketfolio.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.*;
+
+@DisplayName("OutboundQueueSessionDecorator 單元測試")
+class OutboundQueueSessionDecoratorTest {
+
+    private WebSocketSession delegate;
+    private final List<String> sent = new ArrayList<>();
+
+    // 手動執行的 executor：模擬 socket 寫入尚未輪到（慢速消費者）
+    private final Deque<Runnable> pendingDrains = new ArrayDeque<>();
+
+    private int conflated;
+    private int dropped;
+    private final List<String> evictions = new ArrayList<>();
+
+    private OutboundQueueSessionDecorator session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        delegate = mock(WebSocketSession.class);
+        given(delegate.getId()).willReturn("s1");
+        willAnswer(inv -> sent.add(((TextMessage) inv.getArgument(0)).getPayload()))
+                .given(delegate).sendMessage(any());
+
+        session = new OutboundQueueSessionDecorator(delegate, 3, 10_000, pendingDrains::add,
+                new OutboundQueueSessionDecorator.OutboundQueueListener() {
+                    @Override
+                    public void onConflated(String sessionId) {
+                        conflated++;
+                    }
+
+                    @Override
+                    public void onDropped(String sessionId) {
+                        dropped++;
+                    }
+
+                    @Override
+                    public void onEvicted(String sessionId, String reason) {
+                        evictions.add(reason);
+                    }
+                });
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private static TextMessage frame(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\ncontent-type:application/json\n"
+                + "subscription:sub-0\nmessage-id:1\n\n" + body + "\u0000");
+    }
+
+    private static TextMessage price(String symbol, String body) {
+        return frame("/topic/prices/" + symbol, body);
+    }
+
+    private static TextMessage dictionary(String symbol, String body) {
+        return new TextMessage("MESSAGE\ndestination:/topic/prices/" + symbol + "\ncontent-type:application/json\n"
+                + "x-price-dict:1\nsubscription:sub-0\nmessage-id:1\n\n" + body + "\u0000");
+    }
+
+    private void drainAll() {
+        while (!pendingDrains.isEmpty()) {
+            pendingDrains.poll().run();
+        }
+    }
+
+    private List<String> sentBodies() {
+        return sent.stream()
+                .map(p -> p.substring(p.indexOf("\n\n") + 2, p.length() - 1))
+                .toList();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("尚未送出的同代號價格 frame 以最新的取代，保留原本的順序")
+    void samePriceDestination_conflatedInPlace() throws Exception {
+        session.sendMessage(price("BTC", "1"));
+        session.sendMessage(frame("/user/queue/alerts", "alert"));
+        session.sendMessage(price("BTC", "2"));
+
+        drainAll();
+
+        assertThat(sentBodies()).containsExactly("2", "alert");
+        assertThat(conflated).isEqualTo(1);
+        assertThat(session.queuedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("同代號的字典 frame 排入後，之後的 frame 排在字典 frame 之後，不取代它之前的 frame")
+    void dictionaryFrame_endsConflationSlot() throws Exception {
+        session.sendMessage(price("BTC", "1"));
+        session.sendMessage(dictionary("BTC", "dict"));
+        session.sendMessage(price("BTC", "2"));
+
+        drainAll();
+
+        assertThat(sentBodies()).containsExactly("1", "dict", "2");
+        assertThat(conflated).isZero();
+    }
+
+    @Test
+    @DisplayName("字典 frame 之後的同代號 frame 之間仍會合併")
+    void dictionaryFrame_laterFramesStillConflate() throws Exception {
+        session.sendMessage(dictionary("BTC", "dict"));
+        session.sendMessage(price("BTC", "1"));
+        session.sendMessage(price("BTC", "2"));
+
+        drainAll();
+
+        assertThat(sentBodies()).containsExactly("dict", "2");
+        assertThat(conflated).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("佇列滿時丟棄最舊的價格 frame，非價格 frame 保留")
+    void overflow_dropsOldestPrice() throws Exception {
+        session.sendMessage(frame("/user/queue/portfolio", "p"));
+        session.sendMessage(price("BTC", "b"));
+        session.sendMessage(price("ETH", "e"));
+        session.sendMessage(price("SOL", "s"));
+
+        drainAll();
+
+        assertThat(sentBodies()).containsExactly("p", "e", "s");
+        assertThat(dropped).isEqualTo(1);
+        assertThat(evictions).isEmpty();
+    }
+
+    @Test
+    @DisplayName("佇列滿且沒有價格 frame 可丟時斷線並計數")
+    void overflowWithoutPrices_evictsSession() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            session.sendMessage(frame("/user/queue/alerts", "a" + i));
+        }
+
+        assertThat(evictions).hasSize(1);
+        assertThat(session.isEvicted()).isTrue();
+        assertThat(session.queuedCount()).isZero();
+        then(delegate).should().close(CloseStatus.SESSION_NOT_RELIABLE);
+
+        // 斷線後的 frame 直接忽略
+        session.sendMessage(price("BTC", "1"));
+        drainAll();
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    @DisplayName("同一 session 同時只排一個送出工作，送出失敗即斷線")
+    void singleDrainPerSession_sendFailureEvicts() throws Exception {
+        session.sendMessage(price("BTC", "1"));
+        session.sendMessage(price("ETH", "2"));
+        assertThat(pendingDrains).hasSize(1);
+
+        willThrow(new java.io.IOException("broken pipe")).given(delegate).sendMessage(any());
+        drainAll();
+
+        assertThat(evictions).hasSize(1);
+        assertThat(session.isEvicted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("只辨識 /topic/prices/** 的 MESSAGE frame（含 binary frame）")
+    void priceDestination_parsesStompHeaders() {
+        assertThat(OutboundQueueSessionDecorator.priceDestination(price("2330.TW", "{}")))
+                .isEqualTo("/topic/prices/2330.TW");
+        assertThat(OutboundQueueSessionDecorator.priceDestination(frame("/topic/prices", "{}"))).isNull();
+        assertThat(OutboundQueueSessionDecorator.priceDestination(new TextMessage("CONNECTED\nversion:1.2\n\n\u0000")))
+                .isNull();
+        // 精簡編碼的字典 frame 不可合併 / 丟棄
+        assertThat(OutboundQueueSessionDecorator.priceDestination(new TextMessage(
+                "MESSAGE\ndestination:/topic/prices/BTC\nx-price-dict:1\n\n[0,1,1,0]\u0000"))).isNull();
+
+        WebSocketMessage<?> binary = new BinaryMessage(
+                "MESSAGE\ndestination:/topic/prices/BTC\n\n\u0001\u0002\n\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(OutboundQueueSessionDecorator.priceDestination(binary)).isEqualTo("/topic/prices/BTC");
+    }
+}
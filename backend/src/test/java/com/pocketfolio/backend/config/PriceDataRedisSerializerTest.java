@@ -0,0 +1,138 @@
+package com.pocketfolio.backend.config;
+
+import com.pocketfolio.backend.dto.PriceData;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PriceDataRedisSerializer 單元測試")
+class PriceDataRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json =
+            new GenericJackson2JsonRedisSerializer(RedisConfig.redisObjectMapper());
+    private final PriceDataRedisSerializer binary = new PriceDataRedisSerializer(false, json);
+
+    private PriceData sample() {
+        return PriceData.builder()
+                .symbol("2330.TW")
+                .price(new BigDecimal("1085.50"))
+                .currency("TWD")
+                .updateTime(LocalDateTime.of(2025, 3, 14, 13, 30, 5, 123_456_789))
+                .source("YAHOO_FINANCE")
+                .build();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // 格式正確性
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("round trip")
+    class RoundTrip {
+
+        @Test
+        @DisplayName("所有欄位序列化後還原一致（含 BigDecimal scale）")
+        void roundTrip_allFields() {
+            PriceData restored = binary.deserialize(binary.serialize(sample()));
+
+            assertThat(restored).isEqualTo(sample());
+            assertThat(restored.getPrice().scale()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("null 欄位保持 null")
+        void roundTrip_nullFields() {
+            PriceData data = PriceData.builder().symbol("bitcoin").build();
+
+            assertThat(binary.deserialize(binary.serialize(data))).isEqualTo(data);
+        }
+
+        @Test
+        @DisplayName("超過 long 範圍的價格改用變長編碼")
+        void roundTrip_bigUnscaledValue() {
+            PriceData data = sample();
+            data.setPrice(new BigDecimal("123456789012345678901234567890.123456789"));
+
+            assertThat(binary.deserialize(binary.serialize(data)).getPrice()).isEqualTo(data.getPrice());
+        }
+
+        @Test
+        @DisplayName("可讀取既有的 JSON 快取內容")
+        void deserialize_legacyJson() {
+            byte[] legacy = json.serialize(sample());
+
+            assertThat(binary.deserialize(legacy)).isEqualTo(sample());
+        }
+
+        @Test
+        @DisplayName("json 模式寫入 JSON，仍可被二進位模式讀取")
+        void jsonMode_writesJson() {
+            PriceDataRedisSerializer jsonMode = new PriceDataRedisSerializer(true, json);
+            byte[] bytes = jsonMode.serialize(sample());
+
+            assertThat(bytes[0]).isEqualTo((byte) '{');
+            assertThat(binary.deserialize(bytes)).isEqualTo(sample());
+        }
+
+        @Test
+        @DisplayName("內容被截斷時拋出 SerializationException")
+        void deserialize_truncated_throws() {
+            byte[] bytes = binary.serialize(sample());
+            byte[] truncated = Arrays.copyOf(bytes, bytes.length - 4);
+
+            assertThatThrownBy(() -> binary.deserialize(truncated))
+                    .isInstanceOf(SerializationException.class);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Benchmark（大小每次都檢查；耗時以 -Dbenchmark=true 執行）
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("benchmark")
+    class Benchmark {
+
+        private static final int WARMUP = 50_000;
+        private static final int ITERATIONS = 200_000;
+
+        @Test
+        @DisplayName("二進位格式大小不到 JSON 的三分之一")
+        void size_comparedToJson() {
+            int jsonSize = json.serialize(sample()).length;
+            int binarySize = binary.serialize(sample()).length;
+
+            System.out.printf("PriceData 大小：JSON %d bytes，binary %d bytes（%.1f%%）%n",
+                    jsonSize, binarySize, 100.0 * binarySize / jsonSize);
+            assertThat(binarySize * 3).isLessThan(jsonSize);
+        }
+
+        @Test
+        @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+        @DisplayName("序列化 + 反序列化耗時比較")
+        void cpu_comparedToJson() {
+            PriceData data = sample();
+
+            long jsonNanos = measure(() -> json.deserialize(json.serialize(data)));
+            long binaryNanos = measure(() -> binary.deserialize(binary.serialize(data)));
+
+            System.out.printf("每次 round trip：JSON %d ns，binary %d ns（%.1fx）%n",
+                    jsonNanos / ITERATIONS, binaryNanos / ITERATIONS, (double) jsonNanos / binaryNanos);
+            assertThat(binaryNanos).isLessThan(jsonNanos);
+        }
+
+        private long measure(Runnable roundTrip) {
+            for (int i = 0; i < WARMUP; i++) roundTrip.run();
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) roundTrip.run();
+            return System.nanoTime() - start;
+        }
+    }
+}
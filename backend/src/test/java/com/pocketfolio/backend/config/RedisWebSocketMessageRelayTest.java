@@ -0,0 +1,139 @@
+package com.pocketfolio.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pocketfolio.backend.dto.websocket.SystemMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@DisplayName("RedisWebSocketMessageRelay 多節點測試（記憶體 Redis pub/sub 替身）")
+class RedisWebSocketMessageRelayTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    // 記憶體版的 Redis pub/sub：convertAndSend 同步送給所有訂閱的節點（包含發布者自己）
+    private final List<RedisWebSocketMessageRelay> subscribers = new CopyOnWriteArrayList<>();
+    private StringRedisTemplate redis;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    /**
+     * 一個節點：自己的 broker channel（記錄送給本機 broker 的訊息）+ relay
+     */
+    private class Node {
+        final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+        final RedisWebSocketMessageRelay relay;
+
+        Node() {
+            MessageChannel brokerChannel = (message, timeout) -> delivered.add(message);
+            relay = new RedisWebSocketMessageRelay(new SimpMessagingTemplate(brokerChannel), redis, objectMapper);
+            subscribers.add(relay);
+        }
+
+        Message<?> only() {
+            assertThat(delivered).hasSize(1);
+            return delivered.get(0);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        willAnswer(inv -> {
+            byte[] channel = inv.getArgument(0, String.class).getBytes(StandardCharsets.UTF_8);
+            byte[] body = inv.getArgument(1, String.class).getBytes(StandardCharsets.UTF_8);
+            subscribers.forEach(s -> s.onMessage(new DefaultMessage(channel, body), null));
+            return 1L;
+        }).given(redis).convertAndSend(eq(RedisWebSocketMessageRelay.RELAY_CHANNEL), anyString());
+
+        nodeA = new Node();
+        nodeB = new Node();
+    }
+
+    private String destinationOf(Message<?> message) {
+        return SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    }
+
+    private String bodyOf(Message<?> message) {
+        return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("廣播在任一節點送出，每個節點的 broker 都只收到一次")
+    void broadcast_reachesEveryNodeOnce() throws Exception {
+        nodeA.relay.send("/topic/system", SystemMessage.info("維護通知"));
+
+        Message<?> onA = nodeA.only();
+        Message<?> onB = nodeB.only();
+        assertThat(destinationOf(onA)).isEqualTo("/topic/system");
+        assertThat(destinationOf(onB)).isEqualTo("/topic/system");
+        assertThat(bodyOf(onB)).isEqualTo(bodyOf(onA));
+        assertThat(objectMapper.readTree(bodyOf(onB)).get("message").asText()).isEqualTo("維護通知");
+        assertThat(onB.getHeaders().get(MessageHeaders.CONTENT_TYPE)).isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    @Test
+    @DisplayName("用戶訊息送到每個節點的 /user/{user}/... 目的地，由 session 所在的節點解析")
+    void userMessage_relayedAsUserDestination() {
+        String userId = UUID.randomUUID().toString();
+
+        nodeB.relay.sendToUser(userId, "/queue/alerts", Map.of("messageType", "PRICE_ALERT"));
+
+        assertThat(destinationOf(nodeA.only())).isEqualTo("/user/" + userId + "/queue/alerts");
+        assertThat(destinationOf(nodeB.only())).isEqualTo("/user/" + userId + "/queue/alerts");
+        assertThat(bodyOf(nodeA.only())).contains("PRICE_ALERT");
+    }
+
+    @Test
+    @DisplayName("sendToUserLocally 只送給本機的 session，不經 Redis 轉送")
+    void userMessageLocally_notRelayed() {
+        String userId = UUID.randomUUID().toString();
+
+        nodeA.relay.sendToUserLocally(userId, "/queue/portfolio", Map.of("totalMarketValue", 100));
+
+        assertThat(destinationOf(nodeA.only())).isEqualTo("/user/" + userId + "/queue/portfolio");
+        assertThat(nodeB.delivered).isEmpty();
+        then(redis).should(never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Redis 發布失敗時仍送給本機的 session")
+    void redisFailure_stillDeliversLocally() {
+        willThrow(new IllegalStateException("connection refused"))
+                .given(redis).convertAndSend(anyString(), anyString());
+
+        nodeA.relay.send("/topic/prices/BTC", Map.of("symbol", "BTC"));
+
+        assertThat(destinationOf(nodeA.only())).isEqualTo("/topic/prices/BTC");
+        assertThat(nodeB.delivered).isEmpty();
+    }
+
+    @Test
+    @DisplayName("格式不符的訊息直接忽略")
+    void malformedMessage_ignored() {
+        nodeA.relay.onMessage(new DefaultMessage(
+                RedisWebSocketMessageRelay.RELAY_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "garbage".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(nodeA.delivered).isEmpty();
+    }
+}
@@ -0,0 +1,65 @@
+package com.pocketfolio.backend.config;
+
+import com.pocketfolio.backend.event.PriceBroadcastListener;
+import com.pocketfolio.backend.event.PriceChangedEvent;
+import com.pocketfolio.backend.service.WebSocketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@DisplayName("SchedulerConfig 定時任務執行緒池測試")
+class SchedulerConfigTest {
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = SchedulerConfig.createTaskScheduler(4);
+        scheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("價格刷新執行中，價格推送的 flush 仍照週期執行")
+    void flushRunsWhileRefreshInProgress() throws Exception {
+        WebSocketService webSocketService = mock(WebSocketService.class);
+        PriceBroadcastListener listener = new PriceBroadcastListener(webSocketService);
+
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch refreshRelease = new CountDownLatch(1);
+        // 模擬 updateAllPrices：阻塞到測試結束
+        scheduler.execute(() -> {
+            refreshStarted.countDown();
+            try {
+                refreshRelease.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        scheduler.scheduleWithFixedDelay(listener::flush, Duration.ofMillis(20));
+
+        assertThat(refreshStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        listener.onPriceChanged(List.of(PriceChangedEvent.of("BTC", "Bitcoin",
+                new BigDecimal("100"), new BigDecimal("101"))));
+
+        then(webSocketService).should(timeout(5000)).publishPriceUpdates(argThat(m -> m.size() == 1), anyBoolean());
+        assertThat(refreshRelease.getCount()).isEqualTo(1);
+        refreshRelease.countDown();
+    }
+}
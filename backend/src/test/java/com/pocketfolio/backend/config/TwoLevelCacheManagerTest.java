@@ -0,0 +1,101 @@
+package com.pocketfolio.backend.config;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TwoLevelCacheManager 單元測試")
+class TwoLevelCacheManagerTest {
+
+    @Mock private StringRedisTemplate redisTemplate;
+
+    // 以 ConcurrentMapCache 代替 Redis L2
+    private ConcurrentMapCacheManager remote;
+    private TwoLevelCacheManager manager;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCacheManager("prices", "assets", "other");
+        manager = new TwoLevelCacheManager(remote, redisTemplate,
+                Set.of("prices", "assets"), 100, Duration.ofSeconds(30));
+    }
+
+    private DefaultMessage messageOf(String body) {
+        return new DefaultMessage(
+                TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("prices 包成兩層，其他快取直接使用 L2")
+    void getCache_wrapsOnlyConfiguredCaches() {
+        assertThat(manager.getCache("prices")).isInstanceOf(TwoLevelCache.class);
+        assertThat(manager.getCache("other")).isNotInstanceOf(TwoLevelCache.class);
+    }
+
+    @Test
+    @DisplayName("L2 命中後回填 L1，之後 L2 被清掉仍由 L1 回應")
+    void get_populatesLocalFromRemote() {
+        remote.getCache("prices").put("stock:2330.TW", "850");
+        Cache cache = manager.getCache("prices");
+
+        assertThat(cache.get("stock:2330.TW", String.class)).isEqualTo("850");
+
+        remote.getCache("prices").clear();
+        assertThat(cache.get("stock:2330.TW", String.class)).isEqualTo("850");
+    }
+
+    @Test
+    @DisplayName("evict 清除兩層並發送失效通知")
+    void evict_clearsBothLevels_andPublishes() {
+        Cache cache = manager.getCache("prices");
+        cache.put("crypto:bitcoin", "100000");
+
+        cache.evict("crypto:bitcoin");
+
+        assertThat(cache.get("crypto:bitcoin")).isNull();
+        assertThat(remote.getCache("prices").get("crypto:bitcoin")).isNull();
+        then(redisTemplate).should().convertAndSend(
+                eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), contains("|EVICT|prices|crypto:bitcoin"));
+    }
+
+    @Test
+    @DisplayName("收到其他 instance 的 CLEAR 通知時只清除本機 L1")
+    void onMessage_fromOtherInstance_clearsLocal() {
+        Cache cache = manager.getCache("prices");
+        cache.put("crypto:bitcoin", "100000");
+        remote.getCache("prices").clear();
+
+        manager.onMessage(messageOf("other-instance|CLEAR|prices|"), null);
+
+        assertThat(cache.get("crypto:bitcoin")).isNull();
+    }
+
+    @Test
+    @DisplayName("收到其他 instance 的 EVICT 通知時只移除該 key")
+    void onMessage_evictsSingleKey() {
+        Cache cache = manager.getCache("prices");
+        cache.put("crypto:bitcoin", "100000");
+        cache.put("stock:2330.TW", "850");
+        remote.getCache("prices").clear();
+
+        manager.onMessage(messageOf("other-instance|EVICT|prices|crypto:bitcoin"), null);
+
+        assertThat(cache.get("crypto:bitcoin")).isNull();
+        assertThat(cache.get("stock:2330.TW", String.class)).isEqualTo("850");
+    }
+}
@@ -0,0 +1,170 @@
+package com.pocketfolio.backend.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pocketfolio.backend.dto.websocket.PortfolioValueMessage;
+import com.pocketfolio.backend.entity.Asset;
+import com.pocketfolio.backend.event.PortfolioEventRelay.HoldingChange;
+import com.pocketfolio.backend.service.ConnectedHolderIndex;
+import com.pocketfolio.backend.service.PortfolioValueTracker;
+import com.pocketfolio.backend.service.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@DisplayName("PortfolioEventRelay 多節點測試（記憶體 Redis pub/sub 替身）")
+class PortfolioEventRelayTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    // 記憶體版的 Redis pub/sub：convertAndSend 同步送給所有訂閱的節點（包含發布者自己）
+    private final List<PortfolioEventRelay> subscribers = new CopyOnWriteArrayList<>();
+    private StringRedisTemplate redis;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    private final UUID userOnB = UUID.randomUUID();
+
+    /**
+     * 一個節點：自己的持倉索引、市值與推送（WebSocketService 替身）
+     */
+    private class Node {
+        final ConnectedHolderIndex holderIndex = new ConnectedHolderIndex();
+        final PortfolioValueTracker tracker = new PortfolioValueTracker();
+        final WebSocketService webSocketService = mock(WebSocketService.class);
+        final PortfolioEventRelay relay = new PortfolioEventRelay(redis, mock(RedisMessageListenerContainer.class),
+                objectMapper, new PortfolioValueListener(holderIndex, tracker, webSocketService), holderIndex, tracker);
+
+        Node() {
+            subscribers.add(relay);
+        }
+
+        void connect(UUID userId, Asset... assets) {
+            holderIndex.connect(userId, userId.toString());
+            holderIndex.replaceHoldings(userId, List.of(assets).stream().map(Asset::getSymbol).toList());
+            tracker.load(userId, List.of(assets));
+        }
+
+        PortfolioValueMessage pushedTo(UUID userId) {
+            ArgumentCaptor<PortfolioValueMessage> captor = ArgumentCaptor.forClass(PortfolioValueMessage.class);
+            then(webSocketService).should().sendPortfolioValueToUser(eq(userId), captor.capture());
+            return captor.getValue();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        willAnswer(inv -> {
+            byte[] channel = inv.getArgument(0, String.class).getBytes(StandardCharsets.UTF_8);
+            byte[] body = inv.getArgument(1, String.class).getBytes(StandardCharsets.UTF_8);
+            subscribers.forEach(s -> s.onMessage(new DefaultMessage(channel, body), null));
+            return 1L;
+        }).given(redis).convertAndSend(eq(PortfolioEventRelay.RELAY_CHANNEL), anyString());
+
+        nodeA = new Node();
+        nodeB = new Node();
+        nodeB.connect(userOnB, assetOf("2330.TW", "10", "800"));
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private Asset assetOf(String symbol, String quantity, String price) {
+        Asset asset = new Asset();
+        asset.setSymbol(symbol);
+        asset.setQuantity(new BigDecimal(quantity));
+        asset.setCostPrice(new BigDecimal(price));
+        asset.setCurrentPrice(new BigDecimal(price));
+        return asset;
+    }
+
+    private PriceChangedEvent event(String symbol, String oldPrice, String newPrice) {
+        return PriceChangedEvent.of(symbol, symbol, new BigDecimal(oldPrice), new BigDecimal(newPrice));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("報價寫入的節點轉送價格事件，用戶連在其他節點也收到市值推送")
+    void priceOnA_pushedToUserOnB() {
+        nodeA.relay.onPriceChanged(List.of(event("2330.TW", "800", "850")));
+
+        assertThat(nodeB.pushedTo(userOnB).getTotalMarketValue()).isEqualByComparingTo("8500");
+        then(nodeA.webSocketService).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("在其他節點新增的資產同步到用戶所在節點的索引與市值")
+    void holdingAddedOnA_appliedOnB() {
+        nodeA.relay.applyHoldingChanges(List.of(HoldingChange.added(
+                userOnB, "BTC", new BigDecimal("1"), new BigDecimal("60000"), new BigDecimal("60000"))));
+
+        assertThat(nodeB.holderIndex.holdersOf("BTC")).containsExactly(userOnB);
+        assertThat(nodeB.tracker.valueOf(userOnB).marketValue()).isEqualByComparingTo("68000");
+
+        nodeA.relay.onPriceChanged(List.of(event("BTC", "60000", "61000")));
+        assertThat(nodeB.pushedTo(userOnB).getTotalMarketValue()).isEqualByComparingTo("69000");
+    }
+
+    @Test
+    @DisplayName("修改資產：依序移除舊持倉、登記新持倉")
+    void holdingMovedOnA_appliedInOrderOnB() {
+        nodeA.relay.applyHoldingChanges(List.of(
+                HoldingChange.removed(userOnB, "2330.TW", new BigDecimal("10"), new BigDecimal("800")),
+                HoldingChange.added(userOnB, "2317.TW", new BigDecimal("5"), new BigDecimal("200"), new BigDecimal("210"))));
+
+        assertThat(nodeB.holderIndex.symbolsOf(userOnB)).containsExactly("2317.TW");
+        assertThat(nodeB.tracker.valueOf(userOnB).marketValue()).isEqualByComparingTo("1050");
+    }
+
+    @Test
+    @DisplayName("持倉變動先套用到本機，自己發出的訊息不重複套用")
+    void holdingChange_appliedLocallyOnce() {
+        UUID userOnA = UUID.randomUUID();
+        nodeA.connect(userOnA);
+
+        nodeA.relay.applyHoldingChanges(List.of(HoldingChange.added(
+                userOnA, "ETH", new BigDecimal("2"), new BigDecimal("3000"), new BigDecimal("3000"))));
+
+        assertThat(nodeA.tracker.valueOf(userOnA).marketValue()).isEqualByComparingTo("6000");
+        assertThat(nodeA.tracker.valueOf(userOnA).positions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Redis 發布失敗時仍套用到本機，不拋出例外")
+    void redisFailure_stillAppliesLocally() {
+        willThrow(new IllegalStateException("connection refused"))
+                .given(redis).convertAndSend(anyString(), anyString());
+
+        nodeB.relay.applyHoldingChanges(List.of(
+                HoldingChange.removed(userOnB, "2330.TW", new BigDecimal("10"), new BigDecimal("800"))));
+
+        assertThat(nodeB.holderIndex.holdersOf("2330.TW")).isEmpty();
+        assertThatCode(() -> nodeA.relay.onPriceChanged(List.of(event("BTC", "1", "2"))))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("格式不符的訊息直接忽略")
+    void malformedMessage_ignored() {
+        nodeB.relay.onMessage(new DefaultMessage(
+                PortfolioEventRelay.RELAY_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "other|PRICES|not-json".getBytes(StandardCharsets.UTF_8)), null);
+
+        then(nodeB.webSocketService).shouldHaveNoInteractions();
+    }
+}
@@ -0,0 +1,84 @@
+package com.pocketfolio.backend.event;
+
+import com.pocketfolio.backend.dto.websocket.PortfolioValueMessage;
+import com.pocketfolio.backend.entity.Asset;
+import com.pocketfolio.backend.service.ConnectedHolderIndex;
+import com.pocketfolio.backend.service.PortfolioValueTracker;
+import com.pocketfolio.backend.service.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PortfolioValueListener 單元測試")
+class PortfolioValueListenerTest {
+
+    @Mock private WebSocketService webSocketService;
+
+    @Captor private ArgumentCaptor<PortfolioValueMessage> messageCaptor;
+
+    private final ConnectedHolderIndex holderIndex = new ConnectedHolderIndex();
+    private final PortfolioValueTracker tracker = new PortfolioValueTracker();
+    private final UUID holder = UUID.randomUUID();
+    private final UUID otherUser = UUID.randomUUID();
+    private PortfolioValueListener listener;
+
+    private Asset assetOf(String symbol, String quantity, String price) {
+        Asset asset = new Asset();
+        asset.setSymbol(symbol);
+        asset.setQuantity(new BigDecimal(quantity));
+        asset.setCostPrice(new BigDecimal(price));
+        asset.setCurrentPrice(new BigDecimal(price));
+        return asset;
+    }
+
+    private void connect(UUID userId, List<Asset> assets) {
+        holderIndex.connect(userId, userId.toString());
+        holderIndex.replaceHoldings(userId, assets.stream().map(Asset::getSymbol).toList());
+        tracker.load(userId, assets);
+    }
+
+    @BeforeEach
+    void setUp() {
+        listener = new PortfolioValueListener(holderIndex, tracker, webSocketService);
+        connect(holder, List.of(assetOf("2330.TW", "10", "800"), assetOf("BTC", "1", "60000")));
+        connect(otherUser, List.of(assetOf("ETH", "2", "3000")));
+    }
+
+    @Test
+    @DisplayName("一批事件中每位持有人只推送一次最後的市值，未持有的用戶不推送")
+    void onPriceChanged_pushesOncePerHolder() {
+        listener.onPriceChanged(List.of(
+                PriceChangedEvent.of("2330.TW", "台積電", new BigDecimal("800"), new BigDecimal("900")),
+                PriceChangedEvent.of("BTC", "Bitcoin", new BigDecimal("60000"), new BigDecimal("61000"))));
+
+        then(webSocketService).should(times(1)).sendPortfolioValueToUser(eq(holder), messageCaptor.capture());
+        then(webSocketService).should(never()).sendPortfolioValueToUser(eq(otherUser), any());
+
+        PortfolioValueMessage message = messageCaptor.getValue();
+        assertThat(message.getTotalMarketValue()).isEqualByComparingTo("70000");
+        assertThat(message.getProfitLoss()).isEqualByComparingTo("2000");
+        assertThat(message.getMessageType()).isEqualTo("PORTFOLIO_VALUE");
+    }
+
+    @Test
+    @DisplayName("沒有已連線持有人的代號不推送")
+    void onPriceChanged_noHolders_noPush() {
+        listener.onPriceChanged(List.of(
+                PriceChangedEvent.of("0050.TW", "元大台灣50", new BigDecimal("150"), new BigDecimal("151"))));
+
+        then(webSocketService).shouldHaveNoInteractions();
+    }
+}
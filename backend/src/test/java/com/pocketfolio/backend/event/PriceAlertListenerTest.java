@@ -0,0 +1,60 @@
+package com.pocketfolio.backend.event;
+
+import com.pocketfolio.backend.dto.TriggeredAlert;
+import com.pocketfolio.backend.service.PriceAlertService;
+import com.pocketfolio.backend.service.WebSocketService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceAlertListener 單元測試")
+class PriceAlertListenerTest {
+
+    @Mock private PriceAlertService priceAlertService;
+    @Mock private WebSocketService webSocketService;
+
+    @InjectMocks private PriceAlertListener listener;
+
+    @Test
+    @DisplayName("一批事件只檢查一次警報，每位用戶只推送一則")
+    void onPriceChanged_batchCheck_oneMessagePerUser() {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        List<TriggeredAlert> fired = List.of(
+                TriggeredAlert.builder().alertId(UUID.randomUUID()).userId(userId).symbol("2330.TW").build(),
+                TriggeredAlert.builder().alertId(UUID.randomUUID()).userId(userId).symbol("2317.TW").build());
+        List<TriggeredAlert> otherFired = List.of(
+                TriggeredAlert.builder().alertId(UUID.randomUUID()).userId(otherUserId).symbol("2330.TW").build());
+        given(priceAlertService.checkPriceAlerts(anyList())).willReturn(Map.of(userId, fired, otherUserId, otherFired));
+
+        listener.onPriceChanged(List.of(
+                PriceChangedEvent.of("2330.TW", "台積電", new BigDecimal("800"), new BigDecimal("880")),
+                PriceChangedEvent.of("2317.TW", "鴻海", new BigDecimal("100"), new BigDecimal("120"))));
+
+        then(priceAlertService).should(times(1)).checkPriceAlerts(argThat(batch -> batch.size() == 2));
+        then(webSocketService).should(times(1)).sendPriceAlertsToUser(userId, fired);
+        then(webSocketService).should(times(1)).sendPriceAlertsToUser(otherUserId, otherFired);
+    }
+
+    @Test
+    @DisplayName("沒有警報觸發時不推送")
+    void onPriceChanged_nothingTriggered_noMessage() {
+        given(priceAlertService.checkPriceAlerts(anyList())).willReturn(Map.of());
+
+        listener.onPriceChanged(List.of(
+                PriceChangedEvent.of("BTC", "比特幣", new BigDecimal("100"), new BigDecimal("101"))));
+
+        then(webSocketService).shouldHaveNoInteractions();
+    }
+}
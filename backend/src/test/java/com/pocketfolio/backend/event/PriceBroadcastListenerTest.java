@@ -0,0 +1,94 @@
+package com.pocketfolio.backend.event;
+
+import com.pocketfolio.backend.dto.websocket.PriceUpdateMessage;
+import com.pocketfolio.backend.service.WebSocketService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceBroadcastListener 單元測試")
+class PriceBroadcastListenerTest {
+
+    @Mock private WebSocketService webSocketService;
+
+    @InjectMocks private PriceBroadcastListener listener;
+
+    @Captor private ArgumentCaptor<List<PriceUpdateMessage>> messagesCaptor;
+
+    private PriceChangedEvent event(String symbol, String oldPrice, String newPrice) {
+        return PriceChangedEvent.of(symbol, symbol, oldPrice != null ? new BigDecimal(oldPrice) : null, new BigDecimal(newPrice));
+    }
+
+    @Test
+    @DisplayName("同一週期內同代號只送最新價格，漲跌以週期內第一筆舊價計算")
+    void flush_conflatesPerSymbol() {
+        listener.onPriceChanged(List.of(event("BTC", "100", "101"), event("ETH", "10", "11")));
+        listener.onPriceChanged(List.of(event("BTC", "101", "110")));
+
+        assertThat(listener.flush()).isEqualTo(2);
+
+        then(webSocketService).should(times(1)).publishPriceUpdates(messagesCaptor.capture(), eq(false));
+        assertThat(messagesCaptor.getValue())
+                .filteredOn(m -> m.getSymbol().equals("BTC"))
+                .singleElement()
+                .satisfies(m -> {
+                    assertThat(m.getOldPrice()).isEqualByComparingTo("100");
+                    assertThat(m.getNewPrice()).isEqualByComparingTo("110");
+                    assertThat(m.getChangePercent()).isEqualByComparingTo("10.00");
+                });
+    }
+
+    @Test
+    @DisplayName("預設不送整批 topic；開啟 batch-topic-enabled 後才送")
+    void flush_batchTopicOptIn() {
+        listener.onPriceChanged(List.of(event("BTC", "100", "101")));
+        listener.flush();
+        then(webSocketService).should().publishPriceUpdates(anyList(), eq(false));
+
+        ReflectionTestUtils.setField(listener, "batchTopicEnabled", true);
+        listener.onPriceChanged(List.of(event("BTC", "101", "102")));
+        listener.flush();
+        then(webSocketService).should().publishPriceUpdates(anyList(), eq(true));
+    }
+
+    @Test
+    @DisplayName("週期內漲回原價的代號不送；沒有待送更新時不推送")
+    void flush_skipsUnchangedAndEmpty() {
+        listener.onPriceChanged(List.of(event("BTC", "100", "105"), event("BTC", "105", "100"), event("ETH", null, "3000")));
+
+        listener.flush();
+
+        then(webSocketService).should().publishPriceUpdates(messagesCaptor.capture(), anyBoolean());
+        assertThat(messagesCaptor.getValue()).extracting(PriceUpdateMessage::getSymbol).containsExactly("ETH");
+
+        assertThat(listener.flush()).isZero();
+        then(webSocketService).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    @DisplayName("送出後再收到的事件留到下一個週期")
+    void flush_drainsPending() {
+        listener.onPriceChanged(List.of(event("BTC", "100", "101")));
+        listener.flush();
+        listener.onPriceChanged(List.of(event("BTC", "101", "102")));
+
+        listener.flush();
+
+        then(webSocketService).should(times(2)).publishPriceUpdates(messagesCaptor.capture(), anyBoolean());
+        assertThat(messagesCaptor.getAllValues().get(1)).singleElement()
+                .satisfies(m -> assertThat(m.getOldPrice()).isEqualByComparingTo("101"));
+    }
+}
@@ -0,0 +1,163 @@
+package com.pocketfolio.backend.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PriceEventBus 單元測試")
+class PriceEventBusTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private PriceEventListener listener(String name, PriceEventListener.OverflowPolicy policy,
+                                        List<PriceChangedEvent> received, CountDownLatch latch) {
+        return new PriceEventListener() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public OverflowPolicy overflowPolicy() {
+                return policy;
+            }
+
+            @Override
+            public void onPriceChanged(List<PriceChangedEvent> events) {
+                received.addAll(events);
+                events.forEach(e -> latch.countDown());
+            }
+        };
+    }
+
+    private PriceEventBus.Subscription subscription(PriceEventListener.OverflowPolicy policy, int capacity) {
+        return new PriceEventBus.Subscription(
+                listener("test-" + policy, policy, new CopyOnWriteArrayList<>(), new CountDownLatch(0)),
+                capacity, meterRegistry);
+    }
+
+    private PriceChangedEvent event(String symbol, String oldPrice, String newPrice) {
+        return PriceChangedEvent.of(symbol, symbol, new BigDecimal(oldPrice), new BigDecimal(newPrice));
+    }
+
+    private double counter(String name, String consumer) {
+        return meterRegistry.get(name).tag("consumer", consumer).counter().count();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("MERGE：同代號合併為一筆，保留最早的舊價與最新的新價")
+    void merge_sameSymbol_keepsFirstOldAndLatestNew() {
+        PriceEventBus.Subscription sub = subscription(PriceEventListener.OverflowPolicy.MERGE, 10);
+
+        sub.offer(event("BTC", "100", "110"));
+        sub.offer(event("ETH", "10", "11"));
+        sub.offer(event("BTC", "110", "120"));
+
+        List<PriceChangedEvent> batch = sub.poll(10);
+        assertThat(batch).extracting(PriceChangedEvent::getSymbol).containsExactly("BTC", "ETH");
+        assertThat(batch.get(0).getOldPrice()).isEqualByComparingTo("100");
+        assertThat(batch.get(0).getNewPrice()).isEqualByComparingTo("120");
+        assertThat(counter("pocketfolio.price-events.merged", "test-MERGE")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("MERGE：佇列滿時丟棄最舊的代號")
+    void merge_full_dropsOldestSymbol() {
+        PriceEventBus.Subscription sub = subscription(PriceEventListener.OverflowPolicy.MERGE, 2);
+
+        sub.offer(event("A", "1", "2"));
+        sub.offer(event("B", "1", "2"));
+        sub.offer(event("C", "1", "2"));
+
+        assertThat(sub.poll(10)).extracting(PriceChangedEvent::getSymbol).containsExactly("B", "C");
+        assertThat(counter("pocketfolio.price-events.dropped", "test-MERGE")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST：保留每一筆，佇列滿時丟棄最舊的事件")
+    void dropOldest_full_dropsOldestEvent() {
+        PriceEventBus.Subscription sub = subscription(PriceEventListener.OverflowPolicy.DROP_OLDEST, 2);
+
+        sub.offer(event("BTC", "100", "110"));
+        sub.offer(event("BTC", "110", "120"));
+        sub.offer(event("BTC", "120", "130"));
+
+        assertThat(sub.poll(10)).extracting(PriceChangedEvent::getNewPrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("120"), new BigDecimal("130"));
+        assertThat(counter("pocketfolio.price-events.dropped", "test-DROP_OLDEST")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("poll 一次最多取出 max 筆")
+    void poll_respectsMaxBatch() {
+        PriceEventBus.Subscription sub = subscription(PriceEventListener.OverflowPolicy.DROP_OLDEST, 10);
+        for (int i = 0; i < 5; i++) {
+            sub.offer(event("S" + i, "1", "2"));
+        }
+
+        assertThat(sub.poll(3)).hasSize(3);
+        assertThat(sub.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("慢的消費者不會阻塞 publish，也不影響其他消費者")
+    void publish_slowConsumer_doesNotBlock() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PriceEventListener slow = new PriceEventListener() {
+            @Override
+            public String name() {
+                return "slow";
+            }
+
+            @Override
+            public OverflowPolicy overflowPolicy() {
+                return OverflowPolicy.MERGE;
+            }
+
+            @Override
+            public void onPriceChanged(List<PriceChangedEvent> events) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        List<PriceChangedEvent> received = new CopyOnWriteArrayList<>();
+        CountDownLatch fastDone = new CountDownLatch(100);
+
+        PriceEventBus bus = new PriceEventBus(
+                List.of(slow, listener("fast", PriceEventListener.OverflowPolicy.DROP_OLDEST, received, fastDone)),
+                meterRegistry);
+        ReflectionTestUtils.setField(bus, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(bus, "maxBatch", 50);
+        bus.start();
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < 100; i++) {
+                bus.publish(event("BTC", "100", String.valueOf(100 + i)));
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+
+            assertThat(fastDone.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(received).hasSize(100);
+        } finally {
+            release.countDown();
+            bus.stop();
+        }
+    }
+}
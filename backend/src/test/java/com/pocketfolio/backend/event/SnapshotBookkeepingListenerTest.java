@@ -0,0 +1,74 @@
+package com.pocketfolio.backend.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("SnapshotBookkeepingListener 單元測試")
+class SnapshotBookkeepingListenerTest {
+
+    private final SnapshotBookkeepingListener listener = new SnapshotBookkeepingListener();
+
+    private final LocalDate day = LocalDate.of(2026, 3, 10);
+
+    private PriceChangedEvent tick(String symbol, String price, LocalDateTime at) {
+        return new PriceChangedEvent(symbol, symbol, null, new BigDecimal(price), at);
+    }
+
+    @Test
+    @DisplayName("跨過午夜後前一天的區間仍完整保留，凌晨任務取得整天的開高低")
+    void ticksAcrossMidnight_keepPreviousDay() {
+        listener.onPriceChanged(List.of(
+                tick("BTC", "100", day.atTime(0, 5)),
+                tick("BTC", "120", day.atTime(12, 0)),
+                tick("BTC", "90", day.atTime(18, 0)),
+                tick("BTC", "95", day.atTime(23, 55))));
+        // 凌晨 1 點任務之前，新的一天已經有報價
+        listener.onPriceChanged(List.of(
+                tick("BTC", "130", day.plusDays(1).atTime(0, 10)),
+                tick("BTC", "80", day.plusDays(1).atTime(0, 50))));
+
+        SnapshotBookkeepingListener.DayRange previous = listener.rangesOn(day).get("BTC");
+        assertThat(previous.getOpen()).isEqualByComparingTo("100");
+        assertThat(previous.getHigh()).isEqualByComparingTo("120");
+        assertThat(previous.getLow()).isEqualByComparingTo("90");
+        assertThat(previous.getLast()).isEqualByComparingTo("95");
+        assertThat(previous.getTicks()).isEqualTo(4);
+
+        assertThat(listener.rangeOf("BTC", day.plusDays(1))).hasValueSatisfying(range -> {
+            assertThat(range.getOpen()).isEqualByComparingTo("130");
+            assertThat(range.getLow()).isEqualByComparingTo("80");
+        });
+    }
+
+    @Test
+    @DisplayName("快照寫入後清除該日（含）之前的統計，當天的保留")
+    void pruneThrough_dropsSnapshottedDays() {
+        listener.onPriceChanged(List.of(
+                tick("BTC", "100", day.atTime(22, 0)),
+                tick("BTC", "101", day.plusDays(1).atTime(0, 30))));
+
+        listener.pruneThrough(day);
+
+        assertThat(listener.rangesOn(day)).isEmpty();
+        assertThat(listener.rangeOf("BTC", day.plusDays(1))).isPresent();
+    }
+
+    @Test
+    @DisplayName("任務沒有執行時，進入新的一天只保留前一天與當天")
+    void newDay_dropsDaysBeforeYesterday() {
+        listener.onPriceChanged(List.of(tick("BTC", "100", day.atTime(12, 0))));
+        listener.onPriceChanged(List.of(tick("BTC", "101", day.plusDays(1).atTime(12, 0))));
+        listener.onPriceChanged(List.of(tick("BTC", "102", day.plusDays(2).atTime(12, 0))));
+
+        assertThat(listener.rangesOn(day)).isEmpty();
+        assertThat(listener.rangesOn(day.plusDays(1))).containsKey("BTC");
+        assertThat(listener.rangesOn(day.plusDays(2))).containsKey("BTC");
+    }
+}
@@ -32,6 +32,7 @@ class AccountServiceTest {
 
     @Mock private AccountRepository repository;
     @Mock private TransactionRepository transactionRepository;
+    @Mock private QuoteService quoteService;
 
     @InjectMocks private AccountService service;
 
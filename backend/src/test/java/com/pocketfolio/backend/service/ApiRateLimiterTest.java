@@ -0,0 +1,118 @@
+package com.pocketfolio.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ApiRateLimiter 單元測試")
+class ApiRateLimiterTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // TokenBucket
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("TokenBucket")
+    class TokenBucketTests {
+
+        private final AtomicLong clock = new AtomicLong(0);
+
+        @Test
+        @DisplayName("burst 額度內不需等待，超過後依速率排隊")
+        void reserve_burstThenQueued() {
+            ApiRateLimiter.TokenBucket bucket = new ApiRateLimiter.TokenBucket(2, 3, clock::get);
+
+            assertThat(bucket.reserve()).isZero();
+            assertThat(bucket.reserve()).isZero();
+            assertThat(bucket.reserve()).isZero();
+            // 每秒 2 個 → 第 4、5 個分別等 0.5s、1s
+            assertThat(bucket.reserve()).isEqualTo(ONE_SECOND / 2);
+            assertThat(bucket.reserve()).isEqualTo(ONE_SECOND);
+        }
+
+        @Test
+        @DisplayName("時間經過後補充 token，但不超過 burst")
+        void reserve_refillsUpToBurst() {
+            ApiRateLimiter.TokenBucket bucket = new ApiRateLimiter.TokenBucket(1, 2, clock::get);
+            bucket.reserve();
+            bucket.reserve();
+
+            clock.addAndGet(10 * ONE_SECOND);
+
+            assertThat(bucket.reserve()).isZero();
+            assertThat(bucket.reserve()).isZero();
+            assertThat(bucket.reserve()).isEqualTo(ONE_SECOND);
+        }
+
+        @Test
+        @DisplayName("設定不合法時拋出例外")
+        void invalidConfig_throws() {
+            assertThatThrownBy(() -> new ApiRateLimiter.TokenBucket(0, 1, clock::get))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> new ApiRateLimiter.TokenBucket(1, 0, clock::get))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // throttle / metrics
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("throttle")
+    class Throttle {
+
+        private SimpleMeterRegistry registry;
+        private ApiRateLimiter limiter;
+
+        @BeforeEach
+        void setUp() {
+            registry = new SimpleMeterRegistry();
+            limiter = new ApiRateLimiter(registry);
+            ReflectionTestUtils.setField(limiter, "coinGeckoPermitsPerSecond", 1000.0);
+            ReflectionTestUtils.setField(limiter, "coinGeckoBurst", 1);
+            ReflectionTestUtils.setField(limiter, "yahooPermitsPerSecond", 1.0);
+            ReflectionTestUtils.setField(limiter, "yahooBurst", 5);
+            ReflectionTestUtils.setField(limiter, "twseTpexPermitsPerSecond", 1.0);
+            ReflectionTestUtils.setField(limiter, "twseTpexBurst", 1);
+            limiter.initBuckets();
+        }
+
+        @Test
+        @DisplayName("訂閱時才取得 permit，並記錄 permit 數與等待時間")
+        void throttle_acquiresOnSubscribe_andRecordsMetrics() {
+            AtomicInteger calls = new AtomicInteger();
+            Mono<Integer> call = Mono.fromCallable(calls::incrementAndGet);
+
+            Mono<Integer> throttled = limiter.throttle(ApiRateLimiter.Provider.COINGECKO, call);
+            assertThat(registry.get("pocketfolio.api.rate-limit.permits")
+                    .tag("provider", "coingecko").counter().count()).isZero();
+
+            assertThat(throttled.block()).isEqualTo(1);
+            // 第二次超出 burst，需等待約 1ms
+            assertThat(throttled.block()).isEqualTo(2);
+
+            assertThat(registry.get("pocketfolio.api.rate-limit.permits")
+                    .tag("provider", "coingecko").counter().count()).isEqualTo(2);
+            assertThat(registry.get("pocketfolio.api.rate-limit.wait")
+                    .tag("provider", "coingecko").timer().count()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("各 provider 的額度互不影響")
+        void providers_areIndependent() {
+            assertThat(limiter.acquire(ApiRateLimiter.Provider.TWSE_TPEX)).isZero();
+            assertThat(limiter.acquire(ApiRateLimiter.Provider.TWSE_TPEX)).isPositive();
+            assertThat(limiter.acquire(ApiRateLimiter.Provider.YAHOO_FINANCE)).isZero();
+        }
+    }
+}
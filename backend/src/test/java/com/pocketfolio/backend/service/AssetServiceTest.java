@@ -3,6 +3,8 @@ package com.pocketfolio.backend.service;
 import com.pocketfolio.backend.dto.AssetRequest;
 import com.pocketfolio.backend.dto.AssetResponse;
 import com.pocketfolio.backend.entity.*;
+import com.pocketfolio.backend.event.PortfolioEventRelay;
+import com.pocketfolio.backend.event.PortfolioEventRelay.HoldingChange;
 import com.pocketfolio.backend.exception.ResourceNotFoundException;
 import com.pocketfolio.backend.repository.AccountRepository;
 import com.pocketfolio.backend.repository.AssetRepository;
@@ -16,6 +18,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.Collections;
@@ -34,10 +38,13 @@ class AssetServiceTest {
     @Mock AssetRepository assetRepository;
     @Mock AccountRepository accountRepository;
     @Mock TransactionRepository transactionRepository;
+    @Mock QuoteService quoteService;
+    @Mock PortfolioEventRelay portfolioEventRelay;
 
     @InjectMocks AssetService service;
 
     @Captor ArgumentCaptor<Transaction> transactionCaptor;
+    @Captor ArgumentCaptor<List<HoldingChange>> holdingCaptor;
 
     UUID userId;
     UUID investAccountId;
@@ -110,6 +117,94 @@ class AssetServiceTest {
         }
     }
 
+    // ─── 已連線用戶的持倉索引 ────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("持倉索引維護")
+    class HolderIndexMaintenance {
+
+        @BeforeEach
+        void ownAsset() {
+            savedAsset.setUser(investAccount.getUser());
+        }
+
+        private List<HoldingChange> appliedChanges() {
+            then(portfolioEventRelay).should().applyHoldingChanges(holdingCaptor.capture());
+            return holdingCaptor.getValue();
+        }
+
+        @Test
+        @DisplayName("新增資產後登記持有的代號")
+        void create_addsHolding() {
+            given(accountRepository.findById(investAccountId)).willReturn(Optional.of(investAccount));
+            given(assetRepository.existsByUserIdAndAccountIdAndSymbol(any(), any(), any())).willReturn(false);
+            given(assetRepository.save(any())).willReturn(savedAsset);
+
+            service.createAsset(buildRequest(null));
+
+            assertThat(appliedChanges()).singleElement().satisfies(change -> {
+                assertThat(change.added()).isTrue();
+                assertThat(change.userId()).isEqualTo(userId);
+                assertThat(change.symbol()).isEqualTo("2330.TW");
+                assertThat(change.quantity()).isEqualByComparingTo("10");
+                assertThat(change.costPrice()).isEqualByComparingTo("800");
+            });
+        }
+
+        @Test
+        @DisplayName("交易中新增資產：提交後才登記持倉，rollback 時不登記")
+        void create_inTransaction_appliesAfterCommit() {
+            given(accountRepository.findById(investAccountId)).willReturn(Optional.of(investAccount));
+            given(assetRepository.existsByUserIdAndAccountIdAndSymbol(any(), any(), any())).willReturn(false);
+            given(assetRepository.save(any())).willReturn(savedAsset);
+
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                service.createAsset(buildRequest(null));
+                then(portfolioEventRelay).shouldHaveNoInteractions();
+
+                // rollback：只會收到 afterCompletion，不會收到 afterCommit
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+                then(portfolioEventRelay).shouldHaveNoInteractions();
+
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                assertThat(appliedChanges()).singleElement()
+                        .satisfies(change -> assertThat(change.symbol()).isEqualTo("2330.TW"));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        @Test
+        @DisplayName("修改資產時先以原本的數量與成本移除，再登記新的代號與持倉")
+        void update_symbolChange_movesHolding() {
+            given(assetRepository.findById(savedAsset.getId())).willReturn(Optional.of(savedAsset));
+            given(assetRepository.existsByUserIdAndAccountIdAndSymbol(any(), any(), any())).willReturn(false);
+            given(assetRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
+
+            AssetRequest req = buildRequest(null);
+            req.setSymbol("2317.tw");
+            req.setQuantity(new BigDecimal("20"));
+            service.updateAsset(savedAsset.getId(), req);
+
+            assertThat(appliedChanges())
+                    .extracting(HoldingChange::added, HoldingChange::symbol, c -> c.quantity().intValue())
+                    .containsExactly(tuple(false, "2330.TW", 10), tuple(true, "2317.TW", 20));
+        }
+
+        @Test
+        @DisplayName("刪除資產後移除持有的代號")
+        void delete_removesHolding() {
+            given(assetRepository.findById(savedAsset.getId())).willReturn(Optional.of(savedAsset));
+
+            service.deleteAsset(savedAsset.getId());
+
+            assertThat(appliedChanges()).containsExactly(HoldingChange.removed(
+                    userId, "2330.TW", savedAsset.getQuantity(), savedAsset.getCostPrice()));
+        }
+    }
+
     // ─── 填來源帳戶 ─────────────────────────────────────────────────────────
 
     @Nested
@@ -0,0 +1,99 @@
+package com.pocketfolio.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AssetSnapshotSchemaMigration 單元測試")
+class AssetSnapshotSchemaMigrationTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private AssetSnapshotSchemaMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        migration = new AssetSnapshotSchemaMigration(jdbcTemplate, transactionManager);
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private void givenPostgreSqlTable(String... constraints) {
+        given(jdbcTemplate.execute(any(ConnectionCallback.class))).willReturn("PostgreSQL");
+        given(jdbcTemplate.queryForObject(contains("FROM pg_class"), eq(Integer.class), eq("asset_snapshots")))
+                .willReturn(1);
+        given(jdbcTemplate.queryForList(contains("pg_constraint"), eq(String.class),
+                eq("asset_snapshots"), eq("uk_asset_snapshot_date")))
+                .willReturn(List.of(constraints));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("缺少唯一鍵：先刪除重複快照（保留最新一筆），再加上約束")
+    void migrate_missingKey_deletesDuplicatesThenAddsConstraint() {
+        givenPostgreSqlTable();
+        given(jdbcTemplate.update(startsWith("DELETE FROM asset_snapshots a USING asset_snapshots b"))).willReturn(3);
+
+        migration.migrate();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("LOCK TABLE asset_snapshots IN SHARE ROW EXCLUSIVE MODE");
+        inOrder.verify(jdbcTemplate).update(contains(
+                "(a.created_at, CAST(a.id AS text)) < (b.created_at, CAST(b.id AS text))"));
+        inOrder.verify(jdbcTemplate).execute(
+                "ALTER TABLE asset_snapshots ADD CONSTRAINT uk_asset_snapshot_date UNIQUE (asset_id, snapshot_date)");
+    }
+
+    @Test
+    @DisplayName("唯一鍵已存在時不做任何事")
+    void migrate_keyExists_noop() {
+        givenPostgreSqlTable("uk_asset_snapshot_date");
+
+        migration.migrate();
+
+        then(jdbcTemplate).should(never()).update(anyString());
+        then(jdbcTemplate).should(never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("不是 PostgreSQL 時略過")
+    void migrate_notPostgreSql_noop() {
+        given(jdbcTemplate.execute(any(ConnectionCallback.class))).willReturn("H2");
+
+        migration.migrate();
+
+        then(jdbcTemplate).should(never()).queryForList(anyString(), eq(String.class), any(Object[].class));
+        then(jdbcTemplate).should(never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("加上約束失敗時只記錄錯誤，不中斷啟動")
+    void migrate_alterFails_logged() {
+        givenPostgreSqlTable();
+        willAnswer(inv -> {
+            if (inv.getArgument(0, String.class).startsWith("ALTER TABLE")) {
+                throw new IllegalStateException("could not create unique index");
+            }
+            return null;
+        }).given(jdbcTemplate).execute(anyString());
+
+        migration.migrate();
+
+        then(jdbcTemplate).should().update(startsWith("DELETE FROM asset_snapshots"));
+    }
+}
@@ -1,12 +1,19 @@
 package com.pocketfolio.backend.service;
 
 import com.pocketfolio.backend.dto.AssetHistoryResponse;
+import com.pocketfolio.backend.dto.HistoryResolution;
 import com.pocketfolio.backend.dto.PortfolioSnapshotResponse;
 import com.pocketfolio.backend.entity.*;
+import com.pocketfolio.backend.event.SnapshotBookkeepingListener;
 import com.pocketfolio.backend.repository.AssetRepository;
 import com.pocketfolio.backend.repository.AssetSnapshotRepository;
+import com.pocketfolio.backend.repository.DailyTotalHistoryRepository;
+import com.pocketfolio.backend.repository.PortfolioDailyTotalRepository;
+import com.pocketfolio.backend.repository.SnapshotBatchRepository;
+import com.pocketfolio.backend.repository.SnapshotHistoryRepository;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,7 +23,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,6 +39,9 @@ class AssetSnapshotServiceTest {
 
     @Mock private AssetSnapshotRepository snapshotRepository;
     @Mock private AssetRepository assetRepository;
+    @Mock private QuoteService quoteService;
+    @Mock private SnapshotBookkeepingListener snapshotBookkeeping;
+    @Mock private PortfolioDailyTotalRepository totalRepository;
 
     @InjectMocks private AssetSnapshotService service;
 
@@ -93,6 +105,16 @@ class AssetSnapshotServiceTest {
         return s;
     }
 
+    private PortfolioDailyTotal totalOf(LocalDate date, String marketValue, String cost, int assetCount) {
+        PortfolioDailyTotal total = new PortfolioDailyTotal();
+        total.setUserId(CURRENT_USER_ID);
+        total.setSnapshotDate(date);
+        total.setTotalMarketValue(new BigDecimal(marketValue));
+        total.setTotalCost(new BigDecimal(cost));
+        total.setAssetCount(assetCount);
+        return total;
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // createSnapshot
     // ─────────────────────────────────────────────────────────────────────────
@@ -115,9 +137,32 @@ class AssetSnapshotServiceTest {
             var response = service.createSnapshot(assetId);
 
             then(snapshotRepository).should().save(any());
+            then(totalRepository).should().rollupUser(CURRENT_USER_ID, LocalDate.now());
             assertThat(response).isNotNull();
         }
 
+        @Test
+        @DisplayName("當日有價格變動：寫入盤中開 / 高 / 低價，並納入快照時的市價")
+        void create_withDayRange_appliesIntradayRange() {
+            UUID assetId = UUID.randomUUID();
+            Asset asset = assetWith(assetId, CURRENT_USER_ID);
+            LocalDate today = LocalDate.now();
+            given(assetRepository.findById(assetId)).willReturn(Optional.of(asset));
+            given(snapshotRepository.existsByAssetIdAndSnapshotDate(assetId, today)).willReturn(false);
+            given(snapshotBookkeeping.rangeOf("BTC", today)).willReturn(Optional.of(
+                    new SnapshotBookkeepingListener.DayRange(today, new BigDecimal("97000"),
+                            new BigDecimal("99000"), new BigDecimal("95000"), new BigDecimal("99000"), 12)));
+            given(snapshotRepository.save(any())).willAnswer(inv -> inv.getArgument(0));
+
+            service.createSnapshot(assetId);
+
+            ArgumentCaptor<AssetSnapshot> saved = ArgumentCaptor.forClass(AssetSnapshot.class);
+            then(snapshotRepository).should().save(saved.capture());
+            assertThat(saved.getValue().getDayOpen()).isEqualByComparingTo("97000");
+            assertThat(saved.getValue().getDayHigh()).isEqualByComparingTo("100000");
+            assertThat(saved.getValue().getDayLow()).isEqualByComparingTo("95000");
+        }
+
         @Test
         @DisplayName("今天已有快照：跳過儲存，回傳 null")
         void create_alreadyExists_returnsNull() {
@@ -153,35 +198,75 @@ class AssetSnapshotServiceTest {
     @DisplayName("createAllSnapshots（批次建立快照）")
     class CreateAllSnapshots {
 
+        private final LocalDate yesterday = LocalDate.now().minusDays(1);
+
         @Test
-        @DisplayName("跳過已有快照的資產，回傳實際建立數量")
-        void createAll_skipsExisting_returnsCount() {
-            UUID id1 = UUID.randomUUID();
-            UUID id2 = UUID.randomUUID();
-            Asset a1 = assetWith(id1, CURRENT_USER_ID);
-            Asset a2 = assetWith(id2, CURRENT_USER_ID);
-            given(assetRepository.findAll()).willReturn(List.of(a1, a2));
-            given(snapshotRepository.existsByAssetIdAndSnapshotDate(eq(id1), any(LocalDate.class)))
-                    .willReturn(false);
-            given(snapshotRepository.existsByAssetIdAndSnapshotDate(eq(id2), any(LocalDate.class)))
-                    .willReturn(true); // already has snapshot
-            given(snapshotRepository.save(any())).willReturn(snapshotWith(id1, LocalDate.now()));
+        @DisplayName("依資產 id keyset 分頁，下一個 chunk 從上一個 chunk 的最後一筆之後開始")
+        void createAll_pagesByLastAssetId_sumsInserted() {
+            UUID lastOfFirstChunk = UUID.randomUUID();
+            given(snapshotRepository.insertSnapshotChunk(
+                    eq(AssetSnapshotService.FIRST_ASSET_ID), eq(1000), any(LocalDate.class), any(LocalDateTime.class), anyList()))
+                    .willReturn(new SnapshotBatchRepository.SnapshotChunk(1000, 990, lastOfFirstChunk));
+            given(snapshotRepository.insertSnapshotChunk(
+                    eq(lastOfFirstChunk), eq(1000), any(LocalDate.class), any(LocalDateTime.class), anyList()))
+                    .willReturn(new SnapshotBatchRepository.SnapshotChunk(3, 2, UUID.randomUUID()));
+
+            int count = service.createAllSnapshots(yesterday);
+
+            assertThat(count).isEqualTo(992);
+            then(snapshotRepository).should(times(2)).insertSnapshotChunk(any(), anyInt(), any(), any(), anyList());
+            then(totalRepository).should().rollup(yesterday, yesterday);
+            then(assetRepository).shouldHaveNoInteractions();
+            then(snapshotRepository).should(never()).save(any());
+        }
 
-            int count = service.createAllSnapshots();
+        @Test
+        @DisplayName("所有 chunk 使用傳入的快照日期")
+        void createAll_sameDateForAllChunks() {
+            UUID last = UUID.randomUUID();
+            given(snapshotRepository.insertSnapshotChunk(any(), anyInt(), any(), any(), anyList()))
+                    .willReturn(new SnapshotBatchRepository.SnapshotChunk(1000, 0, last))
+                    .willReturn(new SnapshotBatchRepository.SnapshotChunk(0, 0, null));
+
+            service.createAllSnapshots(yesterday);
+
+            ArgumentCaptor<LocalDate> dates = ArgumentCaptor.forClass(LocalDate.class);
+            then(snapshotRepository).should(times(2)).insertSnapshotChunk(any(), anyInt(), dates.capture(), any(), anyList());
+            assertThat(dates.getAllValues()).containsOnly(yesterday);
+        }
 
-            assertThat(count).isEqualTo(1);
-            then(snapshotRepository).should(times(1)).save(any());
+        @Test
+        @DisplayName("快照日期的盤中區間取一次，傳給每個 chunk，寫入後清除")
+        @SuppressWarnings("unchecked")
+        void createAll_passesIntradayRangesToEveryChunk() {
+            given(snapshotBookkeeping.rangesOn(yesterday)).willReturn(Map.of("BTC",
+                    new SnapshotBookkeepingListener.DayRange(yesterday, new BigDecimal("97000"),
+                            new BigDecimal("101000"), new BigDecimal("95000"), new BigDecimal("100000"), 30)));
+            given(snapshotRepository.insertSnapshotChunk(any(), anyInt(), any(), any(), anyList()))
+                    .willReturn(new SnapshotBatchRepository.SnapshotChunk(1000, 0, UUID.randomUUID()))
+                    .willReturn(new SnapshotBatchRepository.SnapshotChunk(1, 1, UUID.randomUUID()));
+
+            service.createAllSnapshots(yesterday);
+
+            ArgumentCaptor<List<SnapshotBatchRepository.IntradayRange>> ranges = ArgumentCaptor.forClass(List.class);
+            then(snapshotRepository).should(times(2)).insertSnapshotChunk(any(), anyInt(), any(), any(), ranges.capture());
+            assertThat(ranges.getAllValues()).allSatisfy(list -> assertThat(list).containsExactly(
+                    new SnapshotBatchRepository.IntradayRange("BTC",
+                            new BigDecimal("97000"), new BigDecimal("101000"), new BigDecimal("95000"))));
+            then(snapshotBookkeeping).should(times(1)).rangesOn(yesterday);
+            then(snapshotBookkeeping).should().pruneThrough(yesterday);
         }
 
         @Test
         @DisplayName("無資產時回傳 0")
         void createAll_noAssets_returnsZero() {
-            given(assetRepository.findAll()).willReturn(List.of());
+            given(snapshotRepository.insertSnapshotChunk(any(), anyInt(), any(), any(), anyList()))
+                    .willReturn(new SnapshotBatchRepository.SnapshotChunk(0, 0, null));
 
-            int count = service.createAllSnapshots();
+            int count = service.createAllSnapshots(yesterday);
 
             assertThat(count).isZero();
-            then(snapshotRepository).should(never()).save(any());
+            then(snapshotRepository).should(times(1)).insertSnapshotChunk(any(), anyInt(), any(), any(), anyList());
         }
     }
 
@@ -212,6 +297,29 @@ class AssetSnapshotServiceTest {
             assertThat(response.getHistory()).hasSize(1);
         }
 
+        @Test
+        @DisplayName("每日資料點的開 / 高 / 低取快照的盤中區間，沒有時以收盤價代替")
+        void getHistory_daily_usesIntradayRange() {
+            UUID assetId = UUID.randomUUID();
+            given(assetRepository.findById(assetId))
+                    .willReturn(Optional.of(assetWith(assetId, CURRENT_USER_ID)));
+            LocalDate today = LocalDate.now();
+            AssetSnapshot withRange = snapshotWith(assetId, today.minusDays(1));
+            withRange.applyDayRange(new BigDecimal("97000"), new BigDecimal("101000"), new BigDecimal("95000"));
+            AssetSnapshot withoutRange = snapshotWith(assetId, today);
+            given(snapshotRepository.findByAssetIdAndSnapshotDateBetweenOrderBySnapshotDate(any(), any(), any()))
+                    .willReturn(List.of(withRange, withoutRange));
+
+            List<AssetHistoryResponse.DataPoint> points = service.getAssetHistory(assetId, 7).getHistory();
+
+            assertThat(points.get(0).getOpen()).isEqualTo(97000.0);
+            assertThat(points.get(0).getHigh()).isEqualTo(101000.0);
+            assertThat(points.get(0).getLow()).isEqualTo(95000.0);
+            assertThat(points.get(1).getOpen()).isEqualTo(100000.0);
+            assertThat(points.get(1).getHigh()).isEqualTo(100000.0);
+            assertThat(points.get(1).getLow()).isEqualTo(100000.0);
+        }
+
         @Test
         @DisplayName("查詢他人的資產歷史：拋出 IllegalArgumentException")
         void getHistory_ownedByOtherUser_throws() {
@@ -284,4 +392,130 @@ class AssetSnapshotServiceTest {
             assertThat(response).isNull();
         }
     }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // portfolio_daily_totals
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("每日投資組合總計")
+    class DailyTotals {
+
+        @Test
+        @DisplayName("getPortfolioSnapshot：有每日總計時總計以總計表為準")
+        void getPortfolio_usesRollupTotals() {
+            LocalDate date = LocalDate.of(2026, 1, 1);
+            given(snapshotRepository.findByUserIdAndSnapshotDate(CURRENT_USER_ID, date))
+                    .willReturn(List.of(snapshotWith(UUID.randomUUID(), date)));
+            given(totalRepository.findByUserIdAndSnapshotDate(CURRENT_USER_ID, date))
+                    .willReturn(Optional.of(totalOf(date, "150000", "100000", 2)));
+
+            PortfolioSnapshotResponse response = service.getPortfolioSnapshot(date);
+
+            assertThat(response.getTotalMarketValue()).isEqualByComparingTo("150000");
+            assertThat(response.getTotalProfitLossPercent()).isEqualByComparingTo("50.00");
+            assertThat(response.getAssetCount()).isEqualTo(2);
+            assertThat(response.getAssets()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("getPortfolioHistory：每天一列，不讀各資產快照")
+        void getHistory_readsDailyTotalsOnly() {
+            LocalDate today = LocalDate.now();
+            given(totalRepository.findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(
+                    CURRENT_USER_ID, today.minusDays(7), today))
+                    .willReturn(List.of(
+                            totalOf(today.minusDays(1), "100", "80", 3),
+                            totalOf(today, "90", "0", 3)));
+
+            List<PortfolioSnapshotResponse> history = service.getPortfolioHistory(7);
+
+            assertThat(history).extracting(PortfolioSnapshotResponse::getDate)
+                    .containsExactly(today.minusDays(1), today);
+            assertThat(history.get(0).getTotalProfitLoss()).isEqualByComparingTo("20");
+            assertThat(history.get(0).getTotalProfitLossPercent()).isEqualByComparingTo("25.00");
+            assertThat(history.get(1).getTotalProfitLossPercent()).isEqualByComparingTo("0");
+            then(snapshotRepository).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("啟動時總計表為空才回補")
+        void backfill_onlyWhenEmpty() {
+            given(totalRepository.count()).willReturn(0L);
+            service.backfillDailyTotals();
+            then(totalRepository).should().rollup(LocalDate.EPOCH, LocalDate.now());
+
+            reset(totalRepository);
+            given(totalRepository.count()).willReturn(10L);
+            service.backfillDailyTotals();
+            then(totalRepository).should(never()).rollup(any(), any());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // 多粒度歷史
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("歷史走勢粒度（日 / 週 / 月）")
+    class HistoryResolutions {
+
+        @Test
+        @DisplayName("依天數與資料點上限選擇最細的粒度")
+        void forRange_picksFinestWithinMaxPoints() {
+            assertThat(HistoryResolution.forRange(30, 400)).isEqualTo(HistoryResolution.DAILY);
+            assertThat(HistoryResolution.forRange(399, 400)).isEqualTo(HistoryResolution.DAILY);
+            assertThat(HistoryResolution.forRange(1825, 400)).isEqualTo(HistoryResolution.WEEKLY);
+            assertThat(HistoryResolution.forRange(1825, 100)).isEqualTo(HistoryResolution.MONTHLY);
+            // 月粒度仍超過上限時不再往上
+            assertThat(HistoryResolution.forRange(3650, 10)).isEqualTo(HistoryResolution.MONTHLY);
+        }
+
+        @Test
+        @DisplayName("資產歷史：範圍超過資料點上限時讀週彙總，不讀每日快照")
+        void assetHistory_longRange_readsWeeklyBuckets() {
+            UUID assetId = UUID.randomUUID();
+            given(assetRepository.findById(assetId))
+                    .willReturn(Optional.of(assetWith(assetId, CURRENT_USER_ID)));
+            LocalDate today = LocalDate.now();
+            given(snapshotRepository.findPriceBuckets(assetId, today.minusDays(365), today, HistoryResolution.WEEKLY))
+                    .willReturn(List.of(new SnapshotHistoryRepository.PriceBucket(today,
+                            new BigDecimal("90000"), new BigDecimal("105000"), new BigDecimal("88000"),
+                            new BigDecimal("100000"), new BigDecimal("100000"), new BigDecimal("20000"),
+                            new BigDecimal("25.00"))));
+
+            AssetHistoryResponse response = service.getAssetHistory(assetId, 365, 60);
+
+            assertThat(response.getResolution()).isEqualTo(HistoryResolution.WEEKLY);
+            assertThat(response.getHistory()).singleElement().satisfies(point -> {
+                assertThat(point.getOpen()).isEqualTo(90000.0);
+                assertThat(point.getHigh()).isEqualTo(105000.0);
+                assertThat(point.getLow()).isEqualTo(88000.0);
+                assertThat(point.getPrice()).isEqualTo(100000.0);
+            });
+            then(snapshotRepository).should(never())
+                    .findByAssetIdAndSnapshotDateBetweenOrderBySnapshotDate(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("投資組合歷史：5 年範圍以月彙總回傳，並附區間最高 / 最低總市值")
+        void portfolioHistory_fiveYears_readsMonthlyBuckets() {
+            LocalDate today = LocalDate.now();
+            given(totalRepository.findTotalBuckets(CURRENT_USER_ID, today.minusDays(1825), today, HistoryResolution.MONTHLY))
+                    .willReturn(List.of(new DailyTotalHistoryRepository.TotalBucket(today,
+                            new BigDecimal("120"), new BigDecimal("100"), 4,
+                            new BigDecimal("130"), new BigDecimal("95"))));
+
+            List<PortfolioSnapshotResponse> history = service.getPortfolioHistory(1825, 100);
+
+            assertThat(history).singleElement().satisfies(point -> {
+                assertThat(point.getResolution()).isEqualTo(HistoryResolution.MONTHLY);
+                assertThat(point.getTotalProfitLoss()).isEqualByComparingTo("20");
+                assertThat(point.getHighMarketValue()).isEqualByComparingTo("130");
+                assertThat(point.getLowMarketValue()).isEqualByComparingTo("95");
+            });
+            then(totalRepository).should(never())
+                    .findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(any(), any(), any());
+        }
+    }
 }
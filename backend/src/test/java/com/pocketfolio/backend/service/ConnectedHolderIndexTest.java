@@ -0,0 +1,73 @@
+package com.pocketfolio.backend.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ConnectedHolderIndex 單元測試")
+class ConnectedHolderIndexTest {
+
+    private final ConnectedHolderIndex index = new ConnectedHolderIndex();
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    @Test
+    @DisplayName("只有已連線的用戶會出現在代號的持有人中")
+    void holdersOf_onlyConnectedUsers() {
+        assertThat(index.connect(alice, "s1")).isTrue();
+        index.replaceHoldings(alice, List.of("btc", "2330.TW"));
+        index.addHolding(bob, "BTC");  // bob 未連線：忽略
+
+        assertThat(index.holdersOf("BTC")).containsExactly(alice);
+        assertThat(index.holdersOf("2330.tw")).containsExactly(alice);
+        assertThat(index.holdersOf("ETH")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("同一用戶多個 session：最後一個斷線才移除")
+    void disconnect_lastSessionRemovesUser() {
+        index.connect(alice, "s1");
+        assertThat(index.connect(alice, "s2")).isFalse();
+        index.replaceHoldings(alice, List.of("BTC"));
+
+        assertThat(index.disconnect(alice, "s1")).isFalse();
+        assertThat(index.holdersOf("BTC")).containsExactly(alice);
+
+        assertThat(index.disconnect(alice, "s2")).isTrue();
+        assertThat(index.holdersOf("BTC")).isEmpty();
+        assertThat(index.isConnected(alice)).isFalse();
+        assertThat(index.connectedUsers()).isZero();
+    }
+
+    @Test
+    @DisplayName("多個帳戶持有同一代號：全部刪除後才自代號移除")
+    void removeHolding_countsAssetsPerSymbol() {
+        index.connect(alice, "s1");
+        index.connect(bob, "s2");
+        index.replaceHoldings(alice, List.of("BTC", "BTC"));
+        index.addHolding(bob, "BTC");
+
+        index.removeHolding(alice, "BTC");
+        assertThat(index.holdersOf("BTC")).containsExactlyInAnyOrder(alice, bob);
+
+        index.removeHolding(alice, "BTC");
+        assertThat(index.holdersOf("BTC")).containsExactly(bob);
+        assertThat(index.symbolsOf(alice)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("重新載入持倉時取代舊的持倉")
+    void replaceHoldings_replacesPrevious() {
+        index.connect(alice, "s1");
+        index.replaceHoldings(alice, List.of("BTC"));
+
+        index.replaceHoldings(alice, List.of("ETH"));
+
+        assertThat(index.holdersOf("BTC")).isEmpty();
+        assertThat(index.symbolsOf(alice)).containsExactly("ETH");
+    }
+}
@@ -29,14 +29,18 @@ class KnownAssetSyncServiceTest {
     @Mock private WebClient.RequestHeadersUriSpec requestHeadersUriSpec;
     @Mock private WebClient.RequestHeadersSpec requestHeadersSpec;
     @Mock private WebClient.ResponseSpec responseSpec;
+    @Mock private ApiRateLimiter rateLimiter;
 
     private KnownAssetSyncService syncService;
 
     @BeforeEach
     void setUp() {
-        syncService = new KnownAssetSyncService(knownAssetRepository, webClientBuilder);
+        syncService = new KnownAssetSyncService(knownAssetRepository, webClientBuilder, rateLimiter);
         ReflectionTestUtils.setField(syncService, "coinGeckoBaseUrl", "https://api.coingecko.com/api/v3");
 
+        // 限流器直接放行原本的請求
+        lenient().when(rateLimiter.throttle(any(), any())).thenAnswer(inv -> inv.getArgument(1));
+
         lenient().when(webClientBuilder.build()).thenReturn(webClient);
         lenient().when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
         lenient().when(webClientBuilder.exchangeStrategies(any(org.springframework.web.reactive.function.client.ExchangeStrategies.class)))
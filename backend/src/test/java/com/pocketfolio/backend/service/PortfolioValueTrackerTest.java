@@ -0,0 +1,84 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.Asset;
+import com.pocketfolio.backend.service.PortfolioValueTracker.PortfolioValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PortfolioValueTracker 單元測試")
+class PortfolioValueTrackerTest {
+
+    private final PortfolioValueTracker tracker = new PortfolioValueTracker();
+    private final UUID userId = UUID.randomUUID();
+
+    private Asset assetOf(String symbol, String quantity, String costPrice, String currentPrice) {
+        Asset asset = new Asset();
+        asset.setSymbol(symbol);
+        asset.setQuantity(new BigDecimal(quantity));
+        asset.setCostPrice(new BigDecimal(costPrice));
+        asset.setCurrentPrice(currentPrice != null ? new BigDecimal(currentPrice) : null);
+        return asset;
+    }
+
+    @Test
+    @DisplayName("載入時市值 = Σ 數量 × 最新價格，沒有價格的以成本價計")
+    void load_sumsMarketValue() {
+        PortfolioValue value = tracker.load(userId, List.of(
+                assetOf("2330.TW", "10", "800", "900"),
+                assetOf("BTC", "0.5", "60000", null)));
+
+        assertThat(value.marketValue()).isEqualByComparingTo("39000");
+        assertThat(value.totalCost()).isEqualByComparingTo("38000");
+        assertThat(value.profitLoss()).isEqualByComparingTo("1000");
+        assertThat(value.positions()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("報價變動只套用價差 × 數量；同代號多筆資產合併計算")
+    void applyPrice_appliesDelta() {
+        tracker.load(userId, List.of(
+                assetOf("2330.TW", "10", "800", "900"),
+                assetOf("2330.tw", "5", "850", "900")));
+
+        PortfolioValue value = tracker.applyPrice(userId, "2330.TW", new BigDecimal("1000"));
+
+        assertThat(value.marketValue()).isEqualByComparingTo("15000");
+        assertThat(value.totalCost()).isEqualByComparingTo("12250");
+        assertThat(tracker.applyPrice(userId, "2330.TW", new BigDecimal("1000"))).isNull();
+        assertThat(tracker.applyPrice(userId, "ETH", new BigDecimal("3000"))).isNull();
+    }
+
+    @Test
+    @DisplayName("新增 / 移除持倉後的市值與重新載入的結果一致")
+    void addAndRemove_matchReload() {
+        tracker.load(userId, List.of(assetOf("2330.TW", "10", "800", "900")));
+
+        tracker.addPosition(userId, "BTC", new BigDecimal("1"), new BigDecimal("50000"), new BigDecimal("60000"));
+        tracker.applyPrice(userId, "BTC", new BigDecimal("61000"));
+        tracker.removePosition(userId, "2330.TW", new BigDecimal("10"), new BigDecimal("800"));
+
+        PortfolioValue value = tracker.valueOf(userId);
+        assertThat(value.marketValue()).isEqualByComparingTo("61000");
+        assertThat(value.totalCost()).isEqualByComparingTo("50000");
+        assertThat(value.positions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("未載入（未連線）的用戶：更新一律忽略")
+    void unknownUser_ignored() {
+        tracker.addPosition(userId, "BTC", BigDecimal.ONE, BigDecimal.TEN, BigDecimal.TEN);
+
+        assertThat(tracker.applyPrice(userId, "BTC", new BigDecimal("11"))).isNull();
+        assertThat(tracker.valueOf(userId)).isNull();
+
+        tracker.load(userId, List.of());
+        tracker.remove(userId);
+        assertThat(tracker.valueOf(userId)).isNull();
+    }
+}
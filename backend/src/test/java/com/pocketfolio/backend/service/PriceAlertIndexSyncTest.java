@@ -0,0 +1,148 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.AssetType;
+import com.pocketfolio.backend.entity.PriceAlert;
+import com.pocketfolio.backend.entity.User;
+import com.pocketfolio.backend.repository.PriceAlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+@DisplayName("PriceAlertIndexSync 多節點測試（記憶體 Redis pub/sub 替身）")
+class PriceAlertIndexSyncTest {
+
+    // 記憶體版的 Redis pub/sub：convertAndSend 同步送給所有訂閱的節點（包含發布者自己）
+    private final List<PriceAlertIndexSync> subscribers = new CopyOnWriteArrayList<>();
+    private StringRedisTemplate redis;
+    private PriceAlertRepository alertRepository;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    /**
+     * 一個節點：自己的記憶體索引 + 同步元件（DB 共用）
+     */
+    private class Node {
+        final PriceAlertIndex index = new PriceAlertIndex(new PriceWindowTracker());
+        final PriceAlertIndexSync sync =
+                new PriceAlertIndexSync(redis, mock(RedisMessageListenerContainer.class), alertRepository, index);
+
+        Node() {
+            subscribers.add(sync);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        alertRepository = mock(PriceAlertRepository.class);
+        willAnswer(inv -> {
+            byte[] channel = inv.getArgument(0, String.class).getBytes(StandardCharsets.UTF_8);
+            byte[] body = inv.getArgument(1, String.class).getBytes(StandardCharsets.UTF_8);
+            subscribers.forEach(s -> s.onMessage(new DefaultMessage(channel, body), null));
+            return 1L;
+        }).given(redis).convertAndSend(eq(PriceAlertIndexSync.SYNC_CHANNEL), anyString());
+
+        nodeA = new Node();
+        nodeB = new Node();
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private PriceAlert alert(String targetPrice) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+
+        PriceAlert alert = new PriceAlert();
+        alert.setId(UUID.randomUUID());
+        alert.setSymbol("BTC");
+        alert.setAssetType(AssetType.CRYPTO);
+        alert.setCondition(PriceAlert.AlertCondition.ABOVE);
+        alert.setTargetPrice(new BigDecimal(targetPrice));
+        alert.setActive(true);
+        alert.setUser(user);
+        return alert;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("其他節點建立的警報自 DB 載入索引，發布者自己不重複載入")
+    void created_loadedOnOtherNodes() {
+        PriceAlert alert = alert("100000");
+        given(alertRepository.findById(alert.getId())).willReturn(Optional.of(alert));
+        nodeA.index.upsert(alert);
+
+        nodeA.sync.publishChanged(alert.getId());
+
+        assertThat(nodeB.index.pollTriggered("BTC", new BigDecimal("100000")))
+                .extracting(PriceAlertIndex.IndexedAlert::id)
+                .containsExactly(alert.getId());
+        then(alertRepository).should(times(1)).findById(alert.getId());
+    }
+
+    @Test
+    @DisplayName("其他節點修改目標價後以新的目標價索引")
+    void updated_reindexedOnOtherNodes() {
+        PriceAlert alert = alert("100000");
+        nodeB.index.upsert(alert);
+        PriceAlert updated = alert("200000");
+        updated.setId(alert.getId());
+        given(alertRepository.findById(alert.getId())).willReturn(Optional.of(updated));
+
+        nodeA.sync.publishChanged(alert.getId());
+
+        assertThat(nodeB.index.pollTriggered("BTC", new BigDecimal("150000"))).isEmpty();
+        assertThat(nodeB.index.pollTriggered("BTC", new BigDecimal("200000"))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("其他節點停用或刪除的警報自索引移除")
+    void deactivatedOrDeleted_removedOnOtherNodes() {
+        PriceAlert deactivated = alert("100000");
+        PriceAlert deleted = alert("100000");
+        nodeB.index.upsert(deactivated);
+        nodeB.index.upsert(deleted);
+        deactivated.setActive(false);
+        given(alertRepository.findById(deactivated.getId())).willReturn(Optional.of(deactivated));
+        given(alertRepository.findById(deleted.getId())).willReturn(Optional.empty());
+
+        nodeA.sync.publishChanged(deactivated.getId());
+        nodeA.sync.publishChanged(deleted.getId());
+
+        assertThat(nodeB.index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Redis 發布失敗時不拋出例外")
+    void redisFailure_swallowed() {
+        willThrow(new IllegalStateException("connection refused"))
+                .given(redis).convertAndSend(anyString(), anyString());
+
+        assertThatCode(() -> nodeA.sync.publishChanged(UUID.randomUUID())).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("格式不符的訊息直接忽略")
+    void malformedMessage_ignored() {
+        nodeA.sync.onMessage(new DefaultMessage(
+                PriceAlertIndexSync.SYNC_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "other|not-a-uuid".getBytes(StandardCharsets.UTF_8)), null);
+
+        then(alertRepository).shouldHaveNoInteractions();
+    }
+}
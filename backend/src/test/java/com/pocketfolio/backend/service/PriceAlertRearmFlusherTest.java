@@ -0,0 +1,50 @@
+package com.pocketfolio.backend.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceAlertRearmFlusher 單元測試")
+class PriceAlertRearmFlusherTest {
+
+    @Mock private PriceAlertService priceAlertService;
+
+    @InjectMocks private PriceAlertRearmFlusher flusher;
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(PriceAlertService.class, () -> mock(PriceAlertService.class))
+            .withUserConfiguration(PriceAlertRearmFlusher.class);
+
+    @Test
+    @DisplayName("定時呼叫 flushRearmed")
+    void flush_delegatesToService() {
+        flusher.flushRearmedAlerts();
+
+        then(priceAlertService).should().flushRearmed();
+    }
+
+    @Test
+    @DisplayName("寫回失敗時不拋出例外（下一次排程再試）")
+    void flush_swallowsFailure() {
+        given(priceAlertService.flushRearmed()).willThrow(new IllegalStateException("db down"));
+
+        assertThatCode(() -> flusher.flushRearmedAlerts()).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("關閉價格更新排程時仍會建立；只由 flush-enabled 控制")
+    void enabledIndependentlyOfPriceUpdate() {
+        contextRunner.withPropertyValues("scheduler.price-update.enabled=false")
+                .run(context -> assertThat(context).hasSingleBean(PriceAlertRearmFlusher.class));
+        contextRunner.withPropertyValues("price-alerts.rearm.flush-enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(PriceAlertRearmFlusher.class));
+    }
+}
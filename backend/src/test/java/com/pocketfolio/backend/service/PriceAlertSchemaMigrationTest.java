@@ -0,0 +1,78 @@
+package com.pocketfolio.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceAlertSchemaMigration 單元測試")
+class PriceAlertSchemaMigrationTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private PriceAlertSchemaMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        migration = new PriceAlertSchemaMigration(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    @DisplayName("target_price 仍為 NOT NULL 時放寬")
+    void relaxTargetPrice_notNull_dropsConstraint() {
+        given(jdbcTemplate.queryForList(contains("information_schema.columns"), eq(String.class), eq("price_alerts")))
+                .willReturn(List.of("NO"));
+
+        migration.relaxTargetPrice();
+
+        then(jdbcTemplate).should().execute("ALTER TABLE price_alerts ALTER COLUMN target_price DROP NOT NULL");
+    }
+
+    @Test
+    @DisplayName("target_price 已可為 null 時不做任何事")
+    void relaxTargetPrice_alreadyNullable_noop() {
+        given(jdbcTemplate.queryForList(contains("information_schema.columns"), eq(String.class), eq("price_alerts")))
+                .willReturn(List.of("YES"));
+
+        migration.relaxTargetPrice();
+
+        then(jdbcTemplate).should(never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("舊的 condition check 缺少新的 enum 值時依目前 enum 重建")
+    void widenConditionCheck_missingValues_recreates() {
+        given(jdbcTemplate.queryForList(contains("pg_constraint"), eq(String.class),
+                eq("price_alerts"), eq("price_alerts_condition_check")))
+                .willReturn(List.of("CHECK (((condition)::text = ANY ((ARRAY['ABOVE'::character varying, "
+                        + "'BELOW'::character varying])::text[])))"));
+
+        migration.widenConditionCheck();
+
+        then(jdbcTemplate).should().execute("ALTER TABLE price_alerts DROP CONSTRAINT price_alerts_condition_check");
+        then(jdbcTemplate).should().execute("ALTER TABLE price_alerts ADD CONSTRAINT price_alerts_condition_check "
+                + "CHECK (condition IN ('ABOVE', 'BELOW', 'CROSS', 'PERCENT_CHANGE'))");
+    }
+
+    @Test
+    @DisplayName("check constraint 已包含所有 enum 值時不重建")
+    void widenConditionCheck_complete_noop() {
+        given(jdbcTemplate.queryForList(contains("pg_constraint"), eq(String.class),
+                eq("price_alerts"), eq("price_alerts_condition_check")))
+                .willReturn(List.of("CHECK ((condition IN ('ABOVE', 'BELOW', 'CROSS', 'PERCENT_CHANGE')))"));
+
+        migration.widenConditionCheck();
+
+        then(jdbcTemplate).should(never()).execute(anyString());
+    }
+}
@@ -2,7 +2,9 @@ package com.pocketfolio.backend.service;
 
 import com.pocketfolio.backend.dto.PriceAlertRequest;
 import com.pocketfolio.backend.dto.PriceAlertResponse;
+import com.pocketfolio.backend.dto.TriggeredAlert;
 import com.pocketfolio.backend.entity.*;
+import com.pocketfolio.backend.event.PriceChangedEvent;
 import com.pocketfolio.backend.exception.ResourceNotFoundException;
 import com.pocketfolio.backend.repository.AssetRepository;
 import com.pocketfolio.backend.repository.PriceAlertRepository;
@@ -12,13 +14,18 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,6 +39,9 @@ class PriceAlertServiceTest {
 
     @Mock private PriceAlertRepository alertRepository;
     @Mock private AssetRepository assetRepository;
+    private final PriceWindowTracker windowTracker = new PriceWindowTracker();
+    @Spy private PriceAlertIndex alertIndex = new PriceAlertIndex(windowTracker);
+    @Mock private PriceAlertIndexSync indexSync;
 
     @InjectMocks private PriceAlertService service;
 
@@ -61,6 +71,11 @@ class PriceAlertServiceTest {
         return u;
     }
 
+    // markTriggered 的 stub：傳入的警報全部標記成功
+    private static Answer<List<UUID>> allMarked() {
+        return inv -> List.copyOf(inv.<Collection<UUID>>getArgument(0));
+    }
+
     private PriceAlert alertWith(UUID id, UUID ownerId) {
         PriceAlert a = new PriceAlert();
         a.setId(id);
@@ -129,6 +144,21 @@ class PriceAlertServiceTest {
             assertThat(alertCaptor.getValue().getAsset()).isEqualTo(asset);
         }
 
+        @Test
+        @DisplayName("PERCENT_CHANGE 未指定觀察區間：拋出 IllegalArgumentException 且不儲存")
+        void create_percentChangeWithoutWindow_throws() {
+            PriceAlertRequest req = alertRequest();
+            req.setCondition(PriceAlert.AlertCondition.PERCENT_CHANGE);
+            req.setTargetPrice(null);
+            req.setChangePercent(new BigDecimal("5"));
+
+            assertThatThrownBy(() -> service.createAlert(req))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("觀察區間");
+
+            then(alertRepository).should(never()).save(any());
+        }
+
         @Test
         @DisplayName("指定他人的資產：拋出 IllegalArgumentException 且不儲存")
         void create_withOtherUserAsset_throws() {
@@ -345,74 +375,434 @@ class PriceAlertServiceTest {
     @DisplayName("checkPriceAlerts（價格觸發邏輯）")
     class CheckPriceAlerts {
 
+        private PriceAlert indexed(UUID ownerId, String symbol, PriceAlert.AlertCondition condition, String targetPrice) {
+            PriceAlert alert = alertWith(UUID.randomUUID(), ownerId);
+            alert.setSymbol(symbol);
+            alert.setCondition(condition);
+            alert.setTargetPrice(new BigDecimal(targetPrice));
+            alertIndex.upsert(alert);
+            return alert;
+        }
+
+        private PriceAlert indexedPercent(String changePercent, PriceAlert.AlertWindow window) {
+            PriceAlert alert = alertWith(UUID.randomUUID(), CURRENT_USER_ID);
+            alert.setCondition(PriceAlert.AlertCondition.PERCENT_CHANGE);
+            alert.setTargetPrice(null);
+            alert.setChangePercent(new BigDecimal(changePercent));
+            alert.setChangeWindow(window);
+            alertIndex.upsert(alert);
+            return alert;
+        }
+
+        private PriceChangedEvent tick(String symbol, String oldPrice, String newPrice, LocalDateTime at) {
+            return new PriceChangedEvent(symbol, symbol,
+                    oldPrice != null ? new BigDecimal(oldPrice) : null, new BigDecimal(newPrice), at);
+        }
+
+        private Map<UUID, List<TriggeredAlert>> check(String symbol, String price) {
+            return service.checkPriceAlerts(List.of(tick(symbol, null, price, LocalDateTime.now())));
+        }
+
         @Test
-        @DisplayName("ABOVE 條件：當前價格 >= 目標價格 → 觸發並標記")
+        @DisplayName("ABOVE 條件：當前價格 >= 目標價格 → 觸發並以單一 UPDATE 標記")
         void check_aboveCondition_triggersWhenPriceReachesTarget() {
-            PriceAlert alert = alertWith(UUID.randomUUID(), CURRENT_USER_ID);
-            alert.setCondition(PriceAlert.AlertCondition.ABOVE);
-            alert.setTargetPrice(new BigDecimal("100000"));
-            given(alertRepository.findActiveAlertsBySymbol("BTC")).willReturn(List.of(alert));
-            given(alertRepository.save(any())).willReturn(alert);
+            PriceAlert alert = indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "100000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
 
-            List<PriceAlert> triggered = service.checkPriceAlerts("BTC", new BigDecimal("100001"));
+            Map<UUID, List<TriggeredAlert>> triggered = check("BTC", "100001");
 
-            assertThat(triggered).hasSize(1);
-            then(alertRepository).should().save(alertCaptor.capture());
-            assertThat(alertCaptor.getValue().isTriggered()).isTrue();
-            assertThat(alertCaptor.getValue().getTriggeredAt()).isNotNull();
+            assertThat(triggered.get(CURRENT_USER_ID)).singleElement()
+                    .satisfies(t -> {
+                        assertThat(t.getAlertId()).isEqualTo(alert.getId());
+                        assertThat(t.getCurrentPrice()).isEqualByComparingTo("100001");
+                    });
+            then(alertRepository).should().markTriggered(eq(List.of(alert.getId())), any(), any());
+            then(alertRepository).should(never()).save(any());
         }
 
         @Test
-        @DisplayName("ABOVE 條件：當前價格 < 目標價格 → 不觸發")
+        @DisplayName("ABOVE 條件：當前價格 < 目標價格 → 不觸發，也不查 DB")
         void check_aboveCondition_noTriggerWhenPriceBelow() {
-            PriceAlert alert = alertWith(UUID.randomUUID(), CURRENT_USER_ID);
-            alert.setCondition(PriceAlert.AlertCondition.ABOVE);
-            alert.setTargetPrice(new BigDecimal("100000"));
-            given(alertRepository.findActiveAlertsBySymbol("BTC")).willReturn(List.of(alert));
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "100000");
+
+            assertThat(check("BTC", "99999")).isEmpty();
+            then(alertRepository).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("BELOW 條件：當前價格 <= 目標價格 → 觸發")
+        void check_belowCondition_triggersWhenPriceDropsToTarget() {
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.BELOW, "50000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+
+            assertThat(check("BTC", "49999")).containsOnlyKeys(CURRENT_USER_ID);
+        }
+
+        @Test
+        @DisplayName("BELOW 條件：當前價格 > 目標價格 → 不觸發")
+        void check_belowCondition_noTriggerWhenPriceAbove() {
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.BELOW, "50000");
+
+            assertThat(check("BTC", "50001")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("多個代號、多位用戶：一次 UPDATE，結果依用戶分組")
+        void check_multipleSymbols_singleUpdateGroupedByUser() {
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "100000");
+            indexed(CURRENT_USER_ID, "ETH", PriceAlert.AlertCondition.BELOW, "3000");
+            indexed(OTHER_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "90000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+
+            Map<UUID, List<TriggeredAlert>> triggered = service.checkPriceAlerts(List.of(
+                    tick("BTC", null, "100500", LocalDateTime.now()),
+                    tick("ETH", null, "2900", LocalDateTime.now())));
+
+            assertThat(triggered.get(CURRENT_USER_ID)).hasSize(2);
+            assertThat(triggered.get(OTHER_USER_ID)).hasSize(1);
+            then(alertRepository).should(times(1)).markTriggered(anyCollection(), any(), any());
+        }
+
+        @Test
+        @DisplayName("CROSS 條件：價格由下往上或由上往下穿越目標價才觸發")
+        void check_crossCondition_triggersOnlyWhenCrossing() {
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.CROSS, "100000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+            LocalDateTime now = LocalDateTime.now();
+
+            // 兩筆都在目標價之上：未穿越
+            assertThat(service.checkPriceAlerts(List.of(tick("BTC", "100500", "101000", now)))).isEmpty();
+            // 由上往下穿越
+            assertThat(service.checkPriceAlerts(List.of(tick("BTC", "101000", "99000", now))))
+                    .containsOnlyKeys(CURRENT_USER_ID);
+        }
+
+        @Test
+        @DisplayName("PERCENT_CHANGE：1 小時內由低點上漲超過門檻才觸發，並帶出實際漲幅")
+        void check_percentRise_withinWindow() {
+            indexedPercent("5", PriceAlert.AlertWindow.ONE_HOUR);
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+            LocalDateTime start = LocalDateTime.now().minusMinutes(30);
+
+            assertThat(service.checkPriceAlerts(List.of(tick("BTC", null, "100", start)))).isEmpty();
+            assertThat(service.checkPriceAlerts(List.of(tick("BTC", "100", "103", start.plusMinutes(10))))).isEmpty();
 
-            List<PriceAlert> triggered = service.checkPriceAlerts("BTC", new BigDecimal("99999"));
+            Map<UUID, List<TriggeredAlert>> triggered =
+                    service.checkPriceAlerts(List.of(tick("BTC", "103", "106", start.plusMinutes(20))));
+
+            assertThat(triggered.get(CURRENT_USER_ID)).singleElement()
+                    .satisfies(t -> assertThat(t.getObservedPercent()).isEqualByComparingTo("6.00"));
+        }
+
+        @Test
+        @DisplayName("PERCENT_CHANGE：超出觀察區間的低點不列入計算")
+        void check_percentRise_ignoresTicksOutsideWindow() {
+            indexedPercent("5", PriceAlert.AlertWindow.ONE_HOUR);
+            LocalDateTime start = LocalDateTime.now().minusHours(3);
+
+            service.checkPriceAlerts(List.of(tick("BTC", null, "100", start)));
+            Map<UUID, List<TriggeredAlert>> triggered =
+                    service.checkPriceAlerts(List.of(tick("BTC", "100", "106", start.plusHours(2))));
 
             assertThat(triggered).isEmpty();
-            then(alertRepository).should(never()).save(any());
+            then(alertRepository).shouldHaveNoInteractions();
         }
 
         @Test
-        @DisplayName("BELOW 條件：當前價格 <= 目標價格 → 觸發並標記")
-        void check_belowCondition_triggersWhenPriceDropsToTarget() {
-            PriceAlert alert = alertWith(UUID.randomUUID(), CURRENT_USER_ID);
-            alert.setCondition(PriceAlert.AlertCondition.BELOW);
-            alert.setTargetPrice(new BigDecimal("50000"));
-            given(alertRepository.findActiveAlertsBySymbol("BTC")).willReturn(List.of(alert));
+        @DisplayName("PERCENT_CHANGE：負數門檻為跌幅，以區間最高價計算")
+        void check_percentDrop_fromWindowHigh() {
+            indexedPercent("-5", PriceAlert.AlertWindow.TWENTY_FOUR_HOURS);
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+            LocalDateTime start = LocalDateTime.now().minusHours(12);
+
+            service.checkPriceAlerts(List.of(tick("BTC", null, "100", start)));
+            service.checkPriceAlerts(List.of(tick("BTC", "100", "110", start.plusHours(4))));
+            Map<UUID, List<TriggeredAlert>> triggered =
+                    service.checkPriceAlerts(List.of(tick("BTC", "110", "104", start.plusHours(8))));
+
+            assertThat(triggered).containsOnlyKeys(CURRENT_USER_ID);
+        }
+
+        @Test
+        @DisplayName("只有 PERCENT_CHANGE 警報的代號才記錄滑動視窗，最後一筆移除時釋放")
+        void check_windowsOnlyForPercentAlerts() {
+            indexed(CURRENT_USER_ID, "ETH", PriceAlert.AlertCondition.ABOVE, "5000");
+            PriceAlert percent = indexedPercent("5", PriceAlert.AlertWindow.ONE_HOUR);
+            LocalDateTime now = LocalDateTime.now();
+
+            service.checkPriceAlerts(List.of(tick("BTC", null, "100", now), tick("ETH", null, "3000", now)));
+            assertThat(windowTracker.isTracking("BTC")).isTrue();
+            assertThat(windowTracker.isTracking("ETH")).isFalse();
+
+            alertIndex.remove(percent.getId());
+            assertThat(windowTracker.isTracking("BTC")).isFalse();
+
+            service.checkPriceAlerts(List.of(tick("BTC", "100", "101", now.plusMinutes(5))));
+            assertThat(windowTracker.isTracking("BTC")).isFalse();
+        }
+
+        @Test
+        @DisplayName("修改 PERCENT_CHANGE 警報的其他欄位時保留已累積的視窗")
+        void check_windowsKeptOnUpsert() {
+            PriceAlert percent = indexedPercent("5", PriceAlert.AlertWindow.ONE_HOUR);
+            service.checkPriceAlerts(List.of(tick("BTC", null, "100", LocalDateTime.now())));
+
+            percent.setNote("改備註");
+            alertIndex.upsert(percent);
+
+            assertThat(windowTracker.isTracking("BTC")).isTrue();
+        }
+
+        @Test
+        @DisplayName("已觸發的警報自索引移除，下一次價格更新不會重複觸發")
+        void check_triggeredAlert_notTriggeredTwice() {
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "100000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+
+            check("BTC", "100500");
+
+            assertThat(check("BTC", "101000")).isEmpty();
+            then(alertRepository).should(times(1)).markTriggered(anyCollection(), any(), any());
+        }
+
+        @Test
+        @DisplayName("只通知 DB 實際標記成功的警報（其他節點已觸發的略過）")
+        void check_notifiesOnlyMarkedRows() {
+            PriceAlert mine = indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "100000");
+            indexed(OTHER_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "90000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willReturn(List.of(mine.getId()));
+
+            Map<UUID, List<TriggeredAlert>> triggered = check("BTC", "100500");
+
+            assertThat(triggered).containsOnlyKeys(CURRENT_USER_ID);
+            assertThat(triggered.get(CURRENT_USER_ID)).extracting(TriggeredAlert::getAlertId)
+                    .containsExactly(mine.getId());
+        }
+
+        @Test
+        @DisplayName("DB 沒有任何警報標記成功時不通知")
+        void check_noRowsMarked_returnsEmptyMap() {
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "100000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willReturn(List.of());
+
+            assertThat(check("BTC", "100500")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("標記觸發時帶入冷卻時間的截止點")
+        void check_passesCooldownCutoff() {
+            indexed(CURRENT_USER_ID, "BTC", PriceAlert.AlertCondition.ABOVE, "100000");
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+
+            check("BTC", "100500");
+
+            ArgumentCaptor<LocalDateTime> triggeredAt = ArgumentCaptor.forClass(LocalDateTime.class);
+            ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+            then(alertRepository).should().markTriggered(anyCollection(), triggeredAt.capture(), cutoff.capture());
+            assertThat(cutoff.getValue()).isEqualTo(triggeredAt.getValue().minusMinutes(15));
+        }
+
+        @Test
+        @DisplayName("無啟用警報時，回傳空 Map 且不查 DB")
+        void check_noActiveAlerts_returnsEmptyMap() {
+            assertThat(check("ETH", "3000")).isEmpty();
+            then(alertRepository).shouldHaveNoInteractions();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // 索引維護
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("警報索引維護")
+    class IndexMaintenance {
+
+        @Test
+        @DisplayName("啟動時以 DB 的啟用警報建立索引")
+        void load_buildsIndexFromActiveAlerts() {
+            given(alertRepository.findIndexable())
+                    .willReturn(List.of(alertWith(UUID.randomUUID(), CURRENT_USER_ID)));
+
+            service.loadAlertIndex();
+
+            assertThat(alertIndex.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("建立警報後立即可被價格更新觸發")
+        void create_addsToIndex() {
+            PriceAlert saved = alertWith(UUID.randomUUID(), CURRENT_USER_ID);
+            given(alertRepository.save(any())).willReturn(saved);
+
+            service.createAlert(alertRequest());
+
+            assertThat(alertIndex.pollTriggered("BTC", new BigDecimal("100000")))
+                    .extracting(PriceAlertIndex.IndexedAlert::id)
+                    .containsExactly(saved.getId());
+        }
+
+        @Test
+        @DisplayName("停用與刪除都會自索引移除")
+        void toggleAndDelete_removeFromIndex() {
+            UUID id = UUID.randomUUID();
+            PriceAlert alert = alertWith(id, CURRENT_USER_ID);
+            alertIndex.upsert(alert);
+            given(alertRepository.findById(id)).willReturn(Optional.of(alert));
             given(alertRepository.save(any())).willReturn(alert);
 
-            List<PriceAlert> triggered = service.checkPriceAlerts("BTC", new BigDecimal("49999"));
+            service.toggleAlert(id, false);
+            assertThat(alertIndex.size()).isZero();
+
+            service.toggleAlert(id, true);
+            assertThat(alertIndex.size()).isEqualTo(1);
 
-            assertThat(triggered).hasSize(1);
-            then(alertRepository).should().save(any());
+            service.deleteAlert(id);
+            assertThat(alertIndex.size()).isZero();
         }
 
         @Test
-        @DisplayName("BELOW 條件：當前價格 > 目標價格 → 不觸發")
-        void check_belowCondition_noTriggerWhenPriceAbove() {
+        @DisplayName("建立、修改、啟用 / 停用、刪除後都通知其他節點同步索引")
+        void changes_publishedToOtherNodes() {
+            UUID id = UUID.randomUUID();
+            PriceAlert alert = alertWith(id, CURRENT_USER_ID);
+            given(alertRepository.findById(id)).willReturn(Optional.of(alert));
+            given(alertRepository.save(any())).willReturn(alert);
+
+            service.createAlert(alertRequest());
+            service.updateAlert(id, alertRequest());
+            service.toggleAlert(id, false);
+            service.deleteAlert(id);
+
+            then(indexSync).should(times(4)).publishChanged(id);
+        }
+
+        @Test
+        @DisplayName("更新目標價後以新的目標價索引")
+        void update_reindexesTargetPrice() {
+            UUID id = UUID.randomUUID();
+            PriceAlert alert = alertWith(id, CURRENT_USER_ID);
+            alertIndex.upsert(alert);
+            given(alertRepository.findById(id)).willReturn(Optional.of(alert));
+            given(alertRepository.save(any())).willReturn(alert);
+
+            PriceAlertRequest req = alertRequest();
+            req.setTargetPrice(new BigDecimal("200000"));
+            service.updateAlert(id, req);
+
+            assertThat(alertIndex.pollTriggered("BTC", new BigDecimal("150000"))).isEmpty();
+            assertThat(alertIndex.pollTriggered("BTC", new BigDecimal("200000")))
+                    .extracting(PriceAlertIndex.IndexedAlert::id)
+                    .containsExactly(id);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // 自動重新啟用
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("自動重新啟用（遲滯區間 + 冷卻）")
+    class AutoRearm {
+
+        private final LocalDateTime start = LocalDateTime.now().minusHours(2);
+
+        private PriceAlert indexedAutoRearm() {
             PriceAlert alert = alertWith(UUID.randomUUID(), CURRENT_USER_ID);
-            alert.setCondition(PriceAlert.AlertCondition.BELOW);
-            alert.setTargetPrice(new BigDecimal("50000"));
-            given(alertRepository.findActiveAlertsBySymbol("BTC")).willReturn(List.of(alert));
+            alert.setAutoRearm(true);
+            alertIndex.upsert(alert);
+            return alert;
+        }
 
-            List<PriceAlert> triggered = service.checkPriceAlerts("BTC", new BigDecimal("50001"));
+        private Map<UUID, List<TriggeredAlert>> checkAt(int minutes, String price) {
+            return service.checkPriceAlerts(List.of(new PriceChangedEvent(
+                    "BTC", "Bitcoin", null, new BigDecimal(price), start.plusMinutes(minutes))));
+        }
 
-            assertThat(triggered).isEmpty();
+        @Test
+        @DisplayName("冷卻結束且價格回到遲滯區間外才重新啟用，之後可再次觸發")
+        void rearm_afterCooldownAndBand() {
+            PriceAlert alert = indexedAutoRearm();
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+
+            assertThat(checkAt(0, "100500")).containsOnlyKeys(CURRENT_USER_ID);
+            // 冷卻中：即使價格已離開區間也不重新啟用
+            assertThat(checkAt(5, "98000")).isEmpty();
+            assertThat(alertIndex.drainRearmed()).isEmpty();
+            // 冷卻結束但仍在遲滯區間內（99000 < 價格 < 100000）
+            assertThat(checkAt(20, "99500")).isEmpty();
+            assertThat(alertIndex.drainRearmed()).isEmpty();
+            // 離開遲滯區間：重新啟用，再次站上目標價時觸發
+            assertThat(checkAt(21, "98900")).isEmpty();
+            assertThat(checkAt(22, "100100")).containsOnlyKeys(CURRENT_USER_ID);
+
+            then(alertRepository).should(times(2)).markTriggered(eq(List.of(alert.getId())), any(), any());
+            assertThat(alertIndex.size()).isEqualTo(1);
         }
 
         @Test
-        @DisplayName("無啟用警報時，回傳空 List 且不呼叫 save")
-        void check_noActiveAlerts_returnsEmptyList() {
-            given(alertRepository.findActiveAlertsBySymbol("ETH")).willReturn(List.of());
+        @DisplayName("價格在目標價附近來回震盪：只觸發一次，不產生寫入 / 通知風暴")
+        void oscillatingPrice_triggersOnce() {
+            indexedAutoRearm();
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+
+            int notifications = 0;
+            for (int minute = 0; minute < 60; minute++) {
+                notifications += checkAt(minute, minute % 2 == 0 ? "100100" : "99900").size();
+            }
+
+            assertThat(notifications).isEqualTo(1);
+            then(alertRepository).should(times(1)).markTriggered(anyCollection(), any(), any());
+        }
 
-            List<PriceAlert> triggered = service.checkPriceAlerts("ETH", new BigDecimal("3000"));
+        @Test
+        @DisplayName("重新啟用的警報累積後以單一 UPDATE 寫回")
+        void flushRearmed_batchesIds() {
+            PriceAlert first = indexedAutoRearm();
+            PriceAlert second = indexedAutoRearm();
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+            given(alertRepository.markRearmed(anyCollection())).willReturn(2);
+
+            checkAt(0, "100500");
+            checkAt(30, "98000");
+
+            assertThat(service.flushRearmed()).isEqualTo(2);
+            then(alertRepository).should(times(1))
+                    .markRearmed(argThat(ids -> ids.containsAll(List.of(first.getId(), second.getId()))));
+            // 已寫回，下一次不再重複寫
+            assertThat(service.flushRearmed()).isZero();
+        }
 
-            assertThat(triggered).isEmpty();
-            then(alertRepository).should(never()).save(any());
+        @Test
+        @DisplayName("重新啟用尚未寫回前再次觸發：不寫回，只更新觸發時間")
+        void retriggerBeforeFlush_skipsRearmWrite() {
+            indexedAutoRearm();
+            given(alertRepository.markTriggered(anyCollection(), any(), any())).willAnswer(allMarked());
+
+            checkAt(0, "100500");
+            checkAt(30, "98000");
+            checkAt(31, "100500");
+
+            assertThat(service.flushRearmed()).isZero();
+            then(alertRepository).should(never()).markRearmed(anyCollection());
+        }
+
+        @Test
+        @DisplayName("啟動時已觸發的 autoRearm 警報進入待重新啟用狀態，未啟用自動重新啟用的不載入")
+        void load_triggeredAutoRearm_waitsForRearm() {
+            PriceAlert alert = alertWith(UUID.randomUUID(), CURRENT_USER_ID);
+            alert.setAutoRearm(true);
+            alert.setTriggered(true);
+            alert.setTriggeredAt(start);
+            given(alertRepository.findIndexable()).willReturn(List.of(alert));
+
+            service.loadAlertIndex();
+
+            assertThat(alertIndex.size()).isEqualTo(1);
+            // 仍在目標價之上：不重複觸發
+            assertThat(checkAt(60, "100500")).isEmpty();
+            assertThat(checkAt(61, "98000")).isEmpty();
+            assertThat(alertIndex.drainRearmed()).containsExactly(alert.getId());
         }
     }
 }
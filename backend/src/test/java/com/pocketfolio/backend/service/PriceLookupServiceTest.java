@@ -0,0 +1,149 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.dto.PriceData;
+import com.pocketfolio.backend.entity.AssetType;
+import com.pocketfolio.backend.service.external.CoinGeckoService;
+import com.pocketfolio.backend.service.external.YahooFinanceService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceLookupService 單元測試")
+class PriceLookupServiceTest {
+
+    @Mock private CoinGeckoService coinGeckoService;
+    @Mock private YahooFinanceService yahooFinanceService;
+
+    private PriceLookupService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PriceLookupService(coinGeckoService, yahooFinanceService);
+        configure(Duration.ofSeconds(30));
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private void configure(Duration softTtl) {
+        ReflectionTestUtils.setField(service, "softTtl", softTtl);
+        ReflectionTestUtils.setField(service, "maxStale", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(service, "maxSize", 100L);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofSeconds(5));
+        service.initCache();
+    }
+
+    private PriceData priceOf(String symbol, String price) {
+        return PriceData.builder()
+                .symbol(symbol)
+                .price(new BigDecimal(price))
+                .currency("TWD")
+                .updateTime(LocalDateTime.now())
+                .build();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("soft-ttl 內的重複查詢直接由本機回應")
+    void getPrice_freshEntry_servedLocally() {
+        given(yahooFinanceService.getPrice("2330.TW")).willReturn(priceOf("2330.TW", "850"));
+
+        PriceData first = service.getPrice("2330.TW", AssetType.STOCK);
+        PriceData second = service.getPrice("2330.TW", AssetType.STOCK);
+
+        assertThat(first.getPrice()).isEqualByComparingTo("850");
+        assertThat(second.isStale()).isFalse();
+        then(yahooFinanceService).should(times(1)).getPrice("2330.TW");
+    }
+
+    @Test
+    @DisplayName("同一個 key 的並行查詢只呼叫一次 provider")
+    void getPrice_concurrentMisses_coalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        given(coinGeckoService.getPrice("bitcoin")).willAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return priceOf("bitcoin", "100000");
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PriceData>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> service.getPrice("bitcoin", AssetType.CRYPTO)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<PriceData> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getPrice()).isEqualByComparingTo("100000");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        then(coinGeckoService).should(times(1)).getPrice("bitcoin");
+    }
+
+    @Test
+    @DisplayName("超過 soft-ttl：立即回傳標記 stale 的舊值，並在背景刷新")
+    void getPrice_staleEntry_servedWhileRevalidating() {
+        configure(Duration.ZERO);
+        given(yahooFinanceService.getPrice("2330.TW"))
+                .willReturn(priceOf("2330.TW", "850"))
+                .willReturn(priceOf("2330.TW", "860"));
+
+        service.getPrice("2330.TW", AssetType.STOCK);
+        PriceData stale = service.getPrice("2330.TW", AssetType.STOCK);
+
+        assertThat(stale.isStale()).isTrue();
+        assertThat(stale.getPrice()).isEqualByComparingTo("850");
+        then(yahooFinanceService).should(timeout(2000).times(2)).getPrice("2330.TW");
+    }
+
+    @Test
+    @DisplayName("刷新失敗時保留最後已知價格")
+    void getPrice_refreshFails_keepsLastKnown() {
+        configure(Duration.ZERO);
+        given(yahooFinanceService.getPrice("2330.TW"))
+                .willReturn(priceOf("2330.TW", "850"))
+                .willThrow(new RuntimeException("API 失敗"));
+
+        service.getPrice("2330.TW", AssetType.STOCK);
+        service.getPrice("2330.TW", AssetType.STOCK);
+        then(yahooFinanceService).should(timeout(2000).times(2)).getPrice("2330.TW");
+
+        assertThat(service.getPrice("2330.TW", AssetType.STOCK).getPrice()).isEqualByComparingTo("850");
+    }
+
+    @Test
+    @DisplayName("evict 後重新查詢 provider")
+    void evict_forcesReload() {
+        given(yahooFinanceService.getPrice("2330.TW")).willReturn(priceOf("2330.TW", "850"));
+
+        service.getPrice("2330.TW", AssetType.STOCK);
+        service.evict("2330.tw", AssetType.STOCK);
+        service.getPrice("2330.TW", AssetType.STOCK);
+
+        then(yahooFinanceService).should(times(2)).getPrice("2330.TW");
+    }
+
+    @Test
+    @DisplayName("不支援報價的資產類型回傳 null")
+    void getPrice_unsupportedType_returnsNull() {
+        assertThat(service.getPrice("XYZ", AssetType.BOND)).isNull();
+        then(yahooFinanceService).shouldHaveNoInteractions();
+        then(coinGeckoService).shouldHaveNoInteractions();
+    }
+}
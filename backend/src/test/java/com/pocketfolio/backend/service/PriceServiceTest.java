@@ -0,0 +1,222 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.dto.PriceData;
+import com.pocketfolio.backend.dto.PriceRefreshTarget;
+import com.pocketfolio.backend.dto.PriceUpdateResponse;
+import com.pocketfolio.backend.dto.QuoteUpdate;
+import com.pocketfolio.backend.entity.Asset;
+import com.pocketfolio.backend.entity.AssetType;
+import com.pocketfolio.backend.event.PriceEventBus;
+import com.pocketfolio.backend.repository.AssetRepository;
+import com.pocketfolio.backend.service.external.CoinGeckoService;
+import com.pocketfolio.backend.service.external.YahooFinanceService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceService 單元測試")
+class PriceServiceTest {
+
+    @Mock private CoinGeckoService coinGeckoService;
+    @Mock private YahooFinanceService yahooFinanceService;
+    @Mock private AssetRepository assetRepository;
+    @Mock private PriceEventBus priceEventBus;
+    @Mock private PriceLookupService priceLookupService;
+    @Mock private QuoteService quoteService;
+
+    @InjectMocks private PriceService service;
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private PriceData priceOf(String symbol, String price, String currency) {
+        return PriceData.builder()
+                .symbol(symbol)
+                .price(new BigDecimal(price))
+                .currency(currency)
+                .updateTime(LocalDateTime.now())
+                .build();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // updateAllAssetPrices
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("updateAllAssetPrices（全站價格排程）")
+    class UpdateAllAssetPrices {
+
+        // 依代號回傳對應的寫入筆數，順序與傳入的 updates 一致
+        private void stubBatchRows(Map<String, Integer> rowsBySymbol) {
+            given(quoteService.upsertAll(anyList(), any())).willAnswer(inv -> {
+                List<QuoteUpdate> updates = inv.getArgument(0);
+                return updates.stream()
+                        .mapToInt(u -> rowsBySymbol.getOrDefault(u.getSymbol(), 0))
+                        .toArray();
+            });
+        }
+
+        @Test
+        @DisplayName("每個不重複代號只在批次查詢中出現一次，並以單次 batch upsert 寫入一列報價")
+        void updateAll_fetchesOncePerSymbol_andBatchUpdates() {
+            given(assetRepository.findDistinctPriceTargets()).willReturn(List.of(
+                    new PriceRefreshTarget("2330.TW", AssetType.STOCK, "台積電", new BigDecimal("800")),
+                    new PriceRefreshTarget("BITCOIN", AssetType.CRYPTO, "比特幣", new BigDecimal("90000"))
+            ));
+            given(yahooFinanceService.fetchPrices(any()))
+                    .willReturn(Flux.just(priceOf("2330.TW", "850", "TWD")));
+            given(coinGeckoService.fetchPrices(any()))
+                    .willReturn(Flux.just(priceOf("bitcoin", "100000", "USD")));
+            stubBatchRows(Map.of("2330.TW", 1, "BITCOIN", 1));
+
+            int updated = service.updateAllAssetPrices();
+
+            assertThat(updated).isEqualTo(2);
+            then(yahooFinanceService).should(times(1)).fetchPrices(Set.of("2330.TW"));
+            then(coinGeckoService).should(times(1)).fetchPrices(Set.of("bitcoin"));
+            then(yahooFinanceService).should(never()).getPrice(any());
+            then(coinGeckoService).should(never()).getPrice(any());
+            then(quoteService).should(times(1)).upsertAll(anyList(), any());
+            then(priceEventBus).should(times(2)).publish(any());
+            then(priceEventBus).should().publish(argThat(event ->
+                    event.getSymbol().equals("2330.TW")
+                            && event.getOldPrice().compareTo(new BigDecimal("800")) == 0
+                            && event.getNewPrice().compareTo(new BigDecimal("850")) == 0));
+            then(assetRepository).should(never()).findById(any());
+            then(assetRepository).should(never()).save(any());
+        }
+
+        @Test
+        @DisplayName("取不到價格的代號：不寫入、不推播")
+        void updateAll_skipsSymbolWhenPriceUnavailable() {
+            given(assetRepository.findDistinctPriceTargets()).willReturn(List.of(
+                    new PriceRefreshTarget("2330.TW", AssetType.STOCK, "台積電", new BigDecimal("800"))
+            ));
+            given(yahooFinanceService.fetchPrices(any())).willReturn(Flux.empty());
+            given(coinGeckoService.fetchPrices(any())).willReturn(Flux.empty());
+
+            int updated = service.updateAllAssetPrices();
+
+            assertThat(updated).isZero();
+            then(quoteService).should(never()).upsertAll(anyList(), any());
+            then(priceEventBus).should(never()).publish(any());
+        }
+
+        @Test
+        @DisplayName("批次寫入失敗：該 chunk 不推播，排程不拋出例外")
+        void updateAll_chunkFailure_isContained() {
+            given(assetRepository.findDistinctPriceTargets()).willReturn(List.of(
+                    new PriceRefreshTarget("2330.TW", AssetType.STOCK, "台積電", new BigDecimal("800")),
+                    new PriceRefreshTarget("2317.TW", AssetType.STOCK, "鴻海", new BigDecimal("100"))
+            ));
+            given(yahooFinanceService.fetchPrices(any())).willReturn(Flux.just(
+                    priceOf("2330.TW", "850", "TWD"),
+                    priceOf("2317.TW", "110", "TWD")));
+            given(coinGeckoService.fetchPrices(any())).willReturn(Flux.empty());
+            given(quoteService.upsertAll(anyList(), any()))
+                    .willThrow(new RuntimeException("DB 錯誤"));
+
+            assertThat(service.updateAllAssetPrices()).isZero();
+            then(priceEventBus).should(never()).publish(any());
+        }
+
+        @Test
+        @DisplayName("報價寫入 0 筆的代號不推播")
+        void updateAll_noRowsUpdated_skipsBroadcast() {
+            given(assetRepository.findDistinctPriceTargets()).willReturn(List.of(
+                    new PriceRefreshTarget("2330.TW", AssetType.STOCK, "台積電", new BigDecimal("800")),
+                    new PriceRefreshTarget("2317.TW", AssetType.STOCK, "鴻海", new BigDecimal("100"))
+            ));
+            given(yahooFinanceService.fetchPrices(any())).willReturn(Flux.just(
+                    priceOf("2330.TW", "850", "TWD"),
+                    priceOf("2317.TW", "110", "TWD")));
+            given(coinGeckoService.fetchPrices(any())).willReturn(Flux.empty());
+            stubBatchRows(Map.of("2317.TW", 1));
+
+            assertThat(service.updateAllAssetPrices()).isEqualTo(1);
+            then(priceEventBus).should(times(1)).publish(any());
+        }
+
+        @Test
+        @DisplayName("沒有任何資產時直接回傳 0")
+        void updateAll_noAssets_returnsZero() {
+            given(assetRepository.findDistinctPriceTargets()).willReturn(List.of());
+
+            assertThat(service.updateAllAssetPrices()).isZero();
+            then(coinGeckoService).shouldHaveNoInteractions();
+            then(yahooFinanceService).shouldHaveNoInteractions();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // updateUserAssetPrices
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("updateUserAssetPrices（用戶手動更新）")
+    class UpdateUserAssetPrices {
+
+        private final UUID userId = UUID.randomUUID();
+
+        private Asset assetOf(String symbol, AssetType type, String currentPrice) {
+            Asset asset = new Asset();
+            asset.setId(UUID.randomUUID());
+            asset.setSymbol(symbol);
+            asset.setName(symbol);
+            asset.setType(type);
+            asset.setCurrentPrice(new BigDecimal(currentPrice));
+            return asset;
+        }
+
+        @Test
+        @DisplayName("同代號只查一次價格、只寫一列報價，不改寫資產列")
+        void updateUser_singleLookupPerSymbol_andBatchWrite() {
+            Asset inBroker = assetOf("2330.TW", AssetType.STOCK, "800");
+            Asset inBank = assetOf("2330.TW", AssetType.STOCK, "800");
+            given(assetRepository.findByUserId(userId)).willReturn(List.of(inBroker, inBank));
+            given(yahooFinanceService.getPrice("2330.TW")).willReturn(priceOf("2330.TW", "880", "TWD"));
+            given(quoteService.upsertAll(anyList(), any())).willReturn(new int[]{1});
+
+            List<PriceUpdateResponse> results = service.updateUserAssetPrices(userId);
+
+            assertThat(results).hasSize(2).allMatch(PriceUpdateResponse::isSuccess);
+            assertThat(results.get(0).getChangePercent()).isEqualByComparingTo("10.00");
+            then(yahooFinanceService).should(times(1)).getPrice("2330.TW");
+            then(quoteService).should(times(1)).upsertAll(argThat(updates -> updates.size() == 1), any());
+            then(assetRepository).should(never()).findById(any());
+            then(assetRepository).should(never()).save(any());
+            then(priceEventBus).should(times(1)).publish(any());
+        }
+
+        @Test
+        @DisplayName("取不到價格的資產回傳失敗，其他資產照常寫入")
+        void updateUser_missingPrice_reportedPerAsset() {
+            Asset tsmc = assetOf("2330.TW", AssetType.STOCK, "800");
+            Asset unknown = assetOf("XXXX.TW", AssetType.STOCK, "10");
+            given(assetRepository.findByUserId(userId)).willReturn(List.of(tsmc, unknown));
+            given(yahooFinanceService.getPrice("2330.TW")).willReturn(priceOf("2330.TW", "880", "TWD"));
+            given(yahooFinanceService.getPrice("XXXX.TW")).willReturn(null);
+            given(quoteService.upsertAll(anyList(), any())).willReturn(new int[]{1});
+
+            List<PriceUpdateResponse> results = service.updateUserAssetPrices(userId);
+
+            assertThat(results).extracting(PriceUpdateResponse::isSuccess).containsExactly(true, false);
+            assertThat(results.get(1).getErrorMessage()).isEqualTo("無法取得價格");
+        }
+    }
+}
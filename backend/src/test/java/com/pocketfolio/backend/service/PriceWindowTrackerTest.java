@@ -0,0 +1,141 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.PriceAlert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PriceWindowTracker 單元測試")
+class PriceWindowTrackerTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    @DisplayName("區間最高 / 最低價隨樣本移出視窗而更新")
+    void rollingWindow_minMaxFollowEviction() {
+        PriceWindowTracker.RollingWindow window = new PriceWindowTracker.RollingWindow(10 * MINUTE, 100);
+
+        window.add(0, 100);
+        window.add(MINUTE, 120);
+        window.add(2 * MINUTE, 90);
+        assertThat(window.max()).isEqualTo(120);
+        assertThat(window.min()).isEqualTo(90);
+
+        // t=11.5 分：0 與 1 分的樣本已超出 10 分鐘
+        window.add(11 * MINUTE + MINUTE / 2, 95);
+        assertThat(window.max()).isEqualTo(95);
+        assertThat(window.min()).isEqualTo(90);
+        assertThat(window.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("容量用完時捨棄最舊的樣本")
+    void rollingWindow_capacityEvictsOldest() {
+        PriceWindowTracker.RollingWindow window = new PriceWindowTracker.RollingWindow(Long.MAX_VALUE / 2, 3);
+
+        window.add(1, 50);
+        window.add(2, 10);
+        window.add(3, 20);
+        window.add(4, 30);
+        window.add(5, 40);
+
+        assertThat(window.size()).isEqualTo(3);
+        assertThat(window.min()).isEqualTo(20);
+        assertThat(window.max()).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("隨機序列下與暴力計算的最高 / 最低價一致")
+    void rollingWindow_matchesBruteForce() {
+        assertMatchesBruteForce(20, 16);
+    }
+
+    @Test
+    @DisplayName("容量成長與達到上限時，仍與暴力計算一致")
+    void rollingWindow_matchesBruteForceWhileGrowing() {
+        assertMatchesBruteForce(60, 40);
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private void assertMatchesBruteForce(long span, int capacity) {
+        PriceWindowTracker.RollingWindow window = new PriceWindowTracker.RollingWindow(span, capacity);
+        Random random = new Random(42);
+        long[] times = new long[500];
+        double[] prices = new double[500];
+        long t = 0;
+
+        for (int i = 0; i < times.length; i++) {
+            t += random.nextInt(4);
+            times[i] = t;
+            prices[i] = random.nextInt(1000);
+            window.add(times[i], prices[i]);
+
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int j = Math.max(0, i - capacity + 1); j <= i; j++) {
+                if (times[j] < t - span) continue;
+                min = Math.min(min, prices[j]);
+                max = Math.max(max, prices[j]);
+            }
+            assertThat(window.min()).as("min at %d", i).isEqualTo(min);
+            assertThat(window.max()).as("max at %d", i).isEqualTo(max);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("buffer 從小容量開始，依實際樣本數加倍到上限")
+    void rollingWindow_growsOnDemand() {
+        PriceWindowTracker.RollingWindow window = new PriceWindowTracker.RollingWindow(60 * MINUTE, 2048);
+        assertThat(window.capacity()).isEqualTo(PriceWindowTracker.RollingWindow.INITIAL_CAPACITY);
+
+        // 每 5 分鐘一筆：1 小時的視窗最多 13 筆，不需要成長
+        for (int i = 0; i < 100; i++) {
+            window.add(i * 5 * MINUTE, 100 + i);
+        }
+        assertThat(window.capacity()).isEqualTo(PriceWindowTracker.RollingWindow.INITIAL_CAPACITY);
+        assertThat(window.size()).isEqualTo(13);
+
+        // 每分鐘一筆：61 筆時成長到 64
+        for (int i = 0; i < 61; i++) {
+            window.add(600 * MINUTE + i * MINUTE, 500 - i);
+        }
+        assertThat(window.capacity()).isEqualTo(64);
+        assertThat(window.size()).isEqualTo(61);
+        assertThat(window.max()).isEqualTo(500);
+        assertThat(window.min()).isEqualTo(440);
+    }
+
+    @Test
+    @DisplayName("release 後不再保留該代號的視窗")
+    void release_dropsSymbol() {
+        PriceWindowTracker tracker = new PriceWindowTracker();
+        tracker.record("BTC", System.currentTimeMillis(), 100);
+
+        tracker.release("btc");
+
+        assertThat(tracker.isTracking("BTC")).isFalse();
+    }
+
+    @Test
+    @DisplayName("record 回傳各觀察區間相對低點的漲幅與相對高點的跌幅")
+    void record_returnsMovesPerWindow() {
+        PriceWindowTracker tracker = new PriceWindowTracker();
+        long now = System.currentTimeMillis();
+
+        tracker.record("btc", now - 2 * 60 * MINUTE, 80);
+        tracker.record("BTC", now - 30 * MINUTE, 100);
+        Map<PriceAlert.AlertWindow, PriceWindowTracker.WindowMove> moves = tracker.record("BTC", now, 95);
+
+        assertThat(moves.get(PriceAlert.AlertWindow.ONE_HOUR).risePercent()).isCloseTo(0, within(1e-9));
+        assertThat(moves.get(PriceAlert.AlertWindow.ONE_HOUR).dropPercent()).isCloseTo(5, within(1e-9));
+        assertThat(moves.get(PriceAlert.AlertWindow.TWENTY_FOUR_HOURS).risePercent()).isCloseTo(18.75, within(1e-9));
+    }
+}
@@ -0,0 +1,91 @@
+package com.pocketfolio.backend.service;
+
+import com.pocketfolio.backend.entity.Asset;
+import com.pocketfolio.backend.entity.AssetType;
+import com.pocketfolio.backend.entity.Quote;
+import com.pocketfolio.backend.repository.QuoteRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuoteService 單元測試")
+class QuoteServiceTest {
+
+    @Mock private QuoteRepository quoteRepository;
+
+    @InjectMocks private QuoteService service;
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private Asset assetOf(String symbol, AssetType type, String currentPrice) {
+        Asset asset = new Asset();
+        asset.setSymbol(symbol);
+        asset.setType(type);
+        asset.setQuantity(new BigDecimal("10"));
+        asset.setCostPrice(new BigDecimal(currentPrice));
+        asset.setCurrentPrice(new BigDecimal(currentPrice));
+        return asset;
+    }
+
+    private Quote quoteOf(String symbol, AssetType type, String price) {
+        Quote quote = new Quote();
+        quote.setSymbol(symbol);
+        quote.setAssetType(type);
+        quote.setPrice(new BigDecimal(price));
+        quote.setCurrency("TWD");
+        quote.setUpdatedAt(LocalDateTime.now());
+        return quote;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("一次查詢附加報價，市值改用最新報價計算")
+    void attachQuotes_singleQuery_usesLatestPrice() {
+        Asset tsmc = assetOf("2330.TW", AssetType.STOCK, "800");
+        Asset tsmcInBank = assetOf("2330.TW", AssetType.STOCK, "800");
+        given(quoteRepository.findBySymbolIn(Set.of("2330.TW")))
+                .willReturn(List.of(quoteOf("2330.TW", AssetType.STOCK, "850")));
+
+        service.attachQuotes(List.of(tsmc, tsmcInBank));
+
+        assertThat(tsmc.getLatestPrice()).isEqualByComparingTo("850");
+        assertThat(tsmcInBank.getMarketValue()).isEqualByComparingTo("8500");
+        then(quoteRepository).should(times(1)).findBySymbolIn(any());
+    }
+
+    @Test
+    @DisplayName("同代號但類型不同的報價不套用，沿用資產本身的價格")
+    void attachQuotes_typeMismatch_fallsBackToAssetPrice() {
+        Asset asset = assetOf("ABC", AssetType.CRYPTO, "12");
+        given(quoteRepository.findBySymbolIn(Set.of("ABC")))
+                .willReturn(List.of(quoteOf("ABC", AssetType.STOCK, "99")));
+
+        service.attachQuotes(List.of(asset));
+
+        assertThat(asset.getQuote()).isNull();
+        assertThat(asset.getLatestPrice()).isEqualByComparingTo("12");
+    }
+
+    @Test
+    @DisplayName("沒有資產或沒有報價時不查詢 / 不寫入")
+    void emptyInputs_skipRepository() {
+        service.attachQuotes(List.of());
+
+        assertThat(service.upsertAll(List.of(), LocalDateTime.now())).isEmpty();
+        then(quoteRepository).shouldHaveNoInteractions();
+    }
+}
@@ -0,0 +1,149 @@
+package com.pocketfolio.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SnapshotPartitionService 單元測試")
+class SnapshotPartitionServiceTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private SnapshotPartitionService service;
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @BeforeEach
+    void setUp() {
+        service = new SnapshotPartitionService(jdbcTemplate, transactionManager);
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private void givenExistingPartitions(String... names) {
+        given(jdbcTemplate.queryForObject(contains("FROM pg_class"), eq(Integer.class), anyString()))
+                .willAnswer(inv -> List.of(names).contains(inv.getArgument(2, String.class)) ? 1 : 0);
+    }
+
+    private void insertSnapshot(JdbcTemplate h2, String assetId, String date,
+                                String price, String open, String high, String low) {
+        h2.update("INSERT INTO asset_snapshots_p202408 VALUES (?, ?, ?, ?, ?, ?)",
+                assetId, LocalDate.parse(date), new BigDecimal(price), decimal(open), decimal(high), decimal(low));
+    }
+
+    private BigDecimal decimal(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("分區名稱為 asset_snapshots_pYYYYMM，字串順序即月份順序")
+    void partitionName_sortableByMonth() {
+        assertThat(SnapshotPartitionService.partitionName(YearMonth.of(2026, 1)))
+                .isEqualTo("asset_snapshots_p202601");
+        assertThat(SnapshotPartitionService.partitionName(YearMonth.of(2025, 12)))
+                .isLessThan(SnapshotPartitionService.partitionName(YearMonth.of(2026, 1)));
+    }
+
+    @Test
+    @DisplayName("預先建立當月與之後 3 個月的分區，已存在的略過")
+    void ensurePartitions_createsMissingMonthsAhead() {
+        givenExistingPartitions("asset_snapshots_p202610");
+
+        int created = service.ensurePartitions(TODAY);
+
+        assertThat(created).isEqualTo(3);
+        ArgumentCaptor<String> ddl = ArgumentCaptor.forClass(String.class);
+        then(jdbcTemplate).should(times(3)).execute(ddl.capture());
+        assertThat(ddl.getAllValues()).containsExactly(
+                "CREATE TABLE IF NOT EXISTS asset_snapshots_p202611 PARTITION OF asset_snapshots " +
+                        "FOR VALUES FROM ('2026-11-01') TO ('2026-12-01')",
+                "CREATE TABLE IF NOT EXISTS asset_snapshots_p202612 PARTITION OF asset_snapshots " +
+                        "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')",
+                "CREATE TABLE IF NOT EXISTS asset_snapshots_p202701 PARTITION OF asset_snapshots " +
+                        "FOR VALUES FROM ('2027-01-01') TO ('2027-02-01')");
+    }
+
+    @Test
+    @DisplayName("只壓縮早於保留期限且尚未壓縮的分區，完成後標記")
+    void compactBefore_compactsOldPartitionsAndMarksThem() {
+        given(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class),
+                eq("asset_snapshots"), eq("asset_snapshots_p202510"), eq(SnapshotPartitionService.COMPACTED_COMMENT)))
+                .willReturn(List.of("asset_snapshots_p202408", "asset_snapshots_p202409"));
+        given(jdbcTemplate.update(startsWith("UPDATE"))).willReturn(8);
+        given(jdbcTemplate.update(startsWith("DELETE"))).willReturn(40, 35);
+
+        int deleted = service.compactBefore(TODAY);
+
+        assertThat(deleted).isEqualTo(75);
+        then(jdbcTemplate).should().update(startsWith("UPDATE asset_snapshots_p202408 s SET"));
+        then(jdbcTemplate).should().update(startsWith("DELETE FROM asset_snapshots_p202408 s WHERE EXISTS"));
+        then(jdbcTemplate).should().execute("COMMENT ON TABLE asset_snapshots_p202408 IS 'compacted:weekly'");
+        then(jdbcTemplate).should().execute("COMMENT ON TABLE asset_snapshots_p202409 IS 'compacted:weekly'");
+    }
+
+    @Test
+    @DisplayName("壓縮後留下的每週快照帶有整週的開高低價（H2 執行實際 SQL）")
+    void compactPartition_keepsWeeklyRange() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:compact;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate h2 = new JdbcTemplate(dataSource);
+        SnapshotPartitionService h2Service =
+                new SnapshotPartitionService(h2, new DataSourceTransactionManager(dataSource));
+        h2.execute("DROP TABLE IF EXISTS asset_snapshots_p202408");
+        h2.execute("CREATE TABLE asset_snapshots_p202408 (asset_id VARCHAR(10), snapshot_date DATE, " +
+                "current_price DECIMAL(19, 2), day_open DECIMAL(19, 2), day_high DECIMAL(19, 2), day_low DECIMAL(19, 2))");
+        // 2024-08-05（一）～ 08-09（五）：週三沒有盤中統計，只有當日價格 120（整週最高）
+        insertSnapshot(h2, "A", "2024-08-05", "105", "100", "110", "95");
+        insertSnapshot(h2, "A", "2024-08-07", "120", null, null, null);
+        insertSnapshot(h2, "A", "2024-08-09", "108", "104", "115", "90");
+        // 該週只有一筆的資產不變
+        insertSnapshot(h2, "B", "2024-08-06", "50", null, null, null);
+
+        int deleted = h2Service.compactPartition("asset_snapshots_p202408");
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(h2.queryForMap("SELECT * FROM asset_snapshots_p202408 WHERE asset_id = 'A'"))
+                .satisfies(row -> {
+                    assertThat(row.get("SNAPSHOT_DATE").toString()).isEqualTo("2024-08-09");
+                    assertThat((BigDecimal) row.get("CURRENT_PRICE")).isEqualByComparingTo("108");
+                    assertThat((BigDecimal) row.get("DAY_OPEN")).isEqualByComparingTo("100");
+                    assertThat((BigDecimal) row.get("DAY_HIGH")).isEqualByComparingTo("120");
+                    assertThat((BigDecimal) row.get("DAY_LOW")).isEqualByComparingTo("90");
+                });
+        assertThat(h2.queryForMap("SELECT * FROM asset_snapshots_p202408 WHERE asset_id = 'B'"))
+                .satisfies(row -> assertThat(row.get("DAY_OPEN")).isNull());
+    }
+
+    @Test
+    @DisplayName("尚未轉為分區表時排程維護不做任何事")
+    void maintain_notPartitioned_noop() {
+        given(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), any()))
+                .willReturn(List.of("r"));
+
+        service.maintain(TODAY);
+
+        then(jdbcTemplate).should(never()).execute(anyString());
+        then(jdbcTemplate).should(never()).update(anyString());
+    }
+}
@@ -0,0 +1,148 @@
+package com.pocketfolio.backend.service.external;
+
+import com.pocketfolio.backend.dto.PriceData;
+import com.pocketfolio.backend.service.ApiRateLimiter;
+import com.pocketfolio.backend.service.PriceCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CoinGeckoService 批次取價單元測試")
+class CoinGeckoServiceTest {
+
+    private static final String BASE_URL = "https://coingecko.test/api/v3";
+
+    @Mock private PriceCacheService priceCacheService;
+    @Mock private ApiRateLimiter rateLimiter;
+
+    private final List<URI> requests = new ArrayList<>();
+    private Function<URI, ClientResponse> responder;
+
+    private CoinGeckoService service;
+
+    @BeforeEach
+    void setUp() {
+        // 限流器直接放行原本的請求
+        lenient().when(rateLimiter.throttle(any(), any())).thenAnswer(inv -> inv.getArgument(1));
+
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(this::exchange);
+        service = new CoinGeckoService(builder, priceCacheService, rateLimiter);
+        ReflectionTestUtils.setField(service, "baseUrl", BASE_URL);
+        service.initWebClient();
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+        synchronized (requests) {
+            requests.add(request.url());
+        }
+        return Mono.just(responder.apply(request.url()));
+    }
+
+    private static List<String> ids(URI uri) {
+        String ids = UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst("ids");
+        return Arrays.asList(ids.split(","));
+    }
+
+    // /simple/price 的回應格式：{"bitcoin":{"usd":64000.5}, ...}
+    private static ClientResponse simplePrice(List<String> ids) {
+        String body = ids.stream()
+                .map(id -> "\"" + id + "\":{\"usd\":" + (id.length() * 10) + "}")
+                .collect(Collectors.joining(",", "{", "}"));
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    private static List<String> coinIds(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "coin-" + i).toList();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("id 轉小寫去重後每 250 個一批查詢 /simple/price")
+    void getPrices_chunksAtTwoHundredFifty() {
+        responder = uri -> simplePrice(ids(uri));
+
+        List<String> ids = new ArrayList<>(coinIds(520));
+        ids.add("COIN-0");
+        Map<String, PriceData> prices = service.getPrices(ids);
+
+        assertThat(prices).hasSize(520);
+        assertThat(requests).allSatisfy(uri -> assertThat(uri.getPath()).isEqualTo("/api/v3/simple/price"));
+        assertThat(requests).extracting(uri -> ids(uri).size()).containsExactlyInAnyOrder(250, 250, 20);
+    }
+
+    @Test
+    @DisplayName("單一批次失敗只略過該批，其他批次照常回傳")
+    void getPrices_failedChunkIsolated() {
+        responder = uri -> ids(uri).contains("coin-0")
+                ? ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).build()
+                : simplePrice(ids(uri));
+
+        Map<String, PriceData> prices = service.getPrices(coinIds(300));
+
+        assertThat(prices).hasSize(50);
+        assertThat(prices).doesNotContainKey("coin-0").containsKey("coin-299");
+    }
+
+    @Test
+    @DisplayName("沒有 usd 報價的 id 略過")
+    void getPrices_missingUsdSkipped() {
+        responder = uri -> ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"bitcoin\":{\"usd\":64000.5},\"unknown-coin\":{}}")
+                .build();
+
+        Map<String, PriceData> prices = service.getPrices(List.of("Bitcoin", "unknown-coin"));
+
+        assertThat(prices).containsOnlyKeys("bitcoin");
+        assertThat(prices.get("bitcoin").getPrice()).isEqualByComparingTo("64000.5");
+    }
+
+    @Test
+    @DisplayName("每批結果以一次 putAll 寫入 prices 快取的 crypto: key")
+    @SuppressWarnings("unchecked")
+    void getPrices_writesCacheKeysPerChunk() {
+        responder = uri -> simplePrice(ids(uri));
+
+        service.getPrices(coinIds(260));
+
+        ArgumentCaptor<Map<String, PriceData>> captor = ArgumentCaptor.forClass(Map.class);
+        then(priceCacheService).should(times(2)).putAll(captor.capture());
+        assertThat(captor.getAllValues()).extracting(Map::size).containsExactlyInAnyOrder(250, 10);
+        assertThat(captor.getAllValues().stream().flatMap(m -> m.keySet().stream()))
+                .contains("crypto:coin-0", "crypto:coin-259")
+                .allSatisfy(key -> assertThat(key).startsWith("crypto:"));
+    }
+}
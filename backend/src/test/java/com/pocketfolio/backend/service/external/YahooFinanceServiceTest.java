@@ -0,0 +1,221 @@
+package com.pocketfolio.backend.service.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pocketfolio.backend.dto.PriceData;
+import com.pocketfolio.backend.dto.external.YahooSparkResponse;
+import com.pocketfolio.backend.service.ApiRateLimiter;
+import com.pocketfolio.backend.service.PriceCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("YahooFinanceService 批次取價單元測試")
+class YahooFinanceServiceTest {
+
+    private static final String CHART_URL = "https://yahoo.test/v8/finance/chart";
+    private static final String SPARK_URL = "https://yahoo.test/v8/finance/spark";
+
+    @Mock private PriceCacheService priceCacheService;
+    @Mock private ApiRateLimiter rateLimiter;
+
+    private final List<URI> requests = new ArrayList<>();
+    // 依請求回應的 stub；回傳 null 時視為 404
+    private Function<URI, ClientResponse> responder;
+
+    private YahooFinanceService service;
+
+    @BeforeEach
+    void setUp() {
+        // 限流器直接放行原本的請求
+        lenient().when(rateLimiter.throttle(any(), any())).thenAnswer(inv -> inv.getArgument(1));
+
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(this::exchange);
+        service = new YahooFinanceService(builder, priceCacheService, rateLimiter);
+        ReflectionTestUtils.setField(service, "baseUrl", CHART_URL);
+        ReflectionTestUtils.setField(service, "sparkUrl", SPARK_URL);
+        service.initWebClients();
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+        synchronized (requests) {
+            requests.add(request.url());
+        }
+        ClientResponse response = responder.apply(request.url());
+        return Mono.just(response != null ? response : ClientResponse.create(HttpStatus.NOT_FOUND).build());
+    }
+
+    private static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    private static String fixture(String path) throws IOException {
+        return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private static String sparkBody(List<String> symbols) {
+        return symbols.stream()
+                .map(s -> "\"" + s + "\":{\"symbol\":\"" + s + "\",\"timestamp\":[1760662800],"
+                        + "\"close\":[" + (100 + s.hashCode() % 50) + "],\"chartPreviousClose\":99}")
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static String chartBody(String price) {
+        return "{\"chart\":{\"result\":[{\"meta\":{\"regularMarketPrice\":" + price + "}}],\"error\":null}}";
+    }
+
+    private static List<String> sparkSymbols(URI uri) {
+        String query = uri.getQuery();
+        String symbols = Arrays.stream(query.split("&"))
+                .filter(p -> p.startsWith("symbols="))
+                .findFirst().orElseThrow()
+                .substring("symbols=".length());
+        return Arrays.asList(symbols.split(","));
+    }
+
+    private List<URI> sparkRequests() {
+        return requests.stream().filter(u -> u.toString().startsWith(SPARK_URL)).toList();
+    }
+
+    private List<URI> chartRequests() {
+        return requests.stream().filter(u -> u.toString().startsWith(CHART_URL)).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, PriceData> cachedEntries() {
+        ArgumentCaptor<Map<String, PriceData>> captor = ArgumentCaptor.forClass(Map.class);
+        then(priceCacheService).should(atLeastOnce()).putAll(captor.capture());
+        return captor.getAllValues().stream()
+                .flatMap(m -> m.entrySet().stream())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("v8 spark 回應是以代號為 key 的 map，取 close 最後一個非 null 值")
+    void sparkResponse_parsesV8Fixture() throws Exception {
+        YahooSparkResponse response = new ObjectMapper()
+                .readValue(fixture("external/yahoo-spark-v8.json"), YahooSparkResponse.class);
+
+        assertThat(response.getPrices())
+                .containsOnlyKeys("2330.TW", "0050.TW", "AAPL")
+                .hasEntrySatisfying("2330.TW", p -> assertThat(p).isEqualByComparingTo("1465.0"))
+                .hasEntrySatisfying("0050.TW", p -> assertThat(p).isEqualByComparingTo("61.5"))
+                .hasEntrySatisfying("AAPL", p -> assertThat(p).isEqualByComparingTo("252.29"));
+    }
+
+    @Test
+    @DisplayName("v8 spark 回應直接解析成價格，不需逐筆 chart 補查")
+    void getPrices_v8SparkFixture_noChartFallback() throws Exception {
+        String body = fixture("external/yahoo-spark-v8.json");
+        responder = uri -> uri.toString().startsWith(SPARK_URL) ? json(body) : null;
+
+        Map<String, PriceData> prices = service.getPrices(List.of("2330.tw", "0050.TW", "AAPL"));
+
+        assertThat(prices).containsOnlyKeys("2330.TW", "0050.TW", "AAPL");
+        assertThat(prices.get("2330.TW").getPrice()).isEqualByComparingTo("1465.0");
+        assertThat(sparkRequests()).hasSize(1);
+        assertThat(chartRequests()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("代號去重後每 20 個一批查詢 spark")
+    void getPrices_chunksAtTwenty() {
+        List<String> symbols = IntStream.range(0, 45).mapToObj(i -> (1000 + i) + ".TW").toList();
+        responder = uri -> json(sparkBody(sparkSymbols(uri)));
+
+        List<String> withDuplicates = new ArrayList<>(symbols);
+        withDuplicates.add("1000.tw");
+        Map<String, PriceData> prices = service.getPrices(withDuplicates);
+
+        assertThat(prices).hasSize(45);
+        assertThat(sparkRequests()).extracting(u -> sparkSymbols(u).size())
+                .containsExactlyInAnyOrder(20, 20, 5);
+        assertThat(chartRequests()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("spark 沒有回傳的代號改用 chart API 逐筆補查")
+    void getPrices_missingFromSpark_fallsBackToChart() {
+        responder = uri -> {
+            if (uri.toString().startsWith(SPARK_URL)) return json(sparkBody(List.of("2330.TW")));
+            if (uri.getPath().endsWith("/00878.TW")) return json(chartBody("22.15"));
+            return null;
+        };
+
+        Map<String, PriceData> prices = service.getPrices(List.of("2330.TW", "00878.TW"));
+
+        assertThat(prices).containsOnlyKeys("2330.TW", "00878.TW");
+        assertThat(prices.get("00878.TW").getPrice()).isEqualByComparingTo("22.15");
+        assertThat(chartRequests()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("單一批次失敗不影響其他批次，失敗批次的代號由 chart 補查")
+    void getPrices_failedChunkIsolated() {
+        List<String> symbols = IntStream.range(0, 25).mapToObj(i -> (2000 + i) + ".TW").toList();
+        responder = uri -> {
+            if (uri.toString().startsWith(SPARK_URL)) {
+                List<String> chunk = sparkSymbols(uri);
+                return chunk.size() == 5
+                        ? ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build()
+                        : json(sparkBody(chunk));
+            }
+            return json(chartBody("10"));
+        };
+
+        Map<String, PriceData> prices = service.getPrices(symbols);
+
+        assertThat(prices).hasSize(25);
+        assertThat(chartRequests()).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("批次與補查的結果都寫入 prices 快取的 stock: key")
+    void getPrices_writesCacheKeys() {
+        responder = uri -> {
+            if (uri.toString().startsWith(SPARK_URL)) return json(sparkBody(List.of("AAPL")));
+            return json(chartBody("850"));
+        };
+
+        service.getPrices(List.of("aapl", "2330.TW"));
+
+        assertThat(cachedEntries())
+                .containsOnlyKeys("stock:AAPL", "stock:2330.TW")
+                .hasEntrySatisfying("stock:2330.TW", d -> assertThat(d.getPrice()).isEqualByComparingTo("850"));
+    }
+}
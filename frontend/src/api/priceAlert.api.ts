@@ -1,7 +1,9 @@
 import axios from './axios';
 import type { AssetType } from '@/types/asset.types';
 
-export type AlertCondition = 'ABOVE' | 'BELOW';
+export type AlertCondition = 'ABOVE' | 'BELOW' | 'CROSS' | 'PERCENT_CHANGE';
+
+export type AlertWindow = 'ONE_HOUR' | 'TWENTY_FOUR_HOURS';
 
 export interface PriceAlert {
   id: string;
@@ -9,10 +11,13 @@ export interface PriceAlert {
   symbol: string;
   assetType: AssetType;
   condition: AlertCondition;
-  targetPrice: number;
+  targetPrice?: number;
+  changePercent?: number;   // PERCENT_CHANGE：正數為漲幅、負數為跌幅（%）
+  changeWindow?: AlertWindow;
   active: boolean;
   triggered: boolean;
   triggeredAt?: string;
+  autoRearm: boolean;       // 觸發後價格離開遲滯區間且冷卻結束即自動重新啟用
   createdAt: string;
   note?: string;
   currentPrice?: number;
@@ -24,7 +29,10 @@ export interface PriceAlertRequest {
   symbol: string;
   assetType: AssetType;
   condition: AlertCondition;
-  targetPrice: number;
+  targetPrice?: number;     // ABOVE / BELOW / CROSS 必填
+  changePercent?: number;   // PERCENT_CHANGE 必填
+  changeWindow?: AlertWindow;
+  autoRearm?: boolean;
   note?: string;
 }
 
@@ -1,19 +1,25 @@
 import axios from './axios';
 
+// 資料點粒度：範圍超過資料點上限時後端改回傳週 / 月彙總
+export type HistoryResolution = 'DAILY' | 'WEEKLY' | 'MONTHLY';
+
 export interface PortfolioHistoryPoint {
-  date: string;
+  date: string; // 週 / 月粒度為區間內最後一天
   totalMarketValue: number;
   totalCost: number;
   totalProfitLoss: number;
   totalProfitLossPercent: number;
   assetCount: number;
+  resolution?: HistoryResolution;
+  highMarketValue?: number;
+  lowMarketValue?: number;
 }
 
 export const snapshotApi = {
   // 查詢投資組合歷史趨勢
-  getPortfolioHistory: async (days: number = 30): Promise<PortfolioHistoryPoint[]> => {
+  getPortfolioHistory: async (days: number = 30, maxPoints?: number): Promise<PortfolioHistoryPoint[]> => {
     const response = await axios.get<PortfolioHistoryPoint[]>('/snapshots/portfolio/history', {
-      params: { days },
+      params: { days, maxPoints },
     });
     return response.data;
   },
@@ -1,5 +1,5 @@
 import { useEffect, useRef } from 'react';
-import { Client } from '@stomp/stompjs';
+import { Client, type StompSubscription } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
 import { notification } from 'antd';
 import { useWebSocketStore } from '@/store/websocketStore';
@@ -7,9 +7,14 @@ import { useAuthStore } from '@/store/authStore';
 
 const WS_URL = import.meta.env.VITE_WS_URL || 'http://localhost:8080/ws';
 
+// 同一個推送週期的多個代號 frame 合併為一次 reload
+const PRICE_NOTIFY_DELAY_MS = 200;
+
 export const useWebSocket = () => {
   const clientRef = useRef<Client | null>(null);
-  const { setConnected, notifyPriceUpdate } = useWebSocketStore();
+  const priceSubsRef = useRef<StompSubscription[]>([]);
+  const notifyTimerRef = useRef<ReturnType<typeof setTimeout> | null>(null);
+  const { isConnected, watchedSymbols, setConnected, notifyPriceUpdate, setPortfolio } = useWebSocketStore();
   const { token } = useAuthStore();
 
   useEffect(() => {
@@ -21,28 +26,37 @@ export const useWebSocket = () => {
       // JWT 認證透過 STOMP header 傳入
       connectHeaders: {
         Authorization: `Bearer ${token}`,
+        // 價格 frame 改用精簡編碼（代號字典 + 整數價格），畫面只需要知道有更新，不解析內容
+        'x-price-encoding': 'compact',
       },
 
       reconnectDelay: 5000, // 斷線後 5 秒自動重連
 
+      // 與 server 的 STOMP 心跳一致，連線停住時雙方都能偵測
+      heartbeatIncoming: 10000,
+      heartbeatOutgoing: 10000,
+
       onConnect: () => {
         setConnected(true);
 
-        // 訂閱廣播價格更新（所有用戶）
-        client.subscribe('/topic/price-updates', () => {
-          notifyPriceUpdate();
-        });
-
-        // 訂閱個人警報通知
+        // 訂閱個人警報通知（同一次價格更新觸發的警報合併為一則）
         client.subscribe('/user/queue/alerts', (message) => {
-          const alert = JSON.parse(message.body);
+          const payload = JSON.parse(message.body);
+          const symbols: string[] = (payload.alerts ?? []).map((a: { symbol: string }) => a.symbol);
           notification.warning({
             message: '價格警報觸發',
-            description: `${alert.assetName}（${alert.symbol}）已達到您設定的警報條件`,
+            description: symbols.length > 0
+              ? `${symbols.join('、')} 已達到您設定的警報條件`
+              : payload.message,
             placement: 'topRight',
             duration: 8,
           });
         });
+
+        // 訂閱個人投資組合市值（訂閱時先收到一次目前市值，之後隨報價推送）
+        client.subscribe('/user/queue/portfolio', (message) => {
+          setPortfolio(JSON.parse(message.body));
+        });
       },
 
       onDisconnect: () => {
@@ -60,8 +74,34 @@ export const useWebSocket = () => {
     return () => {
       client.deactivate();
       clientRef.current = null;
+      priceSubsRef.current = [];
       setConnected(false);
+      setPortfolio(null);
     };
   // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [token]);
+
+  // 訂閱畫面上代號的價格推送（/topic/prices/{symbol}），代號清單變動或重連時重新訂閱
+  useEffect(() => {
+    const client = clientRef.current;
+    if (!client || !isConnected) return;
+
+    priceSubsRef.current = watchedSymbols.map((symbol) =>
+      client.subscribe(`/topic/prices/${symbol}`, () => {
+        if (notifyTimerRef.current) return;
+        notifyTimerRef.current = setTimeout(() => {
+          notifyTimerRef.current = null;
+          notifyPriceUpdate();
+        }, PRICE_NOTIFY_DELAY_MS);
+      })
+    );
+
+    return () => {
+      if (client.connected) {
+        priceSubsRef.current.forEach((sub) => sub.unsubscribe());
+      }
+      priceSubsRef.current = [];
+    };
+  // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [isConnected, watchedSymbols]);
 };
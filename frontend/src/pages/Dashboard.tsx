@@ -8,6 +8,7 @@ import {
 } from '@ant-design/icons';
 import { statisticsApi, type MonthlyStatistics, type AccountBalance } from '@/api/statistics.api';
 import { accountApi } from '@/api/account.api';
+import { useWebSocketStore } from '@/store/websocketStore';
 
 const { Title } = Typography;
 
@@ -17,6 +18,7 @@ const Dashboard = () => {
   const [monthlyStats, setMonthlyStats] = useState<MonthlyStatistics | null>(null);
   const [accountBalances, setAccountBalances] = useState<AccountBalance[]>([]);
   const [accountCount, setAccountCount] = useState(0);
+  const { portfolio } = useWebSocketStore();  // 投資市值由 WebSocket 即時推送，不需輪詢
 
   useEffect(() => {
     const fetchData = async () => {
@@ -107,6 +109,21 @@ const Dashboard = () => {
             />
           </Card>
         </Col>
+
+        {portfolio && (
+          <Col xs={24} sm={12} lg={6}>
+            <Card>
+              <Statistic
+                title="投資市值（即時）"
+                value={portfolio.totalMarketValue}
+                precision={0}
+                prefix={portfolio.profitLoss >= 0 ? <RiseOutlined /> : <FallOutlined />}
+                suffix={`（${portfolio.profitLossPercent >= 0 ? '+' : ''}${portfolio.profitLossPercent}%）`}
+                valueStyle={{ color: portfolio.profitLoss >= 0 ? '#3f8600' : '#cf1322' }}
+              />
+            </Card>
+          </Col>
+        )}
       </Row>
 
       <Card style={{ marginTop: '24px' }}>
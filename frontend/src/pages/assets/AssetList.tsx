@@ -56,7 +56,7 @@ const AssetList = () => {
   const [updating, setUpdating] = useState(false);
   const [exchangeRate, setExchangeRate] = useState<ExchangeRateData | null>(null);
   const [form] = Form.useForm();
-  const { lastPriceUpdateAt } = useWebSocketStore();
+  const { lastPriceUpdateAt, setWatchedSymbols } = useWebSocketStore();
 
   // AutoComplete 狀態
   // searchMarket 控制搜哪個清單（STOCK_TW / STOCK_TWO / CRYPTO），與送出的 type 欄位（STOCK / CRYPTO）分開
@@ -120,6 +120,11 @@ const AssetList = () => {
     loadAccounts();
   }, []);
 
+  // 只訂閱目前顯示資產的價格推送
+  useEffect(() => {
+    setWatchedSymbols(assets.map((a) => a.symbol));
+  }, [assets, setWatchedSymbols]);
+
   // 後端推播價格更新時自動 reload
   useEffect(() => {
     if (lastPriceUpdateAt && selectedAccount) {
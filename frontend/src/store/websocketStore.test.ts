@@ -3,7 +3,7 @@ import { useWebSocketStore } from './websocketStore';
 
 describe('useWebSocketStore', () => {
   beforeEach(() => {
-    useWebSocketStore.setState({ isConnected: false, lastPriceUpdateAt: null });
+    useWebSocketStore.setState({ isConnected: false, lastPriceUpdateAt: null, watchedSymbols: [] });
   });
 
   describe('初始狀態', () => {
@@ -52,4 +52,11 @@ describe('useWebSocketStore', () => {
       vi.useRealTimers();
     });
   });
+
+  describe('setWatchedSymbols', () => {
+    it('代號轉大寫、去重並排序', () => {
+      useWebSocketStore.getState().setWatchedSymbols(['eth', '2330.TW', 'ETH']);
+      expect(useWebSocketStore.getState().watchedSymbols).toEqual(['2330.TW', 'ETH']);
+    });
+  });
 });
@@ -1,17 +1,39 @@
 import { create } from 'zustand';
 
+// 後端推送到 /user/queue/portfolio 的投資組合市值
+export interface PortfolioValue {
+  totalMarketValue: number;
+  totalCost: number;
+  profitLoss: number;
+  profitLossPercent: number;
+  updateTime: string;
+}
+
 interface WebSocketStore {
   isConnected: boolean;
   lastPriceUpdateAt: number | null; // timestamp，AssetList 監聽這個來觸發 reload
+  watchedSymbols: string[];         // 畫面上顯示的代號，只訂閱這些代號的 /topic/prices/{symbol}
+  portfolio: PortfolioValue | null; // 最新的投資組合市值（隨報價推送）
 
   setConnected: (connected: boolean) => void;
   notifyPriceUpdate: () => void;
+  setWatchedSymbols: (symbols: string[]) => void;
+  setPortfolio: (portfolio: PortfolioValue | null) => void;
 }
 
-export const useWebSocketStore = create<WebSocketStore>((set) => ({
+export const useWebSocketStore = create<WebSocketStore>((set, get) => ({
   isConnected: false,
   lastPriceUpdateAt: null,
+  watchedSymbols: [],
+  portfolio: null,
 
   setConnected: (connected) => set({ isConnected: connected }),
   notifyPriceUpdate: () => set({ lastPriceUpdateAt: Date.now() }),
+  setWatchedSymbols: (symbols) => {
+    const next = [...new Set(symbols.map((s) => s.toUpperCase()))].sort();
+    // 內容相同時不更新，避免每次 reload 都重新訂閱
+    if (next.join(',') === get().watchedSymbols.join(',')) return;
+    set({ watchedSymbols: next });
+  },
+  setPortfolio: (portfolio) => set({ portfolio }),
 }));